@@ -77,6 +77,26 @@ public class RaptorParameters {
         this.config = config;
     }
 
+    /**
+     * Creates a copy of the given parameters, so single values can be changed without affecting other users of them.
+     */
+    RaptorParameters(RaptorParameters parameters) {
+        this.searchRadius = parameters.searchRadius;
+        this.extensionRadius = parameters.extensionRadius;
+        this.directWalkFactor = parameters.directWalkFactor;
+        this.beelineWalkSpeed = parameters.beelineWalkSpeed;
+        this.marginalUtilityOfTravelTime_utl_s.putAll(parameters.marginalUtilityOfTravelTime_utl_s);
+        this.marginalUtilityOfWaitingPt_utl_s = parameters.marginalUtilityOfWaitingPt_utl_s;
+        this.transferPenaltyFixCostPerTransfer = parameters.transferPenaltyFixCostPerTransfer;
+        this.transferPenaltyPerTravelTimeHour = parameters.transferPenaltyPerTravelTimeHour;
+        this.transferPenaltyMinimum = parameters.transferPenaltyMinimum;
+        this.transferPenaltyMaximum = parameters.transferPenaltyMaximum;
+        this.useTransportModeUtilities = parameters.useTransportModeUtilities;
+        this.config = parameters.config;
+        this.maxTransfers = parameters.maxTransfers;
+        this.exactDeparturesOnly = parameters.exactDeparturesOnly;
+    }
+
     public SwissRailRaptorConfigGroup getConfig() {
         return config;
     }
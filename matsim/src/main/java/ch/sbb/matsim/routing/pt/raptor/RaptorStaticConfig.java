@@ -88,6 +88,7 @@ public class RaptorStaticConfig {
 
     private RaptorOptimization optimization = RaptorOptimization.OneToOneRouting;
     private RaptorTransferCalculation transferCalculation = RaptorTransferCalculation.Initial;
+    private String transferCacheDirectory = null;
 
 	private SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling intermodalLegOnlyHandling = SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling.forbid;
 
@@ -192,4 +193,12 @@ public class RaptorStaticConfig {
     public void setTransferCalculation(RaptorTransferCalculation transferCalculation) {
         this.transferCalculation = transferCalculation;
     }
+
+    public String getTransferCacheDirectory() {
+        return this.transferCacheDirectory;
+    }
+
+    public void setTransferCacheDirectory(String transferCacheDirectory) {
+        this.transferCacheDirectory = transferCacheDirectory;
+    }
 }
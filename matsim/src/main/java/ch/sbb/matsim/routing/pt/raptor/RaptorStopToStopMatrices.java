@@ -0,0 +1,270 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Stop-to-stop matrices of travel time, travel cost and number of transfers, calculated with one least-cost tree per
+ * origin stop and departure time.  The trees of the different origin stops are calculated in parallel, each thread using
+ * its own {@link SwissRailRaptorCore}.
+ * <p>
+ * The matrices are stored as dense arrays with one row per origin stop, in the order in which the origin stops were given,
+ * and one column per stop facility served by the schedule, using the stop index of {@link SwissRailRaptorData}.  Use
+ * {@link #getDestinationIndex(TransitStopFacility)} to find the column of a stop.
+ * <p>
+ * If the earliest and the latest departure time are the same, a single tree is calculated per origin stop, and the travel
+ * time includes the time waiting at the origin stop.  Otherwise, a tree is calculated for every departure at the origin stop
+ * within the time window (range query), and the values are averaged over the departures from which the destination stop can
+ * be reached.  The travel time of each of those is measured from the departure at the origin stop.  The number of departures
+ * per origin stop and the number of departures from which a destination stop can be reached are stored as well, e.g. to
+ * calculate the service frequency.
+ * <p>
+ * Destination stops which cannot be reached have a travel time and travel cost of infinity and a transfer count of -1.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class RaptorStopToStopMatrices {
+
+	private final SwissRailRaptorData data;
+	private final TransitStopFacility[] originStops;
+	private final int columns;
+	private final float[] travelTimes;
+	private final float[] travelCosts;
+	private final float[] transferCounts;
+	private final int[] connectionCounts;
+	private final int[] departureCounts;
+
+	private RaptorStopToStopMatrices(SwissRailRaptorData data, List<TransitStopFacility> originStops) {
+		this.data = data;
+		this.originStops = originStops.toArray(new TransitStopFacility[0]);
+		this.columns = data.countStops;
+		int size = this.originStops.length * this.columns;
+		this.travelTimes = new float[size];
+		this.travelCosts = new float[size];
+		this.transferCounts = new float[size];
+		this.connectionCounts = new int[size];
+		this.departureCounts = new int[this.originStops.length];
+	}
+
+	/**
+	 * Calculates the matrices from all given origin stops to all stops of the schedule.
+	 *
+	 * @param earliestDepartureTime the departure time at the origin stops, or the begin of the time window
+	 * @param latestDepartureTime the same as <code>earliestDepartureTime</code>, or the end of the time window (inclusive)
+	 */
+	public static RaptorStopToStopMatrices calculate(SwissRailRaptorData data, List<TransitStopFacility> originStops, double earliestDepartureTime,
+			double latestDepartureTime, RaptorParameters parameters, int numberOfThreads) {
+		return calculate(data, originStops, earliestDepartureTime, latestDepartureTime, parameters,
+				new DefaultRaptorInVehicleCostCalculator(), new DefaultRaptorTransferCostCalculator(), numberOfThreads);
+	}
+
+	/**
+	 * Calculates the matrices from all given origin stops to all stops of the schedule, using the given cost calculators,
+	 * e.g. the ones bound in the injector, for the travel costs.  The calculators are shared by all threads.
+	 *
+	 * @param earliestDepartureTime the departure time at the origin stops, or the begin of the time window
+	 * @param latestDepartureTime the same as <code>earliestDepartureTime</code>, or the end of the time window (inclusive)
+	 */
+	public static RaptorStopToStopMatrices calculate(SwissRailRaptorData data, List<TransitStopFacility> originStops, double earliestDepartureTime,
+			double latestDepartureTime, RaptorParameters parameters, RaptorInVehicleCostCalculator inVehicleCostCalculator,
+			RaptorTransferCostCalculator transferCostCalculator, int numberOfThreads) {
+		if (latestDepartureTime < earliestDepartureTime) {
+			throw new IllegalArgumentException("The latest departure time must not be before the earliest departure time.");
+		}
+		RaptorStopToStopMatrices matrices = new RaptorStopToStopMatrices(data, originStops);
+		boolean range = latestDepartureTime > earliestDepartureTime;
+		// the trees of a range query must start with an actual departure at the origin stop
+		RaptorParameters rowParameters = new RaptorParameters(parameters);
+		rowParameters.setExactDeparturesOnly(range);
+		AtomicInteger nextRow = new AtomicInteger();
+		AtomicReference<RuntimeException> exception = new AtomicReference<>();
+		Counter counter = new Counter("RaptorStopToStopMatrices-" + Time.writeTime(earliestDepartureTime) + "-" + Time.writeTime(latestDepartureTime) + " origin ", " / " + originStops.size());
+		Thread[] threads = new Thread[Math.max(1, Math.min(numberOfThreads, originStops.size()))];
+		for (int i = 0; i < threads.length; i++) {
+			RowWorker worker = new RowWorker(matrices, nextRow, earliestDepartureTime, latestDepartureTime, range, rowParameters,
+					inVehicleCostCalculator, transferCostCalculator, counter, exception);
+			threads[i] = new Thread(worker, "RaptorStopToStopMatrices-" + i);
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (exception.get() != null) {
+			throw exception.get();
+		}
+		return matrices;
+	}
+
+	public int getOriginCount() {
+		return this.originStops.length;
+	}
+
+	public TransitStopFacility getOriginStop(int origin) {
+		return this.originStops[origin];
+	}
+
+	public int getDestinationCount() {
+		return this.columns;
+	}
+
+	public TransitStopFacility getDestinationStop(int destination) {
+		return this.data.stopFacilities[destination];
+	}
+
+	/**
+	 * @return the column of the stop, or -1 if the stop is not served by the schedule
+	 */
+	public int getDestinationIndex(TransitStopFacility stop) {
+		return this.data.getStopIndex(stop);
+	}
+
+	public float getTravelTime(int origin, int destination) {
+		return this.travelTimes[origin * this.columns + destination];
+	}
+
+	public float getTravelCost(int origin, int destination) {
+		return this.travelCosts[origin * this.columns + destination];
+	}
+
+	public float getTransferCount(int origin, int destination) {
+		return this.transferCounts[origin * this.columns + destination];
+	}
+
+	/**
+	 * @return the number of departures at the origin stop from which the destination stop can be reached
+	 */
+	public int getConnectionCount(int origin, int destination) {
+		return this.connectionCounts[origin * this.columns + destination];
+	}
+
+	/**
+	 * @return the number of departures at the origin stop for which a tree was calculated
+	 */
+	public int getDepartureCount(int origin) {
+		return this.departureCounts[origin];
+	}
+
+	private static final class RowWorker implements Runnable {
+
+		private final RaptorStopToStopMatrices matrices;
+		private final AtomicInteger nextRow;
+		private final double earliestDepartureTime;
+		private final double latestDepartureTime;
+		private final boolean range;
+		private final RaptorParameters parameters;
+		private final Counter counter;
+		private final AtomicReference<RuntimeException> exception;
+		private final SwissRailRaptorCore raptor;
+		private final double[] arrivalTimes;
+		private final double[] travelCosts;
+		private final int[] transferCounts;
+		private final double[] sumTravelTimes;
+		private final double[] sumTravelCosts;
+		private final double[] sumTransferCounts;
+		private final int[] connectionCounts;
+
+		RowWorker(RaptorStopToStopMatrices matrices, AtomicInteger nextRow, double earliestDepartureTime, double latestDepartureTime, boolean range,
+				RaptorParameters parameters, RaptorInVehicleCostCalculator inVehicleCostCalculator, RaptorTransferCostCalculator transferCostCalculator,
+				Counter counter, AtomicReference<RuntimeException> exception) {
+			this.matrices = matrices;
+			this.nextRow = nextRow;
+			this.earliestDepartureTime = earliestDepartureTime;
+			this.latestDepartureTime = latestDepartureTime;
+			this.range = range;
+			this.parameters = parameters;
+			this.counter = counter;
+			this.exception = exception;
+			this.raptor = new SwissRailRaptorCore(matrices.data, inVehicleCostCalculator, transferCostCalculator);
+			this.arrivalTimes = new double[matrices.columns];
+			this.travelCosts = new double[matrices.columns];
+			this.transferCounts = new int[matrices.columns];
+			this.sumTravelTimes = new double[matrices.columns];
+			this.sumTravelCosts = new double[matrices.columns];
+			this.sumTransferCounts = new double[matrices.columns];
+			this.connectionCounts = new int[matrices.columns];
+		}
+
+		@Override
+		public void run() {
+			try {
+				int row;
+				while (this.exception.get() == null && (row = this.nextRow.getAndIncrement()) < this.matrices.originStops.length) {
+					this.counter.incCounter();
+					calcRow(row);
+				}
+			} catch (RuntimeException e) {
+				this.exception.compareAndSet(null, e);
+			}
+		}
+
+		private void calcRow(int row) {
+			TransitStopFacility originStop = this.matrices.originStops[row];
+			List<InitialStop> accessStops = List.of(new InitialStop(originStop, 0, 0, 0, null));
+			double[] departureTimes = this.range
+					? this.matrices.data.getDepartureTimes(originStop, this.earliestDepartureTime, this.latestDepartureTime)
+					: new double[] { this.earliestDepartureTime };
+			Arrays.fill(this.sumTravelTimes, 0);
+			Arrays.fill(this.sumTravelCosts, 0);
+			Arrays.fill(this.sumTransferCounts, 0);
+			Arrays.fill(this.connectionCounts, 0);
+			for (double departureTime : departureTimes) {
+				this.raptor.calcLeastCostTree(departureTime, accessStops, this.parameters, null, false, this.arrivalTimes, this.travelCosts, this.transferCounts);
+				for (int column = 0; column < this.matrices.columns; column++) {
+					if (this.transferCounts[column] >= 0) {
+						this.sumTravelTimes[column] += this.arrivalTimes[column] - departureTime;
+						this.sumTravelCosts[column] += this.travelCosts[column];
+						this.sumTransferCounts[column] += this.transferCounts[column];
+						this.connectionCounts[column]++;
+					}
+				}
+			}
+
+			int offset = row * this.matrices.columns;
+			this.matrices.departureCounts[row] = departureTimes.length;
+			for (int column = 0; column < this.matrices.columns; column++) {
+				int count = this.connectionCounts[column];
+				this.matrices.connectionCounts[offset + column] = count;
+				if (count == 0) {
+					this.matrices.travelTimes[offset + column] = Float.POSITIVE_INFINITY;
+					this.matrices.travelCosts[offset + column] = Float.POSITIVE_INFINITY;
+					this.matrices.transferCounts[offset + column] = -1;
+				} else {
+					this.matrices.travelTimes[offset + column] = (float) (this.sumTravelTimes[column] / count);
+					this.matrices.travelCosts[offset + column] = (float) (this.sumTravelCosts[column] / count);
+					this.matrices.transferCounts[offset + column] = (float) (this.sumTransferCounts[column] / count);
+				}
+			}
+		}
+	}
+
+}
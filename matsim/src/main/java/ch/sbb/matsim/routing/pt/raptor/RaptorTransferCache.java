@@ -0,0 +1,234 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.MinimalTransferTimes;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RRoute;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RRouteStop;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData.RTransfer;
+
+/**
+ * Stores the transfers between route stops, which are the expensive part of preparing {@link SwissRailRaptorData}, in a
+ * binary file, such that later runs with the same schedule and settings can load them instead of calculating them again.
+ * <p>
+ * The file name contains a hash of everything the transfers depend on: the route stops in the order in which they are
+ * enumerated, their stop facilities and coordinates, the departure times of the routes, the minimal transfer times and the
+ * transfer settings of the {@link RaptorStaticConfig}.  The same digests are used to find the routes whose transfers can be
+ * kept when the data is updated after a change of the schedule.  A changed schedule thus results in a different file instead of
+ * wrong transfers.  The files are written atomically, so several runs on the same host can share a directory.
+ * <p>
+ * The file contains, after a header, the number of transfers of every route stop, each followed by the index of the target
+ * route stop, the transfer time and the transfer distance of every transfer.  As all transfers are decoded when the file is
+ * loaded, it is read with a buffered stream, just as it is written.
+ *
+ * @author (of this class) the MATSim team
+ */
+final class RaptorTransferCache {
+
+	private static final Logger log = LogManager.getLogger(RaptorTransferCache.class);
+
+	private static final int MAGIC = 0x52545243; // "RTRC"
+	private static final int VERSION = 1;
+
+	private RaptorTransferCache() {
+	}
+
+	static Path getCacheFile(String cacheDirectory, byte[] settingsDigest, byte[][] routeDigests) {
+		MessageDigest digest = createDigest();
+		digest.update(ByteBuffer.allocate(8).putInt(VERSION).putInt(routeDigests.length).array());
+		digest.update(settingsDigest);
+		for (byte[] routeDigest : routeDigests) {
+			digest.update(routeDigest);
+		}
+		return Path.of(cacheDirectory, "raptorTransfers-" + HexFormat.of().formatHex(digest.digest()) + ".bin");
+	}
+
+	/**
+	 * @return a digest of the transfer settings of the config and of the minimal transfer times of the schedule
+	 */
+	static byte[] computeSettingsDigest(TransitSchedule schedule, RaptorStaticConfig config) {
+		MessageDigest digest = createDigest();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest)))) {
+			out.writeDouble(config.getBeelineWalkConnectionDistance());
+			out.writeDouble(config.getBeelineWalkSpeed());
+			out.writeDouble(config.getBeelineWalkDistanceFactor());
+			out.writeDouble(config.getMinimalTransferTime());
+			out.writeUTF(config.getOptimization().name());
+
+			// the iteration order of the minimal transfer times is not necessarily the same in every run
+			List<String> minimalTransferTimes = new ArrayList<>();
+			MinimalTransferTimes.MinimalTransferTimesIterator iterator = schedule.getMinimalTransferTimes().iterator();
+			while (iterator.hasNext()) {
+				iterator.next();
+				minimalTransferTimes.add(iterator.getFromStopId() + "\t" + iterator.getToStopId() + "\t" + iterator.getSeconds());
+			}
+			minimalTransferTimes.sort(null);
+			out.writeInt(minimalTransferTimes.size());
+			for (String minimalTransferTime : minimalTransferTimes) {
+				out.writeUTF(minimalTransferTime);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return for every route, a digest of everything the transfers from and to its route stops depend on: the stop
+	 *         facilities and their coordinates, the arrival and departure offsets, whether boarding and alighting is allowed,
+	 *         and the first and last departure.
+	 */
+	static byte[][] computeRouteDigests(RRoute[] routes, RRouteStop[] routeStops) {
+		MessageDigest digest = createDigest();
+		byte[][] routeDigests = new byte[routes.length][];
+		try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+			for (int routeIndex = 0; routeIndex < routes.length; routeIndex++) {
+				RRoute route = routes[routeIndex];
+				out.writeInt(route.countRouteStops);
+				if (route.countRouteStops > 0) {
+					double earliest = Double.POSITIVE_INFINITY;
+					double latest = Double.NEGATIVE_INFINITY;
+					for (Departure departure : routeStops[route.indexFirstRouteStop].route.getDepartures().values()) {
+						earliest = Math.min(earliest, departure.getDepartureTime());
+						latest = Math.max(latest, departure.getDepartureTime());
+					}
+					out.writeDouble(earliest);
+					out.writeDouble(latest);
+				}
+				for (int i = route.indexFirstRouteStop; i < route.indexFirstRouteStop + route.countRouteStops; i++) {
+					RRouteStop routeStop = routeStops[i];
+					TransitStopFacility stop = routeStop.routeStop.getStopFacility();
+					out.writeUTF(stop.getId().toString());
+					out.writeDouble(stop.getCoord().getX());
+					out.writeDouble(stop.getCoord().getY());
+					out.writeInt(routeStop.arrivalOffset);
+					out.writeInt(routeStop.departureOffset);
+					out.writeBoolean(routeStop.routeStop.isAllowBoarding());
+					out.writeBoolean(routeStop.routeStop.isAllowAlighting());
+				}
+				routeDigests[routeIndex] = digest.digest();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return routeDigests;
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the transfers per route stop index, or <code>null</code> if the file does not exist or cannot be used
+	 */
+	static Map<Integer, RTransfer[]> read(Path file, int countRouteStops) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != countRouteStops) {
+				log.warn("Ignoring the cached raptor transfers in " + file + " because they do not match the schedule.");
+				return null;
+			}
+			Map<Integer, RTransfer[]> transfers = new HashMap<>(countRouteStops * 2);
+			for (int fromRouteStop = 0; fromRouteStop < countRouteStops; fromRouteStop++) {
+				int count = in.readInt();
+				if (count > 0) {
+					RTransfer[] stopTransfers = new RTransfer[count];
+					for (int i = 0; i < count; i++) {
+						stopTransfers[i] = new RTransfer(fromRouteStop, in.readInt(), in.readInt(), in.readInt());
+					}
+					transfers.put(fromRouteStop, stopTransfers);
+				}
+			}
+			log.info("Loaded the raptor transfers from " + file);
+			return transfers;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not read the cached raptor transfers from " + file + ", they are calculated again.", e);
+			return null;
+		}
+	}
+
+	static void write(Path file, Map<Integer, RTransfer[]> transfers, int countRouteStops) {
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(countRouteStops);
+				for (int fromRouteStop = 0; fromRouteStop < countRouteStops; fromRouteStop++) {
+					RTransfer[] stopTransfers = transfers.get(fromRouteStop);
+					out.writeInt(stopTransfers == null ? 0 : stopTransfers.length);
+					if (stopTransfers != null) {
+						for (RTransfer transfer : stopTransfers) {
+							out.writeInt(transfer.toRouteStop);
+							out.writeInt(transfer.transferTime);
+							out.writeInt(transfer.transferDistance);
+						}
+					}
+				}
+			}
+			try {
+				Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			log.info("Stored the raptor transfers in " + file);
+		} catch (IOException e) {
+			// the cache is only an optimization, the run can go on without it
+			log.warn("Could not store the raptor transfers in " + file, e);
+		}
+	}
+
+}
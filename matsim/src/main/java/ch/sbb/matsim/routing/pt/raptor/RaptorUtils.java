@@ -84,6 +84,7 @@ public final class RaptorUtils {
 		staticConfig.setIntermodalLegOnlyHandling(srrConfig.getIntermodalLegOnlyHandling());
 		staticConfig.setMinimalTransferTime(config.transitRouter().getAdditionalTransferTime());
 		staticConfig.setTransferCalculation(srrConfig.getTransferCalculation());
+		staticConfig.setTransferCacheDirectory(srrConfig.getTransferCacheDirectory());
 
         staticConfig.setUseModeMappingForPassengers(srrConfig.isUseModeMappingForPassengers());
         if (srrConfig.isUseModeMappingForPassengers()) {
@@ -0,0 +1,309 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.core.utils.geometry.CoordUtils;
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Zone-to-zone matrices of the public transport travel time and travel cost for a series of departure times, e.g. for
+ * accessibility calculations or skims.
+ * <p>
+ * Every zone is represented by one coordinate.  For every origin zone and departure time, one least-cost tree is calculated
+ * from the stops near the origin, and it is used for all destination zones: of the stops near a destination zone, the one
+ * with the least travel cost including the egress walk is used, consistent with the least-cost routing of the tree.  The
+ * travel cost is {@link SwissRailRaptorCore.TravelInfo#travelCost} plus the cost of the access and egress walk, and the
+ * travel time is measured from the departure time at the origin coordinate to the arrival at the destination coordinate,
+ * including access walk, waiting at the first stop and egress walk.  Only connections with at least one pt leg are
+ * considered, so walking to a stop and from there to the destination (e.g. within a zone) does not count as a connection.
+ * The stops near a zone are found and the walks are calculated as for the skims of the sbb-extensions: all stops within the
+ * search radius of the {@link RaptorParameters}, or else the nearest stop and all stops within the extension radius of it.
+ * <p>
+ * The origin zones are spread over several threads, each with its own {@link SwissRailRaptorCore}.  The results are dense
+ * row-major float matrices, one per departure time, with the zones in the order of the given map.  Pairs which cannot be
+ * connected have a travel time and travel cost of infinity.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class RaptorZoneToZoneMatrices<T> {
+
+	private final List<T> zones;
+	private final Map<T, Integer> zoneIndices;
+	private final double[] departureTimes;
+	private final float[][] travelTimes;
+	private final float[][] travelCosts;
+
+	private RaptorZoneToZoneMatrices(List<T> zones, double[] departureTimes) {
+		this.zones = zones;
+		this.zoneIndices = new HashMap<>();
+		for (T zone : zones) {
+			this.zoneIndices.put(zone, this.zoneIndices.size());
+		}
+		this.departureTimes = departureTimes;
+		int size = zones.size() * zones.size();
+		this.travelTimes = new float[departureTimes.length][size];
+		this.travelCosts = new float[departureTimes.length][size];
+	}
+
+	/**
+	 * Calculates the matrices between all given zones, for the departure times from <code>earliestDepartureTime</code> to
+	 * <code>latestDepartureTime</code> (inclusive) in steps of <code>stepSize</code> seconds.
+	 */
+	public static <T> RaptorZoneToZoneMatrices<T> calculate(SwissRailRaptorData data, Map<T, Coord> coordPerZone, double earliestDepartureTime,
+			double latestDepartureTime, double stepSize, RaptorParameters parameters, int numberOfThreads) {
+		return calculate(data, coordPerZone, earliestDepartureTime, latestDepartureTime, stepSize, parameters,
+				new DefaultRaptorInVehicleCostCalculator(), new DefaultRaptorTransferCostCalculator(), numberOfThreads);
+	}
+
+	/**
+	 * Calculates the matrices between all given zones like {@link #calculate(SwissRailRaptorData, Map, double, double, double, RaptorParameters, int)},
+	 * but using the given cost calculators, e.g. the ones bound in the injector.  The calculators are shared by all threads.
+	 */
+	public static <T> RaptorZoneToZoneMatrices<T> calculate(SwissRailRaptorData data, Map<T, Coord> coordPerZone, double earliestDepartureTime,
+			double latestDepartureTime, double stepSize, RaptorParameters parameters, RaptorInVehicleCostCalculator inVehicleCostCalculator,
+			RaptorTransferCostCalculator transferCostCalculator, int numberOfThreads) {
+		if (latestDepartureTime < earliestDepartureTime || stepSize <= 0) {
+			throw new IllegalArgumentException("The departure times must not be in reverse order, and the step size must be positive.");
+		}
+		int steps = (int) Math.floor((latestDepartureTime - earliestDepartureTime) / stepSize) + 1;
+		double[] departureTimes = new double[steps];
+		for (int i = 0; i < steps; i++) {
+			departureTimes[i] = earliestDepartureTime + i * stepSize;
+		}
+		List<T> zones = new ArrayList<>(coordPerZone.keySet());
+		RaptorZoneToZoneMatrices<T> matrices = new RaptorZoneToZoneMatrices<>(zones, departureTimes);
+
+		List<InitialStop[]> stopsPerZone = new ArrayList<>(zones.size());
+		for (T zone : zones) {
+			stopsPerZone.add(findStops(data, coordPerZone.get(zone), parameters));
+		}
+
+		AtomicInteger nextOrigin = new AtomicInteger();
+		AtomicReference<RuntimeException> exception = new AtomicReference<>();
+		Counter counter = new Counter("RaptorZoneToZoneMatrices-" + Time.writeTime(earliestDepartureTime) + "-" + Time.writeTime(latestDepartureTime) + " zone ", " / " + zones.size());
+		Thread[] threads = new Thread[Math.max(1, Math.min(numberOfThreads, zones.size()))];
+		for (int i = 0; i < threads.length; i++) {
+			OriginWorker worker = new OriginWorker(data, matrices, stopsPerZone, nextOrigin, parameters, inVehicleCostCalculator, transferCostCalculator,
+					counter, exception);
+			threads[i] = new Thread(worker, "RaptorZoneToZoneMatrices-" + i);
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (exception.get() != null) {
+			throw exception.get();
+		}
+		return matrices;
+	}
+
+	static InitialStop[] findStops(SwissRailRaptorData data, Coord coord, RaptorParameters parameters) {
+		Collection<TransitStopFacility> stops = data.findNearbyStops(coord.getX(), coord.getY(), parameters.getSearchRadius());
+		if (stops.isEmpty()) {
+			TransitStopFacility nearest = data.findNearestStop(coord.getX(), coord.getY());
+			double nearestStopDistance = CoordUtils.calcEuclideanDistance(coord, nearest.getCoord());
+			stops = data.findNearbyStops(coord.getX(), coord.getY(), nearestStopDistance + parameters.getExtensionRadius());
+		}
+		double walkSpeed = parameters.getBeelineWalkSpeed();
+		double walkCostPerSecond = -parameters.getMarginalUtilityOfTravelTime_utl_s(TransportMode.walk);
+		double distanceFactor = data.config.getBeelineWalkDistanceFactor();
+		InitialStop[] initialStops = new InitialStop[stops.size()];
+		int i = 0;
+		for (TransitStopFacility stop : stops) {
+			double distance = CoordUtils.calcEuclideanDistance(coord, stop.getCoord());
+			double walkTime = distance / walkSpeed;
+			initialStops[i++] = new InitialStop(stop, walkTime * walkCostPerSecond, walkTime, distance * distanceFactor, TransportMode.walk);
+		}
+		return initialStops;
+	}
+
+	public List<T> getZones() {
+		return this.zones;
+	}
+
+	/**
+	 * @return the row and column of the zone in the matrices, or -1 if the zone is unknown
+	 */
+	public int getZoneIndex(T zone) {
+		Integer index = this.zoneIndices.get(zone);
+		return index == null ? -1 : index;
+	}
+
+	public int getDepartureTimeCount() {
+		return this.departureTimes.length;
+	}
+
+	public double getDepartureTime(int departure) {
+		return this.departureTimes[departure];
+	}
+
+	public float getTravelTime(int departure, int origin, int destination) {
+		return this.travelTimes[departure][origin * this.zones.size() + destination];
+	}
+
+	public float getTravelCost(int departure, int origin, int destination) {
+		return this.travelCosts[departure][origin * this.zones.size() + destination];
+	}
+
+	/**
+	 * @return the travel times for the given departure time as row-major matrix, which must not be modified
+	 */
+	public float[] getTravelTimes(int departure) {
+		return this.travelTimes[departure];
+	}
+
+	/**
+	 * @return the travel costs for the given departure time as row-major matrix, which must not be modified
+	 */
+	public float[] getTravelCosts(int departure) {
+		return this.travelCosts[departure];
+	}
+
+	/**
+	 * @return the average travel time over the departure times at which the destination can be reached, or infinity
+	 */
+	public float getAverageTravelTime(int origin, int destination) {
+		return average(this.travelTimes, origin * this.zones.size() + destination);
+	}
+
+	/**
+	 * @return the average travel cost over the departure times at which the destination can be reached, or infinity
+	 */
+	public float getAverageTravelCost(int origin, int destination) {
+		return average(this.travelCosts, origin * this.zones.size() + destination);
+	}
+
+	private static float average(float[][] matrices, int index) {
+		double sum = 0;
+		int count = 0;
+		for (float[] matrix : matrices) {
+			if (matrix[index] != Float.POSITIVE_INFINITY) {
+				sum += matrix[index];
+				count++;
+			}
+		}
+		return count == 0 ? Float.POSITIVE_INFINITY : (float) (sum / count);
+	}
+
+	private static final class OriginWorker implements Runnable {
+
+		private final RaptorZoneToZoneMatrices<?> matrices;
+		private final List<InitialStop[]> stopsPerZone;
+		private final int[][] stopIndicesPerZone;
+		private final AtomicInteger nextOrigin;
+		private final RaptorParameters parameters;
+		private final Counter counter;
+		private final AtomicReference<RuntimeException> exception;
+		private final SwissRailRaptorCore raptor;
+		private final double[] arrivalTimes;
+		private final double[] travelCosts;
+		private final int[] transferCounts;
+
+		OriginWorker(SwissRailRaptorData data, RaptorZoneToZoneMatrices<?> matrices, List<InitialStop[]> stopsPerZone, AtomicInteger nextOrigin,
+				RaptorParameters parameters, RaptorInVehicleCostCalculator inVehicleCostCalculator, RaptorTransferCostCalculator transferCostCalculator,
+				Counter counter, AtomicReference<RuntimeException> exception) {
+			this.matrices = matrices;
+			this.stopsPerZone = stopsPerZone;
+			this.stopIndicesPerZone = new int[stopsPerZone.size()][];
+			for (int zone = 0; zone < stopsPerZone.size(); zone++) {
+				InitialStop[] stops = stopsPerZone.get(zone);
+				this.stopIndicesPerZone[zone] = new int[stops.length];
+				for (int i = 0; i < stops.length; i++) {
+					this.stopIndicesPerZone[zone][i] = data.getStopIndex(stops[i].stop);
+				}
+			}
+			this.nextOrigin = nextOrigin;
+			this.parameters = parameters;
+			this.counter = counter;
+			this.exception = exception;
+			this.raptor = new SwissRailRaptorCore(data, inVehicleCostCalculator, transferCostCalculator);
+			this.arrivalTimes = new double[data.countStops];
+			this.travelCosts = new double[data.countStops];
+			this.transferCounts = new int[data.countStops];
+		}
+
+		@Override
+		public void run() {
+			try {
+				int origin;
+				while (this.exception.get() == null && (origin = this.nextOrigin.getAndIncrement()) < this.stopsPerZone.size()) {
+					this.counter.incCounter();
+					calcOrigin(origin);
+				}
+			} catch (RuntimeException e) {
+				this.exception.compareAndSet(null, e);
+			}
+		}
+
+		private void calcOrigin(int origin) {
+			List<InitialStop> accessStops = List.of(this.stopsPerZone.get(origin));
+			int zoneCount = this.stopsPerZone.size();
+			int offset = origin * zoneCount;
+			for (int departure = 0; departure < this.matrices.departureTimes.length; departure++) {
+				double departureTime = this.matrices.departureTimes[departure];
+				float[] travelTimes = this.matrices.travelTimes[departure];
+				float[] travelCosts = this.matrices.travelCosts[departure];
+				this.raptor.calcLeastCostTree(departureTime, accessStops, this.parameters, null, true, this.arrivalTimes, this.travelCosts, this.transferCounts);
+				for (int destination = 0; destination < zoneCount; destination++) {
+					InitialStop[] egressStops = this.stopsPerZone.get(destination);
+					int[] egressStopIndices = this.stopIndicesPerZone[destination];
+					double bestArrivalTime = Double.POSITIVE_INFINITY;
+					double bestCost = Double.POSITIVE_INFINITY;
+					for (int i = 0; i < egressStops.length; i++) {
+						int stopIndex = egressStopIndices[i];
+						if (this.transferCounts[stopIndex] >= 0) {
+							double cost = this.travelCosts[stopIndex] + egressStops[i].accessCost;
+							double arrivalTime = this.arrivalTimes[stopIndex] + egressStops[i].accessTime;
+							if (cost < bestCost || (cost == bestCost && arrivalTime < bestArrivalTime)) {
+								bestArrivalTime = arrivalTime;
+								bestCost = cost;
+							}
+						}
+					}
+					if (bestArrivalTime == Double.POSITIVE_INFINITY) {
+						travelTimes[offset + destination] = Float.POSITIVE_INFINITY;
+						travelCosts[offset + destination] = Float.POSITIVE_INFINITY;
+					} else {
+						travelTimes[offset + destination] = (float) (bestArrivalTime - departureTime);
+						travelCosts[offset + destination] = (float) bestCost;
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -254,30 +254,8 @@ public class SwissRailRaptor implements TransitRouter {
 
 			List<InitialStop> accessStops = List.of(new InitialStop(stopFacility, 0, 0, 0, null));
 
-			int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(stopFacility);
-
-			List<Double> departureTimes = new ArrayList<>();
-
-			for (int routeStopIndex : routeStopIndices) {
-				SwissRailRaptorData.RRouteStop routeStop = this.data.routeStops[routeStopIndex];
-				SwissRailRaptorData.RRoute route = this.data.routes[routeStop.transitRouteIndex];
-				int fromIndex = route.indexFirstDeparture;
-				int toIndex = fromIndex + route.countDepartures;
-				for (int depIndex = fromIndex; depIndex < toIndex; depIndex++) {
-					double departureTime = this.data.departures[depIndex] + routeStop.departureOffset;
-					if (departureTime >= earliestDepartureTime && departureTime <= latestStartTime) {
-						departureTimes.add(departureTime);
-					}
-				}
-			}
-			departureTimes.sort(Double::compare);
-			// we might have some departure times multiple times. helper variable to skip those
-			double lastDepTime = -1;
-			for (double departureTime : departureTimes) {
-				if (departureTime > lastDepTime) {
-					calcLeastCostTree(accessStops, departureTime, parameters, person, observer);
-					lastDepTime = departureTime;
-				}
+			for (double departureTime : this.data.getDepartureTimes(stopFacility, earliestDepartureTime, latestStartTime)) {
+				calcLeastCostTree(accessStops, departureTime, parameters, person, observer);
 			}
 		}
 
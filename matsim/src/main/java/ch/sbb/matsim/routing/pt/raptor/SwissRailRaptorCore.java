@@ -123,9 +123,10 @@ public class SwissRailRaptorCore {
         }
         // ??:
         for (InitialStop egressStop : destinationStops.values()) {
-            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(egressStop.stop);
-            if (routeStopIndices != null) {
-                for (int routeStopIndex : routeStopIndices) {
+            int stopIndex = this.data.getStopIndex(egressStop.stop);
+            if (stopIndex >= 0) {
+                for (int i = this.data.indexFirstRouteStopPerStop[stopIndex]; i < this.data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+                    int routeStopIndex = this.data.routeStopsPerStop[i];
                     this.destinationRouteStopIndices.set(routeStopIndex); // set bit at index position to true
                     this.egressCostsPerRouteStop[routeStopIndex] = egressStop.accessCost; // set egress costs from given stop
                     // presumably, the routeStops are the stops for the different routes that stop at the same stopFacility
@@ -147,9 +148,10 @@ public class SwissRailRaptorCore {
         // go through initial stops ...
         for (InitialStop stop : initialStops.values()) {
         	// ... retrieve all route stops ...
-            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(stop.stop);
+            int stopIndex = this.data.getStopIndex(stop.stop);
             // ... go through them ...
-            for (int routeStopIndex : routeStopIndices) {
+            for (int i = this.data.indexFirstRouteStopPerStop[stopIndex]; i < this.data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+                int routeStopIndex = this.data.routeStopsPerStop[i];
             	// ... set arrival time and arrival cost accordingly ...
                 int arrivalTime = (int) (depTime + stop.accessTime);
                 double arrivalCost = stop.accessCost;
@@ -311,9 +313,10 @@ public class SwissRailRaptorCore {
             double earliestTimeAtStop = earliestDepTime + accessStop.accessTime;
             double latestTimeAtStop = latestDepTime + accessStop.accessTime;
             TransitStopFacility stop = accessStop.stop;
-            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(stop);
-            if (routeStopIndices != null) {
-                for (int routeStopIndex : routeStopIndices) {
+            int stopIndex = this.data.getStopIndex(stop);
+            if (stopIndex >= 0) {
+                for (int i = this.data.indexFirstRouteStopPerStop[stopIndex]; i < this.data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+                    int routeStopIndex = this.data.routeStopsPerStop[i];
                     RRouteStop routeStop = this.data.routeStops[routeStopIndex];
                     if (routeStop.routeStop == routeStop.route.getStops().get(routeStop.route.getStops().size() - 1)) {
                         // this is the last stop of a route
@@ -354,9 +357,10 @@ public class SwissRailRaptorCore {
             }
         }
         for (InitialStop egressStop : destinationStops.values()) {
-            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(egressStop.stop);
-            if (routeStopIndices != null) {
-                for (int routeStopIndex : routeStopIndices) {
+            int stopIndex = this.data.getStopIndex(egressStop.stop);
+            if (stopIndex >= 0) {
+                for (int i = this.data.indexFirstRouteStopPerStop[stopIndex]; i < this.data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+                    int routeStopIndex = this.data.routeStopsPerStop[i];
                     this.destinationRouteStopIndices.set(routeStopIndex);
                     this.egressCostsPerRouteStop[routeStopIndex] = egressStop.accessCost;
                 }
@@ -497,14 +501,65 @@ public class SwissRailRaptorCore {
     }
 
     public Map<Id<TransitStopFacility>, TravelInfo> calcLeastCostTree(double depTime, Collection<InitialStop> startStops, RaptorParameters parameters, Person person, RaptorObserver observer) {
+        runLeastCostTree(depTime, startStops, parameters, person, observer);
+
+        // collect information for each stop
+        Map<Id<TransitStopFacility>, TravelInfo> result = new HashMap<>();
+        for (int index = 0; index < this.data.countStops; index++) {
+            PathElement destination = this.arrivalPathPerStop[index];
+            if (destination != null) {
+                TravelInfo ti = getTravelInfo(destination, parameters);
+                result.put(this.data.stopFacilities[index].getId(), ti);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the same tree as {@link #calcLeastCostTree(double, Collection, RaptorParameters, Person)}, but writes the
+     * results into arrays indexed by the stop facility index of {@link SwissRailRaptorData} instead of creating a
+     * {@link TravelInfo} for every reached stop. For stops which cannot be reached, the arrival time and the travel cost
+     * are set to infinity and the transfer count to -1.
+     *
+     * @param requirePtLeg if <code>true</code>, stops which are only reached by the access walk, possibly followed by a
+     *        transfer walk, but without any pt leg, are treated as if they could not be reached
+     * @param arrivalTimes receives the arrival time at every stop
+     * @param travelCosts receives the travel cost to every stop, as {@link TravelInfo#travelCost} plus {@link TravelInfo#accessCost}
+     * @param transferCounts receives the number of transfers to every stop, as in {@link TravelInfo#transferCount}
+     */
+    void calcLeastCostTree(double depTime, Collection<InitialStop> startStops, RaptorParameters parameters, Person person, boolean requirePtLeg, double[] arrivalTimes, double[] travelCosts, int[] transferCounts) {
+        runLeastCostTree(depTime, startStops, parameters, person, null);
+
+        for (int index = 0; index < this.data.countStops; index++) {
+            PathElement destination = this.arrivalPathPerStop[index];
+            if (destination == null || (requirePtLeg && destination.firstDepartureTime == TIME_UNDEFINED)) {
+                arrivalTimes[index] = Double.POSITIVE_INFINITY;
+                travelCosts[index] = Double.POSITIVE_INFINITY;
+                transferCounts[index] = -1;
+            } else {
+                PathElement firstStage = destination;
+                PathElement secondStage = null;
+                while (firstStage.comingFrom != null) {
+                    secondStage = firstStage;
+                    firstStage = firstStage.comingFrom;
+                }
+                arrivalTimes[index] = destination.arrivalTime;
+                travelCosts[index] = firstStage.initialStop.accessCost + getTravelCost(destination, firstStage, parameters);
+                transferCounts[index] = getTransferCount(destination, secondStage);
+            }
+        }
+    }
+
+    private void runLeastCostTree(double depTime, Collection<InitialStop> startStops, RaptorParameters parameters, Person person, RaptorObserver observer) {
         reset();
 
         CachingTransferProvider transferProvider = this.data.new CachingTransferProvider();
         BitSet initialRouteStopIndices = new BitSet();
         BitSet initialStopIndices = new BitSet();
         for (InitialStop stop : startStops) {
-            int[] routeStopIndices = this.data.routeStopsPerStopFacility.get(stop.stop);
-            for (int routeStopIndex : routeStopIndices) {
+            int stopIndex = this.data.getStopIndex(stop.stop);
+            for (int i = this.data.indexFirstRouteStopPerStop[stopIndex]; i < this.data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+                int routeStopIndex = this.data.routeStopsPerStop[i];
 							boolean useStop = true;
 							RRouteStop routeStop = this.data.routeStops[routeStopIndex];
 							if (!routeStop.routeStop.isAllowBoarding()) {
@@ -588,19 +643,6 @@ public class SwissRailRaptorCore {
 					}
 
 				}
-
-        // collect information for each stop
-        Map<Id<TransitStopFacility>, TravelInfo> result = new HashMap<>();
-        for (Map.Entry<TransitStopFacility, Integer> e : this.data.stopFacilityIndices.entrySet()) {
-            TransitStopFacility stop = e.getKey();
-            int index = e.getValue();
-            PathElement destination = this.arrivalPathPerStop[index];
-            if (destination != null) {
-                TravelInfo ti = getTravelInfo(destination, parameters);
-                result.put(stop.getId(), ti);
-            }
-        }
-        return result;
     }
 
 		private void observeArrival(PathElement pe, RaptorObserver observer) {
@@ -637,6 +679,21 @@ public class SwissRailRaptorCore {
         double waitingCost = waitingTime * -parameters.getMarginalUtilityOfWaitingPt_utl_s();
 
         double travelCost = destination.arrivalTravelCost - firstStage.arrivalTravelCost - waitingCost;
+        int transferCount = getTransferCount(destination, secondStage);
+        Id<TransitStopFacility> departureStopId = firstStage.toRouteStop.routeStop.getStopFacility().getId();
+        return new TravelInfo(departureStopId, departureTimeAtFirstStop, arrivalTimeAtLastStop, travelCost, accessTime, accessCost, transferCount, waitingTime, waitingCost, destination);
+    }
+
+    private static double getTravelCost(PathElement destination, PathElement firstStage, RaptorParameters parameters) {
+        int departureTimeAtFirstStop = destination.firstDepartureTime;
+        if (departureTimeAtFirstStop == TIME_UNDEFINED) {
+            departureTimeAtFirstStop = destination.arrivalTime;
+        }
+        double waitingCost = (departureTimeAtFirstStop - firstStage.arrivalTime) * -parameters.getMarginalUtilityOfWaitingPt_utl_s();
+        return destination.arrivalTravelCost - firstStage.arrivalTravelCost - waitingCost;
+    }
+
+    private static int getTransferCount(PathElement destination, PathElement secondStage) {
         int transferCount = destination.transferCount;
         if (destination.isTransfer && transferCount > 0) {
             transferCount--; // do not count this as transfer, as the router would merge it with the egress walk
@@ -644,8 +701,7 @@ public class SwissRailRaptorCore {
         if (secondStage != null && secondStage.isTransfer && transferCount > 0) {
             transferCount--; // the first "leg" is a transfer, do not count it as such as the router would merge it with the access walk
         }
-        Id<TransitStopFacility> departureStopId = firstStage.toRouteStop.routeStop.getStopFacility().getId();
-        return new TravelInfo(departureStopId, departureTimeAtFirstStop, arrivalTimeAtLastStop, travelCost, accessTime, accessCost, transferCount, waitingTime, waitingCost, destination);
+        return transferCount;
     }
 
     private void exploreRoutes(RaptorParameters parameters, Person person, CachingTransferProvider transferProvider) {
@@ -884,7 +940,7 @@ public class SwissRailRaptorCore {
 		boolean checkBothPtAndPurelyIntermodalRoutes = intermodalLegOnlyHandling.equals(SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling.avoid) || intermodalLegOnlyHandling.equals(SwissRailRaptorConfigGroup.IntermodalLegOnlyHandling.forbid);
 		for (Map.Entry<TransitStopFacility, InitialStop> e : destinationStops.entrySet()) {
             TransitStopFacility stop = e.getKey();
-            int stopIndex = this.data.stopFacilityIndices.get(stop);
+            int stopIndex = this.data.getStopIndex(stop);
             PathElement pe = this.arrivalPathPerStop[stopIndex];
 			if (pe!=null) {
 					InitialStop egressStop = e.getValue();
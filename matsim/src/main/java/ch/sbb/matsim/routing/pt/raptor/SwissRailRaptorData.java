@@ -20,6 +20,7 @@
 
 package ch.sbb.matsim.routing.pt.raptor;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Supplier;
 
@@ -29,7 +30,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
@@ -66,23 +66,33 @@ public class SwissRailRaptorData {
     final Id<Departure>[] departureIds;
     final RRouteStop[] routeStops; // list of all route stops
     final RTransfer[] transfers;
-    final Map<TransitStopFacility, Integer> stopFacilityIndices;
-    final Map<TransitStopFacility, int[]> routeStopsPerStopFacility;
+    final TransitStopFacility[] stopFacilities; // the served stop facilities, by stop index
+    private final int[] stopIndexPerFacilityId; // by Id.index(), -1 for facilities not served by any route
+    // the route stops at stop i are routeStopsPerStop[indexFirstRouteStopPerStop[i]] to routeStopsPerStop[indexFirstRouteStopPerStop[i + 1] - 1]
+    final int[] indexFirstRouteStopPerStop;
+    final int[] routeStopsPerStop;
     final QuadTree<TransitStopFacility> stopsQT;
     final Map<String, Map<String, QuadTree<TransitStopFacility>>> stopFilterAttribute2Value2StopsQT;
     final OccupancyData occupancyData;
 
     // data needed if cached transfer construction is activated
-    final IdMap<TransitStopFacility, Map<TransitStopFacility, Double>> staticTransferTimes;
+    // the predefined transfer times from stop i are in indexFirstStaticTransferPerStop[i] to indexFirstStaticTransferPerStop[i + 1] - 1
+    final int[] indexFirstStaticTransferPerStop;
+    final int[] staticTransferToStops;
+    final double[] staticTransferTimes;
     final RTransfer[][] transferCache;
 
-    private SwissRailRaptorData(RaptorStaticConfig config, int countStops,
+    // data needed to update the transfers after a change of the schedule, only with initial transfer calculation
+    final byte[] transferSettingsDigest;
+    final byte[][] routeDigests;
+
+    private SwissRailRaptorData(RaptorStaticConfig config,
                                 RRoute[] routes, int[] departures, Vehicle[] departureVehicles, Id<Departure>[] departureIds, RRouteStop[] routeStops,
-                                RTransfer[] transfers, Map<TransitStopFacility, Integer> stopFacilityIndices,
-                                Map<TransitStopFacility, int[]> routeStopsPerStopFacility, QuadTree<TransitStopFacility> stopsQT,
-                                OccupancyData occupancyData, IdMap<TransitStopFacility, Map<TransitStopFacility, Double>> staticTransferTimes) {
+                                RTransfer[] transfers, TransitStopFacility[] stopFacilities, QuadTree<TransitStopFacility> stopsQT,
+                                OccupancyData occupancyData, int[] indexFirstStaticTransferPerStop, int[] staticTransferToStops, double[] staticTransferTimes,
+                                byte[] transferSettingsDigest, byte[][] routeDigests) {
         this.config = config;
-        this.countStops = countStops;
+        this.countStops = stopFacilities.length;
         this.countRouteStops = routeStops.length;
         this.routes = routes;
         this.departures = departures;
@@ -90,18 +100,57 @@ public class SwissRailRaptorData {
         this.departureIds = departureIds;
         this.routeStops = routeStops;
         this.transfers = transfers;
-        this.stopFacilityIndices = stopFacilityIndices;
-        this.routeStopsPerStopFacility = routeStopsPerStopFacility;
+        this.stopFacilities = stopFacilities;
+
+        int maxIdIndex = -1;
+        for (TransitStopFacility stop : stopFacilities) {
+            maxIdIndex = Math.max(maxIdIndex, stop.getId().index());
+        }
+        this.stopIndexPerFacilityId = new int[maxIdIndex + 1];
+        Arrays.fill(this.stopIndexPerFacilityId, -1);
+        for (int stopIndex = 0; stopIndex < stopFacilities.length; stopIndex++) {
+            this.stopIndexPerFacilityId[stopFacilities[stopIndex].getId().index()] = stopIndex;
+        }
+
+        // the route stops are enumerated in order, so they are also in order per stop
+        this.indexFirstRouteStopPerStop = new int[this.countStops + 1];
+        for (RRouteStop routeStop : routeStops) {
+            this.indexFirstRouteStopPerStop[routeStop.stopFacilityIndex + 1]++;
+        }
+        for (int stopIndex = 0; stopIndex < this.countStops; stopIndex++) {
+            this.indexFirstRouteStopPerStop[stopIndex + 1] += this.indexFirstRouteStopPerStop[stopIndex];
+        }
+        this.routeStopsPerStop = new int[routeStops.length];
+        int[] nextRouteStop = Arrays.copyOf(this.indexFirstRouteStopPerStop, this.countStops);
+        for (RRouteStop routeStop : routeStops) {
+            this.routeStopsPerStop[nextRouteStop[routeStop.stopFacilityIndex]++] = routeStop.index;
+        }
+
         this.stopsQT = stopsQT;
         this.stopFilterAttribute2Value2StopsQT = new HashMap<>();
         this.occupancyData = occupancyData;
 
         // data needed if cached transfer construction is activated
+        this.indexFirstStaticTransferPerStop = indexFirstStaticTransferPerStop;
+        this.staticTransferToStops = staticTransferToStops;
         this.staticTransferTimes = staticTransferTimes;
         this.transferCache = new RTransfer[routeStops.length][];
+
+        this.transferSettingsDigest = transferSettingsDigest;
+        this.routeDigests = routeDigests;
     }
 
     public static SwissRailRaptorData create(TransitSchedule schedule, @Nullable Vehicles transitVehicles, RaptorStaticConfig staticConfig, Network network, OccupancyData occupancyData) {
+        return create(schedule, transitVehicles, staticConfig, network, occupancyData, null);
+    }
+
+    /**
+     * Creates the data for a changed schedule. The transfers between route stops of routes which did not change since
+     * <code>previousData</code> was created are taken over from it, only the transfers from and to the route stops of new
+     * or changed routes are calculated.  This requires that the minimal transfer times of the schedule and the transfer
+     * settings did not change either, otherwise all transfers are calculated.
+     */
+    public static SwissRailRaptorData create(TransitSchedule schedule, @Nullable Vehicles transitVehicles, RaptorStaticConfig staticConfig, Network network, OccupancyData occupancyData, @Nullable SwissRailRaptorData previousData) {
         log.info("Preparing data for SwissRailRaptor...");
         long startMillis = System.currentTimeMillis();
 
@@ -207,10 +256,17 @@ public class SwissRailRaptorData {
 
         // if cached transfer calculation is active, don't generate any transfers here
 		final Map<Integer, RTransfer[]> allTransfers;
+		byte[] transferSettingsDigest = null;
+		byte[][] routeDigests = null;
 
 		if (staticConfig.getTransferCalculation().equals(RaptorTransferCalculation.Initial)) {
-			allTransfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops,
-					staticConfig);
+			transferSettingsDigest = RaptorTransferCache.computeSettingsDigest(schedule, staticConfig);
+			routeDigests = RaptorTransferCache.computeRouteDigests(routes, routeStops);
+			if (previousData != null && Arrays.equals(previousData.transferSettingsDigest, transferSettingsDigest)) {
+				allTransfers = updateRouteStopTransfers(previousData, schedule, stopsQT, routeStopsPerStopFacility, routeStops, routes, routeDigests, staticConfig);
+			} else {
+				allTransfers = getRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, staticConfig, transferSettingsDigest, routeDigests);
+			}
 		} else {
 			allTransfers = Collections.emptyMap();
 		}
@@ -236,23 +292,48 @@ public class SwissRailRaptorData {
             }
         }
 
-        // if adaptive transfer calculation is used, build a map for quick lookup of and collection of minimal transfer times
-		IdMap<TransitStopFacility, Map<TransitStopFacility, Double>> staticTransferTimes = null;
-		if (staticConfig.getTransferCalculation().equals(RaptorTransferCalculation.Adaptive)) {
-			staticTransferTimes = new IdMap<>(TransitStopFacility.class);
+        TransitStopFacility[] stopFacilities = new TransitStopFacility[countStopFacilities];
+        for (Map.Entry<TransitStopFacility, Integer> e : stopFacilityIndices.entrySet()) {
+            stopFacilities[e.getValue()] = e.getKey();
+        }
 
+        // if adaptive transfer calculation is used, collect the minimal transfer times per stop for quick lookup
+		int[] indexFirstStaticTransferPerStop = null;
+		int[] staticTransferToStops = null;
+		double[] staticTransferTimes = null;
+		if (staticConfig.getTransferCalculation().equals(RaptorTransferCalculation.Adaptive)) {
+			// we only put the predefined transfer times here, the location-based ones will be calculated
+			// adaptively during routing. Transfers from or to stops which are not served cannot be used anyway.
+			List<int[]> stopPairs = new ArrayList<>();
+			List<Double> times = new ArrayList<>();
 			MinimalTransferTimes.MinimalTransferTimesIterator iterator = schedule.getMinimalTransferTimes().iterator();
 			while (iterator.hasNext()) {
 				iterator.next();
-
-				// we only put the predefined transfer times here, the location-based ones will be calculated
-				// adaptively during routing
-				staticTransferTimes.computeIfAbsent(iterator.getFromStopId(), id -> new HashMap<>())
-						.put(schedule.getFacilities().get(iterator.getToStopId()), iterator.getSeconds());
+				Integer fromStopIndex = stopFacilityIndices.get(schedule.getFacilities().get(iterator.getFromStopId()));
+				Integer toStopIndex = stopFacilityIndices.get(schedule.getFacilities().get(iterator.getToStopId()));
+				if (fromStopIndex != null && toStopIndex != null) {
+					stopPairs.add(new int[] { fromStopIndex, toStopIndex });
+					times.add(iterator.getSeconds());
+				}
+			}
+			indexFirstStaticTransferPerStop = new int[countStopFacilities + 1];
+			for (int[] stopPair : stopPairs) {
+				indexFirstStaticTransferPerStop[stopPair[0] + 1]++;
+			}
+			for (int stopIndex = 0; stopIndex < countStopFacilities; stopIndex++) {
+				indexFirstStaticTransferPerStop[stopIndex + 1] += indexFirstStaticTransferPerStop[stopIndex];
+			}
+			staticTransferToStops = new int[stopPairs.size()];
+			staticTransferTimes = new double[stopPairs.size()];
+			int[] nextStaticTransfer = Arrays.copyOf(indexFirstStaticTransferPerStop, countStopFacilities);
+			for (int i = 0; i < stopPairs.size(); i++) {
+				int index = nextStaticTransfer[stopPairs.get(i)[0]]++;
+				staticTransferToStops[index] = stopPairs.get(i)[1];
+				staticTransferTimes[index] = times.get(i);
 			}
 		}
 
-        SwissRailRaptorData data = new SwissRailRaptorData(staticConfig, countStopFacilities, routes, departures, departureVehicles, departureIds, routeStops, transfers, stopFacilityIndices, routeStopsPerStopFacility, stopsQT, occupancyData, staticTransferTimes);
+        SwissRailRaptorData data = new SwissRailRaptorData(staticConfig, routes, departures, departureVehicles, departureIds, routeStops, transfers, stopFacilities, stopsQT, occupancyData, indexFirstStaticTransferPerStop, staticTransferToStops, staticTransferTimes, transferSettingsDigest, routeDigests);
 
         long endMillis = System.currentTimeMillis();
         log.info("SwissRailRaptor data preparation done. Took " + (endMillis - startMillis) / 1000 + " seconds.");
@@ -265,7 +346,95 @@ public class SwissRailRaptorData {
     }
 
     // calculate possible transfers between TransitRouteStops
-    private static Map<Integer, RTransfer[]> calculateRouteStopTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config) {
+    private static Map<Integer, RTransfer[]> getRouteStopTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config, byte[] transferSettingsDigest, byte[][] routeDigests) {
+        if (config.getTransferCacheDirectory() == null) {
+            return calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, config, null);
+        }
+        Path cacheFile = RaptorTransferCache.getCacheFile(config.getTransferCacheDirectory(), transferSettingsDigest, routeDigests);
+        Map<Integer, RTransfer[]> transfers = RaptorTransferCache.read(cacheFile, routeStops.length);
+        if (transfers == null) {
+            transfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, config, null);
+            RaptorTransferCache.write(cacheFile, transfers, routeStops.length);
+        }
+        return transfers;
+    }
+
+    // take over the transfers between unchanged routes from the previous data, calculate only the others
+    private static Map<Integer, RTransfer[]> updateRouteStopTransfers(SwissRailRaptorData previousData, TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RRoute[] routes, byte[][] routeDigests, RaptorStaticConfig config) {
+        // routes are identified by line and route id, and are unchanged if everything relevant for the transfers is the same
+        Map<Id<TransitLine>, Map<Id<TransitRoute>, Integer>> previousRouteIndices = new HashMap<>();
+        for (int previousRouteIndex = 0; previousRouteIndex < previousData.routes.length; previousRouteIndex++) {
+            RRoute previousRoute = previousData.routes[previousRouteIndex];
+            if (previousRoute.countRouteStops > 0) {
+                RRouteStop firstRouteStop = previousData.routeStops[previousRoute.indexFirstRouteStop];
+                previousRouteIndices.computeIfAbsent(firstRouteStop.line.getId(), id -> new HashMap<>()).put(firstRouteStop.route.getId(), previousRouteIndex);
+            }
+        }
+        int[] routeIndexPerPreviousRoute = new int[previousData.routes.length];
+        Arrays.fill(routeIndexPerPreviousRoute, -1);
+        BitSet changedRouteStops = new BitSet(routeStops.length);
+        int countUnchangedRoutes = 0;
+        for (int routeIndex = 0; routeIndex < routes.length; routeIndex++) {
+            RRoute route = routes[routeIndex];
+            if (route.countRouteStops == 0) {
+                continue;
+            }
+            RRouteStop firstRouteStop = routeStops[route.indexFirstRouteStop];
+            Integer previousRouteIndex = previousRouteIndices.getOrDefault(firstRouteStop.line.getId(), Collections.emptyMap()).get(firstRouteStop.route.getId());
+            if (previousRouteIndex != null && Arrays.equals(previousData.routeDigests[previousRouteIndex], routeDigests[routeIndex])) {
+                routeIndexPerPreviousRoute[previousRouteIndex] = routeIndex;
+                countUnchangedRoutes++;
+            } else {
+                changedRouteStops.set(route.indexFirstRouteStop, route.indexFirstRouteStop + route.countRouteStops);
+            }
+        }
+        log.info("SwissRailRaptor: taking over the transfers of " + countUnchangedRoutes + " unchanged routes out of " + routes.length + " routes.");
+
+        Map<Integer, RTransfer[]> transfers = new HashMap<>(routeStops.length * 2);
+        List<RTransfer> stopTransfers = new ArrayList<>();
+        for (int previousRouteIndex = 0; previousRouteIndex < previousData.routes.length; previousRouteIndex++) {
+            int routeIndex = routeIndexPerPreviousRoute[previousRouteIndex];
+            if (routeIndex < 0) {
+                continue;
+            }
+            RRoute previousRoute = previousData.routes[previousRouteIndex];
+            RRoute route = routes[routeIndex];
+            for (int i = 0; i < route.countRouteStops; i++) {
+                RRouteStop previousRouteStop = previousData.routeStops[previousRoute.indexFirstRouteStop + i];
+                int fromRouteStopIndex = route.indexFirstRouteStop + i;
+                stopTransfers.clear();
+                for (int t = previousRouteStop.indexFirstTransfer; t < previousRouteStop.indexFirstTransfer + previousRouteStop.countTransfers; t++) {
+                    RTransfer previousTransfer = previousData.transfers[t];
+                    RRouteStop previousToRouteStop = previousData.routeStops[previousTransfer.toRouteStop];
+                    int toRouteIndex = routeIndexPerPreviousRoute[previousToRouteStop.transitRouteIndex];
+                    if (toRouteIndex >= 0) {
+                        int toRouteStopIndex = routes[toRouteIndex].indexFirstRouteStop + previousTransfer.toRouteStop - previousData.routes[previousToRouteStop.transitRouteIndex].indexFirstRouteStop;
+                        stopTransfers.add(new RTransfer(fromRouteStopIndex, toRouteStopIndex, previousTransfer.transferTime, previousTransfer.transferDistance));
+                    }
+                }
+                if (!stopTransfers.isEmpty()) {
+                    transfers.put(fromRouteStopIndex, stopTransfers.toArray(new RTransfer[0]));
+                }
+            }
+        }
+
+        if (!changedRouteStops.isEmpty()) {
+            Map<Integer, RTransfer[]> changedTransfers = calculateRouteStopTransfers(schedule, stopsQT, routeStopsPerStopFacility, routeStops, config, changedRouteStops);
+            for (Map.Entry<Integer, RTransfer[]> e : changedTransfers.entrySet()) {
+                transfers.merge(e.getKey(), e.getValue(), (currentTransfers, newTransfers) -> {
+                    RTransfer[] tmp = Arrays.copyOf(currentTransfers, currentTransfers.length + newTransfers.length);
+                    System.arraycopy(newTransfers, 0, tmp, currentTransfers.length, newTransfers.length);
+                    return tmp;
+                });
+            }
+        }
+        return transfers;
+    }
+
+    /**
+     * @param changedRouteStops if not <code>null</code>, only the transfers from or to these route stops are calculated
+     */
+    private static Map<Integer, RTransfer[]> calculateRouteStopTransfers(TransitSchedule schedule, QuadTree<TransitStopFacility> stopsQT, Map<TransitStopFacility, int[]> routeStopsPerStopFacility, RRouteStop[] routeStops, RaptorStaticConfig config, BitSet changedRouteStops) {
         Map<Integer, RTransfer[]> transfers = new HashMap<>(stopsQT.size() * 5);
         double maxBeelineWalkConnectionDistance = config.getBeelineWalkConnectionDistance();
         double beelineWalkSpeed = config.getBeelineWalkSpeed();
@@ -295,6 +464,15 @@ public class SwissRailRaptorData {
             }
         }
 
+        // stops with a changed route stop, to quickly skip the pairs of stops where nothing changed
+        BitSet changedStops = null;
+        if (changedRouteStops != null) {
+            changedStops = new BitSet();
+            for (int routeStopIndex = changedRouteStops.nextSetBit(0); routeStopIndex >= 0; routeStopIndex = changedRouteStops.nextSetBit(routeStopIndex + 1)) {
+                changedStops.set(routeStops[routeStopIndex].stopFacilityIndex);
+            }
+        }
+
         // now calculate the transfers between the route stops
         MinimalTransferTimes mtt = schedule.getMinimalTransferTimes();
         ArrayList<RTransfer> stopTransfers = new ArrayList<>();
@@ -305,6 +483,10 @@ public class SwissRailRaptorData {
             Collection<TransitStopFacility> nearbyStops = e.getValue();
             for (TransitStopFacility toStop : nearbyStops) {
                 int[] toRouteStopIndices = routeStopsPerStopFacility.get(toStop);
+                if (changedStops != null && !changedStops.get(routeStops[fromRouteStopIndices[0]].stopFacilityIndex)
+                        && !changedStops.get(routeStops[toRouteStopIndices[0]].stopFacilityIndex)) {
+                    continue;
+                }
                 double beelineDistance = CoordUtils.calcEuclideanDistance(fromCoord, toStop.getCoord());
                 double transferTime = beelineDistance / beelineWalkSpeed;
                 if (transferTime < minimalTransferTime) {
@@ -320,6 +502,9 @@ public class SwissRailRaptorData {
                     stopTransfers.clear();
                     for (int toRouteStopIndex : toRouteStopIndices) {
                         RRouteStop toRouteStop = routeStops[toRouteStopIndex];
+                        if (changedRouteStops != null && !changedRouteStops.get(fromRouteStopIndex) && !changedRouteStops.get(toRouteStopIndex)) {
+                            continue;
+                        }
                         if (isUsefulTransfer(fromRouteStop, toRouteStop, maxBeelineWalkConnectionDistance, config.getOptimization())
                             && isTransferAllowed(fromRouteStop, toRouteStop)
                         ) {
@@ -513,6 +698,51 @@ public class SwissRailRaptorData {
         return distance < maxBeelineWalkConnectionDistance;
     }
 
+    /**
+     * @return the index of the stop facility, or -1 if it is not served by any transit route
+     */
+    int getStopIndex(TransitStopFacility stopFacility) {
+        int idIndex = stopFacility.getId().index();
+        return idIndex < this.stopIndexPerFacilityId.length ? this.stopIndexPerFacilityId[idIndex] : -1;
+    }
+
+    /**
+     * @return the distinct times, in ascending order, at which a vehicle departs at the given stop facility between
+     *         <code>earliestDepartureTime</code> and <code>latestDepartureTime</code> (both inclusive)
+     */
+    double[] getDepartureTimes(TransitStopFacility stopFacility, double earliestDepartureTime, double latestDepartureTime) {
+        int stopIndex = getStopIndex(stopFacility);
+        if (stopIndex < 0) {
+            return new double[0];
+        }
+        double[] departureTimes = new double[16];
+        int count = 0;
+        for (int i = this.indexFirstRouteStopPerStop[stopIndex]; i < this.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+            RRouteStop routeStop = this.routeStops[this.routeStopsPerStop[i]];
+            RRoute route = this.routes[routeStop.transitRouteIndex];
+            int fromIndex = route.indexFirstDeparture;
+            int toIndex = fromIndex + route.countDepartures;
+            for (int depIndex = fromIndex; depIndex < toIndex; depIndex++) {
+                double departureTime = this.departures[depIndex] + routeStop.departureOffset;
+                if (departureTime >= earliestDepartureTime && departureTime <= latestDepartureTime) {
+                    if (count == departureTimes.length) {
+                        departureTimes = Arrays.copyOf(departureTimes, count * 2);
+                    }
+                    departureTimes[count++] = departureTime;
+                }
+            }
+        }
+        Arrays.sort(departureTimes, 0, count);
+        // several routes may depart at the same time
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || departureTimes[i] > departureTimes[distinct - 1]) {
+                departureTimes[distinct++] = departureTimes[i];
+            }
+        }
+        return Arrays.copyOf(departureTimes, distinct);
+    }
+
     public Collection<TransitStopFacility> findNearbyStops(double x, double y, double distance) {
         return this.stopsQT.getDisk(x, y, distance);
     }
@@ -604,9 +834,8 @@ public class SwissRailRaptorData {
 		if (filteredQTs.containsKey(stopFilterValue))
 		    return;
 
-	    Set<TransitStopFacility> stops = routeStopsPerStopFacility.keySet();
         QuadTree<TransitStopFacility> stopsQTFiltered = new QuadTree<>(stopsQT.getMinEasting(), stopsQT.getMinNorthing(), stopsQT.getMaxEasting(), stopsQT.getMaxNorthing());
-        for (TransitStopFacility stopFacility : stops) {
+        for (TransitStopFacility stopFacility : this.stopFacilities) {
 			Object attr = stopFacility.getAttributes().getAttribute(stopFilterAttribute);
 			String attrValue = attr == null ? null : attr.toString();
 			if (stopFilterValue.equals(attrValue)) {
@@ -672,17 +901,19 @@ public class SwissRailRaptorData {
         transferCandidates.addAll(stopsQT.getDisk(fromRouteFacility.getCoord().getX(), fromRouteFacility.getCoord().getY(), config.getBeelineWalkConnectionDistance()));
 
         // find transfer candidates with predefined transfer time
-        Map<TransitStopFacility, Double> transferTimes = staticTransferTimes.get(fromRouteFacility.getId());
-
-        if (transferTimes != null) { // some transfer times are predefined
-        	transferCandidates.addAll(transferTimes.keySet());
+        int fromStopIndex = fromRouteStop.stopFacilityIndex;
+        int firstStaticTransfer = indexFirstStaticTransferPerStop[fromStopIndex];
+        int endStaticTransfers = indexFirstStaticTransferPerStop[fromStopIndex + 1];
+        for (int i = firstStaticTransfer; i < endStaticTransfers; i++) {
+        	transferCandidates.add(stopFacilities[staticTransferToStops[i]]);
         }
 
         // now evaluate whether transfers are useful, distance, and travel time
         List<RTransfer> transfers = new LinkedList<>();
         for (TransitStopFacility toRouteFacility : transferCandidates) {
-        	for (int toRouteStopIndex : routeStopsPerStopFacility.get(toRouteFacility)) {
-        		RRouteStop toRouteStop = routeStops[toRouteStopIndex];
+        	int toStopIndex = getStopIndex(toRouteFacility);
+        	for (int j = indexFirstRouteStopPerStop[toStopIndex]; j < indexFirstRouteStopPerStop[toStopIndex + 1]; j++) {
+        		RRouteStop toRouteStop = routeStops[routeStopsPerStop[j]];
 
                 double beelineDistance = CoordUtils.calcEuclideanDistance(fromRouteFacility.getCoord(), toRouteFacility.getCoord());
                 double transferTime = beelineDistance / beelineWalkSpeed;
@@ -691,9 +922,11 @@ public class SwissRailRaptorData {
                     transferTime = minimalTransferTime;
                 }
 
-                if (transferTimes != null) {
-                	// check if we find a predefined transfer time
-                	transferTime = transferTimes.getOrDefault(toRouteFacility, transferTime);
+                // check if we find a predefined transfer time
+                for (int i = firstStaticTransfer; i < endStaticTransfers; i++) {
+                	if (staticTransferToStops[i] == toStopIndex) {
+                		transferTime = staticTransferTimes[i];
+                	}
                 }
 
         		if (SwissRailRaptorData.isUsefulTransfer(fromRouteStop, toRouteStop, beelineWalkConnectionDistance, optimization)) {
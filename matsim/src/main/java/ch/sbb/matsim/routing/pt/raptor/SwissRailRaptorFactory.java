@@ -39,6 +39,7 @@ import jakarta.inject.Singleton;
 public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
 
     private SwissRailRaptorData data = null;
+    private SwissRailRaptorData previousData = null;
     private final TransitSchedule schedule;
     private final Vehicles transitVehicles;
     private final RaptorStaticConfig raptorConfig;
@@ -70,7 +71,13 @@ public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
         this.transferCostCalculator = transferCostCalculator;
 
         if (events != null) {
-            events.addHandler((TransitScheduleChangedEventHandler) event -> this.data = null);
+            events.addHandler((TransitScheduleChangedEventHandler) event -> {
+                // keep the outdated data, parts of it can be re-used
+                if (this.data != null) {
+                    this.previousData = this.data;
+                }
+                this.data = null;
+            });
         }
     }
 
@@ -93,7 +100,8 @@ public class SwissRailRaptorFactory implements Provider<SwissRailRaptor> {
             // prevent doing the work twice.
             return this.data;
         }
-        this.data = SwissRailRaptorData.create(this.schedule, this.transitVehicles, this.raptorConfig, this.network, this.occupancyData);
+        this.data = SwissRailRaptorData.create(this.schedule, this.transitVehicles, this.raptorConfig, this.network, this.occupancyData, this.previousData);
+        this.previousData = null;
         return this.data;
     }
 
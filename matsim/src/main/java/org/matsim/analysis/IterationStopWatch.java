@@ -144,7 +144,12 @@ public final class IterationStopWatch {
 		// check whether this operation has a parent operation
 		if (!this.currentMeasuredOperations.isEmpty()) {
 			String parent = this.currentMeasuredOperations.peek();
-			this.currentIterationChildren.get(parent).add(identifier);
+			List<String> siblings = this.currentIterationChildren.get(parent);
+			// an operation measured repeatedly within an iteration (e.g. the same replanning module in several strategies)
+			// must not be subtracted several times from its parent
+			if (!siblings.contains(identifier)) {
+				siblings.add(identifier);
+			}
 		}
 
 		// add ident to stack
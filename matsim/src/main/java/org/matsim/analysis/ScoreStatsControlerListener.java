@@ -21,6 +21,8 @@
 package org.matsim.analysis;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
@@ -34,6 +36,7 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
@@ -60,7 +63,7 @@ import org.matsim.core.utils.io.IOUtils;
  *
  * @author mrieser
  */
-public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats {
+public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats, Checkpointable {
 
 	public enum ScoreItem { worst, best, average, executed }
 
@@ -196,6 +199,38 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 		}
 	}
 
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		Map<Integer, Double> executed = this.scoreHistory.get(ScoreItem.executed);
+		out.writeInt(executed.size());
+		for (Integer iteration : executed.keySet()) {
+			out.writeInt(iteration);
+			for (ScoreItem item : ScoreItem.values()) {
+				out.writeDouble(this.scoreHistory.get(item).get(iteration));
+			}
+		}
+	}
+
+	/**
+	 * Restores the score history of the iterations before the checkpoint, and writes it to the scorestats file.
+	 */
+	@Override
+	public void readCheckpoint(DataInput in, int iteration) throws IOException {
+		int iterations = in.readInt();
+		for (int i = 0; i < iterations; i++) {
+			int it = in.readInt();
+			for (ScoreItem item : ScoreItem.values()) {
+				this.scoreHistory.get(item).put(it, in.readDouble());
+			}
+			this.out.write(it + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.executed).get(it) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.worst).get(it) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.average).get(it) + this.delimiter
+				+ this.scoreHistory.get(ScoreItem.best).get(it) + "\n");
+		}
+		this.out.flush();
+	}
+
 	@Override
 	public Map<ScoreItem, Map<Integer, Double>> getScoreHistory() {
 		return Collections.unmodifiableMap( this.scoreHistory ) ;
@@ -31,5 +31,6 @@ public class ScoreStatsModule extends AbstractModule {
         bind(ScoreStatsControlerListener.class).in(Singleton.class);
         addControlerListenerBinding().to(ScoreStatsControlerListener.class);
         bind(ScoreStats.class).to(ScoreStatsControlerListener.class);
+        addCheckpointableBinding("scoreStats").to(ScoreStatsControlerListener.class);
     }
 }
@@ -34,11 +34,11 @@ import java.util.*;
 public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = LogManager.getLogger( ControllerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT, SpeedyCH}
 
 	public enum EventTypeToCreateScoringFunctions {IterationStarts, BeforeMobsim}
 
-	public enum EventsFileFormat {xml, pb, json}
+	public enum EventsFileFormat {xml, pb, json, binary}
 
 	public enum CompressionType {
 		none(""),
@@ -80,6 +80,8 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final String EVENT_TYPE_TO_CREATE_SCORING_FUNCTIONS = "createScoringFunctionType";
 
 	private static final String MEMORY_OBSERVER_INTERVAL = "memoryObserverInterval";
+	private static final String WRITE_CHECKPOINTS_INTERVAL = "writeCheckpointsInterval";
+	private static final String RESUME_FROM_CHECKPOINT = "resumeFromCheckpoint";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, hermes}
@@ -112,6 +114,8 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private CleanIterations cleanItersAtEnd = CleanIterations.keep;
 
 	private int memoryObserverInterval = 60;
+	private int writeCheckpointsInterval = 0;
+	private String resumeFromCheckpoint = null;
 
 	public ControllerConfigGroup() {
 		super(GROUP_NAME);
@@ -150,12 +154,17 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 				"Depending on the chosen mobsim, you'll have to add additional config modules to configure the corresponding mobsim." + IOUtils.NATIVE_NEWLINE + "\t\t" +
 				"For 'qsim', add a module 'qsim' to the config.");
 
-		map.put(SNAPSHOT_FORMAT, "Comma-separated list of visualizer output file formats. `transims' and `otfvis'.");
+		map.put(SNAPSHOT_FORMAT, "Comma-separated list of visualizer output file formats. `transims', `binary' (compact, see BinarySnapshotWriter) and `otfvis'.");
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
 		map.put(CLEAN_ITERS_AT_END, "Defines what should be done with the ITERS directory when a simulation finished successfully");
 		map.put(MEMORY_OBSERVER_INTERVAL, "Defines the interval for printing memory usage to the log in [seconds]. Must be positive. Defaults to 60.");
+		map.put(WRITE_CHECKPOINTS_INTERVAL, "iterationNumber % writeCheckpointsInterval == 0 defines in which iterations a checkpoint of the " +
+				"controller state (plans with scores, travel times, annealing state) is written to the iteration directory. `0' disables checkpoints.");
+		map.put(RESUME_FROM_CHECKPOINT, "Checkpoint directory (e.g. ITERS/it.100/checkpoint of an earlier run) from which the run is resumed. " +
+				"The iterations continue after the iteration of the checkpoint, with the same results as the original run. " +
+				"The scenario loader reads the plans of the checkpoint instead of the plans input file.");
 		return map;
 	}
 
@@ -285,7 +294,7 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		this.eventsFileFormats = Collections.unmodifiableSet(EnumSet.copyOf(eventsFileFormats));
 	}
 	// ---
-	public enum SnapshotFormat { transims, googleearth, otfvis, positionevents }
+	public enum SnapshotFormat { transims, googleearth, otfvis, positionevents, binary }
 	private Set<SnapshotFormat> snapshotFormat = Collections.emptySet();
 
 	@StringSetter( SNAPSHOT_FORMAT )
@@ -443,6 +452,26 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		this.memoryObserverInterval = memoryObserverInterval;
 	}
 
+	@StringGetter(WRITE_CHECKPOINTS_INTERVAL)
+	public int getWriteCheckpointsInterval() {
+		return writeCheckpointsInterval;
+	}
+
+	@StringSetter(WRITE_CHECKPOINTS_INTERVAL)
+	public void setWriteCheckpointsInterval(int writeCheckpointsInterval) {
+		this.writeCheckpointsInterval = writeCheckpointsInterval;
+	}
+
+	@StringGetter(RESUME_FROM_CHECKPOINT)
+	public String getResumeFromCheckpoint() {
+		return resumeFromCheckpoint;
+	}
+
+	@StringSetter(RESUME_FROM_CHECKPOINT)
+	public void setResumeFromCheckpoint(String resumeFromCheckpoint) {
+		this.resumeFromCheckpoint = resumeFromCheckpoint;
+	}
+
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
@@ -49,6 +49,9 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 	private final static String EVENTS_QUEUE_SIZE_COMMENT = "Size of the events Queue. Increase for very large scenarios";
 	private int eventsQueueSize = 65536 * 2 ;
 
+	private final static String USE_THREAD_LOCAL_EVENT_BUFFERS = "useThreadLocalEventBuffers";
+	private boolean useThreadLocalEventBuffers = false;
+
 
 
 	private boolean locked = false;
@@ -67,6 +70,9 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
 		comments.put(EVENTS_QUEUE_SIZE,EVENTS_QUEUE_SIZE_COMMENT);
+		comments.put(USE_THREAD_LOCAL_EVENT_BUFFERS, "If enabled, each thread of the mobility simulation buffers its events locally, and the buffers are merged and "
+				+ "processed at the end of every time step. Avoids contention on a shared events queue with a multi-threaded mobsim. "
+				+ "Requires " + SYNCHRONIZE_ON_SIMSTEPS + "; " + ONE_THREAD_PER_HANDLER + " takes precedence. This feature is still experimental!");
 		return comments;
 	}
 
@@ -144,6 +150,20 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 		}
 	}
 
+	@StringGetter( USE_THREAD_LOCAL_EVENT_BUFFERS )
+	public boolean getUseThreadLocalEventBuffers() {
+		return this.useThreadLocalEventBuffers;
+	}
+
+	@StringSetter( USE_THREAD_LOCAL_EVENT_BUFFERS )
+	public void setUseThreadLocalEventBuffers(boolean useThreadLocalEventBuffers) {
+		if ( !this.locked ) {
+			this.useThreadLocalEventBuffers = useThreadLocalEventBuffers;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
@@ -40,6 +40,7 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	@Override public Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_CMT ) ;
+		map.put(REPLANNING_LOAD_BALANCING, REPLANNING_LOAD_BALANCING_CMT ) ;
 		return map ;
 	}
 	// ---
@@ -100,6 +101,27 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 	// ---
+	private boolean replanningLoadBalancing = false;
+	private static final String REPLANNING_LOAD_BALANCING = "replanningLoadBalancing";
+	private static final String REPLANNING_LOAD_BALANCING_CMT = "If true, the threads of multi-threaded replanning modules take the next plan to handle "
+			+ "as soon as they are idle, instead of getting an equal share of the plans assigned in advance. This avoids idle threads "
+			+ "when a few plans take long to handle, but which plan is handled by which thread depends on timing, so runs with "
+			+ "randomized replanning modules are no longer reproducible.";
+	/**
+	 * @return {@link #REPLANNING_LOAD_BALANCING_CMT}
+	 */
+	@StringGetter( REPLANNING_LOAD_BALANCING )
+	public boolean isReplanningLoadBalancing() {
+		return this.replanningLoadBalancing;
+	}
+	/**
+	 * @param replanningLoadBalancing -- {@link #REPLANNING_LOAD_BALANCING_CMT}
+	 */
+	@StringSetter( REPLANNING_LOAD_BALANCING )
+	public void setReplanningLoadBalancing(final boolean replanningLoadBalancing) {
+		this.replanningLoadBalancing = replanningLoadBalancing;
+	}
+	// ---
 	private String coordinateSystem = "Atlantis" ;
 	// see https://matsim.atlassian.net/browse/MATSIM-898
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
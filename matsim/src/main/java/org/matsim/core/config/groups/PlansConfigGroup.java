@@ -110,6 +110,9 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
                 "activityStartTime. default=false. Use with Caution!");
 
+		comments.put(COMPRESSING_NON_SELECTED_PLANS, "If true, the plan elements of non-selected plans are stored in a compact form before " +
+				"the mobsim to reduce memory usage, and are restored when they are accessed again. default=false.");
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -246,6 +249,19 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.removingUnneccessaryPlanAttributes = removingUnneccessaryPlanAttributes;
 	}
 
+	// ---
+
+	private static final String COMPRESSING_NON_SELECTED_PLANS = "compressingNonSelectedPlans";
+	private boolean compressingNonSelectedPlans = false;
+	@StringGetter(COMPRESSING_NON_SELECTED_PLANS)
+	public boolean isCompressingNonSelectedPlans() {
+		return this.compressingNonSelectedPlans;
+	}
+	@StringSetter(COMPRESSING_NON_SELECTED_PLANS)
+	public void setCompressingNonSelectedPlans(final boolean compressingNonSelectedPlans) {
+		this.compressingNonSelectedPlans = compressingNonSelectedPlans;
+	}
+
 
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
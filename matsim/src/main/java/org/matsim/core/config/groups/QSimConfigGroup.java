@@ -61,6 +61,8 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	/* package */ final static String NOTIFY_ABOUT_STUCK_VEHICLES_STRING =
 		"Boolean. `true': when a vehicle is moved to the next link because the stuck time is exceeded, a PersonStuckAndContinueEvent is thrown.";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+	private static final String LOAD_BALANCING_INTERVAL = "loadBalancingInterval";
+	private static final String USING_PARALLEL_AGENT_ENGINES = "usingParallelActivityAndTeleportationEngines";
 	private static final String TRAFFIC_DYNAMICS = "trafficDynamics";
 	private static final String SIM_STARTTIME_INTERPRETATION = "simStarttimeInterpretation";
 	private static final String USE_PERSON_ID_FOR_MISSING_VEHICLE_ID = "usePersonIdForMissingVehicleId";
@@ -95,6 +97,9 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private boolean usePersonIdForMissingVehicleId = true;
 	@Positive
 	private int numberOfThreads = 1;
+	@PositiveOrZero
+	private int loadBalancingInterval = 0;
+	private boolean usingParallelAgentEngines = false;
 	//	private static final String CREATING_VEHICLES_FOR_ALL_NETWORK_MODES = "creatingVehiclesForAllNetworkModes";
 //	private boolean creatingVehiclesForAllNetworkModes = true;
 	// ---
@@ -175,6 +180,13 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "Number of threads used for the QSim.  "
 				+ "Note that this setting is independent from the \"global\" threads setting.  "
 				+ "In contrast to earlier versions, the non-parallel special version is no longer there.");
+		map.put(LOAD_BALANCING_INTERVAL, "Number of time steps after which the active nodes and links are rebalanced between the threads "
+				+ "of the QSim, based on the measured computing time of each thread.  0 (default) means the nodes and links are "
+				+ "assigned to the threads once at the start of the simulation.  Only has an effect with more than one thread.");
+		map.put(USING_PARALLEL_AGENT_ENGINES, "If true, the agents which end their activity or their teleportation in a time step "
+				+ "compute their next state on the threads of the QSim.  The events are thrown in the same order for any number of "
+				+ "threads.  Requires that the agents can compute their next state independently of each other, which is the case "
+				+ "for the default agents.  Only has an effect with more than one thread.");
 		map.put(REMOVE_STUCK_VEHICLES, REMOVE_STUCK_VEHICLES_STRING);
 		map.put(STUCK_TIME, STUCK_TIME_STRING);
 		map.put(NOTIFY_ABOUT_STUCK_VEHICLES, NOTIFY_ABOUT_STUCK_VEHICLES_STRING);
@@ -498,6 +510,26 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter(LOAD_BALANCING_INTERVAL)
+	public int getLoadBalancingInterval() {
+		return this.loadBalancingInterval;
+	}
+
+	@StringSetter(LOAD_BALANCING_INTERVAL)
+	public void setLoadBalancingInterval(final int loadBalancingInterval) {
+		this.loadBalancingInterval = loadBalancingInterval;
+	}
+
+	@StringGetter(USING_PARALLEL_AGENT_ENGINES)
+	public boolean isUsingParallelAgentEngines() {
+		return this.usingParallelAgentEngines;
+	}
+
+	@StringSetter(USING_PARALLEL_AGENT_ENGINES)
+	public void setUsingParallelAgentEngines(final boolean usingParallelAgentEngines) {
+		this.usingParallelAgentEngines = usingParallelAgentEngines;
+	}
+
 	@StringGetter(SIM_STARTTIME_INTERPRETATION)
 	public StarttimeInterpretation getSimStarttimeInterpretation() {
 		return simStarttimeInterpretation;
@@ -111,6 +111,12 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		disable, abortOnInconsistency
 	}
 
+	private static final String LANDMARKS_CACHE_DIRECTORY = "landmarksCacheDirectory";
+	private static final String LANDMARKS_CACHE_DIRECTORY_CMT = "Directory in which the preprocessed landmark data of the SpeedyALT router is stored, " +
+																		"so later runs with the same network can reuse it. Default is null, which means the " +
+																		"landmark data is only kept in memory.";
+	private String landmarksCacheDirectory = null;
+
 	/**
 	 * @deprecated -- use {@link TeleportedModeParams} to be consistent with xml config.  kai, jun'23
 	 */
@@ -528,6 +534,8 @@ public final class RoutingConfigGroup extends ConfigGroup {
 			this.setAccessEgressType(AccessEgressType.valueOf(value));
 		} else if (NETWORK_ROUTE_CONSISTENCY_CHECK.equals(key)){
 			this.setNetworkRouteConsistencyCheck(NetworkRouteConsistencyCheck.valueOf(value));
+		} else if (LANDMARKS_CACHE_DIRECTORY.equals(key)) {
+			this.setLandmarksCacheDirectory(value);
 		}
 		else {
 			throw new IllegalArgumentException(key);
@@ -542,6 +550,9 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		map.put(  RANDOMNESS, Double.toString( this.routingRandomness ) ) ;
 		map.put(  ACCESSEGRESSTYPE, getAccessEgressType().toString()) ;
 		map.put(NETWORK_ROUTE_CONSISTENCY_CHECK, NetworkRouteConsistencyCheck.abortOnInconsistency.toString());
+		if (this.landmarksCacheDirectory != null) {
+			map.put(LANDMARKS_CACHE_DIRECTORY, this.landmarksCacheDirectory);
+		}
 		return map;
 	}
 
@@ -558,6 +569,7 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		map.put( CLEAR_MODE_ROUTING_PARAMS, CLEAR_MODE_ROUTING_PARAMS_CMT ) ;
 		map.put(ACCESSEGRESSTYPE, ACCESSEGRESSTYPE_CMT);
 		map.put(NETWORK_ROUTE_CONSISTENCY_CHECK, "Defines whether the network consistency should be checked.");
+		map.put(LANDMARKS_CACHE_DIRECTORY, LANDMARKS_CACHE_DIRECTORY_CMT);
 		return map;
 	}
 
@@ -671,6 +683,15 @@ public final class RoutingConfigGroup extends ConfigGroup {
 		this.networkRouteConsistencyCheck = networkRouteConsistencyCheck;
 	}
 
+	public String getLandmarksCacheDirectory() {
+		return this.landmarksCacheDirectory;
+	}
+
+	public void setLandmarksCacheDirectory(String landmarksCacheDirectory) {
+		testForLocked();
+		this.landmarksCacheDirectory = landmarksCacheDirectory;
+	}
+
 	@Override protected void checkConsistency(Config config) {
 		super.checkConsistency(config);
 		Set<String> modesRoutedAsTeleportation = this.getModeRoutingParams().keySet();
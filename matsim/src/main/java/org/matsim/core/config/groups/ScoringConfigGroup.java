@@ -80,6 +80,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_SCORE_EXPLANATIONS = "writeScoreExplanations";
 
+	private static final String NUMBER_OF_SCORING_THREADS = "numberOfScoringThreads";
+
 	private final ReflectiveDelegate delegate = new ReflectiveDelegate();
 
 	private boolean usesDeprecatedSyntax = false ;
@@ -422,6 +424,9 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 		map.put(WRITE_SCORE_EXPLANATIONS,
 				 "Write detailed score composition into plan attributes after execution.");
+		map.put(NUMBER_OF_SCORING_THREADS,
+				"number of threads the scoring functions of the persons are called from. 0 (default) calls them from the "
+						+ "events handling thread. With more threads, the persons are partitioned among the threads; the scores do not change.");
 
 		return map;
 	}
@@ -701,6 +706,14 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		return delegate.isWriteScoreExplanations();
 	}
 
+	public int getNumberOfScoringThreads() {
+		return delegate.getNumberOfScoringThreads();
+	}
+
+	public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+		delegate.setNumberOfScoringThreads(numberOfScoringThreads);
+	}
+
 	public double getPathSizeLogitBeta() {
 		return delegate.getPathSizeLogitBeta();
 	}
@@ -1600,6 +1613,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 		private boolean explainScores = false;
 
+		private int numberOfScoringThreads = 0;
+
 		@StringGetter(FRACTION_OF_ITERATIONS_TO_START_SCORE_MSA)
 		public Double getFractionOfIterationsToStartScoreMSA() {
 			return fractionOfIterationsToStartScoreMSA;
@@ -1683,5 +1698,19 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		public boolean isWriteScoreExplanations() {
 			return explainScores;
 		}
+
+		@StringGetter(NUMBER_OF_SCORING_THREADS)
+		public int getNumberOfScoringThreads() {
+			return numberOfScoringThreads;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_THREADS)
+		public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+			testForLocked();
+			if (numberOfScoringThreads < 0) {
+				throw new IllegalArgumentException("Number of scoring threads must not be negative, but was " + numberOfScoringThreads);
+			}
+			this.numberOfScoringThreads = numberOfScoringThreads;
+		}
 	}
 }
@@ -115,6 +115,10 @@ import java.io.UncheckedIOException;
 
     private void doIterations(Config config) throws MatsimRuntimeModifications.UnexpectedShutdownException {
     	int iteration = config.controller().getFirstIteration();
+    	if (config.controller().getResumeFromCheckpoint() != null) {
+    		// the first iteration stays as configured, as several components depend on it
+    		iteration = ControllerCheckpoints.readIteration(config.controller().getResumeFromCheckpoint()) + 1;
+    	}
 
     	// Special case if lastIteration == -1 -> Do not run any Mobsim
     	boolean doTerminate = config.controller().getLastIteration() < iteration;
@@ -111,6 +111,7 @@ public abstract class AbstractModule implements Module {
 		Multibinder.newSetBinder(this.binder, EventHandler.class);
 		Multibinder.newSetBinder(this.binder, ControlerListener.class);
 		MapBinder.newMapBinder(this.binder, new TypeLiteral<Class<?>>(){}, new TypeLiteral<AttributeConverter<?>>() {} );
+		MapBinder.newMapBinder(this.binder, String.class, Checkpointable.class);
 		Multibinder.newSetBinder(this.binder, AbstractQSimModule.class);
 		Multibinder.newSetBinder( this.binder, AbstractQSimModule.class, Names.named( "overridesFromAbstractModule" ) );
 	}
@@ -144,6 +145,14 @@ public abstract class AbstractModule implements Module {
 		return Multibinder.newSetBinder(this.binder, ControlerListener.class).addBinding();
 	}
 
+	/**
+	 * @param name identifies the state in the checkpoint, and thus must be the same in the run which is resumed.
+	 * @see Checkpointable
+	 */
+	protected final LinkedBindingBuilder<Checkpointable> addCheckpointableBinding(String name) {
+		return MapBinder.newMapBinder(this.binder, String.class, Checkpointable.class).addBinding(name);
+	}
+
 	/**
 	 * @see StrategyManagerModule
 	 */
@@ -0,0 +1,49 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Checkpointable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.matsim.core.api.internal.MatsimExtensionPoint;
+
+/**
+ * State of the iterations which is not contained in the population, e.g. travel times of the last iteration, and which is
+ * written to the checkpoints of the controller and restored when a run is resumed from a checkpoint.  Implementations are
+ * bound with {@link AbstractModule#addCheckpointableBinding(String)}, and need to be singletons.
+ * <p>
+ * The state is written at the end of the iteration, after all iteration ends listeners, and restored at startup, after all
+ * startup listeners and after the population of the checkpoint has been read.
+ *
+ * @see org.matsim.core.config.groups.ControllerConfigGroup#getWriteCheckpointsInterval()
+ * @see org.matsim.core.config.groups.ControllerConfigGroup#getResumeFromCheckpoint()
+ */
+public interface Checkpointable extends MatsimExtensionPoint {
+
+	void writeCheckpoint(DataOutput out) throws IOException;
+
+	/**
+	 * @param iteration the iteration at the end of which the checkpoint was written
+	 */
+	void readCheckpoint(DataInput in, int iteration) throws IOException;
+
+}
@@ -23,6 +23,7 @@
 package org.matsim.core.controler;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import org.matsim.analysis.IterationTravelStatsModule;
 import org.matsim.analysis.LegHistogramModule;
 import org.matsim.analysis.LegTimesModule;
@@ -34,6 +35,7 @@ import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.events.EventsManagerModule;
 import org.matsim.core.mobsim.DefaultMobsimModule;
+import org.matsim.core.population.PlansCompressorModule;
 import org.matsim.core.population.VspPlansCleanerModule;
 import org.matsim.core.replanning.StrategyManagerModule;
 import org.matsim.core.replanning.annealing.ReplanningAnnealer;
@@ -63,7 +65,9 @@ public final class ControlerDefaultsModule extends AbstractModule {
         install(new StrategyManagerModule());
         install(new TimeInterpretationModule());
         if (getConfig().replanningAnnealer().isActivateAnnealingModule()) {
+            bind(ReplanningAnnealer.class).in(Singleton.class);
             addControlerListenerBinding().to(ReplanningAnnealer.class);
+            addCheckpointableBinding("replanningAnnealer").to(ReplanningAnnealer.class);
         }
 
         // I think that the ones coming here are all for analysis only, and thus not central to the iterations. kai, apr'18
@@ -76,6 +80,8 @@ public final class ControlerDefaultsModule extends AbstractModule {
         install(new ModeStatsModule());
         install(new CountsModule());
         install(new VspPlansCleanerModule());
+        install(new PlansCompressorModule());
+        install(new ControllerCheckpointsModule());
         install(new SnapshotWritersModule());
         install(new DependencyGraphModule());
         install(new PlanInheritanceModule());
@@ -0,0 +1,203 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ControllerCheckpoints.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.StartupEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.StartupListener;
+import org.matsim.core.population.io.BinaryPopulationWriter;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.utils.objectattributes.AttributeConverter;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Writes checkpoints of the controller state at the end of the iterations, and restores the state of a checkpoint at
+ * startup if the run is resumed.  The plans of a checkpoint are read by the scenario loader, see
+ * {@link ControllerUtils#getCheckpointPlansFile(String)}.  A checkpoint is a directory in the iteration directory, which contains the population in
+ * the binary format, including the order of the persons, and the state of all bound {@link Checkpointable}s.
+ * <p>
+ * The random numbers do not need to be stored, as they are reset from the seed and the iteration number at the beginning of
+ * every iteration.
+ */
+/* deliberately package */ final class ControllerCheckpoints implements StartupListener, IterationEndsListener {
+
+	private static final Logger log = LogManager.getLogger(ControllerCheckpoints.class);
+
+	static final String DIRECTORY = "checkpoint";
+	static final String PLANS_FILE = "plans.bin";
+	static final String STATE_FILE = "state.bin";
+
+	private static final int MAGIC = 0x4d434b50;
+	private static final int VERSION = 1;
+
+	@Inject
+	private Config config;
+
+	@Inject
+	private Scenario scenario;
+
+	@Inject
+	private OutputDirectoryHierarchy controlerIO;
+
+	@Inject
+	private Map<Class<?>, AttributeConverter<?>> attributeConverters;
+
+	@Inject
+	private Provider<Map<String, Checkpointable>> checkpointables;
+
+	/**
+	 * Runs after all other listeners, such that the state of all of them is final at the end of the iteration, and such that
+	 * the restored state is not overwritten by their startup.
+	 */
+	@Override
+	public double priority() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	public void notifyStartup(StartupEvent event) {
+		String directory = this.config.controller().getResumeFromCheckpoint();
+		if (directory != null) {
+			readCheckpoint(directory);
+		}
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		int interval = this.config.controller().getWriteCheckpointsInterval();
+		if (interval > 0 && event.getIteration() % interval == 0) {
+			writeCheckpoint(event.getIteration());
+		}
+	}
+
+	/**
+	 * @return the iteration at the end of which the checkpoint in the given directory was written.
+	 */
+	static int readIteration(String directory) {
+		try (DataInputStream in = openState(directory)) {
+			return in.readInt();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeCheckpoint(int iteration) {
+		String directory = this.controlerIO.getIterationPath(iteration) + "/" + DIRECTORY;
+		log.info("writing checkpoint of iteration " + iteration + " to " + directory);
+		new File(directory).mkdirs();
+
+		BinaryPopulationWriter writer = new BinaryPopulationWriter(new IdentityTransformation(), this.scenario.getPopulation(),
+				this.config.global().getNumberOfThreads());
+		writer.putAttributeConverters(this.attributeConverters);
+		writer.setKeepingPersonOrder(true);
+		writer.write(directory + "/" + PLANS_FILE);
+
+		// the state file is written last and under its final name only when complete, such that an interrupted checkpoint is not used
+		File stateFile = new File(directory, STATE_FILE);
+		File tmpFile = new File(directory, STATE_FILE + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath()), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(iteration);
+			Map<String, Checkpointable> checkpointables = this.checkpointables.get();
+			out.writeInt(checkpointables.size());
+			for (Map.Entry<String, Checkpointable> entry : checkpointables.entrySet()) {
+				out.writeUTF(entry.getKey());
+				entry.getValue().writeCheckpoint(out);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			Files.move(tmpFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Restores the state of the {@link Checkpointable}s.  The population of the checkpoint is already loaded by the
+	 * scenario loader instead of the plans input file, so the input plans are never parsed and all startup listeners see
+	 * the population of the checkpoint.
+	 */
+	private void readCheckpoint(String directory) {
+		log.info("resuming from checkpoint in " + directory);
+		Map<String, Checkpointable> checkpointables = this.checkpointables.get();
+		try (DataInputStream in = openState(directory)) {
+			int iteration = in.readInt();
+			int count = in.readInt();
+			Set<String> restored = new HashSet<>();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				Checkpointable checkpointable = checkpointables.get(name);
+				if (checkpointable == null) {
+					throw new IllegalStateException("The checkpoint contains the state of " + name + ", which is not bound in this run.");
+				}
+				checkpointable.readCheckpoint(in, iteration);
+				restored.add(name);
+			}
+			Set<String> missing = new HashSet<>(checkpointables.keySet());
+			missing.removeAll(restored);
+			if (!missing.isEmpty()) {
+				throw new IllegalStateException("The checkpoint does not contain the state of " + missing + ".");
+			}
+			log.info("restored the state of iteration " + iteration + " for " + restored);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static DataInputStream openState(String directory) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(IOUtils.getInputStream(IOUtils.getFileUrl(directory + "/" + STATE_FILE)), 1 << 16));
+		if (in.readInt() != MAGIC) {
+			in.close();
+			throw new IllegalArgumentException("The directory " + directory + " does not contain a checkpoint.");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			in.close();
+			throw new IllegalArgumentException("Unsupported version " + version + " of the checkpoint in " + directory + ".");
+		}
+		return in;
+	}
+
+}
@@ -0,0 +1,30 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ControllerCheckpointsModule.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+public final class ControllerCheckpointsModule extends AbstractModule {
+	@Override
+	public void install() {
+		if (getConfig().controller().getWriteCheckpointsInterval() > 0 || getConfig().controller().getResumeFromCheckpoint() != null) {
+			addControlerListenerBinding().to(ControllerCheckpoints.class);
+		}
+	}
+}
@@ -118,4 +118,12 @@ public final class ControllerUtils{
 		return new Controler( scenario );
 	}
 
+	/**
+	 * @return the file with the plans of the checkpoint in the given directory, which the scenario loader reads instead of the
+	 * plans input file if the run is resumed, see {@link org.matsim.core.config.groups.ControllerConfigGroup#getResumeFromCheckpoint()}.
+	 */
+	public static String getCheckpointPlansFile( String checkpointDirectory ) {
+		return checkpointDirectory + "/" + ControllerCheckpoints.PLANS_FILE;
+	}
+
 }
@@ -157,6 +157,10 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 					case json:
 						file = Controler.DefaultFiles.eventsJson;
 						break;
+					case binary:
+						IOUtils.copyFile(this.controlerIO.getIterationFilename(iteration, Controler.DefaultFiles.eventsBinary, null),
+								this.controlerIO.getOutputFilename(Controler.DefaultFiles.eventsBinary, null));
+						continue;
 					default:
 						continue;
 				}
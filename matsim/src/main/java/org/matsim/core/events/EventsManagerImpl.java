@@ -20,6 +20,11 @@
 
 package org.matsim.core.events;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -31,16 +36,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.matsim.api.core.v01.events.*;
-import org.matsim.api.core.v01.events.handler.*;
-import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
-import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
-import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
-import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
-import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
-import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
 /**
@@ -51,10 +48,12 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
- * up execution!</li>
  * </ol>
  *
+ * For every <code>handleEvent</code> method, a small dispatcher class is generated when the first handler
+ * implementing it is added. The dispatcher calls the method directly, so events of all types, including
+ * the ones defined in contribs, are passed to their handlers without reflection.
+ *
  * @author dstrippgen
  * @author mrieser
  */
@@ -62,32 +61,58 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = LogManager.getLogger(EventsManagerImpl.class);
 
+	/**
+	 * Passes an event to the <code>handleEvent</code> method of one handler interface.
+	 */
+	@FunctionalInterface
+	private interface EventDispatcher {
+		void dispatch(EventHandler handler, Event event);
+	}
+
+	/* Dispatchers are stateless, so they can be shared by all instances.  They are stored per handler interface with a
+	 * ClassValue, so the cache does not keep handler interfaces (and the classes generated for them) from being unloaded. */
+	private static final ClassValue<Map<Method, EventDispatcher>> dispatchers = new ClassValue<>() {
+		@Override
+		protected Map<Method, EventDispatcher> computeValue(Class<?> handlerInterface) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
 	static private class HandlerData {
 
 		protected Class<? extends Event> eventClass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
-		protected Method method;
+		// the dispatcher for each entry in handlerList, as handlers may implement different interfaces for the same event class
+		protected ArrayList<EventDispatcher> dispatcherList = new ArrayList<EventDispatcher>(5);
 
-		protected HandlerData(final Class<? extends Event> eventClass, final Method method) {
+		protected HandlerData(final Class<? extends Event> eventClass) {
 			this.eventClass = eventClass;
-			this.method = method;
+		}
+
+		protected void addHandler(final EventHandler handler, final EventDispatcher dispatcher) {
+			this.handlerList.add(handler);
+			this.dispatcherList.add(dispatcher);
 		}
 
 		protected void removeHandler(final EventHandler handler) {
-			this.handlerList.remove(handler);
+			int index = this.handlerList.indexOf(handler);
+			if (index >= 0) {
+				this.handlerList.remove(index);
+				this.dispatcherList.remove(index);
+			}
 		}
 	}
 
 	static private class HandlerInfo {
 		protected final Class<? extends Event> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final EventDispatcher dispatcher;
 
 		protected HandlerInfo(final Class<? extends Event> eventClass, final EventHandler eventHandler,
-				final Method method) {
+				final EventDispatcher dispatcher) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.dispatcher = dispatcher;
 		}
 	}
 
@@ -116,15 +141,10 @@ public final class EventsManagerImpl implements EventsManager {
 		}
 		for (HandlerInfo info : getHandlersForClass( event.getClass() )) {
 			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler )) {
-					continue;
-				}
 				try {
-					info.method.invoke(info.eventHandler, event );
-				} catch (IllegalArgumentException | IllegalAccessException e) {
+					info.dispatcher.dispatch(info.eventHandler, event);
+				} catch (RuntimeException e) {
 					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
 				}
 			}
 		}
@@ -204,15 +224,56 @@ public final class EventsManagerImpl implements EventsManager {
 					log.info("    > " + eventClass.getName());
 					HandlerData dat = findHandler(eventClass);
 					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
+						dat = new HandlerData(eventClass);
 						this.handlerData.add(dat);
 					}
-					dat.handlerList.add(handler);
+					dat.addHandler(handler, dispatchers.get(method.getDeclaringClass()).computeIfAbsent(method, EventsManagerImpl::createDispatcher));
 				}
 			}
 		}
 	}
 
+	/**
+	 * Generates a dispatcher calling the given <code>handleEvent</code> method directly. Falls back to
+	 * calling the method by reflection if the handler interface cannot be accessed from here.
+	 */
+	private static EventDispatcher createDispatcher(final Method method) {
+		try {
+			if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getParameterTypes()[0])) {
+				throw new IllegalAccessException("classes not visible from the class loader of " + EventsManagerImpl.class.getName());
+			}
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handleEvent = lookup.unreflect(method);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "dispatch",
+					MethodType.methodType(EventDispatcher.class),
+					MethodType.methodType(void.class, EventHandler.class, Event.class),
+					handleEvent, handleEvent.type());
+			return (EventDispatcher) site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			log.warn("could not generate dispatcher for " + method + ", events will be passed by reflection.", e);
+			return (handler, event) -> {
+				try {
+					method.invoke(handler, event);
+				} catch (IllegalAccessException ex) {
+					throw new RuntimeException(ex);
+				} catch (InvocationTargetException ex) {
+					if (ex.getCause() instanceof RuntimeException runtimeException) {
+						throw runtimeException;
+					}
+					throw new RuntimeException(ex.getCause());
+				}
+			};
+		}
+	}
+
+	private static boolean isVisible(final Class<?> klass) {
+		try {
+			return Class.forName(klass.getName(), false, EventsManagerImpl.class.getClassLoader()) == klass;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
 	private HandlerInfo[] getHandlersForClass(final Class<? extends Event> eventClass) {
 		HandlerInfo[] cache = this.cacheHandlers.get(eventClass);
 		if (cache != null) {
@@ -226,8 +287,8 @@ public final class EventsManagerImpl implements EventsManager {
 			Class<? extends Event> eventKlass = (Class<? extends Event>)klass;
 			HandlerData dat = findHandler(eventKlass);
 			if (dat != null) {
-				for (EventHandler handler : dat.handlerList) {
-					info.add(new HandlerInfo(eventKlass, handler, dat.method));
+				for (int i = 0; i < dat.handlerList.size(); i++) {
+					info.add(new HandlerInfo(eventKlass, dat.handlerList.get(i), dat.dispatcherList.get(i)));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -238,64 +299,6 @@ public final class EventsManagerImpl implements EventsManager {
 		return cache;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private static boolean callHandlerFast(final Class<? extends Event> klass, final Event ev,
-			final EventHandler handler) {
-		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
-		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
-		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler) handler).handleEvent((VehicleEntersTrafficEvent) ev);
-			return true;
-		} else if (klass == VehicleLeavesTrafficEvent.class) {
-			((VehicleLeavesTrafficEventHandler) handler).handleEvent((VehicleLeavesTrafficEvent) ev);
-			return true;
-		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
-		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
-		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
-		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
-		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
-		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
-		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
-		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
-		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
-		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
-		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
-		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
-		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
-		}
-		return false;
-	}
-
 	public void printEventHandlers() {
 		log.info("currently registered event-handlers:");
 		for (HandlerData handlerType : this.handlerData) {
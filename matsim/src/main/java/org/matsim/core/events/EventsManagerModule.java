@@ -36,6 +36,8 @@ public final class EventsManagerModule extends AbstractModule {
 	public void install() {
 		if (BooleanUtils.isTrue(getConfig().eventsManager().getOneThreadPerHandler())) {
 			bindEventsManager().to(ParallelEventsManager.class).in(Singleton.class);
+		} else if (getConfig().eventsManager().getUseThreadLocalEventBuffers()) {
+			bindEventsManager().to(ThreadBufferedEventsManagerImpl.class).in(Singleton.class);
 		} else if (getConfig().eventsManager().getNumberOfThreads() != null) {
 			if (BooleanUtils.isTrue(getConfig().eventsManager().getSynchronizeOnSimSteps())) {
 				bindEventsManager().to(SimStepParallelEventsManagerImpl.class).in(Singleton.class);
@@ -0,0 +1,441 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasFacilityId;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.MatsimEventsReader.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Reads events written by {@link EventWriterBinary}.
+ *
+ * The most frequent event types are decoded directly into events, creating every Id only once per
+ * string of the block's dictionary. Other event types are passed as attributes to {@link EventsReaderXMLv1},
+ * so they are created like in the xml format, including custom event mappers.
+ *
+ * Besides reading all events, files can be queried for the events of a time window. Then only the blocks
+ * containing such events are read, using the index at the end of the file.
+ */
+public final class EventsReaderBinary {
+
+	private final static Logger LOG = LogManager.getLogger(EventsReaderBinary.class);
+
+	private final static Map<String, EventType> EVENT_TYPES = Map.of(
+			LinkEnterEvent.EVENT_TYPE, EventType.LINK_ENTER,
+			LinkLeaveEvent.EVENT_TYPE, EventType.LINK_LEAVE,
+			VehicleEntersTrafficEvent.EVENT_TYPE, EventType.VEHICLE_ENTERS_TRAFFIC,
+			VehicleLeavesTrafficEvent.EVENT_TYPE, EventType.VEHICLE_LEAVES_TRAFFIC,
+			PersonEntersVehicleEvent.EVENT_TYPE, EventType.PERSON_ENTERS_VEHICLE,
+			PersonLeavesVehicleEvent.EVENT_TYPE, EventType.PERSON_LEAVES_VEHICLE,
+			PersonDepartureEvent.EVENT_TYPE, EventType.PERSON_DEPARTURE,
+			PersonArrivalEvent.EVENT_TYPE, EventType.PERSON_ARRIVAL,
+			ActivityStartEvent.EVENT_TYPE, EventType.ACTIVITY_START,
+			ActivityEndEvent.EVENT_TYPE, EventType.ACTIVITY_END);
+
+	private final static Map<String, Key> KEYS = Map.ofEntries(
+			Map.entry(HasPersonId.ATTRIBUTE_PERSON, Key.PERSON),
+			Map.entry(HasVehicleId.ATTRIBUTE_VEHICLE, Key.VEHICLE),
+			Map.entry(HasLinkId.ATTRIBUTE_LINK, Key.LINK),
+			Map.entry(HasFacilityId.ATTRIBUTE_FACILITY, Key.FACILITY),
+			Map.entry(ActivityEndEvent.ATTRIBUTE_ACTTYPE, Key.ACT_TYPE),
+			Map.entry(Event.ATTRIBUTE_X, Key.X),
+			Map.entry(Event.ATTRIBUTE_Y, Key.Y),
+			Map.entry(PersonDepartureEvent.ATTRIBUTE_LEGMODE, Key.LEG_MODE),
+			Map.entry(PersonDepartureEvent.ATTRIBUTE_ROUTING_MODE, Key.ROUTING_MODE),
+			Map.entry(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE, Key.NETWORK_MODE),
+			Map.entry(VehicleEntersTrafficEvent.ATTRIBUTE_POSITION, Key.POSITION));
+
+	private final EventsManager events;
+	private final EventsReaderXMLv1 delegate;
+	private final AttributesImpl attributes = new AttributesImpl();
+
+	// the strings of the current block, and per string the event type and attribute it names and the Ids created from it
+	private String[] dictionary = new String[1024];
+	private EventType[] eventTypes = new EventType[1024];
+	private Key[] keys = new Key[1024];
+	private Id<?>[][] ids = new Id<?>[IdType.values().length][1024];
+
+	// the attributes of the current event, and the attribute per key
+	private int[] attributeKeys = new int[16];
+	private int[] attributeValues = new int[16];
+	private String[] inlineValues = new String[16];
+	private final int[] attributeOfKey = new int[Key.values().length];
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.events = events;
+		this.delegate = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper cem) {
+		this.delegate.addCustomEventMapper(eventType, cem);
+	}
+
+	public void parse(final String filename) throws UncheckedIOException {
+		LOG.info("starting to parse binary events from file " + filename + " ...");
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			readHeader(file);
+			while (readBlock(file, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)) {
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void parse(final InputStream stream) throws UncheckedIOException {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+			readHeader(in);
+			while (readBlock(in, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)) {
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public void parse(final URL url) throws UncheckedIOException {
+		LOG.info("starting to parse binary events from url " + url + " ...");
+		try (InputStream stream = url.openStream()) {
+			parse(stream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the events with <code>fromTime &lt;= time &lt; toTime</code>. Blocks of events outside of
+	 * the time window are skipped.
+	 */
+	public void parseTimeWindow(final String filename, final double fromTime, final double toTime) throws UncheckedIOException {
+		LOG.info("starting to parse binary events between " + fromTime + " and " + toTime + " from file " + filename + " ...");
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			readHeader(file);
+
+			file.seek(file.length() - 8);
+			file.seek(file.readLong());
+			if (file.readInt() != EventWriterBinary.END_OF_BLOCKS) {
+				throw new IOException("Index of events file " + filename + " not found.");
+			}
+			int blockCount = file.readInt();
+			long[] offsets = new long[blockCount];
+			double[] minTimes = new double[blockCount];
+			double[] maxTimes = new double[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				offsets[i] = file.readLong();
+				minTimes[i] = file.readDouble();
+				maxTimes[i] = file.readDouble();
+			}
+
+			for (int i = 0; i < blockCount; i++) {
+				if (maxTimes[i] >= fromTime && minTimes[i] < toTime) {
+					file.seek(offsets[i]);
+					readBlock(file, fromTime, toTime);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void readHeader(DataInput in) throws IOException {
+		byte[] magic = new byte[EventWriterBinary.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, EventWriterBinary.MAGIC)) {
+			throw new IOException("Not a binary MATSim events file.");
+		}
+		int version = in.readInt();
+		if (version != EventWriterBinary.VERSION) {
+			throw new IOException("Unsupported version " + version + " of binary events file.");
+		}
+	}
+
+	/**
+	 * @return <code>false</code> if the end of the blocks was reached.
+	 */
+	private boolean readBlock(DataInput in, double fromTime, double toTime) throws IOException {
+		BlockHeader header = BlockHeader.read(in);
+		if (header == null) {
+			return false;
+		}
+		readStrings(in, header);
+
+		byte[] compressed = new byte[header.compressedEventsLength];
+		in.readFully(compressed);
+		Decoder events = new Decoder(Zstd.decompress(compressed, header.eventsLength));
+		long previousTime = 0;
+		for (int i = 0; i < header.eventCount; i++) {
+			int typeIndex = events.readVarInt();
+			double time;
+			long encodedTime = events.readVarLong();
+			if ((encodedTime & 1) == 0) {
+				previousTime += unZigZag(encodedTime >>> 1);
+				time = previousTime;
+			} else {
+				time = Double.longBitsToDouble(events.readLong());
+			}
+
+			int count = events.readVarInt();
+			if (count > this.attributeKeys.length) {
+				this.attributeKeys = new int[count];
+				this.attributeValues = new int[count];
+				this.inlineValues = new String[count];
+			}
+			for (int a = 0; a < count; a++) {
+				this.attributeKeys[a] = events.readVarInt();
+				int valueCode = events.readVarInt();
+				this.attributeValues[a] = valueCode;
+				if (valueCode == EventWriterBinary.VALUE_INLINE) {
+					this.inlineValues[a] = events.readString();
+				}
+			}
+
+			if (time >= fromTime && time < toTime) {
+				EventType eventType = this.eventTypes[typeIndex];
+				if (eventType != null) {
+					Arrays.fill(this.attributeOfKey, -1);
+					for (int a = 0; a < count; a++) {
+						Key key = this.keys[this.attributeKeys[a]];
+						if (key != null) {
+							this.attributeOfKey[key.ordinal()] = a;
+						}
+					}
+					this.events.processEvent(createEvent(eventType, time));
+				} else {
+					this.attributes.clear();
+					for (int a = 0; a < count; a++) {
+						String key = this.dictionary[this.attributeKeys[a]];
+						this.attributes.addAttribute("", key, key, "CDATA", getValue(a));
+					}
+					this.delegate.startEvent(time, this.dictionary[typeIndex], this.attributes);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates the event like {@link EventsReaderXMLv1} does.
+	 */
+	private Event createEvent(EventType eventType, double time) {
+		return switch (eventType) {
+			case LINK_ENTER -> new LinkEnterEvent(time, getId(Key.VEHICLE, IdType.VEHICLE), getId(Key.LINK, IdType.LINK));
+			case LINK_LEAVE -> new LinkLeaveEvent(time, getId(Key.VEHICLE, IdType.VEHICLE), getId(Key.LINK, IdType.LINK));
+			case VEHICLE_ENTERS_TRAFFIC -> new VehicleEntersTrafficEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					getId(Key.VEHICLE, IdType.VEHICLE), getValue(Key.NETWORK_MODE), Double.parseDouble(getValue(Key.POSITION)));
+			case VEHICLE_LEAVES_TRAFFIC -> new VehicleLeavesTrafficEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					getValue(Key.VEHICLE) == null ? null : getId(Key.VEHICLE, IdType.VEHICLE), getValue(Key.NETWORK_MODE),
+					Double.parseDouble(getValue(Key.POSITION)));
+			case PERSON_ENTERS_VEHICLE -> new PersonEntersVehicleEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.VEHICLE, IdType.VEHICLE));
+			case PERSON_LEAVES_VEHICLE -> new PersonLeavesVehicleEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.VEHICLE, IdType.VEHICLE));
+			case PERSON_DEPARTURE -> new PersonDepartureEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					intern(getValue(Key.LEG_MODE)), intern(getValue(Key.ROUTING_MODE)));
+			case PERSON_ARRIVAL -> new PersonArrivalEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					intern(getValue(Key.LEG_MODE)));
+			case ACTIVITY_START -> new ActivityStartEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					getValue(Key.FACILITY) == null ? null : getId(Key.FACILITY, IdType.FACILITY), getValue(Key.ACT_TYPE), getCoord());
+			case ACTIVITY_END -> new ActivityEndEvent(time, getId(Key.PERSON, IdType.PERSON), getId(Key.LINK, IdType.LINK),
+					getValue(Key.FACILITY) == null ? null : getId(Key.FACILITY, IdType.FACILITY), getValue(Key.ACT_TYPE), getCoord());
+		};
+	}
+
+	private String getValue(int attribute) {
+		int valueCode = this.attributeValues[attribute];
+		if (valueCode == EventWriterBinary.VALUE_NULL) {
+			return null;
+		}
+		if (valueCode == EventWriterBinary.VALUE_INLINE) {
+			return this.inlineValues[attribute];
+		}
+		return this.dictionary[valueCode - EventWriterBinary.VALUE_DICTIONARY_OFFSET];
+	}
+
+	private String getValue(Key key) {
+		int attribute = this.attributeOfKey[key.ordinal()];
+		return attribute < 0 ? null : getValue(attribute);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Id<T> getId(Key key, IdType idType) {
+		int attribute = this.attributeOfKey[key.ordinal()];
+		if (attribute >= 0 && this.attributeValues[attribute] >= EventWriterBinary.VALUE_DICTIONARY_OFFSET) {
+			int index = this.attributeValues[attribute] - EventWriterBinary.VALUE_DICTIONARY_OFFSET;
+			Id<?>[] idsOfType = this.ids[idType.ordinal()];
+			Id<?> id = idsOfType[index];
+			if (id == null) {
+				id = Id.create(this.dictionary[index], idType.idClass);
+				idsOfType[index] = id;
+			}
+			return (Id<T>) id;
+		}
+		return (Id<T>) Id.create(getValue(key), idType.idClass);
+	}
+
+	private Coord getCoord() {
+		String x = getValue(Key.X);
+		return x == null ? null : new Coord(Double.parseDouble(x), Double.parseDouble(getValue(Key.Y)));
+	}
+
+	private static String intern(String value) {
+		return value == null ? null : value.intern();
+	}
+
+	private void readStrings(DataInput in, BlockHeader header) throws IOException {
+		byte[] compressed = new byte[header.compressedStringsLength];
+		in.readFully(compressed);
+		Decoder strings = new Decoder(Zstd.decompress(compressed, header.stringsLength));
+		if (header.stringsCount > this.dictionary.length) {
+			int length = Math.max(this.dictionary.length * 2, header.stringsCount);
+			this.dictionary = new String[length];
+			this.eventTypes = new EventType[length];
+			this.keys = new Key[length];
+			this.ids = new Id<?>[IdType.values().length][length];
+		} else {
+			for (Id<?>[] idsOfType : this.ids) {
+				Arrays.fill(idsOfType, 0, header.stringsCount, null);
+			}
+		}
+		for (int i = 0; i < header.stringsCount; i++) {
+			String string = strings.readString();
+			this.dictionary[i] = string;
+			this.eventTypes[i] = EVENT_TYPES.get(string);
+			this.keys[i] = KEYS.get(string);
+		}
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/** the event types that are decoded directly */
+	private enum EventType {
+		LINK_ENTER, LINK_LEAVE, VEHICLE_ENTERS_TRAFFIC, VEHICLE_LEAVES_TRAFFIC, PERSON_ENTERS_VEHICLE, PERSON_LEAVES_VEHICLE,
+		PERSON_DEPARTURE, PERSON_ARRIVAL, ACTIVITY_START, ACTIVITY_END
+	}
+
+	/** the attributes of the event types that are decoded directly */
+	private enum Key {
+		PERSON, VEHICLE, LINK, FACILITY, ACT_TYPE, X, Y, LEG_MODE, ROUTING_MODE, NETWORK_MODE, POSITION
+	}
+
+	private enum IdType {
+		PERSON(Person.class), LINK(Link.class), VEHICLE(Vehicle.class), FACILITY(ActivityFacility.class);
+
+		final Class<?> idClass;
+
+		IdType(Class<?> idClass) {
+			this.idClass = idClass;
+		}
+	}
+
+	private record BlockHeader(int eventCount, double minTime, double maxTime, int stringsCount, int stringsLength,
+			int compressedStringsLength, int eventsLength, int compressedEventsLength) {
+
+		/**
+		 * @return <code>null</code> if the end of the blocks was reached.
+		 */
+		static BlockHeader read(DataInput in) throws IOException {
+			int eventCount = in.readInt();
+			if (eventCount == EventWriterBinary.END_OF_BLOCKS) {
+				return null;
+			}
+			return new BlockHeader(eventCount, in.readDouble(), in.readDouble(), in.readInt(), in.readInt(),
+					in.readInt(), in.readInt(), in.readInt());
+		}
+	}
+
+	private static class Decoder {
+		private final byte[] buffer;
+		private int position = 0;
+
+		Decoder(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.buffer[this.position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		long readLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.buffer[this.position++] & 0xFF);
+			}
+			return value;
+		}
+
+		String readString() {
+			int length = readVarInt();
+			String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return value;
+		}
+	}
+
+}
@@ -70,6 +70,8 @@ public final class EventsUtils {
 			return events;
 		} else if (events instanceof ParallelEventsManager) {
 			return events;
+		} else if (events instanceof ThreadBufferedEventsManagerImpl) {
+			return events;
 		} else if (events instanceof SynchronizedEventsManagerImpl) {
 			return events;
 		} else {
@@ -20,8 +20,13 @@
 
 package org.matsim.core.events;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -34,6 +39,7 @@ import org.matsim.api.core.v01.events.GenericEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.MatsimXmlParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -50,6 +56,7 @@ public final class MatsimEventsReader implements MatsimReader {
 	private final EventsManager events;
 
 	private final Map<String, CustomEventMapper> customEventMappers = new LinkedHashMap<>();
+	private int numberOfThreads = 1;
 
 	public interface CustomEventMapper {
 		Event apply(GenericEvent event);
@@ -68,6 +75,15 @@ public final class MatsimEventsReader implements MatsimReader {
 		this.events = events;
 	}
 
+	/**
+	 * Sets the number of threads used to parse xml events files. With more than one thread, the file is split
+	 * into chunks which are parsed in parallel, while the events are still passed to the events manager in
+	 * the order of the file, on the calling thread. Custom event mappers must be thread-safe in this case.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Parses the specified events file.
 	 *
@@ -77,11 +93,23 @@ public final class MatsimEventsReader implements MatsimReader {
 	public void readFile(final String filename) {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz") || lcFilename.endsWith(".xml.zst") || lcFilename.endsWith(".xml.lz4")) {
-			new XmlEventsReader(this.events, this.customEventMappers).readFile(filename );
+			if (this.numberOfThreads > 1) {
+				try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+					new ParallelEventsReaderXMLv1(this.events, this.numberOfThreads, this.customEventMappers).parse(reader);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} else {
+				new XmlEventsReader(this.events, this.customEventMappers).readFile(filename);
+			}
 		} else if (lcFilename.endsWith(".ndjson") || lcFilename.endsWith(".ndjson.gz") || lcFilename.endsWith(".ndjson.zst")) {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
 			reader.parse(filename);
+		} else if (lcFilename.endsWith(".bin")) {
+			EventsReaderBinary reader = new EventsReaderBinary(this.events);
+			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.parse(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -97,7 +125,12 @@ public final class MatsimEventsReader implements MatsimReader {
 	public void readStream(final InputStream stream, final ControllerConfigGroup.EventsFileFormat format) {
 		switch (format) {
 			case xml:
-				new XmlEventsReader(this.events, this.customEventMappers).parse(stream);
+				if (this.numberOfThreads > 1) {
+					new ParallelEventsReaderXMLv1(this.events, this.numberOfThreads, this.customEventMappers)
+							.parse(new InputStreamReader(stream, StandardCharsets.UTF_8));
+				} else {
+					new XmlEventsReader(this.events, this.customEventMappers).parse(stream);
+				}
 				break;
 			case pb:
 				throw new UnsupportedOperationException(
@@ -107,6 +140,11 @@ public final class MatsimEventsReader implements MatsimReader {
 				customEventMappers.forEach(reader::addCustomEventMapper);
 				reader.parse(stream);
 				break;
+			case binary:
+				EventsReaderBinary binaryReader = new EventsReaderBinary(this.events);
+				customEventMappers.forEach(binaryReader::addCustomEventMapper);
+				binaryReader.parse(stream);
+				break;
 		}
 	}
 
@@ -118,6 +156,10 @@ public final class MatsimEventsReader implements MatsimReader {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
 			reader.parse(url);
+		} else if (url.getFile().endsWith(".bin")) {
+			EventsReaderBinary reader = new EventsReaderBinary(this.events);
+			customEventMappers.forEach(reader::addCustomEventMapper);
+			reader.parse(url);
 		}
 	}
 
@@ -0,0 +1,174 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelEventsReaderXMLv1.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.xml.sax.InputSource;
+
+/**
+ * Reads events_v1 files with several threads.
+ *
+ * The decompressed file is split into chunks at the start of <code>&lt;event</code> tags. The chunks are
+ * parsed into events by a pool of threads, and the events are passed to the events manager in the order
+ * of the file on the calling thread. Custom event mappers are called from the parsing threads, so they
+ * must be thread-safe.
+ *
+ * Note that Ids are created in the order in which the chunks are parsed, so the indices of Ids not known
+ * before reading the file may differ from the ones assigned when the file is read sequentially.
+ */
+final class ParallelEventsReaderXMLv1 {
+
+	private final static Logger log = LogManager.getLogger(ParallelEventsReaderXMLv1.class);
+
+	private final static String EVENT_START = "<" + EventsReaderXMLv1.EVENT + " ";
+	private final static String EVENTS_END = "</events>";
+	private final static int CHUNK_SIZE = 1 << 20;
+
+	private final EventsManager events;
+	private final int numberOfThreads;
+	private final Map<String, MatsimEventsReader.CustomEventMapper> customEventMappers;
+	// parsed chunks, in the order of the file
+	private final Deque<Future<List<Event>>> pending = new ArrayDeque<>();
+	private ThreadLocal<ChunkParser> parsers;
+
+	ParallelEventsReaderXMLv1(final EventsManager events, final int numberOfThreads, final Map<String, MatsimEventsReader.CustomEventMapper> customEventMappers) {
+		this.events = events;
+		this.numberOfThreads = numberOfThreads;
+		this.customEventMappers = customEventMappers;
+	}
+
+	void parse(final Reader reader) throws UncheckedIOException {
+		log.info("parsing events with " + this.numberOfThreads + " threads.");
+		this.parsers = ThreadLocal.withInitial(ChunkParser::new);
+		ExecutorService pool = Executors.newFixedThreadPool(this.numberOfThreads, new NamedThreadFactory());
+		try {
+			char[] buffer = new char[CHUNK_SIZE];
+			StringBuilder chunk = new StringBuilder(2 * CHUNK_SIZE);
+			boolean inHeader = true;
+			int read;
+			while ((read = reader.read(buffer)) >= 0) {
+				chunk.append(buffer, 0, read);
+				if (inHeader) {
+					int start = chunk.indexOf(EVENT_START);
+					if (start < 0) {
+						continue;
+					}
+					chunk.delete(0, start);
+					inHeader = false;
+				}
+				if (chunk.length() < CHUNK_SIZE) {
+					continue;
+				}
+				int end = chunk.lastIndexOf(EVENT_START);
+				if (end > 0) {
+					submit(pool, chunk.substring(0, end));
+					chunk.delete(0, end);
+				}
+			}
+			if (!inHeader) {
+				int end = chunk.lastIndexOf(EVENTS_END);
+				if (end >= 0) {
+					chunk.setLength(end);
+				}
+				submit(pool, chunk.toString());
+			}
+			while (!this.pending.isEmpty()) {
+				processNextChunk();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			pool.shutdownNow();
+			this.pending.clear();
+		}
+	}
+
+	private void submit(ExecutorService pool, String chunk) {
+		this.pending.add(pool.submit(() -> this.parsers.get().parse(chunk)));
+		// limit the number of chunks kept in memory
+		while (this.pending.size() > 2 * this.numberOfThreads) {
+			processNextChunk();
+		}
+	}
+
+	private void processNextChunk() {
+		try {
+			for (Event event : this.pending.poll().get()) {
+				this.events.processEvent(event);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Parses chunks of an events file with the regular events reader, collecting the events.
+	 */
+	private class ChunkParser {
+		private final EventsReaderXMLv1 reader = new EventsReaderXMLv1(event -> this.parsed.add(event));
+		private List<Event> parsed;
+
+		ChunkParser() {
+			customEventMappers.forEach(this.reader::addCustomEventMapper);
+		}
+
+		List<Event> parse(String chunk) {
+			this.parsed = new ArrayList<>(chunk.length() / 100);
+			this.reader.parse(new InputSource(new StringReader("<events>" + chunk + EVENTS_END)));
+			return this.parsed;
+		}
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory {
+		private int count = 0;
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "EventsReaderThread_" + count++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
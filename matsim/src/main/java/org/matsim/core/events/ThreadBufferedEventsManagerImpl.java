@@ -0,0 +1,280 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ThreadBufferedEventsManagerImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.EventsManagerConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * An EventsManager for mobsims that create events from several threads and synchronize at the end of each
+ * time step, like the QSim with a multi-threaded QNetsimEngine.
+ *
+ * Every producing thread writes its events into its own buffer, so no lock or shared queue is involved when
+ * an event is created. In {@link #afterSimStep(double)} the buffers of all threads are merged into one
+ * batch ordered by time, which is then handed to the events processing threads as a whole. Each of these
+ * threads serves a subset of the event handlers. The time step ends once all threads have processed the
+ * batch and all events created by handlers while doing so.
+ *
+ * All threads producing events must be synchronized with the thread calling {@link #afterSimStep(double)},
+ * i.e. they must not create events while the buffers are merged.
+ */
+final class ThreadBufferedEventsManagerImpl implements EventsManager {
+
+	private final static Logger log = LogManager.getLogger(ThreadBufferedEventsManagerImpl.class);
+
+	private final static Comparator<Event> BY_TIME = Comparator.comparingDouble(Event::getTime);
+
+	private final int numOfThreads;
+	private final EventsManagerImpl delegate;
+	private final EventsManagerImpl[] eventsManagers;
+	private int handlerCount = 0;
+
+	// buffers of all threads that created events in the current iteration
+	private final List<EventArray> buffers = new CopyOnWriteArrayList<>();
+	// re-created for every iteration, so buffers of threads from previous iterations are not used anymore
+	private ThreadLocal<EventArray> threadBuffer;
+	private ProcessEventsThread[] threads;
+
+	private volatile boolean parallelMode = false;
+	private double lastEventTime;
+	private final AtomicReference<Throwable> hadException = new AtomicReference<>();
+
+	@Inject
+	ThreadBufferedEventsManagerImpl(EventsManagerConfigGroup config) {
+		this(config.getNumberOfThreads() != null ? config.getNumberOfThreads() : 1);
+	}
+
+	public ThreadBufferedEventsManagerImpl(int numOfThreads) {
+		this.numOfThreads = numOfThreads;
+		log.info("number of threads=" + numOfThreads);
+		this.delegate = new EventsManagerImpl();
+		this.eventsManagers = new EventsManagerImpl[numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		if (parallelMode) {
+			threadBuffer.get().add(event);
+		} else {
+			delegate.processEvent(event);
+		}
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		delegate.addHandler(handler);
+
+		eventsManagers[handlerCount % numOfThreads].addHandler(handler);
+		handlerCount++;
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		delegate.removeHandler(handler);
+
+		for (EventsManager eventsManager : eventsManagers) eventsManager.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		delegate.initProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+
+		this.buffers.clear();
+		this.threadBuffer = ThreadLocal.withInitial(() -> {
+			EventArray buffer = new EventArray();
+			this.buffers.add(buffer);
+			return buffer;
+		});
+		this.lastEventTime = Double.NEGATIVE_INFINITY;
+		this.hadException.set(null);
+
+		this.threads = new ProcessEventsThread[numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) {
+			ProcessEventsThread thread = new ProcessEventsThread(eventsManagers[i], hadException);
+			thread.setDaemon(true);
+			thread.setName(ProcessEventsThread.class.getSimpleName() + i);
+			thread.start();
+			this.threads[i] = thread;
+		}
+
+		this.parallelMode = true;
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		checkException();
+		flush();
+	}
+
+	/*
+	 * Events created after this method has been called are processed directly in the calling thread.
+	 */
+	@Override
+	public synchronized void finishProcessing() {
+		try {
+			if (hadException.get() == null) {
+				flush();
+			}
+		} catch (RuntimeException e) {
+			hadException.compareAndSet(null, e);
+		}
+
+		for (ProcessEventsThread thread : this.threads) {
+			thread.batches.add(ProcessEventsThread.LAST_BATCH);
+		}
+		try {
+			for (ProcessEventsThread thread : this.threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException("Exception while waiting on join...", e);
+		}
+		this.parallelMode = false;
+		this.buffers.clear();
+
+		delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		checkException();
+	}
+
+	/**
+	 * Processes all buffered events, including the ones that event handlers create while this is done.
+	 */
+	private void flush() {
+		EventArray batch = collectBufferedEvents();
+		while (batch.size() > 0) {
+			CountDownLatch processed = new CountDownLatch(this.threads.length);
+			for (ProcessEventsThread thread : this.threads) {
+				thread.batches.add(new Batch(batch, processed));
+			}
+			try {
+				processed.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			checkException();
+			batch = collectBufferedEvents();
+		}
+	}
+
+	private EventArray collectBufferedEvents() {
+		int size = 0;
+		for (EventArray buffer : this.buffers) {
+			size += buffer.size();
+		}
+		EventArray batch = new EventArray(Math.max(size, 1));
+		for (EventArray buffer : this.buffers) {
+			for (int i = 0; i < buffer.size(); i++) {
+				batch.add(buffer.get(i));
+			}
+			buffer.clear();
+		}
+		if (size == 0) {
+			return batch;
+		}
+
+		// the sort is stable, so events of the same time keep the order in which each thread created them
+		Arrays.sort(batch.array(), 0, size, BY_TIME);
+		double firstEventTime = batch.get(0).getTime();
+		if (firstEventTime < this.lastEventTime) {
+			throw new RuntimeException("Events are not ordered chronologically. This should never happen. " +
+					"Is the ThreadBufferedEventsManager registered as a MobsimAfterSimStepListener? LastEventTime = " + this.lastEventTime +
+					" currentEvent.time = " + firstEventTime + " full event: " + batch.get(0));
+		}
+		this.lastEventTime = batch.get(size - 1).getTime();
+		return batch;
+	}
+
+	private void checkException() {
+		Throwable e = this.hadException.get();
+		if (e != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", e);
+		}
+	}
+
+	private record Batch(EventArray events, CountDownLatch processed) {
+	}
+
+	private static class ProcessEventsThread extends Thread {
+
+		private static final Batch LAST_BATCH = new Batch(new EventArray(1), new CountDownLatch(0));
+
+		private final EventsManager eventsManager;
+		private final AtomicReference<Throwable> hadException;
+		private final BlockingQueue<Batch> batches = new LinkedBlockingQueue<>();
+
+		ProcessEventsThread(EventsManager eventsManager, AtomicReference<Throwable> hadException) {
+			this.eventsManager = eventsManager;
+			this.hadException = hadException;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					Batch batch = this.batches.take();
+					if (batch == LAST_BATCH) {
+						return;
+					}
+					try {
+						// after an exception, batches are only acknowledged so the main thread does not wait forever
+						if (this.hadException.get() == null) {
+							this.eventsManager.processEvents(batch.events());
+						}
+					} catch (RuntimeException | Error e) {
+						// store the original exception only
+						if (this.hadException.compareAndSet(null, e)) {
+							log.error("Thread " + getName() + " died with exception while handling events.", e);
+						}
+					} finally {
+						batch.processed().countDown();
+					}
+				}
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+}
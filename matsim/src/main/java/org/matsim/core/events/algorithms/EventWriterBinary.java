@@ -0,0 +1,264 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Writes events in a compact binary format, to be read by {@link org.matsim.core.events.EventsReaderBinary}.
+ *
+ * The file starts with {@link #MAGIC} and the format version, followed by blocks of events. Every block
+ * consists of
+ * <ul>
+ * <li>a header with the number of events and the earliest and latest time of its events,</li>
+ * <li>the strings used in this block (event types, attribute names and values), zstd-compressed. The
+ * strings form the dictionary of the block, and its events refer to strings by their index in it,</li>
+ * <li>the events, zstd-compressed. Each event is stored as type, time and its attributes. Times are
+ * delta-encoded within the block as long as they are full seconds.</li>
+ * </ul>
+ * The blocks are followed by an index with the offset and time range of every block. As every block
+ * contains its own dictionary, readers can jump to the events of a time window without decoding earlier blocks.
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	public static final byte[] MAGIC = "MATSIMEV".getBytes(StandardCharsets.US_ASCII);
+	public static final int VERSION = 2;
+	/** Marks the end of the blocks, in place of the number of events of a block. */
+	public static final int END_OF_BLOCKS = -1;
+
+	/** Values of attributes are either <code>null</code>, written inline, or refer to the dictionary. */
+	public static final int VALUE_NULL = 0;
+	public static final int VALUE_INLINE = 1;
+	public static final int VALUE_DICTIONARY_OFFSET = 2;
+
+	private static final int BLOCK_SIZE = 1 << 20;
+	private static final int COMPRESSION_LEVEL = 3;
+	private static final long MAX_DELTA_ENCODED_TIME = 1L << 40;
+
+	private final OutputStream out;
+	private long position = 0;
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final ByteArrayOutputStream blockStrings = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream data = new ByteArrayOutputStream(BLOCK_SIZE + 4096);
+
+	private int blockEventCount = 0;
+	private double blockMinTime;
+	private double blockMaxTime;
+	private long previousTime = 0;
+
+	private final List<BlockInfo> blocks = new ArrayList<>();
+
+	public EventWriterBinary(final String filename) {
+		this(IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false));
+	}
+
+	public EventWriterBinary(final OutputStream stream) {
+		this.out = stream;
+		try {
+			DataOutputStream header = new DataOutputStream(this.out);
+			header.write(MAGIC);
+			header.writeInt(VERSION);
+			this.position = MAGIC.length + 4;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		if (this.blockEventCount == 0) {
+			this.blockMinTime = time;
+			this.blockMaxTime = time;
+		} else {
+			this.blockMinTime = Math.min(this.blockMinTime, time);
+			this.blockMaxTime = Math.max(this.blockMaxTime, time);
+		}
+		this.blockEventCount++;
+
+		writeVarInt(this.data, indexOf(event.getEventType()));
+		long seconds = (long) time;
+		if (seconds == time && Math.abs(seconds) < MAX_DELTA_ENCODED_TIME) {
+			writeVarLong(this.data, zigZag(seconds - this.previousTime) << 1);
+			this.previousTime = seconds;
+		} else {
+			writeVarLong(this.data, 1);
+			writeLong(this.data, Double.doubleToRawLongBits(time));
+		}
+
+		Map<String, String> attributes = event.getAttributes();
+		int count = attributes.size();
+		if (attributes.containsKey(Event.ATTRIBUTE_TIME)) count--;
+		if (attributes.containsKey(Event.ATTRIBUTE_TYPE)) count--;
+		writeVarInt(this.data, count);
+		for (Map.Entry<String, String> e : attributes.entrySet()) {
+			String key = e.getKey();
+			if (key.equals(Event.ATTRIBUTE_TIME) || key.equals(Event.ATTRIBUTE_TYPE)) {
+				continue;
+			}
+			writeVarInt(this.data, indexOf(key));
+			writeValue(e.getValue());
+		}
+
+		if (this.data.size() >= BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	private void writeValue(String value) {
+		if (value == null) {
+			writeVarInt(this.data, VALUE_NULL);
+		} else if (isFloatingPointNumber(value)) {
+			// such values rarely repeat, so they would only blow up the dictionary
+			writeVarInt(this.data, VALUE_INLINE);
+			writeString(this.data, value);
+		} else {
+			writeVarInt(this.data, VALUE_DICTIONARY_OFFSET + indexOf(value));
+		}
+	}
+
+	private static boolean isFloatingPointNumber(String value) {
+		if (value.isEmpty() || value.indexOf('.') < 0) {
+			return false;
+		}
+		char first = value.charAt(0);
+		return (first >= '0' && first <= '9') || first == '-';
+	}
+
+	private int indexOf(String string) {
+		Integer index = this.dictionary.get(string);
+		if (index == null) {
+			index = this.dictionary.size();
+			this.dictionary.put(string, index);
+			writeString(this.blockStrings, string);
+		}
+		return index;
+	}
+
+	private void writeBlock() {
+		try {
+			byte[] strings = this.blockStrings.toByteArray();
+			byte[] compressedStrings = Zstd.compress(strings, COMPRESSION_LEVEL);
+			byte[] events = this.data.toByteArray();
+			byte[] compressedEvents = Zstd.compress(events, COMPRESSION_LEVEL);
+
+			ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(64);
+			DataOutputStream header = new DataOutputStream(headerBytes);
+			header.writeInt(this.blockEventCount);
+			header.writeDouble(this.blockMinTime);
+			header.writeDouble(this.blockMaxTime);
+			header.writeInt(this.dictionary.size());
+			header.writeInt(strings.length);
+			header.writeInt(compressedStrings.length);
+			header.writeInt(events.length);
+			header.writeInt(compressedEvents.length);
+			header.flush();
+
+			this.blocks.add(new BlockInfo(this.position, this.blockMinTime, this.blockMaxTime));
+
+			headerBytes.writeTo(this.out);
+			this.out.write(compressedStrings);
+			this.out.write(compressedEvents);
+			this.position += headerBytes.size() + compressedStrings.length + compressedEvents.length;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.dictionary.clear();
+		this.blockStrings.reset();
+		this.data.reset();
+		this.blockEventCount = 0;
+		this.previousTime = 0;
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.blockEventCount > 0) {
+			writeBlock();
+		}
+		try {
+			DataOutputStream index = new DataOutputStream(this.out);
+			index.writeInt(END_OF_BLOCKS);
+			index.writeInt(this.blocks.size());
+			for (BlockInfo block : this.blocks) {
+				index.writeLong(block.offset());
+				index.writeDouble(block.minTime());
+				index.writeDouble(block.maxTime());
+			}
+			index.writeLong(this.position);
+			index.flush();
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	private record BlockInfo(long offset, double minTime, double maxTime) {
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.writeBytes(bytes);
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value) {
+		writeVarLong(out, value & 0xFFFFFFFFL);
+	}
+
+	private static void writeVarLong(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static void writeLong(ByteArrayOutputStream out, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			out.write((int) (value >>> shift));
+		}
+	}
+
+}
@@ -37,6 +37,16 @@ public interface DriverAgent extends Identifiable<Person>, NetworkAgent, Vehicle
 	 */
 	public Id<Link> chooseNextLinkId();
 
+	/**
+	 * Same as {@link #chooseNextLinkId()}, but returns the {@link Id#index() index} of the link id, or a negative value instead
+	 * of <code>null</code>.  This is what the mobsim asks when it moves the vehicle over a node; agents which keep their route
+	 * as link indices can override it to save looking up the link id.
+	 */
+	default int chooseNextLinkIndex() {
+		Id<Link> linkId = chooseNextLinkId();
+		return linkId == null ? -1 : linkId.index();
+	}
+
 	/**
 	 * notifies the agent that it was moved over the node.  
 	 * <p></p>
@@ -0,0 +1,77 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Splits the network into spatial domains for {@link PartitionedRealm} using recursive coordinate bisection:
+ * the links are cut at the median of their longer extent until the requested number of domains is reached.
+ * Domains contain (almost) the same number of links and are spatially compact, which keeps the number of
+ * agents crossing domain borders low.
+ */
+final class DomainPartitioner {
+
+	private DomainPartitioner() {
+	}
+
+	/**
+	 * @return the domain of each link, indexed by {@code Id<Link>.index()}.
+	 */
+	static int[] partition(Network network, int numberOfDomains) {
+		int[] domainOfLink = new int[Id.getNumberOfIds(Link.class)];
+		Link[] links = network.getLinks().values().toArray(new Link[0]);
+		bisect(links, 0, links.length, 0, numberOfDomains, domainOfLink);
+		return domainOfLink;
+	}
+
+	private static void bisect(Link[] links, int from, int to, int firstDomain, int domains, int[] domainOfLink) {
+		if (domains == 1) {
+			for (int i = from; i < to; i++) {
+				domainOfLink[links[i].getId().index()] = firstDomain;
+			}
+			return;
+		}
+		double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			Coord c = links[i].getCoord();
+			minX = Math.min(minX, c.getX());
+			maxX = Math.max(maxX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxY = Math.max(maxY, c.getY());
+		}
+		Comparator<Link> byCoord = (maxX - minX >= maxY - minY)
+				? Comparator.comparingDouble(l -> l.getCoord().getX())
+				: Comparator.comparingDouble(l -> l.getCoord().getY());
+		// the id index breaks ties so the partition does not depend on the order of the network's links
+		Arrays.sort(links, from, to, byCoord.thenComparingInt(l -> l.getId().index()));
+
+		int leftDomains = domains / 2;
+		int split = from + (int) ((long) (to - from) * leftDomains / domains);
+		bisect(links, from, split, firstDomain, leftDomains, domainOfLink);
+		bisect(links, split, to, firstDomain + leftDomains, domains - leftDomains, domainOfLink);
+	}
+}
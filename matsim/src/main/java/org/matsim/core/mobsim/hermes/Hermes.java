@@ -31,6 +31,7 @@ final class Hermes implements Mobsim {
 
 	final private static Logger log = LogManager.getLogger(Hermes.class);
 	private Realm realm;
+	private PartitionedRealm partitionedRealm;
 	private Agent[] agents;
 	private ScenarioImporter scenarioImporter;
 	private final Scenario scenario;
@@ -45,11 +46,12 @@ final class Hermes implements Mobsim {
 		scenarioImporter = ScenarioImporter.instance(scenario, eventsManager);
 		scenarioImporter.generate();
 		this.realm = scenarioImporter.realm;
+		this.partitionedRealm = scenarioImporter.partitionedRealm;
 		this.agents = scenarioImporter.hermesAgents;
 	}
 
 	private void processEvents() {
-        eventsManager.processEvents(realm.getSortedEvents());
+		eventsManager.processEvents(partitionedRealm == null ? realm.getSortedEvents() : partitionedRealm.getSortedEvents());
 
 		for (Agent agent : agents) {
 			if (agent != null && !agent.finished() && !agent.isTransitVehicle()) {
@@ -72,7 +74,11 @@ final class Hermes implements Mobsim {
 			eventsManager.initProcessing();
 
 			time = System.currentTimeMillis();
-			realm.run();
+			if (partitionedRealm == null) {
+				realm.run();
+			} else {
+				partitionedRealm.run();
+			}
 			log.info(String.format(
 					"Hermes took %d ms", System.currentTimeMillis() - time));
 
@@ -62,6 +62,12 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     private static final String MAINMODESPARAMDESC = "[comma-separated list] Modes that are handled in the mobsim along links. By default: car";
     private Set<String> mainModes = Set.of(TransportMode.car);
 
+    private static final String DOMAINSPARAM = "numberOfDomains";
+    private static final String DOMAINSPARAMDESC = "Number of network domains that are simulated in parallel, each by its own thread. "
+            + "Agents crossing domain borders are exchanged at each time step in a deterministic order. "
+            + "Events within a time step are ordered by domain, and agents competing for a link at a domain border may enter it in another order than in the single-threaded simulation. "
+            + "1 (default) runs the single-threaded simulation.";
+
     private static final String DETPTDESC = "treats PT as deterministic. PT vehicles will run with a steady speed. Should be used with separate network layers for PT and other network modes.";
     private boolean deterministicPt = false;
     public static final boolean DEBUG_REALMS = false;
@@ -77,6 +83,9 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     @Positive
     private int stuckTime = 10;
 
+    @Positive
+    private int numberOfDomains = 1;
+
     public Set<String> getMainModes() {
         return mainModes;
     }
@@ -123,6 +132,16 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         this.stuckTime = stuckTime;
     }
 
+    @StringGetter(DOMAINSPARAM)
+    public int getNumberOfDomains() {
+        return numberOfDomains;
+    }
+
+    @StringSetter(DOMAINSPARAM)
+    public void setNumberOfDomains(int numberOfDomains) {
+        this.numberOfDomains = numberOfDomains;
+    }
+
     @StringSetter(FLOW_CAPACITY_FACTOR)
     public void setFlowCapacityFactor(double flowCapacityFactor) {
         this.flowCapacityFactor = flowCapacityFactor;
@@ -159,6 +178,7 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         comments.put(END_TIME, "Simulation End Time");
         comments.put(STUCKTIMEPARAM, STUCKTIMEPARAMDESC);
         comments.put(DETPT, DETPTDESC);
+        comments.put(DOMAINSPARAM, DOMAINSPARAMDESC);
         return comments;
     }
 
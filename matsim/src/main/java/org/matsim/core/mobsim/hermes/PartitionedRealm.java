@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
+import org.matsim.core.utils.misc.Time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs one {@link Realm} per network domain, each on its own thread.
+ *
+ * Every step consists of a parallel phase, in which each realm processes the agents and links of its
+ * domain, and a serial phase, in which the moves that were deferred because they enter another domain
+ * (or touch agents waiting at pt stops) are processed one realm after the other. The events of a step
+ * are collected in domain order, followed by deterministic pt events and the events of the serial phase,
+ * so the resulting event stream does not depend on thread scheduling.
+ *
+ * The event stream is not identical to the one of the single {@link Realm} though: within a time step, the
+ * events are ordered by domain instead of by processing order. Moreover, moves into another domain are
+ * processed after the moves within that domain, so if agents from several domains compete for the storage
+ * capacity of the same link in the same step, they may enter it in another order than in the single realm.
+ */
+class PartitionedRealm {
+
+	final private static Logger log = LogManager.getLogger(PartitionedRealm.class);
+
+	private final ScenarioImporter si;
+	private final Realm[] realms;
+	private final int[] domainOfLink;
+	private final EventsManager eventsManager;
+	private final List<Callable<Integer>> domainSteps = new ArrayList<>();
+	// events of the current step that were generated in the serial phase
+	private final EventArray serialEvents = new EventArray();
+	// queue of sorted events by time
+	private EventArray sortedEvents = new EventArray();
+	private int secs;
+
+	PartitionedRealm(ScenarioImporter scenario, EventsManager eventsManager, int[] domainOfLink, int numberOfDomains) {
+		this.si = scenario;
+		this.eventsManager = eventsManager;
+		this.domainOfLink = domainOfLink;
+		this.realms = new Realm[numberOfDomains];
+		for (int domain = 0; domain < numberOfDomains; domain++) {
+			realms[domain] = new Realm(scenario, eventsManager, domain, domainOfLink);
+		}
+		for (Realm realm : realms) {
+			realm.setRealms(realms);
+			domainSteps.add(() -> realm.processDomainStep(secs));
+		}
+	}
+
+	Realm realmOf(HLink link) {
+		return realms[domainOfLink[link.id()]];
+	}
+
+	Realm realmOf(int domain) {
+		return realms[domain];
+	}
+
+	public void run() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(realms.length, new NamedThreadFactory());
+		try {
+			while (secs != HermesConfigGroup.SIM_STEPS) {
+				if (secs % 3600 == 0) {
+					log.info("Hermes running at " + Time.writeTime(secs));
+				}
+				for (Future<Integer> future : pool.invokeAll(domainSteps)) {
+					future.get();
+				}
+				for (Realm realm : realms) {
+					realm.processDeferredAgents(serialEvents);
+				}
+				for (Realm realm : realms) {
+					realm.processDeferredLinks(serialEvents);
+				}
+				collectStepEvents();
+
+				if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % 3600 == 0 && sortedEvents.size() > 0) {
+					eventsManager.processEvents(sortedEvents);
+					sortedEvents = new EventArray();
+				}
+				secs += 1;
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void collectStepEvents() {
+		for (Realm realm : realms) {
+			EventArray domainEvents = realm.getSortedEvents();
+			for (int i = 0; i < domainEvents.size(); i++) {
+				sortedEvents.add(domainEvents.get(i));
+			}
+			domainEvents.clear();
+		}
+		if (si.isDeterministicPt()) {
+			for (Event e : si.getDeterministicPtEvents().get(secs)) {
+				sortedEvents.add(e);
+			}
+			si.getDeterministicPtEvents().get(secs).clear();
+		}
+		for (int i = 0; i < serialEvents.size(); i++) {
+			sortedEvents.add(serialEvents.get(i));
+		}
+		serialEvents.clear();
+	}
+
+	EventArray getSortedEvents() {
+		return this.sortedEvents;
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory {
+		private int count = 0;
+
+		@Override
+		public Thread newThread(Runnable r) {
+			return new Thread(r, "Hermes_DomainThread_" + count++);
+		}
+	}
+}
@@ -61,10 +61,28 @@ class Realm {
     private final EventsManager eventsManager;
     // Current timestamp
     private int secs;
+    // Domain of each link (link id -> domain), null if this realm simulates the whole network.
+    private final int[] domainOfLink;
+    // Domain simulated by this realm.
+    private final int domain;
+    // All realms of a partitioned simulation (domain -> realm).
+    private Realm[] realms;
+    // Agents and links whose next step touches another domain or shared pt state. These are
+    // processed in the serial phase of the current step (see PartitionedRealm).
+    private final ArrayList<Agent> deferredAgents = new ArrayList<>();
+    private final ArrayList<HLink> deferredLinks = new ArrayList<>();
+    // True while the serial phase of a partitioned step is running.
+    private boolean serialPhase = false;
     Logger log = LogManager.getLogger(Realm.class);
 
     public Realm(ScenarioImporter scenario, EventsManager eventsManager) {
+        this(scenario, eventsManager, 0, null);
+    }
+
+    Realm(ScenarioImporter scenario, EventsManager eventsManager, int domain, int[] domainOfLink) {
         this.si = scenario;
+        this.domain = domain;
+        this.domainOfLink = domainOfLink;
         this.links = scenario.hermesLinks;
         // The plus one is necessary because we peek into the next slot on each tick.
         this.delayedLinksByWakeupTime = new ArrayList<>();
@@ -96,7 +114,26 @@ class Realm {
     private void addDelayedLink(HLink link, int until) {
         if (HermesConfigGroup.DEBUG_REALMS)
             log(secs, String.format("link %d delayed until %d size %d peek agent %d", link.id(), until, link.queue().size(), link.queue().peek().id));
-        delayedLinksByWakeupTime.get(Math.min(until, HermesConfigGroup.SIM_STEPS + 1)).add(link);
+        ownerOf(link).delayedLinksByWakeupTime.get(Math.min(until, HermesConfigGroup.SIM_STEPS + 1)).add(link);
+    }
+
+    private Realm ownerOf(HLink link) {
+        return domainOfLink == null ? this : realms[domainOfLink[link.id()]];
+    }
+
+    // Checks if the next plan element of the agent touches state that is not owned by this domain, i.e.,
+    // a link of another domain or the agents waiting at pt stops. Always false outside partitioned runs.
+    private boolean leavesDomain(Agent agent) {
+        if (domainOfLink == null || serialPhase) {
+            return false;
+        }
+        long planentry = agent.plan.get(agent.planIndex + 1);
+        switch (Agent.getPlanHeader(planentry)) {
+            case Agent.LinkType:        return domainOfLink[Agent.getLinkPlanEntry(planentry)] != domain;
+            case Agent.WaitType:
+            case Agent.StopDepartType:  return true;
+            default:                    return false;
+        }
     }
 
     private void advanceAgentandSetEventTime(Agent agent) {
@@ -275,6 +312,10 @@ class Realm {
 
     protected int processAgentActivities(Agent agent) {
         boolean finished = agent.finished();
+        if (!finished && leavesDomain(agent)) {
+            deferredAgents.add(agent);
+            return 0;
+        }
         // if finished, install times on last event.
         if (finished) {
             setEventTime(agent, agent.events().size() - 1, secs, true);
@@ -290,8 +331,16 @@ class Realm {
     protected int processLinks(HLink link) {
         int routed = 0;
         Agent agent = link.queue().peek();
-        while (agent.linkFinishTime <= secs && link.flow(secs, agent.getFlowCapacityPCUE())) {
+        while (agent.linkFinishTime <= secs) {
             boolean finished = agent.finished();
+            // Checked before consuming flow capacity, the link is picked up again in the serial phase.
+            if (!finished && leavesDomain(agent)) {
+                deferredLinks.add(link);
+                return routed;
+            }
+            if (!link.flow(secs, agent.getFlowCapacityPCUE())) {
+                break;
+            }
             // if finished, install times on last event.
             if (finished) {
                 setEventTime(agent, agent.events().size() - 1, secs, true);
@@ -315,23 +364,93 @@ class Realm {
         return routed;
     }
 
-    public void run() throws Exception {
+    private int processDelayedAgents() {
         int routed = 0;
         Agent agent;
+        while ((agent = delayedAgentsByWakeupTime.get(secs).poll()) != null) {
+            if (HermesConfigGroup.DEBUG_REALMS) {
+                log(secs, String.format("Processing agent %d", agent.id));
+            }
+            routed += processAgentActivities(agent);
+
+        }
+        delayedAgentsByWakeupTime.set(secs, null);
+        return routed;
+    }
+
+    private int processDelayedLinks() {
+        int routed = 0;
         HLink link;
+        while ((link = delayedLinksByWakeupTime.get(secs).poll()) != null) {
+            if (HermesConfigGroup.DEBUG_REALMS) {
+                log(secs, String.format("Processing link %d", link.id()));
+            }
+            routed += processLinks(link);
+        }
+        delayedLinksByWakeupTime.set(secs, null);
+        return routed;
+    }
+
+    /**
+     * Parallel phase of a partitioned step: processes all agents and links of this domain that are due
+     * at the given time. Moves leaving the domain are deferred to {@link #processDeferredAgents} and
+     * {@link #processDeferredLinks}.
+     */
+    int processDomainStep(int time) {
+        this.secs = time;
+        return processDelayedAgents() + processDelayedLinks();
+    }
+
+    /**
+     * Serial phase of a partitioned step, must not run concurrently with any other realm.
+     * Events are written to the given array instead of the domain's own events.
+     */
+    int processDeferredAgents(EventArray serialEvents) {
+        EventArray domainEvents = beginSerialPhase(serialEvents);
+        int routed = 0;
+        for (Agent agent : deferredAgents) {
+            routed += processAgentActivities(agent);
+        }
+        deferredAgents.clear();
+        endSerialPhase(domainEvents);
+        return routed;
+    }
+
+    int processDeferredLinks(EventArray serialEvents) {
+        EventArray domainEvents = beginSerialPhase(serialEvents);
+        int routed = 0;
+        for (HLink link : deferredLinks) {
+            routed += processLinks(link);
+        }
+        deferredLinks.clear();
+        endSerialPhase(domainEvents);
+        return routed;
+    }
+
+    private EventArray beginSerialPhase(EventArray serialEvents) {
+        EventArray domainEvents = this.sortedEvents;
+        this.sortedEvents = serialEvents;
+        this.serialPhase = true;
+        return domainEvents;
+    }
+
+    private void endSerialPhase(EventArray domainEvents) {
+        this.sortedEvents = domainEvents;
+        this.serialPhase = false;
+    }
+
+    void setRealms(Realm[] realms) {
+        this.realms = realms;
+    }
+
+    public void run() throws Exception {
+        int routed = 0;
 
         while (secs != HermesConfigGroup.SIM_STEPS) {
             if (secs % 3600 == 0) {
                 log.info("Hermes running at " + Time.writeTime(secs));
             }
-            while ((agent = delayedAgentsByWakeupTime.get(secs).poll()) != null) {
-                if (HermesConfigGroup.DEBUG_REALMS) {
-                    log(secs, String.format("Processing agent %d", agent.id));
-                }
-                routed += processAgentActivities(agent);
-
-            }
-            delayedAgentsByWakeupTime.set(secs, null);
+            routed += processDelayedAgents();
             if (si.isDeterministicPt()) {
                 for (Event e : si.getDeterministicPtEvents().get(secs)) {
                     sortedEvents.add(e);
@@ -339,13 +458,7 @@ class Realm {
                 si.getDeterministicPtEvents().get(secs).clear();
             }
 
-            while ((link = delayedLinksByWakeupTime.get(secs).poll()) != null) {
-                if (HermesConfigGroup.DEBUG_REALMS) {
-                    log(secs, String.format("Processing link %d", link.id()));
-                }
-                routed += processLinks(link);
-            }
-            delayedLinksByWakeupTime.set(secs, null);
+            routed += processDelayedLinks();
             if (HermesConfigGroup.DEBUG_REALMS && routed > 0) {
                 log(secs, String.format("Processed %d agents", routed));
             }
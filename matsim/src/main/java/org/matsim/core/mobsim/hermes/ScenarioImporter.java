@@ -78,6 +78,11 @@ class ScenarioImporter {
 	protected HLink[] hermesLinks;
 
 	protected Realm realm;
+	// Only set if the network is split into several domains, see HermesConfigGroup.getNumberOfDomains().
+	protected PartitionedRealm partitionedRealm;
+	// Domain of each link (link id -> domain), null if the network is simulated by a single realm.
+	private int[] domainOfLink;
+	private final int numberOfDomains;
 	private final boolean deterministicPt;
 	// Agents waiting in pt stations. Should be used as follows:
 	// agent_stops.get(curr station id).get(line id) -> queue of agents
@@ -95,6 +100,7 @@ class ScenarioImporter {
 	private ScenarioImporter(Scenario scenario, EventsManager eventsManager) {
 		numberOfThreads = Math.min(scenario.getConfig().global().getNumberOfThreads(), Runtime.getRuntime().availableProcessors());
 		this.deterministicPt = scenario.getConfig().hermes().isDeterministicPt();
+		this.numberOfDomains = scenario.getConfig().hermes().getNumberOfDomains();
 		if (deterministicPt) {
 			deterministicPtEvents = new ArrayList<>(scenario.getConfig().hermes().getEndTime());
 			for (int i = 0; i < scenario.getConfig().hermes().getEndTime(); i++) {
@@ -107,6 +113,7 @@ class ScenarioImporter {
 		this.eventsManager = eventsManager;
 		generateVehicleCategories();
 		generateLinks();
+		generateDomains();
 		generatePT();
 		generateAgents();
 
@@ -213,6 +220,24 @@ class ScenarioImporter {
 		}
 	}
 
+	private void generateDomains() {
+		if (numberOfDomains > 1) {
+			domainOfLink = DomainPartitioner.partition(scenario.getNetwork(), numberOfDomains);
+			log.info(String.format("Hermes split the network into %d domains", numberOfDomains));
+		}
+	}
+
+	// Agents start in the domain of the first link they will enter, which avoids a border crossing on departure.
+	private int initialDomain(Agent agent) {
+		for (int i = 0; i < agent.plan.size(); i++) {
+			long planentry = agent.plan.get(i);
+			if (Agent.getPlanHeader(planentry) == Agent.LinkType) {
+				return domainOfLink[Agent.getLinkPlanEntry(planentry)];
+			}
+		}
+		return 0;
+	}
+
 	private void initRoutesStations() {
 		TransitSchedule ts = this.scenario.getTransitSchedule();
 
@@ -272,7 +297,13 @@ class ScenarioImporter {
 	}
 
 	private void generateRealms() {
-		realm = new Realm(this, eventsManager);
+		if (domainOfLink == null) {
+			realm = new Realm(this, eventsManager);
+			partitionedRealm = null;
+		} else {
+			realm = null;
+			partitionedRealm = new PartitionedRealm(this, eventsManager, domainOfLink, numberOfDomains);
+		}
 
 		// Put agents in their initial location (link or activity center)
 		for (Agent agent : hermesAgents) {
@@ -294,7 +325,8 @@ class ScenarioImporter {
 				case Agent.SleepForType:
 				case Agent.SleepUntilType:
 					int sleep = Agent.getSleepPlanEntry(planentry);
-					realm.delayedAgents().get(Math.min(sleep, scenario.getConfig().hermes().getEndTime() + 1)).add(agent);
+					Realm agentRealm = partitionedRealm == null ? realm : partitionedRealm.realmOf(initialDomain(agent));
+					agentRealm.delayedAgents().get(Math.min(sleep, scenario.getConfig().hermes().getEndTime() + 1)).add(agent);
 					break;
 				default:
 					LogManager.getLogger(getClass()).error(String.format("ERROR -> unknown plan element type %d", type));
@@ -305,7 +337,8 @@ class ScenarioImporter {
 			if (link != null) {
 				int nextwakeup = link.nexttime();
 				if (nextwakeup > 0) {
-					realm.delayedLinks().get(nextwakeup).add(link);
+					Realm linkRealm = partitionedRealm == null ? realm : partitionedRealm.realmOf(link);
+					linkRealm.delayedLinks().get(nextwakeup).add(link);
 				}
 			}
 		}
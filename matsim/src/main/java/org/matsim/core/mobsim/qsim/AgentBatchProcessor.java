@@ -0,0 +1,265 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentBatchProcessor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+/**
+ * Lets the agents which leave the {@link ActivityEngine} or the {@link TeleportationEngine} in a time step compute their
+ * next state on several threads.
+ * <p>
+ * The due agents of a time step are taken from the queue of the engine as one batch, which is split into contiguous shards.
+ * Each shard is processed by one thread, and the events which the agents throw meanwhile are recorded per agent instead of
+ * being passed on.  Afterwards, the agents are handed to QSim (and thus to the departure handlers) on the main thread in the
+ * order of the queue, each one after its recorded events are passed on.  The events are thus the same for any number of
+ * threads.
+ * <p>
+ * The recording relies on the agents throwing their events through the events manager of the QSim, which is wrapped by a
+ * {@link RecordingEventsManager} if this class is used.
+ *
+ * @author (of this class) the MATSim team
+ */
+final class AgentBatchProcessor {
+
+	/** batches smaller than this per thread are not worth the synchronization */
+	private static final int MIN_AGENTS_PER_SHARD = 16;
+
+	private static final ThreadLocal<EventArray> recordedEvents = new ThreadLocal<>();
+
+	private final EventsManager events;
+	private final Shard[] shards;
+	private ExecutorService pool;
+	private MobsimAgent[] batch = new MobsimAgent[256];
+
+	AgentBatchProcessor(final EventsManager events, final int numberOfThreads) {
+		this.events = events;
+		this.shards = new Shard[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			this.shards[i] = new Shard();
+		}
+	}
+
+	/**
+	 * Processes the agents of the queue which are due at <code>now</code>, until there are no more due agents.
+	 *
+	 * @param before is called for every agent on the main thread, before the agents of the batch compute their next state
+	 * @param compute is called for every agent on one of the threads, and must only change the state of the agent
+	 * @param after is called for every agent on the main thread, in the order of the queue
+	 */
+	void process(final AgentCalendarQueue queue, final double now, final Consumer<MobsimAgent> before,
+			final Consumer<MobsimAgent> compute, final Consumer<MobsimAgent> after) {
+		int size;
+		while ((size = drain(queue, now)) > 0) {
+			for (int i = 0; i < size; i++) {
+				before.accept(this.batch[i]);
+			}
+			int shardCount = Math.max(1, Math.min(this.shards.length, size / MIN_AGENTS_PER_SHARD));
+			for (int s = 0; s < shardCount; s++) {
+				this.shards[s].prepare(this.batch, (int) ((long) size * s / shardCount), (int) ((long) size * (s + 1) / shardCount), compute);
+			}
+			run(shardCount);
+			for (int s = 0; s < shardCount; s++) {
+				this.shards[s].finish(this.events, after);
+			}
+			Arrays.fill(this.batch, 0, size, null);
+		}
+	}
+
+	void shutdown() {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
+	}
+
+	private int drain(final AgentCalendarQueue queue, final double now) {
+		int size = 0;
+		MobsimAgent agent;
+		while ((agent = queue.pollDue(now)) != null) {
+			if (size == this.batch.length) {
+				this.batch = Arrays.copyOf(this.batch, size * 2);
+			}
+			this.batch[size++] = agent;
+		}
+		return size;
+	}
+
+	private void run(final int shardCount) {
+		if (shardCount == 1) {
+			this.shards[0].call();
+			return;
+		}
+		if (this.pool == null) {
+			this.pool = Executors.newFixedThreadPool(this.shards.length - 1, new NamedThreadFactory());
+		}
+		List<Future<Void>> futures = new ArrayList<>(shardCount - 1);
+		for (int s = 1; s < shardCount; s++) {
+			futures.add(this.pool.submit(this.shards[s]));
+		}
+		// the main thread takes the first shard itself instead of waiting
+		RuntimeException exception = null;
+		try {
+			this.shards[0].call();
+		} catch (RuntimeException e) {
+			exception = e;
+		}
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (exception == null) {
+					exception = new RuntimeException(e.getCause());
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private static final class Shard implements Callable<Void> {
+		private final EventArray events = new EventArray();
+		private int[] eventEnds = new int[64];
+		private MobsimAgent[] agents;
+		private int from;
+		private int to;
+		private Consumer<MobsimAgent> compute;
+
+		void prepare(final MobsimAgent[] agents, final int from, final int to, final Consumer<MobsimAgent> compute) {
+			this.agents = agents;
+			this.from = from;
+			this.to = to;
+			this.compute = compute;
+			if (this.eventEnds.length < to - from) {
+				this.eventEnds = new int[Math.max(to - from, 2 * this.eventEnds.length)];
+			}
+		}
+
+		@Override
+		public Void call() {
+			recordedEvents.set(this.events);
+			try {
+				for (int i = this.from; i < this.to; i++) {
+					this.compute.accept(this.agents[i]);
+					this.eventEnds[i - this.from] = this.events.size();
+				}
+			} finally {
+				recordedEvents.remove();
+			}
+			return null;
+		}
+
+		void finish(final EventsManager eventsManager, final Consumer<MobsimAgent> after) {
+			int event = 0;
+			for (int i = this.from; i < this.to; i++) {
+				for (int end = this.eventEnds[i - this.from]; event < end; event++) {
+					eventsManager.processEvent(this.events.get(event));
+				}
+				after.accept(this.agents[i]);
+			}
+			this.events.clear();
+			this.agents = null;
+			this.compute = null;
+		}
+	}
+
+	/**
+	 * Passes the events on to the delegate, unless they are thrown by an agent which computes its next state in
+	 * {@link AgentBatchProcessor#process}.
+	 */
+	static final class RecordingEventsManager implements EventsManager {
+
+		private final EventsManager delegate;
+
+		RecordingEventsManager(final EventsManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void processEvent(final Event event) {
+			EventArray recording = recordedEvents.get();
+			if (recording == null) {
+				this.delegate.processEvent(event);
+			} else {
+				recording.add(event);
+			}
+		}
+
+		@Override
+		public void addHandler(final EventHandler handler) {
+			this.delegate.addHandler(handler);
+		}
+
+		@Override
+		public void removeHandler(final EventHandler handler) {
+			this.delegate.removeHandler(handler);
+		}
+
+		@Override
+		public void resetHandlers(final int iteration) {
+			this.delegate.resetHandlers(iteration);
+		}
+
+		@Override
+		public void initProcessing() {
+			this.delegate.initProcessing();
+		}
+
+		@Override
+		public void afterSimStep(final double time) {
+			this.delegate.afterSimStep(time);
+		}
+
+		@Override
+		public void finishProcessing() {
+			this.delegate.finishProcessing();
+		}
+	}
+
+	private static final class NamedThreadFactory implements ThreadFactory {
+		private int count = 0;
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			Thread thread = new Thread(r, "AgentBatchProcessor_PooledThread_" + this.count++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
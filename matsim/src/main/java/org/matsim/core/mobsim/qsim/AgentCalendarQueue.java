@@ -0,0 +1,417 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentCalendarQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+/**
+ * Queue of agents which are released at a certain time, e.g. at the end of their activity or at the end of their teleportation.
+ * Agents are released in the order of their time, and agents with the same time in descending order of their ids, which is
+ * the order of the priority queues used before.
+ * <p>
+ * The agents are kept in buckets of one second (a calendar queue), which covers {@link #WHEEL_SIZE} seconds after the current
+ * time of the mobsim.  Adding an agent to a bucket is O(1) and does not allocate any objects.  When the time advances, the
+ * buckets of the passed seconds are moved into a small heap which brings the agents that are due in the current time step
+ * into their order.  Agents whose time is further in the future are kept in an overflow heap until they are within reach
+ * of the buckets.  The time of every agent in the queue is kept in an identity hash map, so an agent can be removed from
+ * the bucket or heap it is in without searching all of them.  An agent must thus not be added again while it is in the
+ * queue.
+ * <p>
+ * All methods are synchronized, since agents may be added from the threads of the parallel qsim.
+ *
+ * @author (of this class) the MATSim team
+ */
+final class AgentCalendarQueue {
+
+	static final int WHEEL_SIZE = 1 << 16;
+	private static final int MASK = WHEEL_SIZE - 1;
+
+	private final Bucket[] buckets = new Bucket[WHEEL_SIZE];
+	private final Heap due = new Heap();
+	private final Heap overflow = new Heap();
+	/** agents added before the first time step, when the start time of the calendar is not yet known */
+	private final Bucket pending = new Bucket();
+	private final TimeIndex index = new TimeIndex();
+
+	private boolean started = false;
+	private long currentSecond;
+	private double currentTime = Double.NEGATIVE_INFINITY;
+	private int size = 0;
+
+	synchronized void add(final double time, final MobsimAgent agent) {
+		this.size++;
+		this.index.put(agent, time);
+		if (this.started) {
+			place(time, agent);
+		} else {
+			this.pending.add(time, agent);
+		}
+	}
+
+	/**
+	 * Returns the next agent whose time is not after <code>now</code>, and removes it from the queue.  Agents that are added
+	 * while the due agents of a time step are polled are returned in the same time step if their time is not after
+	 * <code>now</code>.
+	 *
+	 * @return the agent, or <code>null</code> if there is no due agent.
+	 */
+	synchronized MobsimAgent pollDue(final double now) {
+		if (now != this.currentTime) {
+			advance(now);
+		}
+		if (this.due.size > 0 && this.due.times[0] <= now) {
+			this.size--;
+			MobsimAgent agent = this.due.poll();
+			this.index.remove(agent);
+			return agent;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the agent from the queue.  The agent is only searched in the bucket or heap where its time puts it, which is
+	 * linear in the number of agents there.
+	 *
+	 * @return <code>true</code> if the agent was in the queue.
+	 */
+	synchronized boolean remove(final MobsimAgent agent) {
+		double time = this.index.remove(agent);
+		if (Double.isNaN(time)) {
+			return false;
+		}
+		long second = (long) Math.floor(time);
+		boolean removed;
+		if (!this.started) {
+			removed = this.pending.remove(agent);
+		} else if (second <= this.currentSecond) {
+			removed = this.due.remove(agent);
+		} else if (second < this.currentSecond + WHEEL_SIZE) {
+			removed = this.buckets[(int) (second & MASK)].remove(agent);
+		} else {
+			removed = this.overflow.remove(agent);
+		}
+		if (!removed) {
+			throw new IllegalStateException("agent " + agent.getId() + " is not where its time " + time + " puts it.");
+		}
+		this.size--;
+		return true;
+	}
+
+	/**
+	 * Calls the consumer for every agent in the queue with its time, in the order in which the agents would be released.
+	 */
+	synchronized void forEach(final ObjDoubleConsumer<MobsimAgent> consumer) {
+		Heap all = new Heap();
+		ObjDoubleConsumer<MobsimAgent> collector = (agent, time) -> all.add(time, agent);
+		this.pending.forEach(collector);
+		this.due.forEach(collector);
+		for (Bucket bucket : this.buckets) {
+			if (bucket != null) {
+				bucket.forEach(collector);
+			}
+		}
+		this.overflow.forEach(collector);
+		while (all.size > 0) {
+			double time = all.times[0];
+			consumer.accept(all.poll(), time);
+		}
+	}
+
+	synchronized int size() {
+		return this.size;
+	}
+
+	synchronized boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	synchronized void clear() {
+		this.pending.clear();
+		this.due.clear();
+		this.overflow.clear();
+		Arrays.fill(this.buckets, null);
+		this.index.clear();
+		this.started = false;
+		this.currentTime = Double.NEGATIVE_INFINITY;
+		this.size = 0;
+	}
+
+	private void advance(final double now) {
+		long second = (long) Math.floor(now);
+		if (!this.started) {
+			this.started = true;
+			this.currentSecond = second;
+			for (int i = 0; i < this.pending.size; i++) {
+				place(this.pending.times[i], this.pending.agents[i]);
+			}
+			this.pending.clear();
+		} else if (second > this.currentSecond) {
+			// if time jumps by more than the size of the wheel, every bucket is only looked at once
+			long last = Math.min(second, this.currentSecond + WHEEL_SIZE);
+			for (long s = this.currentSecond + 1; s <= last; s++) {
+				Bucket bucket = this.buckets[(int) (s & MASK)];
+				if (bucket != null && bucket.size > 0) {
+					for (int i = 0; i < bucket.size; i++) {
+						this.due.add(bucket.times[i], bucket.agents[i]);
+					}
+					bucket.clear();
+				}
+			}
+			this.currentSecond = second;
+		}
+		while (this.overflow.size > 0 && (long) Math.floor(this.overflow.times[0]) < this.currentSecond + WHEEL_SIZE) {
+			double time = this.overflow.times[0];
+			place(time, this.overflow.poll());
+		}
+		this.currentTime = now;
+	}
+
+	private void place(final double time, final MobsimAgent agent) {
+		long second = (long) Math.floor(time);
+		if (second <= this.currentSecond) {
+			this.due.add(time, agent);
+		} else if (second < this.currentSecond + WHEEL_SIZE) {
+			int index = (int) (second & MASK);
+			Bucket bucket = this.buckets[index];
+			if (bucket == null) {
+				bucket = new Bucket();
+				this.buckets[index] = bucket;
+			}
+			bucket.add(time, agent);
+		} else {
+			this.overflow.add(time, agent);
+		}
+	}
+
+	/**
+	 * Compares by time, and agents with the same time by their ids in descending order.
+	 */
+	private static int compare(final double time0, final MobsimAgent agent0, final double time1, final MobsimAgent agent1) {
+		int cmp = Double.compare(time0, time1);
+		if (cmp == 0) {
+			return agent1.getId().compareTo(agent0.getId());
+		}
+		return cmp;
+	}
+
+	/**
+	 * Unordered agents with their times in parallel arrays.
+	 */
+	private static class Bucket {
+		MobsimAgent[] agents = new MobsimAgent[4];
+		double[] times = new double[4];
+		int size = 0;
+
+		void add(final double time, final MobsimAgent agent) {
+			if (this.size == this.agents.length) {
+				this.agents = Arrays.copyOf(this.agents, this.size * 2);
+				this.times = Arrays.copyOf(this.times, this.size * 2);
+			}
+			this.agents[this.size] = agent;
+			this.times[this.size] = time;
+			this.size++;
+		}
+
+		boolean remove(final MobsimAgent agent) {
+			for (int i = 0; i < this.size; i++) {
+				if (this.agents[i] == agent) {
+					this.size--;
+					this.agents[i] = this.agents[this.size];
+					this.times[i] = this.times[this.size];
+					this.agents[this.size] = null;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		final void forEach(final ObjDoubleConsumer<MobsimAgent> consumer) {
+			for (int i = 0; i < this.size; i++) {
+				consumer.accept(this.agents[i], this.times[i]);
+			}
+		}
+
+		final void clear() {
+			Arrays.fill(this.agents, 0, this.size, null);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Identity hash map from the agents to their times, with open addressing in parallel arrays so adding an agent does not
+	 * allocate any objects.
+	 */
+	private static final class TimeIndex {
+		private MobsimAgent[] agents = new MobsimAgent[64];
+		private double[] times = new double[64];
+		private int size = 0;
+
+		void put(final MobsimAgent agent, final double time) {
+			if (2 * (this.size + 1) > this.agents.length) {
+				rehash(2 * this.agents.length);
+			}
+			int mask = this.agents.length - 1;
+			int i = hash(agent) & mask;
+			while (this.agents[i] != null) {
+				if (this.agents[i] == agent) {
+					this.times[i] = time;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			this.agents[i] = agent;
+			this.times[i] = time;
+			this.size++;
+		}
+
+		/**
+		 * @return the time of the agent, or NaN if the agent is not contained
+		 */
+		double remove(final MobsimAgent agent) {
+			int mask = this.agents.length - 1;
+			int i = hash(agent) & mask;
+			while (this.agents[i] != agent) {
+				if (this.agents[i] == null) {
+					return Double.NaN;
+				}
+				i = (i + 1) & mask;
+			}
+			double time = this.times[i];
+			// shift the following agents back, so no agent is separated from its hash slot by an empty slot
+			int hole = i;
+			for (int j = (i + 1) & mask; this.agents[j] != null; j = (j + 1) & mask) {
+				int home = hash(this.agents[j]) & mask;
+				if (((j - home) & mask) >= ((j - hole) & mask)) {
+					this.agents[hole] = this.agents[j];
+					this.times[hole] = this.times[j];
+					hole = j;
+				}
+			}
+			this.agents[hole] = null;
+			this.size--;
+			return time;
+		}
+
+		void clear() {
+			Arrays.fill(this.agents, null);
+			this.size = 0;
+		}
+
+		private void rehash(final int capacity) {
+			MobsimAgent[] oldAgents = this.agents;
+			double[] oldTimes = this.times;
+			this.agents = new MobsimAgent[capacity];
+			this.times = new double[capacity];
+			this.size = 0;
+			for (int i = 0; i < oldAgents.length; i++) {
+				if (oldAgents[i] != null) {
+					put(oldAgents[i], oldTimes[i]);
+				}
+			}
+		}
+
+		private static int hash(final MobsimAgent agent) {
+			int h = System.identityHashCode(agent);
+			return h ^ (h >>> 16);
+		}
+	}
+
+	/**
+	 * Binary min-heap on the parallel arrays of a bucket.
+	 */
+	private static final class Heap extends Bucket {
+
+		@Override
+		void add(final double time, final MobsimAgent agent) {
+			super.add(time, agent);
+			siftUp(this.size - 1, time, agent);
+		}
+
+		MobsimAgent poll() {
+			MobsimAgent result = this.agents[0];
+			this.size--;
+			MobsimAgent last = this.agents[this.size];
+			double lastTime = this.times[this.size];
+			this.agents[this.size] = null;
+			if (this.size > 0) {
+				siftDown(0, lastTime, last);
+			}
+			return result;
+		}
+
+		@Override
+		boolean remove(final MobsimAgent agent) {
+			for (int i = 0; i < this.size; i++) {
+				if (this.agents[i] == agent) {
+					this.size--;
+					MobsimAgent last = this.agents[this.size];
+					double lastTime = this.times[this.size];
+					this.agents[this.size] = null;
+					if (i < this.size) {
+						siftDown(i, lastTime, last);
+						if (this.agents[i] == last) {
+							siftUp(i, lastTime, last);
+						}
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void siftUp(int index, final double time, final MobsimAgent agent) {
+			while (index > 0) {
+				int parent = (index - 1) >>> 1;
+				if (compare(time, agent, this.times[parent], this.agents[parent]) >= 0) {
+					break;
+				}
+				this.agents[index] = this.agents[parent];
+				this.times[index] = this.times[parent];
+				index = parent;
+			}
+			this.agents[index] = agent;
+			this.times[index] = time;
+		}
+
+		private void siftDown(int index, final double time, final MobsimAgent agent) {
+			int half = this.size >>> 1;
+			while (index < half) {
+				int child = 2 * index + 1;
+				int right = child + 1;
+				if (right < this.size && compare(this.times[right], this.agents[right], this.times[child], this.agents[child]) < 0) {
+					child = right;
+				}
+				if (compare(time, agent, this.times[child], this.agents[child]) <= 0) {
+					break;
+				}
+				this.agents[index] = this.agents[child];
+				this.times[index] = this.times[child];
+				index = child;
+			}
+			this.agents[index] = agent;
+			this.times[index] = time;
+		}
+	}
+
+}
@@ -135,6 +135,7 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 	private long qSimInternalTime = 0;
 	private final Map<MobsimEngine, AtomicLong> mobsimEngineRunTimes;
 	private ActivityEngine activityEngine;
+	private final AgentBatchProcessor agentBatchProcessor;
 
 	{
 		if (analyzeRunTimes) this.mobsimEngineRunTimes = new HashMap<>();
@@ -201,9 +202,17 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 	private QSim( final Scenario sc, EventsManager events, Injector childInjector ) {
 		this.scenario = sc;
 		if ( sc.getConfig().qsim().getNumberOfThreads() > 1) {
-			this.events = EventsUtils.getParallelFeedableInstance( events );
+			EventsManager parallelEvents = EventsUtils.getParallelFeedableInstance( events );
+			if ( sc.getConfig().qsim().isUsingParallelAgentEngines() ) {
+				this.events = new AgentBatchProcessor.RecordingEventsManager( parallelEvents );
+				this.agentBatchProcessor = new AgentBatchProcessor( this.events, sc.getConfig().qsim().getNumberOfThreads() );
+			} else {
+				this.events = parallelEvents;
+				this.agentBatchProcessor = null;
+			}
 		} else {
 			this.events = events;
+			this.agentBatchProcessor = null;
 		}
 		this.listenerManager = new MobsimListenerManager( this );
 		this.agentCounter = new org.matsim.core.mobsim.qsim.AgentCounter();
@@ -348,6 +357,10 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 			}
 		}
 
+		if (this.agentBatchProcessor != null) {
+			this.agentBatchProcessor.shutdown();
+		}
+
 		if (gotException) throw new RuntimeException( "got exception while cleaning up the QSim. Please check the error messages above for details.");
 		events.finishProcessing();
 		if (analyzeRunTimes) {
@@ -566,6 +579,14 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		return events;
 	}
 
+	/**
+	 * @return the processor which lets the agents of the activity and teleportation engines compute their next state on
+	 * several threads, or <code>null</code> if they are processed on the main thread.
+	 */
+	/*package*/ AgentBatchProcessor getAgentBatchProcessor() {
+		return this.agentBatchProcessor;
+	}
+
 	@Override
 	public NetsimNetwork getNetsimNetwork() {
 		return this.netEngine.getNetsimNetwork();
@@ -173,6 +173,11 @@ public class PersonDriverAgentImpl implements MobsimDriverAgent, MobsimPassenger
 		return driverAgentDelegate.chooseNextLinkId();
 	}
 
+	@Override
+	public final int chooseNextLinkIndex() {
+		return driverAgentDelegate.chooseNextLinkIndex();
+	}
+
 	@Override
 	public final boolean isWantingToArriveOnCurrentLink() {
 		return driverAgentDelegate.isWantingToArriveOnCurrentLink();
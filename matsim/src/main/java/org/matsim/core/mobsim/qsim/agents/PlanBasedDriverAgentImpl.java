@@ -18,14 +18,13 @@
  * *********************************************************************** */
 package org.matsim.core.mobsim.qsim.agents;
 
-import java.util.List;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.mobsim.framework.DriverAgent;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
@@ -49,17 +48,24 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 
 	private static int expectedLinkWarnCount = 0;
 
+	private static final int NO_LINK = -1;
+
+	private int cachedNextLinkIndex = NO_LINK;
 	private Id<Link> cachedNextLinkId = null;
 
+	// the link indices of the route of the current leg, so the route does not need to be asked for every link
+	private NetworkRoute cachedRoute = null;
+	private int[] cachedRouteLinkIndices = null;
+
 	@Override
 	public final void notifyMoveOverNode(Id<Link> newLinkId) {
-		if (expectedLinkWarnCount < 10 && !newLinkId.equals(this.cachedNextLinkId)) {
+		if (expectedLinkWarnCount < 10 && newLinkId.index() != this.cachedNextLinkIndex) {
 			log.warn("Agent did not end up on expected link. Ok for within-day replanning agent, otherwise not.  Continuing " + "anyway ... This warning is suppressed after the first 10 warnings.") ;
 			expectedLinkWarnCount++;
 		}
 		this.basicPlanAgentDelegate.setCurrentLinkId( newLinkId ) ;
 		this.basicPlanAgentDelegate.incCurrentLinkIndex();
-		this.cachedNextLinkId = null; //reset cached nextLink
+		this.cachedNextLinkIndex = NO_LINK; //reset cached nextLink
 	}
 
 	/**
@@ -69,6 +75,18 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 	 */
 	@Override
 	public final Id<Link> chooseNextLinkId() {
+		int nextLinkIndex = chooseNextLinkIndex();
+		if (nextLinkIndex == NO_LINK) {
+			return null;
+		}
+		if (this.cachedNextLinkId == null || this.cachedNextLinkId.index() != nextLinkIndex) {
+			this.cachedNextLinkId = Id.get(nextLinkIndex, Link.class);
+		}
+		return this.cachedNextLinkId;
+	}
+
+	@Override
+	public final int chooseNextLinkIndex() {
 		// To note: there is something really stupid going on here: A vehicle that is at the end of its route and on the destination link will arrive.
 		// However, a vehicle that is on the destination link BUT NOT AT THE END OF ITS ROUTE will NOT arrive.  This makes the whole thing
 		// very extremely messy.  kai, nov'14 (This behavior is no longer there. kai, nov'14)
@@ -82,26 +100,25 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 		// and removed material as they needed it for their own studies.  Making the whole code more consistent would be highly
 		// desirable.  kai, nov'14
 
-		// (1) if there is a cached link id, use that one: 
-		if (this.cachedNextLinkId != null && !(this.cachedNextLinkId.equals(this.getCurrentLinkId())) ) {
+		// (1) if there is a cached link id, use that one:
+		if (this.cachedNextLinkIndex != NO_LINK && this.cachedNextLinkIndex != this.getCurrentLinkId().index()) {
 			// cachedNextLinkId used to be set to null when a leg started.  Now the BasicPlanAgentImpl does not longer have access to cached
 			// value.  kai, nov'14
 
-			return this.cachedNextLinkId;
+			return this.cachedNextLinkIndex;
 		}
 
 		// (2) routes that are not network routes cannot be interpreted
-		if ( ! ( this.basicPlanAgentDelegate.getCurrentLeg().getRoute() instanceof NetworkRoute ) ) {
-			return null ;
+		int[] routeLinkIndices = getRouteLinkIndices();
+		if ( routeLinkIndices == null ) {
+			return NO_LINK ;
 		}
 
-		List<Id<Link>> routeLinkIds = ((NetworkRoute) this.basicPlanAgentDelegate.getCurrentLeg().getRoute()).getLinkIds();
-
 		// (3) if route has run dry, we return the destination link (except for one special case, which however may not be necessary any more):
-		if (this.basicPlanAgentDelegate.getCurrentLinkIndex() >= routeLinkIds.size() ) {
+		if (this.basicPlanAgentDelegate.getCurrentLinkIndex() >= routeLinkIndices.length ) {
 
 			// special case:
-			if (this.getCurrentLinkId().equals( this.getDestinationLinkId() ) && this.basicPlanAgentDelegate.getCurrentLinkIndex() > routeLinkIds.size()) {
+			if (this.getCurrentLinkId().equals( this.getDestinationLinkId() ) && this.basicPlanAgentDelegate.getCurrentLinkIndex() > routeLinkIndices.length) {
 				// this can happen if the last link in a route is a loop link. Don't ask, it can happen in special transit simulation cases... mrieser/jan2014
 
 				// the condition for arrival used to be "route has run dry AND destination link not attached to current link".  now with loop links,
@@ -109,30 +126,45 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 
 				// The special condition may not be necessary any more. kai, nov'14
 
-				return null;
+				return NO_LINK;
 			}
 
-			this.cachedNextLinkId = this.getDestinationLinkId();
-			return this.cachedNextLinkId;
+			this.cachedNextLinkIndex = this.getDestinationLinkId().index();
+			return this.cachedNextLinkIndex;
 
 		}
 
 		// (4) otherwise (normal case): return the next link of the plan (after caching it):
-		this.cachedNextLinkId = routeLinkIds.get(this.basicPlanAgentDelegate.getCurrentLinkIndex());
-		return this.cachedNextLinkId;
+		this.cachedNextLinkIndex = routeLinkIndices[this.basicPlanAgentDelegate.getCurrentLinkIndex()];
+		return this.cachedNextLinkIndex;
+
+	}
 
+	/**
+	 * @return the link indices of the route of the current leg, or <code>null</code> if it is not a network route.
+	 */
+	private int[] getRouteLinkIndices() {
+		Route route = this.basicPlanAgentDelegate.getCurrentLeg().getRoute();
+		if ( ! ( route instanceof NetworkRoute ) ) {
+			return null;
+		}
+		if (route != this.cachedRoute) {
+			this.cachedRoute = (NetworkRoute) route;
+			this.cachedRouteLinkIndices = this.cachedRoute.getLinkIndices();
+		}
+		return this.cachedRouteLinkIndices;
 	}
 
 	@Override
 	public final boolean isWantingToArriveOnCurrentLink( ) {
 
-		if ( ! ( this.basicPlanAgentDelegate.getCurrentLeg().getRoute() instanceof NetworkRoute ) ) {
+		final int[] routeLinkIndices = getRouteLinkIndices();
+		if ( routeLinkIndices == null ) {
 			// non-network links in the past have always returned true (i.e. "null" to the chooseNextLink question). kai, nov'14
 			return true ;
 		}
 
-		final List<Id<Link>> routeLinkIds = ((NetworkRoute) this.basicPlanAgentDelegate.getCurrentLeg().getRoute()).getLinkIds();
-		final int routeLinkIdsSize = routeLinkIds.size();
+		final int routeLinkIdsSize = routeLinkIndices.length;
 
 		// the standard condition used to be "route has run dry AND destination link not attached to current link":
 		// 2nd condition essentially meant "destination link EQUALS current link" but really stupid way of stating this.  Thus
@@ -184,7 +216,9 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 		// known best.  kai, oct'10
 		// Compromise: package-private here; making it public in the Withinday class.  kai, nov'10
 
-		this.cachedNextLinkId = null;
+		this.cachedNextLinkIndex = NO_LINK;
+		this.cachedRoute = null;
+		this.cachedRouteLinkIndices = null;
 
 		if( this.basicPlanAgentDelegate.getCurrentPlanElement()==null ) {
 			throw new RuntimeException("encountered unexpected null pointer" ) ;
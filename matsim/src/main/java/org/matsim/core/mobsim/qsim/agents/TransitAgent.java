@@ -156,6 +156,10 @@ public final class TransitAgent implements MobsimDriverPassengerAgent, PlanAgent
 		return driverAgentDelegate.chooseNextLinkId();
 	}
 	@Override
+	public final int chooseNextLinkIndex() {
+		return driverAgentDelegate.chooseNextLinkIndex();
+	}
+	@Override
 	public final boolean isWantingToArriveOnCurrentLink() {
 		return driverAgentDelegate.isWantingToArriveOnCurrentLink();
 	}
@@ -33,6 +33,7 @@ import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
 
 import jakarta.inject.Inject;
+import java.util.Arrays;
 import java.util.Queue;
 
 class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
@@ -42,6 +43,14 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	private final Network network;
 	private InternalInterface internalInterface;
 
+	/**
+	 * The change events known before the simulation starts, sorted by start time.  Instead of putting one message per
+	 * change event into the message queue, only the next start time is scheduled, and all change events which start then
+	 * are applied together.
+	 */
+	private NetworkChangeEvent[] sortedChangeEvents = new NetworkChangeEvent[0];
+	private int nextChangeEvent = 0;
+
 	@Inject
 	NetworkChangeEventsEngine(Network network, MessageQueue messageQueue) {
 		this.network = network;
@@ -51,9 +60,26 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	@Override
 	public void onPrepareSim() {
 		Queue<NetworkChangeEvent> changeEvents = NetworkUtils.getNetworkChangeEvents(this.network);
-		for (final NetworkChangeEvent changeEvent : changeEvents) {
-			addNetworkChangeEventToMessageQ(changeEvent);
+		this.sortedChangeEvents = changeEvents.toArray(new NetworkChangeEvent[0]);
+		Arrays.sort(this.sortedChangeEvents, new NetworkChangeEvent.StartTimeComparator());
+		this.nextChangeEvent = 0;
+		scheduleNextChangeEvents();
+	}
+
+	private void scheduleNextChangeEvents() {
+		if (this.nextChangeEvent == this.sortedChangeEvents.length) {
+			return;
 		}
+		final double startTime = this.sortedChangeEvents[this.nextChangeEvent].getStartTime();
+		this.messageQueue.putMessage(new Message(startTime) {
+			@Override
+			public void handleMessage() {
+				while (nextChangeEvent < sortedChangeEvents.length && sortedChangeEvents[nextChangeEvent].getStartTime() <= startTime) {
+					applyTheChangeEvent(sortedChangeEvents[nextChangeEvent++]);
+				}
+				scheduleNextChangeEvents();
+			}
+		});
 	}
 
 	private void addNetworkChangeEventToMessageQ(NetworkChangeEvent changeEvent) {
@@ -67,7 +93,9 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	}
 
 	private void applyTheChangeEvent(NetworkChangeEvent changeEvent) {
+		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
 		for (Link link : changeEvent.getLinks()) {
+			NetworkUtils.advanceTimeVariantAttributes(link, now);
 			final NetsimLink netsimLink = this.internalInterface.getMobsim().getNetsimNetwork().getNetsimLink(link.getId());
 			if ( netsimLink instanceof TimeVariantLink) {
 				((TimeVariantLink) netsimLink).recalcTimeVariantAttributes();
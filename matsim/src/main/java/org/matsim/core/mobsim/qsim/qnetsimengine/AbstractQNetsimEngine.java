@@ -22,8 +22,10 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -421,6 +423,29 @@ abstract class AbstractQNetsimEngine<A extends AbstractQNetsimEngineRunner> impl
 //		this.linksToActivateInitially.clear();
 	}
 
+	/**
+	 * Moves up to <code>count</code> active nodes, together with their out-links, from one runner to another.
+	 * As links are only activated by the runner handling their in-node, nodes and their out-links must always
+	 * belong to the same runner. Must only be called between time steps.
+	 *
+	 * @return the number of moved nodes
+	 */
+	protected final int moveActiveNodes(A from, A to, int count) {
+		List<QNodeI> nodes = from.removeActiveNodes(count);
+		Set<QLinkI> links = new HashSet<>();
+		for (QNodeI node : nodes) {
+			((AbstractQNode) node).setNetElementActivationRegistry(to);
+			for (Link outLink : node.getNode().getOutLinks().values()) {
+				AbstractQLink qLink = (AbstractQLink) qNetwork.getNetsimLink(outLink.getId());
+				qLink.setNetElementActivationRegistry(to);
+				links.add(qLink);
+			}
+		}
+		to.addActiveNodes(nodes);
+		to.addActiveLinks(from.removeActiveLinks(links));
+		return nodes.size();
+	}
+
 	private final void arrangeNextAgentState(MobsimAgent pp) {
 		internalInterface.arrangeNextAgentState(pp);
 	}
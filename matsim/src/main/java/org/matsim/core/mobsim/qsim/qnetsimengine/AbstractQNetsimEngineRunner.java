@@ -20,11 +20,14 @@
 
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.matsim.core.mobsim.qsim.QSim;
@@ -149,6 +152,46 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 		return this.nodesQueue.size();
 	}
 
+	/*
+	 * The following methods move active nodes and links between runners when the
+	 * network is rebalanced. They bypass the locks and must only be called between
+	 * time steps, i.e. while no runner is moving nodes or links.
+	 */
+	/*package*/ final List<QNodeI> removeActiveNodes(int count) {
+		List<QNodeI> removed = new ArrayList<>(count);
+		Iterator<QNodeI> simNodes = this.nodesQueue.iterator();
+		while (simNodes.hasNext() && removed.size() < count) {
+			QNodeI node = simNodes.next();
+			// only these nodes know their registry
+			if (node instanceof AbstractQNode) {
+				removed.add(node);
+				simNodes.remove();
+			}
+		}
+		return removed;
+	}
+
+	/*package*/ final void addActiveNodes(Collection<QNodeI> nodes) {
+		this.nodesQueue.addAll(nodes);
+	}
+
+	/*package*/ final List<QLinkI> removeActiveLinks(Set<QLinkI> links) {
+		List<QLinkI> removed = new ArrayList<>();
+		Iterator<QLinkI> simLinks = this.linksList.iterator();
+		while (simLinks.hasNext()) {
+			QLinkI link = simLinks.next();
+			if (links.contains(link)) {
+				removed.add(link);
+				simLinks.remove();
+			}
+		}
+		return removed;
+	}
+
+	/*package*/ final void addActiveLinks(Collection<QLinkI> links) {
+		this.linksList.addAll(links);
+	}
+
 	protected final void startMeasure() {
 		if (QSim.analyzeRunTimes) this.startTime = System.nanoTime();		
 	}
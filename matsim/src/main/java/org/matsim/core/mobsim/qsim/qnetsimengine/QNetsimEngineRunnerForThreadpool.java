@@ -34,6 +34,9 @@ final class QNetsimEngineRunnerForThreadpool extends AbstractQNetsimEngineRunner
 	
 	private volatile boolean simulationRunning = true;
 	private boolean movingNodes;
+	private boolean measuringLoad = false;
+	// computing time since the last call to getAndResetLoad(), in nanoseconds
+	private long load = 0;
 
 	QNetsimEngineRunnerForThreadpool() {
 	}
@@ -45,11 +48,15 @@ final class QNetsimEngineRunnerForThreadpool extends AbstractQNetsimEngineRunner
 			return false;
 		}
 
+		long start = this.measuringLoad ? System.nanoTime() : 0;
 		if (this.movingNodes) {
 			moveNodes();
 		} else {
 			moveLinks();
 		}
+		if (this.measuringLoad) {
+			this.load += System.nanoTime() - start;
+		}
 		return true ;
 	}
 
@@ -60,4 +67,14 @@ final class QNetsimEngineRunnerForThreadpool extends AbstractQNetsimEngineRunner
 	public final void setMovingNodes(boolean movingNodes) {
 		this.movingNodes = movingNodes;
 	}
+
+	/*package*/ final void setMeasuringLoad(boolean measuringLoad) {
+		this.measuringLoad = measuringLoad;
+	}
+
+	/*package*/ final long getAndResetLoad() {
+		long load = this.load;
+		this.load = 0;
+		return load;
+	}
 }
\ No newline at end of file
@@ -30,7 +30,10 @@ import java.util.concurrent.ThreadFactory;
 
 import jakarta.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.utils.misc.Time;
 
 /**
  * Coordinates the movement of vehicles on the links and the nodes.
@@ -45,9 +48,21 @@ import org.matsim.core.mobsim.qsim.QSim;
  */
 final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEngineRunnerForThreadpool> {
 
+	private static final Logger log = LogManager.getLogger(QNetsimEngineWithThreadpool.class);
+	private static final int LOAD_INFO_PERIOD = 3600;
+	// a runner is only relieved if its load exceeds the average load by this share
+	private static final double LOAD_IMBALANCE_THRESHOLD = 0.1;
+
 	private final int numOfRunners;
+	private final int loadBalancingInterval;
 	private ExecutorService pool;
 
+	private int stepsSinceRebalancing = 0;
+	private long[] periodLoads;
+	private long[] totalLoads;
+	private int movedNodes = 0;
+	private double loadInfoTime = Double.NEGATIVE_INFINITY;
+
 //	public QNetsimEngineWithThreadpool(final QSim sim) {
 //		this(sim, null);
 //	}
@@ -55,6 +70,7 @@ final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEng
 	@Inject QNetsimEngineWithThreadpool(final QSim sim, QNetworkFactory netsimNetworkFactory, NetworkModeDepartureHandler networkModeDepartureHandler) {
 		super(sim, netsimNetworkFactory, networkModeDepartureHandler);
 		this.numOfRunners = this.numOfThreads;
+		this.loadBalancingInterval = this.numOfRunners > 1 ? sim.getScenario().getConfig().qsim().getLoadBalancingInterval() : 0;
 	}
 
 	@Override public void finishMultiThreading() {
@@ -109,6 +125,84 @@ final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEng
 		} catch (ExecutionException e) {
 			throw new RuntimeException(e.getCause());
 		}
+
+		if (this.loadBalancingInterval > 0) {
+			this.stepsSinceRebalancing++;
+			if (this.stepsSinceRebalancing >= this.loadBalancingInterval) {
+				this.stepsSinceRebalancing = 0;
+				rebalance();
+			}
+			if (time >= this.loadInfoTime) {
+				printLoads(time);
+			}
+		}
+	}
+
+	/**
+	 * Moves active nodes and links from the runner with the highest load since the last rebalancing to the one with
+	 * the lowest load. The number of moved nodes is proportional to the load difference, assuming that the load of
+	 * a runner is mostly caused by its active nodes and links.
+	 */
+	private void rebalance() {
+		List<QNetsimEngineRunnerForThreadpool> runners = this.getQnetsimEngineRunner();
+		int maxIndex = 0;
+		int minIndex = 0;
+		long sum = 0;
+		for (int i = 0; i < runners.size(); i++) {
+			long load = runners.get(i).getAndResetLoad();
+			this.periodLoads[i] = load;
+			this.totalLoads[i] += load;
+			sum += load;
+			if (load > this.periodLoads[maxIndex]) maxIndex = i;
+			if (load < this.periodLoads[minIndex]) minIndex = i;
+		}
+		long max = this.periodLoads[maxIndex];
+		long min = this.periodLoads[minIndex];
+		double average = (double) sum / runners.size();
+		if (max == 0 || max <= average * (1 + LOAD_IMBALANCE_THRESHOLD)) {
+			return;
+		}
+		QNetsimEngineRunnerForThreadpool from = runners.get(maxIndex);
+		// moving this share of the load should bring both runners closer to the average, but not beyond it
+		double share = Math.min(max - average, average - min) / max;
+		int count = (int) Math.ceil(from.getNumberOfSimulatedNodes() * share);
+		if (count > 0) {
+			int moved = moveActiveNodes(from, runners.get(minIndex), count);
+			this.movedNodes += moved;
+			if (log.isDebugEnabled()) {
+				log.debug("moved " + moved + " active nodes from QSimEngineRunner #" + maxIndex + " to QSimEngineRunner #" + minIndex);
+			}
+		}
+	}
+
+	private void printLoads(double time) {
+		if (this.loadInfoTime == Double.NEGATIVE_INFINITY) {
+			this.loadInfoTime = Math.floor(time / LOAD_INFO_PERIOD) * LOAD_INFO_PERIOD;
+		}
+		this.loadInfoTime += LOAD_INFO_PERIOD;
+		StringBuilder sb = new StringBuilder("QNetsimEngine load per runner until " + Time.writeTime(time) + ":");
+		List<QNetsimEngineRunnerForThreadpool> runners = this.getQnetsimEngineRunner();
+		for (int i = 0; i < runners.size(); i++) {
+			QNetsimEngineRunnerForThreadpool runner = runners.get(i);
+			sb.append(" #").append(i).append('=').append(this.totalLoads[i] / 1_000_000).append("ms");
+			sb.append(" (").append(runner.getNumberOfSimulatedNodes()).append(" nodes, ");
+			sb.append(runner.getNumberOfSimulatedLinks()).append(" links)");
+		}
+		log.info(sb.toString());
+	}
+
+	/**
+	 * @return the computing time in nanoseconds each runner spent moving nodes and links, if load balancing is enabled.
+	 */
+	/*package*/ long[] getRunnerLoads() {
+		return this.totalLoads == null ? new long[0] : this.totalLoads.clone();
+	}
+
+	/**
+	 * @return the number of active nodes moved to another runner by load balancing.
+	 */
+	/*package*/ int getNumberOfMovedNodes() {
+		return this.movedNodes;
 	}
 
 	private static class NamedThreadFactory implements ThreadFactory {
@@ -135,5 +229,15 @@ final class QNetsimEngineWithThreadpool extends AbstractQNetsimEngine<QNetsimEng
 		this.pool = Executors.newFixedThreadPool(
 				this.numOfThreads,
 				new NamedThreadFactory());
+		if (this.loadBalancingInterval > 0) {
+			this.periodLoads = new long[this.numOfRunners];
+			this.totalLoads = new long[this.numOfRunners];
+			this.stepsSinceRebalancing = 0;
+			this.movedNodes = 0;
+			this.loadInfoTime = Double.NEGATIVE_INFINITY;
+			for (QNetsimEngineRunnerForThreadpool runner : this.getQnetsimEngineRunner()) {
+				runner.setMeasuringLoad(true);
+			}
+		}
 	}
 }
@@ -100,6 +100,13 @@ public class QNetwork implements NetsimNetwork {
 		return this.links.get(id);
 	}
 
+	/**
+	 * @return the link with the given {@link Id#index() id index}, or <code>null</code> if there is none.
+	 */
+	public QLinkI getNetsimLink(final int index) {
+		return this.links.get(index);
+	}
+
 	@Override
 	public NetsimNode getNetsimNode(final Id<Node> id) {
 		return this.nodes.get(id);
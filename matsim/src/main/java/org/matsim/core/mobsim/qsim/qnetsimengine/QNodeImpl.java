@@ -387,10 +387,14 @@ final class QNodeImpl extends AbstractQNode {
 	 * otherwise (e.g. in case where the next link is jammed)
 	 */
 	private boolean moveVehicleOverNode( final QVehicle veh, QLinkI fromLink, final QLaneI fromLane, final double now ) {
-		Id<Link> nextLinkId = veh.getDriver().chooseNextLinkId();
+		QNetwork qNetwork = this.netsimEngine.getNetsimNetwork();
+		// the next link is looked up by its index, the link id is only needed for the events and for unknown links
+		int nextLinkIndex = veh.getDriver().chooseNextLinkIndex();
+		QLinkI nextQueueLink = nextLinkIndex < 0 ? null : qNetwork.getNetsimLink(nextLinkIndex);
+		Id<Link> nextLinkId = nextQueueLink != null ? nextQueueLink.getLink().getId() : veh.getDriver().chooseNextLinkId();
 		Link currentLink = fromLink.getLink() ;
 
-		AcceptTurn turn = turnAcceptanceLogic.isAcceptingTurn(currentLink, fromLane, nextLinkId, veh, this.netsimEngine.getNetsimNetwork(), now);
+		AcceptTurn turn = turnAcceptanceLogic.isAcceptingTurn(currentLink, fromLane, nextLinkId, veh, qNetwork, now);
 		if ( turn.equals(AcceptTurn.ABORT) ) {
 			moveVehicleFromInlinkToAbort( veh, fromLane, now, currentLink.getId() ) ;
 			return true ;
@@ -398,7 +402,6 @@ final class QNodeImpl extends AbstractQNode {
 			return false;
 		}
 
-		QLinkI nextQueueLink = this.netsimEngine.getNetsimNetwork().getNetsimLinks().get(nextLinkId);
 		QLaneI nextQueueLane = nextQueueLink.getAcceptingQLane() ;
 		if (nextQueueLane.isAcceptingFromUpstream()) {
 			moveVehicleFromInlinkToOutlink(veh, currentLink.getId(), fromLane, nextLinkId, nextQueueLane);
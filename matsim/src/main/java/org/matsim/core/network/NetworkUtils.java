@@ -789,6 +789,17 @@ public final class NetworkUtils {
 	}
 
 
+	/**
+	 * Tells a time variant link the current time of the simulation, so it can answer lookups for that time faster.  To be
+	 * called by the mobsim only, with increasing times.  Does nothing for other links.
+	 */
+	public static void advanceTimeVariantAttributes( Link link, double time ) {
+		if ( link instanceof TimeVariantLinkImpl ) {
+			((TimeVariantLinkImpl) link).advanceTo(time);
+		}
+	}
+
+
 	public static Queue<NetworkChangeEvent> getNetworkChangeEvents(Network network ) {
 		if ( network instanceof TimeDependentNetwork ) {
 			return ((TimeDependentNetwork) network).getNetworkChangeEvents() ;
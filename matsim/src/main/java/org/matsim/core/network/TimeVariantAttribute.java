@@ -56,6 +56,13 @@ public interface TimeVariantAttribute
 	 */
 	double getValue(final double time);
 
+	/**
+	 * Tells the attribute the current time of the simulation.  Implementations may use it to answer lookups for that time
+	 * faster, and may assume that it mostly increases.
+	 */
+	default void advanceTo(final double time) {
+	}
+
 	boolean isRecalcRequired();
 
 	void recalc(TreeMap<Double, NetworkChangeEvent> changeEvents, ChangeValueGetter valueGetter, double baseValue);
@@ -102,6 +102,26 @@ import org.matsim.api.core.v01.network.*;
 
 
 
+	/**
+	 * Tells the time variant attributes the current time of the simulation.  Only the simulation calls this, with
+	 * increasing times; lookups by other callers do not change what the attributes consider the current time.
+	 */
+	synchronized void advanceTo(final double time) {
+		if (variableFreespeed.isRecalcRequired()) {
+			recalcFreespeed();
+		}
+		if (variableFlowCapacity.isRecalcRequired()) {
+			recalcFlowCapacity();
+		}
+		if (variableLanes.isRecalcRequired()) {
+			recalcLanes();
+		}
+		variableFreespeed.advanceTo(time);
+		variableFlowCapacity.advanceTo(time);
+		variableLanes.advanceTo(time);
+	}
+
+
 	/**
 	 * Removes all NetworkChangeEvents so that the link's attributes will be
 	 * reset to their initial values.
@@ -32,6 +32,12 @@ implements TimeVariantAttribute
 	private int aEvents = 1;
 	private double[] aValues;
 	private double[] aTimes;
+	/**
+	 * Index of the value at the current time of the simulation, see {@link #advanceTo(double)}.  Most lookups ask for
+	 * this value, so it is checked before falling back to a binary search.  Lookups do not change it, so concurrent
+	 * lookups (e.g. by routers) neither write to the attribute nor interfere with each other.
+	 */
+	private int aCurrentIndex = 0;
 
 
 	@Override
@@ -58,6 +64,7 @@ implements TimeVariantAttribute
 		this.aValues = new double[this.aEvents];
 		this.aTimes[0] = Double.NEGATIVE_INFINITY;
 		this.aValues[0] = baseValue;
+		this.aCurrentIndex = 0;
 
 		int numEvent = 0;
 		if (changeEvents != null) {
@@ -100,10 +107,36 @@ implements TimeVariantAttribute
 	public double getValue(final double time)
 	{
 		Preconditions.checkArgument(!Double.isNaN(time), "NaN time is not supported");
-		// after we have put everything into an array by recalc, we just need a binary search:
-		int key = Arrays.binarySearch(this.aTimes, time);
-		key = key >= 0 ? key : -key - 2;
-		return this.aValues[key];
+		final double[] times = this.aTimes;
+		final int last = times.length - 1;
+		// after we have put everything into an array by recalc, we first look at the entry of the current time:
+		int key = this.aCurrentIndex;
+		if (time >= times[key] && (key == last || time < times[key + 1])) {
+			return this.aValues[key];
+		}
+		// otherwise, we just need a binary search:
+		return this.aValues[indexOf(times, time)];
+	}
+
+
+	@Override
+	public void advanceTo(final double time)
+	{
+		Preconditions.checkArgument(!Double.isNaN(time), "NaN time is not supported");
+		final double[] times = this.aTimes;
+		int key = this.aCurrentIndex;
+		// the time of the simulation only increases, so this mostly moves by one entry:
+		while (key + 1 < times.length && time >= times[key + 1]) {
+			key++;
+		}
+		this.aCurrentIndex = time >= times[key] ? key : indexOf(times, time);
+	}
+
+
+	private static int indexOf(final double[] times, final double time)
+	{
+		int key = Arrays.binarySearch(times, time);
+		return key >= 0 ? key : -key - 2;
 	}
 
 
@@ -120,5 +153,6 @@ implements TimeVariantAttribute
 		aTimes = null;
 		aValues = null;
 		aEvents = 1;
+		aCurrentIndex = 0;
 	}
 }
@@ -22,6 +22,7 @@ package org.matsim.core.network.io;
 
 import java.util.List;
 import java.util.Stack;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -37,7 +38,8 @@ import org.xml.sax.Attributes;
 
 
 /**
- * A parser building a list of {@link NetworkChangeEvent} out of a xml file.
+ * A parser building a list of {@link NetworkChangeEvent} out of a xml file.  Alternatively, the events can be passed on
+ * one by one as soon as they are read, e.g. directly to the network, so that large files need not be held in a list.
  *
  * @author illenberger
  *
@@ -78,13 +80,20 @@ public final class NetworkChangeEventsParser extends MatsimXmlParser {
 
 	private NetworkChangeEvent currentEvent;
 
-	private final List<NetworkChangeEvent> events ;
+	private final Consumer<NetworkChangeEvent> events ;
 
 	// ========================================================================
 	// constructor
 	// ========================================================================
 
 	public NetworkChangeEventsParser(Network network, List<NetworkChangeEvent> events ) {
+		this(network, (Consumer<NetworkChangeEvent>) events::add);
+	}
+
+	/**
+	 * @param events is called for every change event as soon as it is read completely
+	 */
+	public NetworkChangeEventsParser(Network network, Consumer<NetworkChangeEvent> events ) {
 		super(ValidationType.XSD_ONLY);
 		this.network = network;
 		this.events = events;
@@ -144,7 +153,7 @@ public final class NetworkChangeEventsParser extends MatsimXmlParser {
 	@Override
 	public void endTag(String name, String content, Stack<String> context) {
 		if(name.equalsIgnoreCase(NETWORK_CHANGE_EVENT_TAG)) {
-			this.events.add(this.currentEvent);
+			this.events.accept(this.currentEvent);
 			this.currentEvent = null;
 		}
 	}
@@ -28,6 +28,7 @@ import org.matsim.core.utils.misc.OptionalTime;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
 
 /**
@@ -68,6 +69,22 @@ import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
 		this.type = type.intern();
 	}
 
+	/**
+	 * Creates a copy of this activity which shares the attributes with this activity. The attributes are only
+	 * copied when they are modified in either of the two activities.
+	 */
+	/*package*/ ActivityImpl createCopyOnWrite() {
+		ActivityImpl copy = new ActivityImpl(this.type);
+		copy.endTime = this.endTime;
+		copy.startTime = this.startTime;
+		copy.dur = this.dur;
+		copy.coord = this.coord;
+		copy.linkId = this.linkId;
+		copy.facilityId = this.facilityId;
+		copy.attributes = AttributesUtils.createCopyOnWrite(this.attributes);
+		return copy;
+	}
+
 	private static OptionalTime asOptionalTime(double seconds) {
 		return seconds == UNDEFINED_TIME ? OptionalTime.undefined() : OptionalTime.defined(seconds);
 	}
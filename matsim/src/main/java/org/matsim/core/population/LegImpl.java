@@ -26,6 +26,7 @@ import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.utils.misc.OptionalTime;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
 
 /* deliberately package */ final class LegImpl implements Leg {
@@ -45,6 +46,22 @@ import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
 		this.mode = transportMode;
 	}
 
+	/**
+	 * Creates a copy of this leg with a clone of the route. The link ids of network routes and the attributes are
+	 * shared with this leg, and only copied when they are modified in either of the two legs.
+	 */
+	/* deliberately package */ LegImpl createCopyOnWrite() {
+		LegImpl copy = new LegImpl(this.mode);
+		copy.routingMode = this.routingMode;
+		copy.depTime = this.depTime;
+		copy.travTime = this.travTime;
+		if (this.route != null) {
+			copy.route = this.route.clone();
+		}
+		copy.attributes = AttributesUtils.createCopyOnWrite(this.attributes);
+		return copy;
+	}
+
 
 	private static OptionalTime asOptionalTime(double seconds) {
 		return seconds == UNDEFINED_TIME ? OptionalTime.undefined() : OptionalTime.defined(seconds);
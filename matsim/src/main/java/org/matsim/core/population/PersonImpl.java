@@ -82,7 +82,9 @@ import org.matsim.utils.objectattributes.attributable.AttributesImpl;
 			return null;
 		}
 		Plan newPlan = PopulationUtils.createPlan(oldPlan.getPerson());
-		PopulationUtils.copyFromTo(oldPlan, newPlan, true);
+		// the plan elements of the new plan share routes and attributes with the old plan until they are accessed, as
+		// most strategy modules only modify a few plan elements
+		PopulationUtils.copyOnWriteFromTo(oldPlan, newPlan);
 		this.getPlans().add(newPlan);
 		this.setSelectedPlan(newPlan);
 		return newPlan;
@@ -0,0 +1,432 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanElementsCodec.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Encodes the plan elements of a plan into a compact byte array, see {@link PopulationUtils#compressNonSelectedPlans}.
+ *
+ * Activity types, modes and route types are replaced by indices into a table of strings, ids by their index, and
+ * times by the difference to the previous time in the plan, all stored as variable-length integers. Network routes
+ * are stored as the indices of their links. Everything that cannot be encoded this way (attributes, other route types,
+ * other implementations of plan elements) is kept as a reference to the original object.
+ *
+ * Encoding is not thread-safe, so plans should be encoded by one thread only. Decoding is thread-safe.
+ *
+ * @author (of this class) the MATSim team
+ */
+/* deliberately package */ final class PlanElementsCodec {
+
+	private static final byte ACTIVITY = 0;
+	private static final byte INTERACTION_ACTIVITY = 1;
+	private static final byte LEG = 2;
+	private static final byte OTHER_ELEMENT = 3;
+
+	private static final byte NO_ROUTE = 0;
+	private static final byte NETWORK_ROUTE = 1;
+	private static final byte GENERIC_ROUTE = 2;
+	private static final byte OTHER_ROUTE = 3;
+
+	private static final byte TIME_UNDEFINED = 0;
+	private static final byte TIME_DELTA = 1;
+	private static final byte TIME_RAW = 2;
+
+	private static final byte NO_COORD = 0;
+	private static final byte COORD_XY = 1;
+	private static final byte COORD_XYZ = 2;
+
+	private final RouteFactories routeFactories;
+	private final Class<? extends Route> networkRouteClass;
+	private final Map<String, Integer> stringIndices = new HashMap<>();
+	private volatile String[] strings = new String[16];
+
+	/**
+	 * The encoded plan elements.
+	 */
+	record Encoded(PlanElementsCodec codec, byte[] data, Object[] objects) {
+		List<PlanElement> decode() {
+			return this.codec.decode(this);
+		}
+	}
+
+	PlanElementsCodec(RouteFactories routeFactories) {
+		this.routeFactories = routeFactories;
+		this.networkRouteClass = routeFactories.createRoute(NetworkRoute.class, null, null).getClass();
+	}
+
+	Encoded encode(List<PlanElement> elements) {
+		Writer out = new Writer();
+		out.writeVarInt(elements.size());
+		for (PlanElement pe : elements) {
+			if (pe instanceof ActivityImpl act) {
+				out.writeByte(ACTIVITY);
+				out.writeVarInt(intern(act.getType()));
+				writeCoord(out, act.getCoord());
+				writeId(out, act.getLinkId());
+				writeId(out, act.getFacilityId());
+				writeTime(out, act.getStartTime());
+				writeTime(out, act.getEndTime());
+				writeTime(out, act.getMaximumDuration());
+				writeAttributes(out, act.getAttributes());
+			} else if (pe instanceof InteractionActivity act) {
+				out.writeByte(INTERACTION_ACTIVITY);
+				out.writeVarInt(intern(act.getType()));
+				writeCoord(out, act.getCoord());
+				writeId(out, act.getLinkId());
+				writeId(out, act.getFacilityId());
+			} else if (pe instanceof LegImpl leg) {
+				out.writeByte(LEG);
+				out.writeVarInt(intern(leg.getMode()));
+				out.writeVarInt(leg.getRoutingMode() == null ? 0 : intern(leg.getRoutingMode()) + 1);
+				writeTime(out, leg.getDepartureTime());
+				writeTime(out, leg.getTravelTime());
+				writeRoute(out, leg.getRoute());
+				writeAttributes(out, leg.getAttributes());
+			} else {
+				out.writeByte(OTHER_ELEMENT);
+				out.writeObject(pe);
+			}
+		}
+		return new Encoded(this, out.toByteArray(), out.objects.isEmpty() ? null : out.objects.toArray());
+	}
+
+	private void writeRoute(Writer out, Route route) {
+		if (route == null) {
+			out.writeByte(NO_ROUTE);
+		} else if (route.getClass() == this.networkRouteClass) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			out.writeByte(NETWORK_ROUTE);
+			writeId(out, route.getStartLinkId());
+			writeId(out, route.getEndLinkId());
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			out.writeVarInt(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				out.writeVarInt(linkId.index());
+			}
+			writeId(out, networkRoute.getVehicleId());
+			out.writeDouble(route.getDistance());
+			writeTime(out, route.getTravelTime());
+			out.writeDouble(networkRoute.getTravelCost());
+		} else if (route.getClass() == GenericRouteImpl.class) {
+			out.writeByte(GENERIC_ROUTE);
+			writeId(out, route.getStartLinkId());
+			writeId(out, route.getEndLinkId());
+			out.writeDouble(route.getDistance());
+			writeTime(out, route.getTravelTime());
+			out.writeObject(route.getRouteDescription());
+		} else {
+			out.writeByte(OTHER_ROUTE);
+			out.writeObject(route);
+		}
+	}
+
+	private static void writeCoord(Writer out, Coord coord) {
+		if (coord == null) {
+			out.writeByte(NO_COORD);
+		} else if (coord.hasZ()) {
+			out.writeByte(COORD_XYZ);
+			out.writeDouble(coord.getX());
+			out.writeDouble(coord.getY());
+			out.writeDouble(coord.getZ());
+		} else {
+			out.writeByte(COORD_XY);
+			out.writeDouble(coord.getX());
+			out.writeDouble(coord.getY());
+		}
+	}
+
+	private static void writeId(Writer out, Id<?> id) {
+		out.writeVarInt(id == null ? 0 : id.index() + 1);
+	}
+
+	private static void writeTime(Writer out, OptionalTime time) {
+		if (time.isUndefined()) {
+			out.writeByte(TIME_UNDEFINED);
+			return;
+		}
+		double seconds = time.seconds();
+		double delta = seconds - out.lastTime;
+		if (delta == Math.rint(delta) && Math.abs(delta) < Integer.MAX_VALUE && seconds - delta == out.lastTime) {
+			out.writeByte(TIME_DELTA);
+			long value = (long) delta;
+			out.writeVarLong((value << 1) ^ (value >> 63));
+		} else {
+			out.writeByte(TIME_RAW);
+			out.writeDouble(seconds);
+		}
+		out.lastTime = seconds;
+	}
+
+	private static void writeAttributes(Writer out, Attributes attributes) {
+		if (attributes.isEmpty()) {
+			out.writeByte(0);
+		} else {
+			out.writeByte(1);
+			out.writeObject(attributes);
+		}
+	}
+
+	private synchronized int intern(String string) {
+		Integer index = this.stringIndices.get(string);
+		if (index == null) {
+			index = this.stringIndices.size();
+			String[] table = this.strings;
+			if (index == table.length) {
+				table = Arrays.copyOf(table, table.length * 2);
+			}
+			table[index] = string;
+			this.strings = table;
+			this.stringIndices.put(string, index);
+		}
+		return index;
+	}
+
+	private List<PlanElement> decode(Encoded encoded) {
+		Reader in = new Reader(encoded);
+		String[] table = this.strings;
+		int count = in.readVarInt();
+		ArrayList<PlanElement> elements = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte kind = in.readByte();
+			switch (kind) {
+				case ACTIVITY -> {
+					ActivityImpl act = new ActivityImpl(table[in.readVarInt()]);
+					Coord coord = readCoord(in);
+					if (coord != null) act.setCoord(coord);
+					act.setLinkId(readId(in, Link.class));
+					act.setFacilityId(readId(in, ActivityFacility.class));
+					OptionalTime startTime = readTime(in);
+					if (startTime.isDefined()) act.setStartTime(startTime.seconds());
+					OptionalTime endTime = readTime(in);
+					if (endTime.isDefined()) act.setEndTime(endTime.seconds());
+					OptionalTime duration = readTime(in);
+					if (duration.isDefined()) act.setMaximumDuration(duration.seconds());
+					readAttributes(in, act.getAttributes());
+					elements.add(act);
+				}
+				case INTERACTION_ACTIVITY -> {
+					InteractionActivity act = new InteractionActivity(table[in.readVarInt()]);
+					Coord coord = readCoord(in);
+					if (coord != null) act.setCoord(coord);
+					act.setLinkId(readId(in, Link.class));
+					act.setFacilityId(readId(in, ActivityFacility.class));
+					elements.add(act);
+				}
+				case LEG -> {
+					LegImpl leg = new LegImpl(table[in.readVarInt()]);
+					int routingMode = in.readVarInt();
+					leg.setRoutingMode(routingMode == 0 ? null : table[routingMode - 1]);
+					OptionalTime departureTime = readTime(in);
+					if (departureTime.isDefined()) leg.setDepartureTime(departureTime.seconds());
+					OptionalTime travelTime = readTime(in);
+					if (travelTime.isDefined()) leg.setTravelTime(travelTime.seconds());
+					leg.setRoute(readRoute(in));
+					readAttributes(in, leg.getAttributes());
+					elements.add(leg);
+				}
+				case OTHER_ELEMENT -> elements.add((PlanElement) in.readObject());
+				default -> throw new IllegalStateException("unknown plan element kind " + kind);
+			}
+		}
+		return elements;
+	}
+
+	private Route readRoute(Reader in) {
+		byte kind = in.readByte();
+		switch (kind) {
+			case NO_ROUTE:
+				return null;
+			case NETWORK_ROUTE: {
+				Id<Link> startLinkId = readId(in, Link.class);
+				Id<Link> endLinkId = readId(in, Link.class);
+				int count = in.readVarInt();
+				List<Id<Link>> linkIds = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					linkIds.add(Id.get(in.readVarInt(), Link.class));
+				}
+				NetworkRoute route = this.routeFactories.createRoute(NetworkRoute.class, startLinkId, endLinkId);
+				route.setLinkIds(startLinkId, linkIds, endLinkId);
+				route.setVehicleId(readId(in, Vehicle.class));
+				route.setDistance(in.readDouble());
+				OptionalTime travelTime = readTime(in);
+				if (travelTime.isDefined()) route.setTravelTime(travelTime.seconds());
+				route.setTravelCost(in.readDouble());
+				return route;
+			}
+			case GENERIC_ROUTE: {
+				GenericRouteImpl route = new GenericRouteImpl(readId(in, Link.class), readId(in, Link.class));
+				route.setDistance(in.readDouble());
+				OptionalTime travelTime = readTime(in);
+				if (travelTime.isDefined()) route.setTravelTime(travelTime.seconds());
+				route.setRouteDescription((String) in.readObject());
+				return route;
+			}
+			case OTHER_ROUTE:
+				return (Route) in.readObject();
+			default:
+				throw new IllegalStateException("unknown route kind " + kind);
+		}
+	}
+
+	private static Coord readCoord(Reader in) {
+		byte kind = in.readByte();
+		if (kind == NO_COORD) {
+			return null;
+		}
+		double x = in.readDouble();
+		double y = in.readDouble();
+		return kind == COORD_XYZ ? new Coord(x, y, in.readDouble()) : new Coord(x, y);
+	}
+
+	private static <T> Id<T> readId(Reader in, Class<T> type) {
+		int index = in.readVarInt();
+		return index == 0 ? null : Id.get(index - 1, type);
+	}
+
+	private static OptionalTime readTime(Reader in) {
+		byte kind = in.readByte();
+		if (kind == TIME_UNDEFINED) {
+			return OptionalTime.undefined();
+		}
+		double seconds;
+		if (kind == TIME_DELTA) {
+			long value = in.readVarLong();
+			seconds = in.lastTime + ((value >>> 1) ^ -(value & 1));
+		} else {
+			seconds = in.readDouble();
+		}
+		in.lastTime = seconds;
+		return OptionalTime.defined(seconds);
+	}
+
+	private static void readAttributes(Reader in, Attributes attributes) {
+		if (in.readByte() != 0) {
+			AttributesUtils.copyTo((Attributes) in.readObject(), attributes);
+		}
+	}
+
+	private static final class Writer {
+		private byte[] buffer = new byte[64];
+		private int length = 0;
+		private final List<Object> objects = new ArrayList<>(0);
+		private double lastTime = 0;
+
+		void writeByte(int value) {
+			if (this.length == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+			}
+			this.buffer[this.length++] = (byte) value;
+		}
+
+		void writeVarInt(int value) {
+			writeVarLong(value & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long value) {
+			while ((value & ~0x7FL) != 0) {
+				writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			writeByte((int) value);
+		}
+
+		void writeDouble(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			for (int i = 0; i < 8; i++) {
+				writeByte((int) (bits >>> (8 * i)));
+			}
+		}
+
+		void writeObject(Object object) {
+			writeVarInt(this.objects.size());
+			this.objects.add(object);
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.length);
+		}
+	}
+
+	private static final class Reader {
+		private final byte[] data;
+		private final Object[] objects;
+		private int position = 0;
+		private double lastTime = 0;
+
+		Reader(Encoded encoded) {
+			this.data = encoded.data();
+			this.objects = encoded.objects();
+		}
+
+		byte readByte() {
+			return this.data[this.position++];
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[this.position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (this.data[this.position++] & 0xFFL) << (8 * i);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		Object readObject() {
+			return this.objects[readVarInt()];
+		}
+	}
+}
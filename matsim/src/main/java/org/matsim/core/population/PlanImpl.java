@@ -42,7 +42,10 @@ import org.matsim.utils.objectattributes.attributable.AttributesImpl;
 
 	private Id<Plan> id=  null;
 
-	private ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	private List<PlanElement> actsLegs = new ArrayList<>();
+
+	/** the plan elements in compact form, if the plan is compressed; see {@link PopulationUtils#compressNonSelectedPlans} */
+	private volatile PlanElementsCodec.Encoded compactPlanElements = null;
 
 	private Double score = null;
 	private Person person = null;
@@ -166,17 +169,42 @@ import org.matsim.utils.objectattributes.attributable.AttributesImpl;
 
 	@Override
 	public final List<PlanElement> getPlanElements() {
+		if (this.compactPlanElements != null) {
+			decompress();
+		}
 		return this.actsLegs;
 	}
 
 	@Override
 	public final void addLeg(final Leg leg) {
-		this.actsLegs.add(leg);
+		getPlanElements().add(leg);
 	}
 
 	@Override
 	public final void addActivity(final Activity act) {
-		this.actsLegs.add(act);
+		getPlanElements().add(act);
+	}
+
+	/**
+	 * Replaces the plan elements by their compact form. They are restored the next time they are accessed.
+	 */
+	/* package */ synchronized void compress(PlanElementsCodec codec) {
+		if (this.compactPlanElements == null) {
+			this.compactPlanElements = codec.encode(this.actsLegs);
+			this.actsLegs = null;
+		}
+	}
+
+	/* package */ boolean isCompressed() {
+		return this.compactPlanElements != null;
+	}
+
+	private synchronized void decompress() {
+		PlanElementsCodec.Encoded encoded = this.compactPlanElements;
+		if (encoded != null) {
+			this.actsLegs = encoded.decode();
+			this.compactPlanElements = null;
+		}
 	}
 
 	@Override
@@ -58,6 +58,8 @@ import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.population.algorithms.PersonRouteCheck;
+import org.matsim.core.population.io.BinaryPopulationReader;
+import org.matsim.core.population.io.BinaryPopulationWriter;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
@@ -926,6 +928,33 @@ public final class PopulationUtils {
 		AttributesUtils.copyAttributesFromTo(in, out);
 	}
 
+	/**
+	 * Like {@link #copyFromTo(Plan, Plan, boolean)} with interaction activities, but the routes and attributes of the plan
+	 * elements are shared between both plans and are only copied when they are accessed from one of the plans.
+	 * Routes or attributes that were obtained from the input plan before must not be modified afterwards.
+	 */
+	/* package */ static void copyOnWriteFromTo(final Plan in, final Plan out) {
+		out.getPlanElements().clear();
+		out.setScore(in.getScore());
+		out.setType(in.getType());
+		for (PlanElement pe : in.getPlanElements()) {
+			if (pe instanceof ActivityImpl act) {
+				out.getPlanElements().add(act.createCopyOnWrite());
+			} else if (pe instanceof LegImpl leg) {
+				out.getPlanElements().add(leg.createCopyOnWrite());
+			} else if (pe instanceof InteractionActivity) {
+				out.getPlanElements().add(createInteractionActivity((Activity) pe));
+			} else if (pe instanceof Activity) {
+				out.getPlanElements().add(createActivity((Activity) pe));
+			} else if (pe instanceof Leg) {
+				out.getPlanElements().add(createLeg((Leg) pe));
+			} else {
+				throw new IllegalArgumentException("unrecognized plan element type discovered");
+			}
+		}
+		AttributesUtils.copyAttributesFromTo(in, out);
+	}
+
 	public static void copyFromTo(Leg in, Leg out) {
 		out.setMode(in.getMode());
 		TripStructureUtils.setRoutingMode(out, TripStructureUtils.getRoutingMode(in));
@@ -1127,6 +1156,30 @@ public final class PopulationUtils {
 		}
 	}
 
+	/**
+	 * Stores the plan elements of all non-selected plans in a compact form to reduce the memory footprint of the population.
+	 * The plan elements are restored transparently as soon as they are accessed via {@link Plan#getPlanElements()}, and are
+	 * not compressed again before the next call to this method.
+	 *
+	 * Only plans created by the default population factory are compressed.
+	 *
+	 * @return the number of plans that were compressed
+	 */
+	public static int compressNonSelectedPlans(Population population) {
+		PlanElementsCodec codec = new PlanElementsCodec(population.getFactory().getRouteFactories());
+		int count = 0;
+		for (Person person : population.getPersons().values()) {
+			Plan selectedPlan = person.getSelectedPlan();
+			for (Plan plan : person.getPlans()) {
+				if (plan != selectedPlan && plan instanceof PlanImpl planImpl && !planImpl.isCompressed()) {
+					planImpl.compress(codec);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
 	public static void printPlansCount(Population population) {
 		log.info(" person # " + population.getPersons().size());
 	}
@@ -1136,7 +1189,11 @@ public final class PopulationUtils {
 	}
 
 	public static void writePopulation(Population population, String filename) {
-		new PopulationWriter(population).write(filename);
+		if (BinaryPopulationReader.isBinaryPopulationFile(filename)) {
+			new BinaryPopulationWriter(population).write(filename);
+		} else {
+			new PopulationWriter(population).write(filename);
+		}
 	}
 
 	public static Id<Link> decideOnLinkIdForActivity(Activity act, Scenario sc) {
@@ -1191,7 +1248,11 @@ public final class PopulationUtils {
 	public static void readPopulation(Population population, String filename) {
 		MutableScenario scenario = ScenarioUtils.createMutableScenario(ConfigUtils.createConfig());
 		scenario.setPopulation(population);
-		new PopulationReader(scenario).readFile(filename);
+		if (BinaryPopulationReader.isBinaryPopulationFile(filename)) {
+			new BinaryPopulationReader(scenario).readFile(filename);
+		} else {
+			new PopulationReader(scenario).readFile(filename);
+		}
 		// (yyyy population reader uses network to retrofit some missing geo information such as route lenth.
 		// In my opinion, that should be done in prepareForSim, not in the parser.  It is commented as such
 		// in the PopulationReader class.  kai, nov'18)
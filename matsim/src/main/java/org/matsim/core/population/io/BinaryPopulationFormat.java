@@ -0,0 +1,457 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.router.StageActivityTypeIdentifier;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * The binary population format written by {@link BinaryPopulationWriter} and read by {@link BinaryPopulationReader}.
+ *
+ * A file consists of a header and a sequence of blocks, each containing a number of persons:
+ * <pre>
+ * header: int magic, int version, int length of the header data in bytes,
+ *         header data (string population name, attributes of the population)
+ * block:  int number of persons, int length of the data in bytes, data
+ * end:    int -1
+ * </pre>
+ * The ints above are written in big-endian order. The header data is encoded like the data of a block. The data of a block can
+ * be decoded independently of the other blocks, so blocks can be encoded and decoded in parallel. Within a block,
+ * integers are written as variable-length integers and strings are replaced by indices into a table of the strings
+ * already seen in this block.
+ *
+ * The contents are the same as in the <code>population_v6</code> XML format, i.e. attributes are converted to
+ * strings with the registered attribute converters, and routes are stored with their route description.
+ *
+ * @author (of this class) the MATSim team
+ */
+/* deliberately package */ final class BinaryPopulationFormat {
+
+	private static final Logger log = LogManager.getLogger(BinaryPopulationFormat.class);
+
+	static final int MAGIC = 0x4d504f50; // "MPOP"
+	static final int VERSION = 1;
+	static final int END_OF_BLOCKS = -1;
+
+	/** the number of persons per block */
+	static final int PERSONS_PER_BLOCK = 1000;
+
+	private static final byte ACTIVITY = 0;
+	private static final byte LEG = 1;
+
+	private static final byte NO_COORD = 0;
+	private static final byte COORD_XY = 2;
+	private static final byte COORD_XYZ = 3;
+
+	private BinaryPopulationFormat() {
+	}
+
+	/**
+	 * Encodes the data of one block, or the header.
+	 */
+	static final class Encoder {
+		private final ObjectAttributesConverter converter;
+		private final CoordinateTransformation coordinateTransformation;
+		private final Map<String, Integer> strings = new HashMap<>();
+		private byte[] buffer = new byte[1 << 16];
+		private int length = 0;
+
+		Encoder(ObjectAttributesConverter converter, CoordinateTransformation coordinateTransformation) {
+			this.converter = converter;
+			this.coordinateTransformation = coordinateTransformation;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.length);
+		}
+
+		void writePerson(Person person) {
+			writeString(person.getId().toString());
+			writeAttributes(person.getAttributes());
+			List<? extends Plan> plans = person.getPlans();
+			writeVarInt(plans.size());
+			for (Plan plan : plans) {
+				writePlan(plan);
+			}
+		}
+
+		private void writePlan(Plan plan) {
+			writeByte(PersonUtils.isSelected(plan) ? 1 : 0);
+			if (plan.getScore() == null) {
+				writeByte(0);
+			} else {
+				writeByte(1);
+				writeDouble(plan.getScore());
+			}
+			writeString(plan.getType());
+			writeAttributes(plan.getAttributes());
+			List<PlanElement> elements = plan.getPlanElements();
+			writeVarInt(elements.size());
+			for (PlanElement pe : elements) {
+				if (pe instanceof Activity act) {
+					writeByte(ACTIVITY);
+					writeActivity(act);
+				} else if (pe instanceof Leg leg) {
+					writeByte(LEG);
+					writeLeg(leg);
+				} else {
+					throw new IllegalArgumentException("unrecognized plan element type " + pe.getClass());
+				}
+			}
+		}
+
+		private void writeActivity(Activity act) {
+			writeString(act.getType());
+			writeString(act.getLinkId() == null ? null : act.getLinkId().toString());
+			writeString(act.getFacilityId() == null ? null : act.getFacilityId().toString());
+			if (act.getCoord() == null) {
+				writeByte(NO_COORD);
+			} else {
+				Coord coord = this.coordinateTransformation.transform(act.getCoord());
+				writeByte(act.getCoord().hasZ() ? COORD_XYZ : COORD_XY);
+				writeDouble(coord.getX());
+				writeDouble(coord.getY());
+				if (act.getCoord().hasZ()) {
+					writeDouble(coord.getZ());
+				}
+			}
+			writeTime(act.getStartTime());
+			writeTime(act.getMaximumDuration());
+			writeTime(act.getEndTime());
+			writeAttributes(act.getAttributes());
+		}
+
+		private void writeLeg(Leg leg) {
+			writeString(leg.getMode());
+			writeString(leg.getRoutingMode());
+			writeTime(leg.getDepartureTime());
+			writeTime(leg.getTravelTime());
+			writeAttributes(leg.getAttributes());
+			Route route = leg.getRoute();
+			if (route == null) {
+				writeByte(0);
+				return;
+			}
+			writeByte(1);
+			writeString(route.getRouteType());
+			writeString(route.getStartLinkId() == null ? null : route.getStartLinkId().toString());
+			writeString(route.getEndLinkId() == null ? null : route.getEndLinkId().toString());
+			writeTime(route.getTravelTime());
+			writeDouble(route.getDistance());
+			Id<Vehicle> vehicleId = route instanceof NetworkRoute networkRoute ? networkRoute.getVehicleId() : null;
+			writeString(vehicleId == null ? null : vehicleId.toString());
+			writeString(route.getRouteDescription());
+		}
+
+		void writeAttributes(Attributes attributes) {
+			Map<String, Object> map = attributes.getAsMap();
+			List<String> converted = new ArrayList<>(3 * map.size());
+			for (Map.Entry<String, Object> e : map.entrySet()) {
+				String value = this.converter.convertToString(e.getValue());
+				if (value != null) {
+					converted.add(e.getKey());
+					converted.add(e.getValue().getClass().getName());
+					converted.add(value);
+				}
+			}
+			writeVarInt(converted.size() / 3);
+			for (String s : converted) {
+				writeString(s);
+			}
+		}
+
+		private void writeTime(OptionalTime time) {
+			// NaN is not a valid time, so it marks undefined times
+			writeDouble(time.isDefined() ? time.seconds() : Double.NaN);
+		}
+
+		void writeString(String s) {
+			if (s == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer index = this.strings.get(s);
+			if (index != null) {
+				writeVarInt(index + 2);
+				return;
+			}
+			this.strings.put(s, this.strings.size());
+			writeVarInt(1);
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.length, bytes.length);
+			this.length += bytes.length;
+		}
+
+		private void writeByte(int value) {
+			ensureCapacity(1);
+			this.buffer[this.length++] = (byte) value;
+		}
+
+		private void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				this.buffer[this.length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.buffer[this.length++] = (byte) value;
+		}
+
+		private void writeDouble(double value) {
+			ensureCapacity(8);
+			long bits = Double.doubleToLongBits(value);
+			for (int i = 0; i < 8; i++) {
+				this.buffer[this.length++] = (byte) (bits >>> (8 * i));
+			}
+		}
+
+		private void ensureCapacity(int additional) {
+			if (this.length + additional > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.length + additional));
+			}
+		}
+	}
+
+	/**
+	 * Decodes the data of one block, or the header.
+	 */
+	static final class Decoder {
+		private final byte[] data;
+		private final ObjectAttributesConverter converter;
+		private final CoordinateTransformation coordinateTransformation;
+		private final PopulationFactory factory;
+		private final List<String> strings = new ArrayList<>();
+		private int position = 0;
+
+		Decoder(byte[] data, ObjectAttributesConverter converter, CoordinateTransformation coordinateTransformation, PopulationFactory factory) {
+			this.data = data;
+			this.converter = converter;
+			this.coordinateTransformation = coordinateTransformation;
+			this.factory = factory;
+		}
+
+		List<Person> readPersons(int count) {
+			List<Person> persons = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				persons.add(readPerson());
+			}
+			if (this.position != this.data.length) {
+				throw new IllegalStateException("unexpected data at the end of a block of persons.");
+			}
+			return persons;
+		}
+
+		private Person readPerson() {
+			Person person = this.factory.createPerson(Id.create(readString(), Person.class));
+			readAttributes(person.getAttributes());
+			int planCount = readVarInt();
+			for (int i = 0; i < planCount; i++) {
+				readPlan(person);
+			}
+			return person;
+		}
+
+		private void readPlan(Person person) {
+			boolean selected = readByte() != 0;
+			Plan plan = PersonUtils.createAndAddPlan(person, selected);
+			if (readByte() != 0) {
+				plan.setScore(readDouble());
+			}
+			plan.setType(readString());
+			readAttributes(plan.getAttributes());
+			int elementCount = readVarInt();
+			List<PlanElement> elements = plan.getPlanElements();
+			if (elements instanceof ArrayList<?> list) {
+				list.ensureCapacity(elementCount);
+			}
+			for (int i = 0; i < elementCount; i++) {
+				byte kind = readByte();
+				switch (kind) {
+					case ACTIVITY -> elements.add(readActivity());
+					case LEG -> elements.add(readLeg());
+					default -> throw new IllegalStateException("unknown plan element kind " + kind);
+				}
+			}
+		}
+
+		private Activity readActivity() {
+			String type = readString();
+			String linkId = readString();
+			String facilityId = readString();
+			Coord coord = readCoord();
+			OptionalTime startTime = readTime();
+			OptionalTime duration = readTime();
+			OptionalTime endTime = readTime();
+
+			// create the same kind of activity as the xml reader does
+			boolean isStageActivity = StageActivityTypeIdentifier.isStageActivity(type)
+					&& startTime.isUndefined() && endTime.isUndefined() && duration.isDefined() && duration.seconds() == 0.0;
+			Activity act = isStageActivity ?
+					PopulationUtils.createInteractionActivityFromLinkId(type, null) :
+					PopulationUtils.createActivityFromLinkId(type, null);
+			act.setLinkId(linkId == null ? null : Id.create(linkId, Link.class));
+			act.setFacilityId(facilityId == null ? null : Id.create(facilityId, ActivityFacility.class));
+			if (coord != null) {
+				act.setCoord(coord);
+			}
+			if (!isStageActivity) {
+				startTime.ifDefined(act::setStartTime);
+				duration.ifDefined(act::setMaximumDuration);
+				endTime.ifDefined(act::setEndTime);
+			}
+			readAttributes(act.getAttributes());
+			return act;
+		}
+
+		private Coord readCoord() {
+			byte kind = readByte();
+			if (kind == NO_COORD) {
+				return null;
+			}
+			double x = readDouble();
+			double y = readDouble();
+			Coord coord = kind == COORD_XYZ ? new Coord(x, y, readDouble()) : new Coord(x, y);
+			return this.coordinateTransformation.transform(coord);
+		}
+
+		private Leg readLeg() {
+			Leg leg = PopulationUtils.createLeg(readString());
+			leg.setRoutingMode(readString());
+			readTime().ifDefined(leg::setDepartureTime);
+			readTime().ifDefined(leg::setTravelTime);
+			readAttributes(leg.getAttributes());
+			if (readByte() != 0) {
+				leg.setRoute(readRoute());
+			}
+			return leg;
+		}
+
+		private Route readRoute() {
+			String routeType = readString();
+			String startLinkId = readString();
+			String endLinkId = readString();
+			RouteFactories routeFactories = this.factory.getRouteFactories();
+			Route route = routeFactories.createRoute(routeFactories.getRouteClassForType(routeType),
+					startLinkId == null ? null : Id.create(startLinkId, Link.class),
+					endLinkId == null ? null : Id.create(endLinkId, Link.class));
+			readTime().ifDefined(route::setTravelTime);
+			route.setDistance(readDouble());
+			String vehicleId = readString();
+			if (vehicleId != null && route instanceof NetworkRoute networkRoute) {
+				networkRoute.setVehicleId(Id.create(vehicleId, Vehicle.class));
+			}
+			String description = readString();
+			if (description != null) {
+				route.setRouteDescription(description);
+			}
+			return route;
+		}
+
+		void readAttributes(Attributes attributes) {
+			int count = readVarInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString();
+				String className = readString();
+				String value = readString();
+				Object o = this.converter.convert(className, value);
+				if (o == null) {
+					log.warn("could not convert attribute " + name + " of class " + className + ", ignoring it.");
+				} else {
+					attributes.putAttribute(name, o);
+				}
+			}
+		}
+
+		private OptionalTime readTime() {
+			double seconds = readDouble();
+			return Double.isNaN(seconds) ? OptionalTime.undefined() : OptionalTime.defined(seconds);
+		}
+
+		String readString() {
+			int index = readVarInt();
+			if (index == 0) {
+				return null;
+			}
+			if (index > 1) {
+				return this.strings.get(index - 2);
+			}
+			int length = readVarInt();
+			String s = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			this.strings.add(s);
+			return s;
+		}
+
+		private byte readByte() {
+			return this.data[this.position++];
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[this.position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		private double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (this.data[this.position++] & 0xFFL) << (8 * i);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+	}
+
+}
@@ -0,0 +1,199 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.scenario.ProjectionUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.Counter;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+/**
+ * Reads a population written by {@link BinaryPopulationWriter}. The blocks of persons in the file are decoded in parallel
+ * with the number of threads configured in the global config group, and the persons are added to the population in the
+ * order in which they were written.
+ *
+ * Coordinates are transformed in the same way as by {@link PopulationReader}.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class BinaryPopulationReader implements MatsimReader {
+
+	private static final Logger log = LogManager.getLogger(BinaryPopulationReader.class);
+
+	private static final String FILE_EXTENSION = ".bin";
+	private static final String[] COMPRESSION_EXTENSIONS = {".gz", ".lz4", ".zst", ".bz2"};
+
+	private final Scenario scenario;
+	private final String inputCRS;
+	private final String targetCRS;
+	private final int numberOfThreads;
+	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
+
+	public BinaryPopulationReader(final Scenario scenario) {
+		this(null, null, scenario);
+	}
+
+	public BinaryPopulationReader(final String inputCRS, final String targetCRS, final Scenario scenario) {
+		this.inputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+		this.scenario = scenario;
+		this.numberOfThreads = Math.max(1, scenario.getConfig().global().getNumberOfThreads());
+	}
+
+	/**
+	 * @return <code>true</code> if the file name has the extension of the binary population format, optionally followed by
+	 * the extension of a compression format.
+	 */
+	public static boolean isBinaryPopulationFile(String filename) {
+		String name = filename.toLowerCase();
+		for (String extension : COMPRESSION_EXTENSIONS) {
+			if (name.endsWith(extension)) {
+				name = name.substring(0, name.length() - extension.length());
+				break;
+			}
+		}
+		return name.endsWith(FILE_EXTENSION);
+	}
+
+	public void putAttributeConverter(final Class<?> clazz, AttributeConverter<?> converter) {
+		this.converters.put(clazz, converter);
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converters.putAll(converters);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		readURL(IOUtils.getFileUrl(filename));
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		readStream(IOUtils.getInputStream(url));
+	}
+
+	/**
+	 * Reads the population from the input stream and closes it.
+	 */
+	public void readStream(final InputStream stream) {
+		Population population = this.scenario.getPopulation();
+		ObjectAttributesConverter converter = new ObjectAttributesConverter(this.converters);
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+		Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] read person # ");
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+			if (in.readInt() != BinaryPopulationFormat.MAGIC) {
+				throw new IllegalArgumentException("The input is not a binary population file.");
+			}
+			int version = in.readInt();
+			if (version != BinaryPopulationFormat.VERSION) {
+				throw new IllegalArgumentException("Unsupported version " + version + " of the binary population format.");
+			}
+			BinaryPopulationFormat.Decoder header = new BinaryPopulationFormat.Decoder(readData(in), converter, null, population.getFactory());
+			population.setName(header.readString());
+			header.readAttributes(population.getAttributes());
+
+			String fromCRS = this.inputCRS;
+			String fileCRS = ProjectionUtils.getCRS(population);
+			if (fileCRS != null && this.targetCRS != null) {
+				if (this.inputCRS != null) {
+					log.warn("coordinate transformation defined both in config and in input file: setting from input file will be used");
+				}
+				fromCRS = fileCRS;
+			}
+			final String sourceCRS = fromCRS;
+			if (this.targetCRS != null && sourceCRS != null) {
+				ProjectionUtils.putCRS(population, this.targetCRS);
+			}
+
+			Deque<Future<List<Person>>> pending = new ArrayDeque<>();
+			int personCount;
+			while ((personCount = in.readInt()) != BinaryPopulationFormat.END_OF_BLOCKS) {
+				byte[] data = readData(in);
+				final int count = personCount;
+				pending.add(executor.submit(() -> {
+					// transformations are not necessarily thread-safe, so every block gets its own
+					CoordinateTransformation transformation = this.targetCRS == null || sourceCRS == null ?
+							new IdentityTransformation() :
+							TransformationFactory.getCoordinateTransformation(sourceCRS, this.targetCRS);
+					return new BinaryPopulationFormat.Decoder(data, converter, transformation, population.getFactory()).readPersons(count);
+				}));
+				if (pending.size() > 2 * this.numberOfThreads) {
+					addPersons(population, pending.poll(), counter);
+				}
+			}
+			while (!pending.isEmpty()) {
+				addPersons(population, pending.poll(), counter);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+		counter.printCounter();
+	}
+
+	private static byte[] readData(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return data;
+	}
+
+	private static void addPersons(Population population, Future<List<Person>> block, Counter counter) {
+		try {
+			for (Person person : block.get()) {
+				population.addPerson(person);
+				counter.incCounter();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Exception while decoding persons.", e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.api.internal.MatsimWriter;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+
+/**
+ * Writes a population in a binary format, which can be read much faster than the XML format by {@link BinaryPopulationReader},
+ * e.g. to restart a run. The file contains the same information as the <code>population_v6</code> XML format.
+ *
+ * The persons are written in blocks, which are encoded in parallel. The output is compressed if the file name ends with
+ * the extension of a supported compression, e.g. <code>.gz</code>, but this slows down reading and writing considerably.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class BinaryPopulationWriter implements MatsimWriter {
+
+	private static final Logger log = LogManager.getLogger(BinaryPopulationWriter.class);
+
+	private final Population population;
+	private final CoordinateTransformation coordinateTransformation;
+	private final int numberOfThreads;
+	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
+	private boolean keepingPersonOrder = false;
+
+	public BinaryPopulationWriter(final Population population) {
+		this(new IdentityTransformation(), population);
+	}
+
+	/**
+	 * @param coordinateTransformation transformation from the internal CRS to the CRS in which the file should be written
+	 */
+	public BinaryPopulationWriter(final CoordinateTransformation coordinateTransformation, final Population population) {
+		this(coordinateTransformation, population, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BinaryPopulationWriter(final CoordinateTransformation coordinateTransformation, final Population population, final int numberOfThreads) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.population = population;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	public void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converters.putAll(converters);
+	}
+
+	public void putAttributeConverter(Class<?> key, AttributeConverter<?> converter) {
+		this.converters.put(key, converter);
+	}
+
+	/**
+	 * By default, the persons are written sorted by id, as by the xml writer.  If set, they are written in the iteration order
+	 * of the population instead, such that reading the file results in exactly the same population.
+	 */
+	public void setKeepingPersonOrder(boolean keepingPersonOrder) {
+		this.keepingPersonOrder = keepingPersonOrder;
+	}
+
+	@Override
+	public void write(final String filename) {
+		write(IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false));
+		log.info("Population written to: " + filename);
+	}
+
+	/**
+	 * Writes the population to the output stream and closes it.
+	 */
+	public void write(final OutputStream stream) {
+		ObjectAttributesConverter converter = new ObjectAttributesConverter(this.converters);
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+			out.writeInt(BinaryPopulationFormat.MAGIC);
+			out.writeInt(BinaryPopulationFormat.VERSION);
+			BinaryPopulationFormat.Encoder header = new BinaryPopulationFormat.Encoder(converter, this.coordinateTransformation);
+			header.writeString(this.population.getName());
+			header.writeAttributes(this.population.getAttributes());
+			byte[] headerData = header.toByteArray();
+			out.writeInt(headerData.length);
+			out.write(headerData);
+
+			// keep the order of the xml writer, and only a limited number of encoded blocks in memory
+			Deque<Block> pending = new ArrayDeque<>();
+			List<Person> persons = new ArrayList<>(BinaryPopulationFormat.PERSONS_PER_BLOCK);
+			Collection<? extends Person> allPersons = this.keepingPersonOrder ?
+					this.population.getPersons().values() : PopulationUtils.getSortedPersons(this.population).values();
+			for (Person person : allPersons) {
+				persons.add(person);
+				if (persons.size() == BinaryPopulationFormat.PERSONS_PER_BLOCK) {
+					pending.add(submit(executor, persons, converter));
+					persons = new ArrayList<>(BinaryPopulationFormat.PERSONS_PER_BLOCK);
+					if (pending.size() > 2 * this.numberOfThreads) {
+						writeBlock(out, pending.poll());
+					}
+				}
+			}
+			if (!persons.isEmpty()) {
+				pending.add(submit(executor, persons, converter));
+			}
+			while (!pending.isEmpty()) {
+				writeBlock(out, pending.poll());
+			}
+			out.writeInt(BinaryPopulationFormat.END_OF_BLOCKS);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Block submit(ExecutorService executor, List<Person> persons, ObjectAttributesConverter converter) {
+		return new Block(persons.size(), executor.submit(() -> {
+			BinaryPopulationFormat.Encoder encoder = new BinaryPopulationFormat.Encoder(converter, this.coordinateTransformation);
+			for (Person person : persons) {
+				encoder.writePerson(person);
+			}
+			return encoder.toByteArray();
+		}));
+	}
+
+	private static void writeBlock(DataOutputStream out, Block block) throws IOException {
+		byte[] data;
+		try {
+			data = block.data.get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Exception while encoding persons.", e.getCause());
+		}
+		out.writeInt(block.personCount);
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	private record Block(int personCount, Future<byte[]> data) {
+	}
+
+}
@@ -38,8 +38,11 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 
 	/*package*/ final static String ROUTE_TYPE = "links";
 	
+	/** not modified once the constructor returns, but replaced in {@link #setLinkIds}, so clones can share it */
 	private ArrayList<Id<Link>> route = new ArrayList<>();
 	private List<Id<Link>> safeRoute = Collections.unmodifiableList(this.route);
+	/** created on demand, and dropped when the route changes */
+	private int[] linkIndices = null;
 	private double travelCost = Double.NaN;
 	private Id<Vehicle> vehicleId = null;
 
@@ -60,11 +63,8 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 
 	@Override
 	public LinkNetworkRouteImpl clone() {
-		LinkNetworkRouteImpl cloned = (LinkNetworkRouteImpl) super.clone();
-		ArrayList<Id<Link>> tmp = cloned.route;
-		cloned.route = new ArrayList<>(tmp); // deep copy of route
-		cloned.safeRoute = Collections.unmodifiableList(cloned.route);
-		return cloned;
+		// the link ids (and link indices) are shared with the clone
+		return (LinkNetworkRouteImpl) super.clone();
 	}
 
 	@Override
@@ -72,6 +72,19 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 		return this.safeRoute;
 	}
 
+	@Override
+	public int[] getLinkIndices() {
+		int[] indices = this.linkIndices;
+		if (indices == null) {
+			indices = new int[this.route.size()];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = this.route.get(i).index();
+			}
+			this.linkIndices = indices;
+		}
+		return indices;
+	}
+
 	@Override
 	public NetworkRoute getSubRoute(Id<Link> fromLinkId, Id<Link> toLinkId) {
 		/**
@@ -140,13 +153,11 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 
 	@Override
 	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
-		this.route.clear();
+		this.route = srcRoute == null ? new ArrayList<>(0) : new ArrayList<>(srcRoute);
+		this.safeRoute = Collections.unmodifiableList(this.route);
+		this.linkIndices = null;
 		setStartLinkId(startLinkId);
 		setEndLinkId(endLinkId);
-		if (srcRoute != null) {
-			this.route.addAll(srcRoute);
-		}
-		this.route.trimToSize();
 	}
 
 	@Override
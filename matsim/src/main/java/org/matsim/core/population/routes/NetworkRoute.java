@@ -58,6 +58,21 @@ public interface NetworkRoute extends Route {
 	 */
 	public List<Id<Link>> getLinkIds();
 
+	/**
+	 * Returns the {@link Id#index() indices} of the link ids returned by {@link #getLinkIds()}, for code which walks along the
+	 * route very often, like the mobsim.  The returned array must not be modified.
+	 * <p></p>
+	 * The default implementation creates a new array on every call; implementations should rather keep it.
+	 */
+	default int[] getLinkIndices() {
+		List<Id<Link>> linkIds = getLinkIds();
+		int[] linkIndices = new int[linkIds.size()];
+		for (int i = 0; i < linkIndices.length; i++) {
+			linkIndices[i] = linkIds.get(i).index();
+		}
+		return linkIndices;
+	}
+
 	/**
 	 * This method returns a new Route object with the subroute of this, using fromLinkId as the
 	 * subroute's startLink, toLinkId as the subroute's endLink, and the links in between fromLinkId
@@ -64,6 +64,14 @@ public class MediumCompressedNetworkRoute extends AbstractNetworkRoute {
 		return linkIds;
 	}
 
+	@Override
+	public int[] getLinkIndices() {
+		if (this.route == null || this.route == EMPTY_ROUTE) {
+			return new int[0];
+		}
+		return VarIntUtils.decode(this.route);
+	}
+
 	@Override
 	public MediumCompressedNetworkRoute clone() {
 		return (MediumCompressedNetworkRoute) super.clone();
@@ -18,6 +18,9 @@
  * *********************************************************************** */
 package org.matsim.core.replanning;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -291,6 +294,46 @@ public class GenericStrategyManagerImpl<PL extends BasicPlan, AG extends HasPlan
 		}
 	}
 
+	/**
+	 * Writes the current weights of the strategies of all subpopulations, e.g. for a checkpoint of the controller state.
+	 */
+	final void writeCheckpoint(final DataOutput out) throws IOException {
+		out.writeInt(weightsPerSubpopulation.size());
+		for (Map.Entry<String, StrategyWeights<PL, AG>> entry : weightsPerSubpopulation.entrySet()) {
+			out.writeBoolean(entry.getKey() != null);
+			if (entry.getKey() != null) {
+				out.writeUTF(entry.getKey());
+			}
+			out.writeInt(entry.getValue().weights.size());
+			for (double weight : entry.getValue().weights) {
+				out.writeDouble(weight);
+			}
+			out.writeDouble(entry.getValue().totalWeights);
+		}
+	}
+
+	/**
+	 * Restores the weights written by {@link #writeCheckpoint(DataOutput)} in the given iteration.  The change requests up to
+	 * that iteration are consumed, as their effect is already contained in the weights.
+	 */
+	final void readCheckpoint(final DataInput in, final int iteration) throws IOException {
+		handleChangeRequests(iteration);
+		int subpopulations = in.readInt();
+		for (int i = 0; i < subpopulations; i++) {
+			String subpop = in.readBoolean() ? in.readUTF() : null;
+			StrategyWeights<PL, AG> weights = getStrategyWeights(subpop);
+			int size = in.readInt();
+			if (size != weights.weights.size()) {
+				throw new IllegalArgumentException("The checkpoint has " + size + " strategies for subpopulation " + subpop
+						+ ", but there are " + weights.weights.size() + ".");
+			}
+			for (int j = 0; j < size; j++) {
+				weights.weights.set(j, in.readDouble());
+			}
+			weights.totalWeights = in.readDouble();
+		}
+	}
+
 	/**
 	 * chooses a (weight-influenced) random strategy
 	 *
@@ -22,21 +22,26 @@
 
 package org.matsim.core.replanning;
 
+import org.matsim.analysis.IterationStopWatch;
 import org.matsim.core.controler.ControlerListenerManager;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
 @Singleton
 class ReplanningContextImpl implements ReplanningContext, IterationStartsListener {
 
     private int iteration;
+    private boolean iterationStarted = false;
+    private final Provider<IterationStopWatch> stopwatchProvider;
 
     @Inject
-    ReplanningContextImpl(ControlerListenerManager controlerListenerManager) {
+    ReplanningContextImpl(ControlerListenerManager controlerListenerManager, Provider<IterationStopWatch> stopwatchProvider) {
         controlerListenerManager.addControlerListener(this);
+        this.stopwatchProvider = stopwatchProvider;
     }
 
     @Override
@@ -44,8 +49,15 @@ class ReplanningContextImpl implements ReplanningContext, IterationStartsListene
         return iteration;
     }
 
+    @Override
+    public IterationStopWatch getStopwatch() {
+        // the stop watch can only measure operations once the iteration has started
+        return iterationStarted ? stopwatchProvider.get() : null;
+    }
+
     @Override
     public void notifyIterationStarts(IterationStartsEvent event) {
         this.iteration = event.getIteration();
+        this.iterationStarted = true;
     }
 }
@@ -28,11 +28,15 @@ import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.internal.MatsimManager;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.ReplanningConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.replanning.choosers.StrategyChooser;
 import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.WorstPlanForRemovalSelector;
 
 import jakarta.inject.Inject;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import jakarta.inject.Singleton;
 import java.util.List;
 import java.util.Map;
@@ -44,7 +48,7 @@ import java.util.Map;
  * @author kai
  */
 @Singleton
-public class StrategyManager implements MatsimManager {
+public class StrategyManager implements MatsimManager, Checkpointable {
 	// I understand the way in which this is integrated into the framwork as follows:
 	// * The PlansReplanning interface is the one that is bound as ReplanningListener, and it calls StrategyManager.
 	// * On the other hand, StrategyManager is also independently bound.
@@ -152,6 +156,22 @@ public class StrategyManager implements MatsimManager {
 		delegate.run( population.getPersons().values(), iteration, replanningContext );
 	}
 
+	/**
+	 * Writes the current weights of the strategies, e.g. for a checkpoint of the controller state.
+	 */
+	@Override
+	public final void writeCheckpoint(final DataOutput out) throws IOException {
+		delegate.writeCheckpoint(out);
+	}
+
+	/**
+	 * Restores the weights of a checkpoint written at the end of the given iteration.
+	 */
+	@Override
+	public final void readCheckpoint(final DataInput in, final int iteration) throws IOException {
+		delegate.readCheckpoint(in, iteration);
+	}
+
 	/**
 	 * chooses a (weight-influenced) random strategy
 	 *
@@ -45,6 +45,7 @@ public class StrategyManagerModule extends AbstractModule {
 		// plan strategies can be looked up under their names (*))
 
 		bind(StrategyManager.class).in(Singleton.class);
+		addCheckpointableBinding("strategyManager").to(StrategyManager.class);
 		bind(new TypeLiteral<StrategyChooser<Plan, Person>>() {}).to(new TypeLiteral<WeightedStrategyChooser<Plan, Person>>() {}).asEagerSingleton();
 		bind(ReplanningContext.class).to(ReplanningContextImpl.class).asEagerSingleton();
 
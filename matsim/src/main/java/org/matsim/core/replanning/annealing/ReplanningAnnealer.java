@@ -20,6 +20,8 @@
 package org.matsim.core.replanning.annealing;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -31,6 +33,7 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.ReplanningConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.events.StartupEvent;
@@ -48,7 +51,7 @@ import org.matsim.core.utils.io.IOUtils;
  * @author fouriep, davig, jbischoff
  */
 
-public class ReplanningAnnealer implements IterationStartsListener, StartupListener {
+public class ReplanningAnnealer implements IterationStartsListener, StartupListener, Checkpointable {
 
 	private static final Logger log = LogManager.getLogger(ReplanningAnnealer.class);
 	private static final String ANNEAL_FILENAME = "annealingRates.txt";
@@ -169,6 +172,39 @@ public class ReplanningAnnealer implements IterationStartsListener, StartupListe
 		writeIterationstats(currentIter, annealStats);
 	}
 
+	/**
+	 * Writes the current values of the annealed parameters.
+	 */
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		out.writeInt(this.currentValuesPerSubpopulation.size());
+		for (Map.Entry<AnnealParameterOption, Map<String, Double>> entry : this.currentValuesPerSubpopulation.entrySet()) {
+			out.writeUTF(entry.getKey().name());
+			out.writeInt(entry.getValue().size());
+			for (Map.Entry<String, Double> value : entry.getValue().entrySet()) {
+				out.writeBoolean(value.getKey() != null);
+				if (value.getKey() != null) {
+					out.writeUTF(value.getKey());
+				}
+				out.writeDouble(value.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInput in, int iteration) throws IOException {
+		int parameters = in.readInt();
+		for (int i = 0; i < parameters; i++) {
+			AnnealParameterOption parameter = AnnealParameterOption.valueOf(in.readUTF());
+			Map<String, Double> mapPerSubpopulation = this.currentValuesPerSubpopulation.computeIfAbsent(parameter, a -> new HashMap<>());
+			int values = in.readInt();
+			for (int j = 0; j < values; j++) {
+				String subpopulation = in.readBoolean() ? in.readUTF() : null;
+				mapPerSubpopulation.put(subpopulation, in.readDouble());
+			}
+		}
+	}
+
 	private void writeIterationstats(int currentIter, Map<String, String> annealStats) {
 		try (BufferedWriter bw = IOUtils.getAppendingBufferedWriter(outputDirectoryHierarchy.getOutputFilename(ANNEAL_FILENAME))) {
 			bw.write(Integer.toString(currentIter));
@@ -22,6 +22,7 @@ package org.matsim.core.replanning.modules;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.replanning.PlanStrategyModule;
 import org.matsim.core.config.groups.GlobalConfigGroup;
@@ -30,8 +31,10 @@ import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.utils.misc.Counter;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -51,6 +54,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * "fast threads"), it helps building reproducible runs.  Additionally, as the threads are only
  * started after all to-be-handled plans are added, we can use unsynchronized data structures.
  * <p></p>
+ * With {@link GlobalConfigGroup#isReplanningLoadBalancing()}, the plans are instead kept in one list, and every
+ * thread takes the next plan from it as soon as it is done with the previous one. Then a few slow plans no longer
+ * leave the other threads idle, but the assignment of plans to plan algorithm instances depends on timing.
+ * <p></p>
+ * If the replanning context provides a stop watch, the time the threads need is measured as operation
+ * "replanning " followed by the name of the plan algorithm.
+ * <p></p>
  * Design comments/questions:<ul>
  * <li> As a consequence of the design, the instances that getPlanAlgoInstance() returns, need to be thread-safe.  kai, dec'12
  * For an example with discussions, see {@link tutorial.programming.multiThreadedPlanStrategy.RunWithMultithreadedModule}
@@ -60,6 +70,7 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 abstract public class AbstractMultithreadedModule implements PlanStrategyModule {
 	private final int numOfThreads;
+	private final boolean loadBalancing;
 
 	private PlanAlgoThread[] algothreads = null;
 	private Thread[] threads = null;
@@ -68,6 +79,10 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 	private int count = 0;
 
+	/* only used with load balancing */
+	private final List<Plan> sharedPlans = new ArrayList<>();
+	private final AtomicInteger nextSharedPlan = new AtomicInteger();
+
 	private final AtomicReference<Throwable> hadException = new AtomicReference<>(null);
 	private final ExceptionHandler exceptionHandler = new ExceptionHandler(this.hadException);
 
@@ -84,11 +99,16 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	abstract public PlanAlgorithm getPlanAlgoInstance();
 
 	public AbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
-		this.numOfThreads = globalConfigGroup.getNumberOfThreads();
+		this(globalConfigGroup.getNumberOfThreads(), globalConfigGroup.isReplanningLoadBalancing());
 	}
 
 	public AbstractMultithreadedModule(final int numOfThreads) {
+		this(numOfThreads, false);
+	}
+
+	public AbstractMultithreadedModule(final int numOfThreads, final boolean loadBalancing) {
 		this.numOfThreads = numOfThreads;
+		this.loadBalancing = loadBalancing;
 	}
 	
 	protected void beforePrepareReplanningHook(@SuppressWarnings("unused") ReplanningContext replanningContextTmp) {
@@ -119,7 +139,11 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void handlePlan(final Plan plan) {
 		if (this.directAlgo == null) {
-			this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			if (this.loadBalancing) {
+				this.sharedPlans.add(plan);
+			} else {
+				this.algothreads[this.count % this.numOfThreads].addPlanToThread(plan);
+			}
 			this.count++;
 		} else {
 			this.directAlgo.run(plan);
@@ -136,8 +160,14 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	@Override
 	public final void finishReplanning() {
 		this.beforeFinishReplanningHook();
-		
+
 		if (this.directAlgo == null) {
+			IterationStopWatch stopwatch = this.replanningContext == null ? null : this.replanningContext.getStopwatch();
+			String operation = "replanning " + this.name;
+			if (stopwatch != null) {
+				stopwatch.beginOperation(operation);
+			}
+
 			// only try to start threads if we did not directly work on all the plans
 			log.info("[" + this.name + "] starting " + this.threads.length + " threads, handling " + this.count + " plans");
 
@@ -159,8 +189,13 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 			if (throwable != null) {
 				throw new RuntimeException("Some threads crashed, thus not all plans may have been handled.", throwable);
 			}
+			if (stopwatch != null) {
+				stopwatch.endOperation(operation);
+			}
 		}
 		// reset
+		this.sharedPlans.clear();
+		this.nextSharedPlan.set(0);
 		this.algothreads = null;
 		this.threads = null;
 		this.replanningContext = null;
@@ -186,7 +221,9 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 				this.name = algo.getClass().getSimpleName();
 				counter = new Counter("[" + this.name + "] handled plan # ");
 			}
-			PlanAlgoThread algothread = new PlanAlgoThread(algo, counter);
+			PlanAlgoThread algothread = this.loadBalancing
+					? new PlanAlgoThread(algo, counter, this.sharedPlans, this.nextSharedPlan)
+					: new PlanAlgoThread(algo, counter, new LinkedList<>(), null);
 			Thread thread = new Thread(algothread, this.name + "." + i);
 			thread.setUncaughtExceptionHandler(this.exceptionHandler);
 			this.threads[i] = thread;
@@ -217,12 +254,16 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 	private final static class PlanAlgoThread implements Runnable {
 
 		private final PlanAlgorithm planAlgo;
-		private final List<Plan> plans = new LinkedList<>();
+		private final List<Plan> plans;
+		/* if set, the plans are shared with the other threads, and this is the index of the next plan to be handled */
+		private final AtomicInteger nextPlan;
 		private final Counter counter;
 
-		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter) {
+		public PlanAlgoThread(final PlanAlgorithm algo, final Counter counter, final List<Plan> plans, final AtomicInteger nextPlan) {
 			this.planAlgo = algo;
 			this.counter = counter;
+			this.plans = plans;
+			this.nextPlan = nextPlan;
 		}
 
 		public void addPlanToThread(final Plan plan) {
@@ -231,9 +272,17 @@ abstract public class AbstractMultithreadedModule implements PlanStrategyModule
 
 		@Override
 		public void run() {
-			for (Plan plan : this.plans) {
-				this.planAlgo.run(plan);
-				this.counter.incCounter();
+			if (this.nextPlan == null) {
+				for (Plan plan : this.plans) {
+					this.planAlgo.run(plan);
+					this.counter.incCounter();
+				}
+			} else {
+				int index;
+				while ((index = this.nextPlan.getAndIncrement()) < this.plans.size()) {
+					this.planAlgo.run(this.plans.get(index));
+					this.counter.incCounter();
+				}
 			}
 		}
 	}
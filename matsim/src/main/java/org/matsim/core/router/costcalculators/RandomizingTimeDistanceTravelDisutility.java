@@ -23,16 +23,17 @@ package org.matsim.core.router.costcalculators;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.gbl.MatsimRandom;
-import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.RandomizedTravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.vehicles.Vehicle;
 
+import java.util.List;
 import java.util.Random;
 
 /**
  * @author mrieser
  */
-final class RandomizingTimeDistanceTravelDisutility implements TravelDisutility {
+final class RandomizingTimeDistanceTravelDisutility implements RandomizedTravelDisutility {
 
 	private final TravelTime timeCalculator;
 	private final double marginalCostOfTime;
@@ -63,6 +64,24 @@ final class RandomizingTimeDistanceTravelDisutility implements TravelDisutility
 
 	@Override
 	public double getLinkTravelDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+		double randomFactor = getRandomFactor(person);
+		double travelTime = this.timeCalculator.getLinkTravelTime(link, time, person, vehicle);
+		return this.marginalCostOfTime * travelTime + randomFactor * this.marginalCostOfDistance * link.getLength();
+	}
+
+	@Override
+	public double getLinkFixedDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+		double travelTime = this.timeCalculator.getLinkTravelTime(link, time, person, vehicle);
+		return this.marginalCostOfTime * travelTime;
+	}
+
+	@Override
+	public double getLinkRandomizedDisutility(final Link link, final double time, final Person person, final Vehicle vehicle) {
+		return this.marginalCostOfDistance * link.getLength();
+	}
+
+	@Override
+	public double getRandomFactor(final Person person) {
 		// randomize if applicable:
 		if ( sigma != 0. ) {
 			if ( person==null ) {
@@ -93,9 +112,13 @@ final class RandomizingTimeDistanceTravelDisutility implements TravelDisutility
 		}
 		
 		// end randomize
-		
-		double travelTime = this.timeCalculator.getLinkTravelTime(link, time, person, vehicle);
-		return this.marginalCostOfTime * travelTime + logNormalRnd * this.marginalCostOfDistance * link.getLength();
+		return logNormalRnd;
+	}
+
+	@Override
+	public Object getCostsKey() {
+		// the normalization and sigma only change the random factor
+		return List.of(RandomizingTimeDistanceTravelDisutility.class, this.timeCalculator, this.marginalCostOfTime, this.marginalCostOfDistance);
 	}
 
 	@Override
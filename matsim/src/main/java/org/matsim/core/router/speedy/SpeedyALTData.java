@@ -28,16 +28,20 @@ class SpeedyALTData {
 
 	final SpeedyGraph graph;
 	private final int landmarksCount;
-	private final TravelDisutility travelCosts;
-	private final int[] landmarksNodeIndices;
-	private final double[] nodesData; // for each node: 2 values per landmark
-	private final int[] deadendData;
+	final double[] linkCosts; // the minimum travel disutility of each link
+	final int[] landmarksNodeIndices;
+	final double[] nodesData; // for each node: 2 values per landmark
+	final int[] deadendData;
 	private final double minTravelCostPerLength;
 
 	public SpeedyALTData(SpeedyGraph graph, int landmarksCount, TravelDisutility travelCosts) {
+		this(graph, landmarksCount, calcLinkCosts(graph, travelCosts));
+	}
+
+	SpeedyALTData(SpeedyGraph graph, int landmarksCount, double[] linkCosts) {
 		this.graph = graph;
 		this.landmarksCount = landmarksCount;
-		this.travelCosts = travelCosts;
+		this.linkCosts = linkCosts;
 		this.landmarksNodeIndices = new int[landmarksCount];
 		this.nodesData = new double[graph.nodeCount * (landmarksCount * 2)];
 		this.deadendData = new int[graph.nodeCount];
@@ -47,6 +51,102 @@ class SpeedyALTData {
 		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
 	}
 
+	/**
+	 * Creates the data from previously calculated landmarks, e.g. loaded from a file by {@link SpeedyALTDataCache}.
+	 */
+	SpeedyALTData(SpeedyGraph graph, double[] linkCosts, int[] landmarksNodeIndices, double[] nodesData, int[] deadendData) {
+		this.graph = graph;
+		this.landmarksCount = landmarksNodeIndices.length;
+		this.linkCosts = linkCosts;
+		this.landmarksNodeIndices = landmarksNodeIndices;
+		this.nodesData = nodesData;
+		this.deadendData = deadendData;
+		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
+	}
+
+	/**
+	 * @return the minimum travel disutility of each link of the graph, or NaN for unused link indices.
+	 */
+	static double[] calcLinkCosts(SpeedyGraph graph, TravelDisutility travelCosts) {
+		double[] linkCosts = new double[graph.linkCount];
+		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
+			Link link = graph.getLink(linkIdx);
+			linkCosts[linkIdx] = link == null ? Double.NaN : travelCosts.getLinkMinimumTravelDisutility(link);
+		}
+		return linkCosts;
+	}
+
+	/**
+	 * Creates the data for changed link costs, keeping the landmarks. Only the travel costs that can be reduced
+	 * by links with lower costs are updated. Links with higher costs keep their old travel costs from and to the
+	 * landmarks. These are still lower bounds of the actual travel costs, so A* remains correct, but becomes
+	 * less efficient. So if many link costs increased, it is better to calculate the data from scratch.
+	 */
+	SpeedyALTData updateLinkCosts(double[] newLinkCosts) {
+		double[] newNodesData = this.nodesData.clone();
+		SpeedyALTData updated = new SpeedyALTData(this.graph, newLinkCosts, this.landmarksNodeIndices, newNodesData, this.deadendData);
+		int multiplier = this.landmarksCount * 2;
+		for (int offset = 0; offset < multiplier; offset++) {
+			double[] data = new double[this.graph.nodeCount];
+			for (int i = 0; i < this.graph.nodeCount; i++) {
+				data[i] = newNodesData[i * multiplier + offset];
+			}
+			// even offsets are the travel costs from the landmark (forward tree), odd ones to the landmark (backward tree)
+			updated.updateTree(data, offset % 2 == 0, this.linkCosts);
+			updated.setNodeData(data, offset);
+		}
+		return updated;
+	}
+
+	private void updateTree(double[] data, boolean forward, double[] oldLinkCosts) {
+		NodeMinHeap pq = new NodeMinHeap(this.graph.nodeCount, i -> data[i], (i, c) -> data[i] = c);
+		LinkIterator li = forward ? this.graph.getOutLinkIterator() : this.graph.getInLinkIterator();
+		boolean[] inQueue = new boolean[this.graph.nodeCount];
+		for (int nodeIdx = 0; nodeIdx < this.graph.nodeCount; nodeIdx++) {
+			li.reset(nodeIdx);
+			while (li.next()) {
+				int linkIdx = li.getLinkIndex();
+				if (!(this.linkCosts[linkIdx] < oldLinkCosts[linkIdx])) {
+					continue;
+				}
+				int otherNode = forward ? li.getToNodeIndex() : li.getFromNodeIndex();
+				double newCost = data[nodeIdx] + this.linkCosts[linkIdx];
+				if (newCost < data[otherNode]) {
+					if (inQueue[otherNode]) {
+						pq.decreaseKey(otherNode, newCost);
+					} else {
+						data[otherNode] = newCost;
+						inQueue[otherNode] = true;
+						pq.insert(otherNode);
+					}
+				}
+			}
+		}
+		while (!pq.isEmpty()) {
+			final int nodeIdx = pq.poll();
+			inQueue[nodeIdx] = false;
+			double currCost = data[nodeIdx];
+
+			li.reset(nodeIdx);
+			while (li.next()) {
+				int otherNode = forward ? li.getToNodeIndex() : li.getFromNodeIndex();
+				double newCost = currCost + this.linkCosts[li.getLinkIndex()];
+				if (newCost < data[otherNode]) {
+					if (inQueue[otherNode]) {
+						pq.decreaseKey(otherNode, newCost);
+					} else {
+						data[otherNode] = newCost;
+						inQueue[otherNode] = true;
+						pq.insert(otherNode);
+					}
+				}
+			}
+		}
+		if (this.graph.hasTurnRestrictions()) {
+			consolidateColoredNodes(data);
+		}
+	}
+
 	private void findDeadEnds() {
 		LOG.info("find dead ends...");
 
@@ -175,7 +275,7 @@ class SpeedyALTData {
 		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
 			Link link = this.graph.getLink(linkIdx);
 			if (link != null) {
-				double cost = this.travelCosts.getLinkMinimumTravelDisutility(link) / link.getLength();
+				double cost = this.linkCosts[linkIdx] / link.getLength();
 				if (cost < minCost) {
 					minCost = cost;
 				}
@@ -249,7 +349,7 @@ class SpeedyALTData {
 			while (outLI.next()) {
 				int toNode = outLI.getToNodeIndex();
 
-				double newCost = currCost + this.travelCosts.getLinkMinimumTravelDisutility(this.graph.getLink(outLI.getLinkIndex()));
+				double newCost = currCost + this.linkCosts[outLI.getLinkIndex()];
 
 				double oldCost = data[toNode];
 				if (Double.isFinite(oldCost)) {
@@ -288,7 +388,7 @@ class SpeedyALTData {
 			while (inLI.next()) {
 				int fromNode = inLI.getFromNodeIndex();
 
-				double newCost = currCost + this.travelCosts.getLinkMinimumTravelDisutility(this.graph.getLink(inLI.getLinkIndex()));
+				double newCost = currCost + this.linkCosts[inLI.getLinkIndex()];
 
 				double oldCost = data[fromNode];
 				if (Double.isFinite(oldCost)) {
@@ -0,0 +1,301 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.util.TravelDisutility;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Caches the preprocessed landmark data of {@link SpeedyALT}, so it does not need to be calculated again
+ * for every router or in every iteration.
+ *
+ * The landmark data only depends on the graph and on the minimum travel disutility of each link. The data
+ * is reused as long as the minimum travel disutilities do not change. If only some of them changed,
+ * the existing data is updated incrementally (see {@link SpeedyALTData#updateLinkCosts(double[])}) instead of
+ * calculating it from scratch. The minimum travel disutilities are only evaluated the first time a travel disutility
+ * instance asks for data, so they must not change during the lifetime of a travel disutility.
+ *
+ * If a cache directory is given, the data is also stored in a file per network and number of landmarks, so it
+ * can be reused by later runs with the same network. The file is identified by a hash of the node and link ids
+ * in the order of their indices, as the graph depends on them, and the stored link costs are compared to the
+ * current ones when the file is loaded. If the file cannot be written, a warning is logged and the data is only kept
+ * in memory.
+ *
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyALTDataCache {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyALTDataCache.class);
+
+	private final static int MAGIC = 0x53414c54; // "SALT"
+	private final static int VERSION = 1;
+	private final static int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4;
+	/** the number of different link costs for which data is kept in memory for a graph */
+	private final static int MAX_ENTRIES_PER_GRAPH = 4;
+	/** if more links than this share have higher costs, the data is calculated from scratch instead of updated */
+	private final static double MAX_SHARE_OF_INCREASED_COSTS = 0.05;
+
+	/** the size of the chunks in which the arrays are read from and written to the file */
+	private final static int CHUNK_SIZE = 1 << 20;
+
+	private final String cacheDirectory;
+	private final Map<SpeedyGraph, List<SpeedyALTData>> entries = new HashMap<>();
+	/** the data previously returned for a travel disutility, so its link costs need not be compared again */
+	private final Map<TravelDisutility, List<SpeedyALTData>> dataPerTravelDisutility = new WeakHashMap<>();
+
+	/**
+	 * @param cacheDirectory the directory to store the landmark data in, or <code>null</code> to only keep it in memory.
+	 */
+	SpeedyALTDataCache(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	SpeedyALTData getData(SpeedyGraph graph, int landmarksCount, TravelDisutility travelCosts) {
+		synchronized (this.dataPerTravelDisutility) {
+			for (SpeedyALTData data : this.dataPerTravelDisutility.getOrDefault(travelCosts, List.of())) {
+				if (data.graph == graph && data.getLandmarksCount() == landmarksCount) {
+					return data;
+				}
+			}
+		}
+		double[] linkCosts = SpeedyALTData.calcLinkCosts(graph, travelCosts);
+		SpeedyALTData data = getData(graph, landmarksCount, linkCosts);
+		synchronized (this.dataPerTravelDisutility) {
+			this.dataPerTravelDisutility.computeIfAbsent(travelCosts, c -> new ArrayList<>(1)).add(data);
+		}
+		return data;
+	}
+
+	private synchronized SpeedyALTData getData(SpeedyGraph graph, int landmarksCount, double[] linkCosts) {
+		List<SpeedyALTData> graphEntries = this.entries.computeIfAbsent(graph, g -> new ArrayList<>());
+		SpeedyALTData base = null;
+		for (SpeedyALTData data : graphEntries) {
+			if (data.getLandmarksCount() == landmarksCount) {
+				if (Arrays.equals(data.linkCosts, linkCosts)) {
+					return data;
+				}
+				base = data;
+			}
+		}
+
+		Path file = null;
+		long graphHash = 0;
+		if (this.cacheDirectory != null) {
+			graphHash = calcGraphHash(graph);
+			file = Paths.get(this.cacheDirectory, "landmarks_" + Long.toHexString(graphHash) + "_" + landmarksCount + ".bin");
+			if (base == null && Files.exists(file)) {
+				base = read(file, graph, graphHash);
+				if (base != null && Arrays.equals(base.linkCosts, linkCosts)) {
+					LOG.info("using landmarks from " + file);
+					addEntry(graphEntries, base);
+					return base;
+				}
+			}
+		}
+
+		SpeedyALTData data;
+		if (base != null && canUpdate(base.linkCosts, linkCosts)) {
+			LOG.info("updating landmarks for changed link costs...");
+			data = base.updateLinkCosts(linkCosts);
+		} else {
+			data = new SpeedyALTData(graph, landmarksCount, linkCosts);
+		}
+		addEntry(graphEntries, data);
+		if (file != null) {
+			write(file, data, graphHash);
+		}
+		return data;
+	}
+
+	private static void addEntry(List<SpeedyALTData> graphEntries, SpeedyALTData data) {
+		if (graphEntries.size() == MAX_ENTRIES_PER_GRAPH) {
+			graphEntries.remove(0);
+		}
+		graphEntries.add(data);
+	}
+
+	private static boolean canUpdate(double[] oldLinkCosts, double[] newLinkCosts) {
+		int increased = 0;
+		for (int i = 0; i < oldLinkCosts.length; i++) {
+			if (newLinkCosts[i] > oldLinkCosts[i]) {
+				increased++;
+			}
+		}
+		return increased <= MAX_SHARE_OF_INCREASED_COSTS * oldLinkCosts.length;
+	}
+
+	/**
+	 * A hash of the structure of the graph, i.e. the ids of the nodes and links at their indices and the nodes connected by the links.
+	 */
+	static long calcGraphHash(SpeedyGraph graph) {
+		long hash = 17;
+		hash = 31 * hash + graph.nodeCount;
+		hash = 31 * hash + graph.linkCount;
+		for (int nodeIdx = 0; nodeIdx < graph.nodeCount; nodeIdx++) {
+			Node node = graph.getNode(nodeIdx);
+			hash = 31 * hash + (node == null ? 0 : node.getId().toString().hashCode());
+		}
+		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
+			Link link = graph.getLink(linkIdx);
+			if (link != null) {
+				hash = 31 * hash + link.getId().toString().hashCode();
+				hash = 31 * hash + link.getFromNode().getId().index();
+				hash = 31 * hash + link.getToNode().getId().index();
+			}
+		}
+		return hash;
+	}
+
+	private static SpeedyALTData read(Path file, SpeedyGraph graph, long graphHash) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, buffer);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				LOG.warn("ignoring landmarks file " + file + " with unknown format.");
+				return null;
+			}
+			long hash = buffer.getLong();
+			int nodeCount = buffer.getInt();
+			int linkCount = buffer.getInt();
+			int landmarksCount = buffer.getInt();
+			if (hash != graphHash || nodeCount != graph.nodeCount || linkCount != graph.linkCount) {
+				LOG.warn("ignoring landmarks file " + file + ", it was calculated for a different network.");
+				return null;
+			}
+			int[] landmarks = new int[landmarksCount];
+			int[] deadends = new int[nodeCount];
+			double[] linkCosts = new double[linkCount];
+			double[] nodesData = new double[nodeCount * landmarksCount * 2];
+			buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+			readInts(channel, buffer, landmarks);
+			readInts(channel, buffer, deadends);
+			readDoubles(channel, buffer, linkCosts);
+			readDoubles(channel, buffer, nodesData);
+			return new SpeedyALTData(graph, linkCosts, landmarks, nodesData, deadends);
+		} catch (IOException e) {
+			LOG.warn("could not read landmarks file " + file, e);
+			return null;
+		}
+	}
+
+	private static void write(Path file, SpeedyALTData data, long graphHash) {
+		int nodeCount = data.graph.nodeCount;
+		int linkCount = data.graph.linkCount;
+		int landmarksCount = data.getLandmarksCount();
+		Path tmpFile = null;
+		try {
+			Files.createDirectories(file.getParent());
+			// write to a temporary file first, so other runs never read an incomplete file
+			tmpFile = Files.createTempFile(file.getParent(), "landmarks", ".tmp");
+			try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+				buffer.putInt(MAGIC);
+				buffer.putInt(VERSION);
+				buffer.putLong(graphHash);
+				buffer.putInt(nodeCount);
+				buffer.putInt(linkCount);
+				buffer.putInt(landmarksCount);
+				writeInts(channel, buffer, data.landmarksNodeIndices);
+				writeInts(channel, buffer, data.deadendData);
+				writeDoubles(channel, buffer, data.linkCosts);
+				writeDoubles(channel, buffer, data.nodesData);
+				flush(channel, buffer);
+				channel.force(false);
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			LOG.info("stored landmarks in " + file);
+		} catch (IOException e) {
+			LOG.warn("could not store landmarks in " + file + ", they are only kept in memory.", e);
+			if (tmpFile != null) {
+				try {
+					Files.deleteIfExists(tmpFile);
+				} catch (IOException ignored) {
+				}
+			}
+		}
+	}
+
+	// The arrays are copied through a buffer of a fixed size, so the size of the file is not limited by the size of a buffer.
+
+	private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		for (int offset = 0; offset < values.length; ) {
+			if (buffer.remaining() < 4) {
+				flush(channel, buffer);
+			}
+			int count = Math.min(values.length - offset, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, offset, count);
+			buffer.position(buffer.position() + 4 * count);
+			offset += count;
+		}
+	}
+
+	private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+		for (int offset = 0; offset < values.length; ) {
+			if (buffer.remaining() < 8) {
+				flush(channel, buffer);
+			}
+			int count = Math.min(values.length - offset, buffer.remaining() / 8);
+			buffer.asDoubleBuffer().put(values, offset, count);
+			buffer.position(buffer.position() + 8 * count);
+			offset += count;
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static void readInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		for (int offset = 0; offset < values.length; ) {
+			int count = Math.min(values.length - offset, buffer.capacity() / 4);
+			buffer.clear().limit(4 * count);
+			readFully(channel, buffer);
+			buffer.asIntBuffer().get(values, offset, count);
+			offset += count;
+		}
+	}
+
+	private static void readDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+		for (int offset = 0; offset < values.length; ) {
+			int count = Math.min(values.length - offset, buffer.capacity() / 8);
+			buffer.clear().limit(8 * count);
+			readFully(channel, buffer);
+			buffer.asDoubleBuffer().get(values, offset, count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * Fills the remaining space of the buffer from the channel and flips it for reading.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+	}
+
+}
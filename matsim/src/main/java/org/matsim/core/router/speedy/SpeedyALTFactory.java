@@ -1,6 +1,9 @@
 package org.matsim.core.router.speedy;
 
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.RoutingConfigGroup;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelDisutility;
@@ -12,10 +15,28 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * @author mrieser / Simunto, sponsored by SBB Swiss Federal Railways
  */
+@Singleton
 public class SpeedyALTFactory implements LeastCostPathCalculatorFactory {
 
 	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
-	private final Map<SpeedyGraph, SpeedyALTData> landmarksData = new ConcurrentHashMap<>();
+	private final SpeedyALTDataCache landmarksData;
+
+	public SpeedyALTFactory() {
+		this((String) null);
+	}
+
+	@Inject
+	public SpeedyALTFactory(RoutingConfigGroup routingConfig) {
+		this(routingConfig.getLandmarksCacheDirectory());
+	}
+
+	/**
+	 * @param landmarksCacheDirectory a directory to store the landmark data in, so later runs with the same network can reuse it.
+	 *                                May be <code>null</code>, then the landmark data is only cached in memory.
+	 */
+	public SpeedyALTFactory(String landmarksCacheDirectory) {
+		this.landmarksData = new SpeedyALTDataCache(landmarksCacheDirectory);
+	}
 
 	@Override
 	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
@@ -24,12 +45,8 @@ public class SpeedyALTFactory implements LeastCostPathCalculatorFactory {
 			graph = SpeedyGraphBuilder.build(network);
 			this.graphs.put(network, graph);
 		}
-		SpeedyALTData landmarks = this.landmarksData.get(graph);
-		if (landmarks == null) {
-			int landmarksCount = Math.min(16, graph.nodeCount);
-			landmarks = new SpeedyALTData(graph, landmarksCount, travelCosts);
-			this.landmarksData.put(graph, landmarks);
-		}
+		int landmarksCount = Math.min(16, graph.nodeCount);
+		SpeedyALTData landmarks = this.landmarksData.getData(graph, landmarksCount, travelCosts);
 		return new SpeedyALT(landmarks, travelTimes, travelCosts);
 	}
 
@@ -0,0 +1,396 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.RandomizedTravelDisutility;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A least cost path calculator using customizable contraction hierarchies, see {@link SpeedyCHData} and
+ * {@link SpeedyCHMetric}.
+ *
+ * A route is searched with a bidirectional Dijkstra search on the arcs to higher-ranked nodes, using the weights
+ * of the time bin of the departure time. The shortcuts of the resulting path are then unpacked to links, and the
+ * travel time and cost of the path are calculated link by link with the given travel time and disutility.
+ *
+ * Note that this is an approximation of the time-dependent least cost path: the route is optimal for the travel
+ * costs at the start of the time bin of the departure, and person- or vehicle-specific travel costs are not
+ * considered when searching the route. The only exception is the random factor of a {@link RandomizedTravelDisutility}:
+ * the search applies the factor of the person to the randomized part of the weights. As the arcs between
+ * higher-ranked nodes are customized with a factor of 1, the route is then optimal among the paths combined from those
+ * arcs, but not necessarily among all paths.
+ *
+ * This implementation is not thread-safe. In the case of multi-threading, every thread should use
+ * a separate instance. (But the used {@link SpeedyCHMetric} is thread-safe and can be shared by multiple
+ * instances).
+ */
+public class SpeedyCH implements LeastCostPathCalculator {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCH.class);
+
+	private final SpeedyCHData chData;
+	private final SpeedyCHMetric metric;
+	private final SpeedyGraph graph;
+	private final TravelTime tt;
+	private final TravelDisutility td;
+
+	private final Search forward;
+	private final Search backward;
+
+	/** the weights of the current query */
+	private float[] weights;
+	private float[] fixedWeights;
+	private float[] randomizedWeights;
+	private double randomFactor;
+
+	private int stampId = 0;
+	private final int[] stamps;
+
+	public SpeedyCH(SpeedyCHMetric metric, TravelTime tt, TravelDisutility td) {
+		this.chData = metric.data;
+		this.metric = metric;
+		this.graph = this.chData.graph;
+		this.tt = tt;
+		this.td = td;
+		this.forward = new Search(this.graph.nodeCount, 0);
+		this.backward = new Search(this.graph.nodeCount, 1);
+		this.stamps = new int[this.graph.nodeCount];
+		Arrays.fill(this.stamps, -1);
+	}
+
+	SpeedyCHMetric getMetric() {
+		return this.metric;
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node startNode, Node endNode, double startTime, Person person, Vehicle vehicle) {
+		int startNodeIndex = startNode.getId().index();
+		int endNodeIndex = endNode.getId().index();
+		int timeBin = this.metric.getTimeBin(startTime);
+		float[] weights = this.metric.getWeights(timeBin);
+		this.weights = weights;
+		this.fixedWeights = null;
+		this.randomizedWeights = null;
+		if (this.metric.isRandomized()) {
+			this.randomFactor = ((RandomizedTravelDisutility) this.td).getRandomFactor(person);
+			if (this.randomFactor != 1) {
+				this.fixedWeights = this.metric.getFixedWeights(timeBin);
+				this.randomizedWeights = this.metric.getRandomizedWeights(timeBin);
+			}
+		}
+
+		this.forward.start(startNodeIndex);
+		this.backward.start(endNodeIndex);
+		for (int i = this.chData.nodeCopiesFirst[endNodeIndex], n = this.chData.nodeCopiesFirst[endNodeIndex + 1]; i < n; i++) {
+			this.backward.add(this.chData.nodeCopies[i]);
+		}
+
+		double best = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+		boolean forwardActive = true;
+		boolean backwardActive = true;
+		while (forwardActive || backwardActive) {
+			if (forwardActive) {
+				int node = this.forward.settleNext(best);
+				if (node < 0) {
+					forwardActive = false;
+				} else if (this.backward.isSettled(node)) {
+					double cost = this.forward.getCost(node) + this.backward.getCost(node);
+					if (cost < best) {
+						best = cost;
+						meetingNode = node;
+					}
+				}
+			}
+			if (backwardActive) {
+				int node = this.backward.settleNext(best);
+				if (node < 0) {
+					backwardActive = false;
+				} else if (this.forward.isSettled(node)) {
+					double cost = this.forward.getCost(node) + this.backward.getCost(node);
+					if (cost < best) {
+						best = cost;
+						meetingNode = node;
+					}
+				}
+			}
+		}
+
+		if (meetingNode >= 0) {
+			return constructPath(meetingNode, weights, startTime, person, vehicle);
+		}
+		LOG.warn("No route was found from node " + startNode.getId() + " to node " + endNode.getId() + ". Some possible reasons:");
+		LOG.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+		LOG.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+		LOG.warn("  * Network for considered mode is not connected to starting or ending point of route.  Setting insertingAccessEgressWalk to true may help.");
+		LOG.warn("This will now return null, but it may fail later with a NullPointerException.");
+		return null;
+	}
+
+	private Path constructPath(int meetingNode, float[] weights, double startTime, Person person, Vehicle vehicle) {
+		// arcs with direction (2 * arc + direction), in the order of the path
+		List<Integer> arcs = new ArrayList<>();
+		int node = meetingNode;
+		int arc;
+		while ((arc = this.forward.getUsedArc(node)) >= 0) {
+			arcs.add(2 * arc);
+			node = this.chData.arcLow[arc];
+		}
+		Collections.reverse(arcs);
+		node = meetingNode;
+		while ((arc = this.backward.getUsedArc(node)) >= 0) {
+			arcs.add(2 * arc + 1);
+			node = this.chData.arcLow[arc];
+		}
+
+		List<Link> links = new ArrayList<>();
+		int[] stack = new int[16];
+		for (int arcDir : arcs) {
+			int stackSize = 0;
+			stack[stackSize++] = arcDir;
+			while (stackSize > 0) {
+				int current = stack[--stackSize];
+				int[] lowerArcs = findLowerTriangle(current, weights);
+				if (lowerArcs == null) {
+					links.add(this.graph.getLink(findLink(current, startTime, person, vehicle)));
+				} else {
+					if (stackSize + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					// push in reverse order, so the first part is unpacked first
+					stack[stackSize++] = lowerArcs[1];
+					stack[stackSize++] = lowerArcs[0];
+				}
+			}
+		}
+
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		double time = startTime;
+		double cost = 0;
+		if (links.isEmpty()) {
+			nodes.add(this.graph.getNode(meetingNode));
+		} else {
+			nodes.add(links.get(0).getFromNode());
+		}
+		for (Link link : links) {
+			cost += this.td.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.tt.getLinkTravelTime(link, time, person, vehicle);
+			nodes.add(link.getToNode());
+		}
+		return new Path(nodes, links, time - startTime, cost);
+	}
+
+	/**
+	 * @return the two arcs with direction forming the lower triangle whose weights add up to the weight of the given arc,
+	 * or <code>null</code> if the weight of the arc is the weight of one of its links.
+	 */
+	private int[] findLowerTriangle(int arcDir, float[] weights) {
+		int arc = arcDir / 2;
+		int direction = arcDir % 2;
+		int low = this.chData.arcLow[arc];
+		int high = this.chData.arcHigh[arc];
+		float weight = weights[arcDir];
+
+		this.stampId++;
+		if (this.stampId == Integer.MAX_VALUE) {
+			Arrays.fill(this.stamps, -1);
+			this.stampId = 0;
+		}
+		int[] downArcs = this.chData.downArcs;
+		int lowFirst = this.chData.downFirst[low];
+		for (int i = lowFirst, n = this.chData.downFirst[low + 1]; i < n; i++) {
+			this.stamps[this.chData.arcLow[downArcs[i]]] = this.stampId;
+		}
+		for (int i = this.chData.downFirst[high], n = this.chData.downFirst[high + 1]; i < n; i++) {
+			int zHigh = downArcs[i];
+			int z = this.chData.arcLow[zHigh];
+			if (this.stamps[z] != this.stampId) {
+				continue;
+			}
+			int zLow = findDownArc(lowFirst, this.chData.downFirst[low + 1], z);
+			// same arithmetic as in the customization, so the weights match exactly
+			if (direction == 0) {
+				// low -> z -> high
+				if (weights[zLow * 2 + 1] + weights[zHigh * 2] == weight) {
+					return new int[] {zLow * 2 + 1, zHigh * 2};
+				}
+			} else {
+				// high -> z -> low
+				if (weights[zHigh * 2 + 1] + weights[zLow * 2] == weight) {
+					return new int[] {zHigh * 2 + 1, zLow * 2};
+				}
+			}
+		}
+		return null;
+	}
+
+	private int findDownArc(int first, int last, int lowNode) {
+		for (int i = first; i < last; i++) {
+			int arc = this.chData.downArcs[i];
+			if (this.chData.arcLow[arc] == lowNode) {
+				return arc;
+			}
+		}
+		throw new IllegalStateException("arc not found");
+	}
+
+	/**
+	 * @return the cheapest link of the arc in the given direction.
+	 */
+	private int findLink(int arcDir, double time, Person person, Vehicle vehicle) {
+		int arc = arcDir / 2;
+		int bestLink = -1;
+		double bestCost = Double.POSITIVE_INFINITY;
+		for (int i = this.chData.arcLinksFirst[arc], n = this.chData.arcLinksFirst[arc + 1]; i < n; i++) {
+			int linkIdx = this.chData.arcLinks[i];
+			if (this.chData.linkArc[linkIdx] != arcDir) {
+				continue;
+			}
+			if (bestLink < 0) {
+				bestLink = linkIdx;
+			} else {
+				// parallel links, should be rare
+				if (bestCost == Double.POSITIVE_INFINITY) {
+					bestCost = this.td.getLinkTravelDisutility(this.graph.getLink(bestLink), time, person, vehicle);
+				}
+				double cost = this.td.getLinkTravelDisutility(this.graph.getLink(linkIdx), time, person, vehicle);
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestLink = linkIdx;
+				}
+			}
+		}
+		if (bestLink < 0) {
+			throw new IllegalStateException("Cannot unpack arc " + arc + " of contraction hierarchy.");
+		}
+		return bestLink;
+	}
+
+	private double getWeight(int arcDir) {
+		if (this.randomizedWeights == null) {
+			return this.weights[arcDir];
+		}
+		return this.fixedWeights[arcDir] + this.randomFactor * this.randomizedWeights[arcDir];
+	}
+
+	/**
+	 * One direction of the bidirectional search in the upward graph.
+	 */
+	private class Search {
+		private final int direction;
+		private final double[] cost;
+		private final int[] usedArc;
+		private final int[] iterationIds;
+		private final boolean[] settled;
+		private int currentIteration = Integer.MIN_VALUE;
+		private final DAryMinHeap pq;
+
+		Search(int nodeCount, int direction) {
+			this.direction = direction;
+			this.cost = new double[nodeCount];
+			this.usedArc = new int[nodeCount];
+			this.iterationIds = new int[nodeCount];
+			this.settled = new boolean[nodeCount];
+			this.pq = new DAryMinHeap(nodeCount, 6);
+			Arrays.fill(this.iterationIds, this.currentIteration);
+		}
+
+		void start(int node) {
+			this.currentIteration++;
+			if (this.currentIteration == Integer.MAX_VALUE) {
+				// reset iteration as we overflow
+				Arrays.fill(this.iterationIds, this.currentIteration);
+				this.currentIteration = Integer.MIN_VALUE;
+			}
+			this.pq.clear();
+			add(node);
+		}
+
+		void add(int node) {
+			this.cost[node] = 0;
+			this.usedArc[node] = -1;
+			this.settled[node] = false;
+			this.iterationIds[node] = this.currentIteration;
+			this.pq.insert(node, 0);
+		}
+
+		boolean isSettled(int node) {
+			return this.iterationIds[node] == this.currentIteration && this.settled[node];
+		}
+
+		double getCost(int node) {
+			return this.cost[node];
+		}
+
+		int getUsedArc(int node) {
+			return this.usedArc[node];
+		}
+
+		/**
+		 * @return the next settled node, or -1 if this search is done because no node has a lower cost than <code>best</code>.
+		 */
+		int settleNext(double best) {
+			while (!this.pq.isEmpty()) {
+				int node = this.pq.poll();
+				double nodeCost = this.cost[node];
+				if (nodeCost >= best) {
+					this.pq.clear();
+					return -1;
+				}
+				this.settled[node] = true;
+				int first = chData.upFirst[node];
+				int last = chData.upFirst[node + 1];
+
+				// stall-on-demand: if a higher node reaches this node cheaper, the node cannot be on a shortest path
+				boolean stalled = false;
+				for (int arc = first; arc < last; arc++) {
+					int head = chData.arcHigh[arc];
+					if (this.iterationIds[head] == this.currentIteration
+							&& this.cost[head] + getWeight(arc * 2 + 1 - this.direction) < nodeCost) {
+						stalled = true;
+						break;
+					}
+				}
+				if (stalled) {
+					continue;
+				}
+
+				for (int arc = first; arc < last; arc++) {
+					double weight = getWeight(arc * 2 + this.direction);
+					if (weight == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					int head = chData.arcHigh[arc];
+					double newCost = nodeCost + weight;
+					if (this.iterationIds[head] == this.currentIteration) {
+						if (!this.settled[head] && newCost < this.cost[head]) {
+							this.cost[head] = newCost;
+							this.usedArc[head] = arc;
+							this.pq.decreaseKey(head, newCost);
+						}
+					} else {
+						this.iterationIds[head] = this.currentIteration;
+						this.settled[head] = false;
+						this.cost[head] = newCost;
+						this.usedArc[head] = arc;
+						this.pq.insert(head, newCost);
+					}
+				}
+				return node;
+			}
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,313 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Metric-independent preprocessing for customizable contraction hierarchies (CCH), see {@link SpeedyCH}.
+ *
+ * The nodes are ordered with a greedy minimum-degree heuristic on the undirected graph. Contracting the nodes
+ * in this order connects all neighbors of a contracted node with each other, so the resulting set of arcs
+ * (the original links plus the shortcuts) does not depend on the travel costs. Every arc connects a lower-ranked
+ * node with a higher-ranked node and has two weights, one per direction, which are filled in by
+ * {@link SpeedyCHMetric} for given travel costs.
+ *
+ * Based on "Customizable Contraction Hierarchies" by Julian Dibbelt, Ben Strasser and Dorothea Wagner, 2016.
+ *
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyCHData {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHData.class);
+
+	final SpeedyGraph graph;
+	final int arcCount;
+
+	/** the rank of each node in the contraction order, -1 for unused node indices */
+	final int[] rank;
+	/** the nodes in contraction order */
+	final int[] nodesByRank;
+
+	/** arcs to higher-ranked nodes: the arcs of node n are upFirst[n] until upFirst[n+1]-1, sorted by rank of the head */
+	final int[] upFirst;
+	final int[] arcLow;
+	final int[] arcHigh;
+
+	/** arcs to lower-ranked nodes: for node n, downArcs[downFirst[n]] until downArcs[downFirst[n+1]-1] are the arcs with n as higher node */
+	final int[] downFirst;
+	final int[] downArcs;
+
+	/** for every link: 2 * arc index + 0 if the link goes from the lower to the higher node, + 1 otherwise. -1 for unused links and loops. */
+	final int[] linkArc;
+	/** the links of each arc: arcLinks[arcLinksFirst[a]] until arcLinks[arcLinksFirst[a+1]-1] */
+	final int[] arcLinksFirst;
+	final int[] arcLinks;
+
+	/** with turn restrictions: the colored copies of a node, nodeCopies[nodeCopiesFirst[n]] until nodeCopies[nodeCopiesFirst[n+1]-1] */
+	final int[] nodeCopiesFirst;
+	final int[] nodeCopies;
+
+	SpeedyCHData(SpeedyGraph graph) {
+		this.graph = graph;
+		int nodeCount = graph.nodeCount;
+		this.rank = new int[nodeCount];
+		Arrays.fill(this.rank, -1);
+
+		LOG.info("order nodes for contraction...");
+		int[][] upNeighbors = contract();
+
+		int usedNodes = 0;
+		for (int n = 0; n < nodeCount; n++) {
+			if (this.rank[n] >= 0) usedNodes++;
+		}
+		this.nodesByRank = new int[usedNodes];
+		for (int n = 0; n < nodeCount; n++) {
+			if (this.rank[n] >= 0) this.nodesByRank[this.rank[n]] = n;
+		}
+
+		this.upFirst = new int[nodeCount + 1];
+		int arcs = 0;
+		for (int n = 0; n < nodeCount; n++) {
+			this.upFirst[n] = arcs;
+			if (upNeighbors[n] != null) {
+				arcs += upNeighbors[n].length;
+			}
+		}
+		this.upFirst[nodeCount] = arcs;
+		this.arcCount = arcs;
+		this.arcLow = new int[arcs];
+		this.arcHigh = new int[arcs];
+		int[] downCount = new int[nodeCount];
+		for (int n = 0; n < nodeCount; n++) {
+			int[] neighbors = upNeighbors[n];
+			if (neighbors == null) continue;
+			sortByRank(neighbors);
+			for (int i = 0; i < neighbors.length; i++) {
+				int arc = this.upFirst[n] + i;
+				this.arcLow[arc] = n;
+				this.arcHigh[arc] = neighbors[i];
+				downCount[neighbors[i]]++;
+			}
+		}
+
+		this.downFirst = new int[nodeCount + 1];
+		for (int n = 0; n < nodeCount; n++) {
+			this.downFirst[n + 1] = this.downFirst[n] + downCount[n];
+		}
+		this.downArcs = new int[arcs];
+		int[] downPos = Arrays.copyOf(this.downFirst, nodeCount);
+		for (int arc = 0; arc < arcs; arc++) {
+			this.downArcs[downPos[this.arcHigh[arc]]++] = arc;
+		}
+
+		this.linkArc = new int[graph.linkCount];
+		Arrays.fill(this.linkArc, -1);
+		int[] linksPerArc = new int[arcs];
+		LinkIterator outLI = graph.getOutLinkIterator();
+		for (int n = 0; n < nodeCount; n++) {
+			outLI.reset(n);
+			while (outLI.next()) {
+				int to = outLI.getToNodeIndex();
+				if (to == n) continue;
+				int low = this.rank[n] < this.rank[to] ? n : to;
+				int high = low == n ? to : n;
+				int arc = findArc(low, high);
+				this.linkArc[outLI.getLinkIndex()] = 2 * arc + (low == n ? 0 : 1);
+				linksPerArc[arc]++;
+			}
+		}
+		this.arcLinksFirst = new int[arcs + 1];
+		for (int arc = 0; arc < arcs; arc++) {
+			this.arcLinksFirst[arc + 1] = this.arcLinksFirst[arc] + linksPerArc[arc];
+		}
+		this.arcLinks = new int[this.arcLinksFirst[arcs]];
+		int[] arcLinksPos = Arrays.copyOf(this.arcLinksFirst, arcs);
+		for (int link = 0; link < graph.linkCount; link++) {
+			if (this.linkArc[link] >= 0) {
+				int arc = this.linkArc[link] / 2;
+				this.arcLinks[arcLinksPos[arc]++] = link;
+			}
+		}
+
+		this.nodeCopiesFirst = new int[nodeCount + 1];
+		int[] copiesCount = new int[nodeCount];
+		if (graph.hasTurnRestrictions()) {
+			for (int n = 0; n < nodeCount; n++) {
+				Node node = graph.getNode(n);
+				if (node != null && node.getId().index() != n) copiesCount[node.getId().index()]++;
+			}
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			this.nodeCopiesFirst[n + 1] = this.nodeCopiesFirst[n] + copiesCount[n];
+		}
+		this.nodeCopies = new int[this.nodeCopiesFirst[nodeCount]];
+		if (graph.hasTurnRestrictions()) {
+			int[] copiesPos = Arrays.copyOf(this.nodeCopiesFirst, nodeCount);
+			for (int n = 0; n < nodeCount; n++) {
+				Node node = graph.getNode(n);
+				if (node != null && node.getId().index() != n) this.nodeCopies[copiesPos[node.getId().index()]++] = n;
+			}
+		}
+
+		LOG.info("contraction hierarchy has " + usedNodes + " nodes and " + arcs + " arcs.");
+	}
+
+	/**
+	 * Contracts the nodes with the minimum-degree heuristic, sets their rank, and returns the neighbors with
+	 * a higher rank for each node.
+	 */
+	private int[][] contract() {
+		int nodeCount = this.graph.nodeCount;
+		int[][] neighbors = new int[nodeCount][];
+		int[] neighborCount = new int[nodeCount];
+
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		for (int n = 0; n < nodeCount; n++) {
+			outLI.reset(n);
+			while (outLI.next()) {
+				int to = outLI.getToNodeIndex();
+				if (to != n) {
+					addNeighbor(neighbors, neighborCount, n, to);
+					addNeighbor(neighbors, neighborCount, to, n);
+				}
+			}
+		}
+		int[] stamp = new int[nodeCount];
+		Arrays.fill(stamp, -1);
+		PriorityQueue<Long> pq = new PriorityQueue<>();
+		for (int n = 0; n < nodeCount; n++) {
+			if (this.graph.getNode(n) == null) continue;
+			neighborCount[n] = removeDuplicates(neighbors[n], neighborCount[n], stamp, n);
+			pq.add(key(neighborCount[n], n));
+		}
+
+		int[][] upNeighbors = new int[nodeCount][];
+		boolean[] contracted = new boolean[nodeCount];
+		int nextRank = 0;
+		int stampId = nodeCount;
+		while (!pq.isEmpty()) {
+			long key = pq.poll();
+			int node = (int) key;
+			if (contracted[node] || (key >>> 32) != neighborCount[node]) {
+				continue; // outdated entry
+			}
+			contracted[node] = true;
+			this.rank[node] = nextRank++;
+			int[] up = removeContracted(neighbors[node], neighborCount[node], contracted);
+			upNeighbors[node] = up;
+			neighbors[node] = null;
+
+			for (int i = 0; i < up.length; i++) {
+				int a = up[i];
+				neighborCount[a] = removeContracted(neighbors[a], neighborCount[a], contracted, stamp, stampId);
+				for (int j = i + 1; j < up.length; j++) {
+					int b = up[j];
+					if (stamp[b] != stampId) {
+						// add fill-in edge
+						addNeighbor(neighbors, neighborCount, a, b);
+						addNeighbor(neighbors, neighborCount, b, a);
+					}
+				}
+				stampId++;
+			}
+			for (int a : up) {
+				pq.add(key(neighborCount[a], a));
+			}
+		}
+		return upNeighbors;
+	}
+
+	private static long key(int degree, int node) {
+		return ((long) degree << 32) | node;
+	}
+
+	private static void addNeighbor(int[][] neighbors, int[] neighborCount, int node, int neighbor) {
+		int[] list = neighbors[node];
+		int count = neighborCount[node];
+		if (list == null) {
+			list = new int[4];
+			neighbors[node] = list;
+		} else if (count == list.length) {
+			list = Arrays.copyOf(list, count * 2);
+			neighbors[node] = list;
+		}
+		list[count] = neighbor;
+		neighborCount[node] = count + 1;
+	}
+
+	private static int removeDuplicates(int[] list, int count, int[] stamp, int stampId) {
+		int newCount = 0;
+		for (int i = 0; i < count; i++) {
+			int n = list[i];
+			if (stamp[n] != stampId) {
+				stamp[n] = stampId;
+				list[newCount++] = n;
+			}
+		}
+		return newCount;
+	}
+
+	private static int[] removeContracted(int[] list, int count, boolean[] contracted) {
+		int newCount = 0;
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			if (!contracted[list[i]]) {
+				result[newCount++] = list[i];
+			}
+		}
+		return Arrays.copyOf(result, newCount);
+	}
+
+	/**
+	 * Removes the contracted nodes from the list, and stamps the remaining ones.
+	 */
+	private static int removeContracted(int[] list, int count, boolean[] contracted, int[] stamp, int stampId) {
+		int newCount = 0;
+		for (int i = 0; i < count; i++) {
+			int n = list[i];
+			if (!contracted[n]) {
+				stamp[n] = stampId;
+				list[newCount++] = n;
+			}
+		}
+		return newCount;
+	}
+
+	private void sortByRank(int[] nodes) {
+		long[] keys = new long[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			keys[i] = key(this.rank[nodes[i]], nodes[i]);
+		}
+		Arrays.sort(keys);
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = (int) keys[i];
+		}
+	}
+
+	/**
+	 * @return the arc from the lower node <code>low</code> to the higher node <code>high</code>, or -1 if there is none.
+	 */
+	int findArc(int low, int high) {
+		int highRank = this.rank[high];
+		int from = this.upFirst[low];
+		int to = this.upFirst[low + 1] - 1;
+		while (from <= to) {
+			int mid = (from + to) >>> 1;
+			int midRank = this.rank[this.arcHigh[mid]];
+			if (midRank < highRank) {
+				from = mid + 1;
+			} else if (midRank > highRank) {
+				to = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,115 @@
+package org.matsim.core.router.speedy;
+
+import jakarta.inject.Singleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.RandomizedTravelDisutility;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates {@link SpeedyCH} instances.
+ *
+ * The metric-independent contraction hierarchy is calculated once per network. The weights for the travel costs
+ * are customized the first time they are requested for a combination of travel time and travel disutility,
+ * and are re-customized after the start of each iteration, as the travel times might have changed. All instances of a
+ * {@link RandomizedTravelDisutility} with the same {@link RandomizedTravelDisutility#getCostsKey() costs key} share
+ * their weights, e.g. the instances created for the routers of one mode by the default travel disutility factory.
+ * Other travel disutilities are customized per instance, so routers should share them where possible.
+ *
+ * The weights are customized with a generic person. The random factor of a {@link RandomizedTravelDisutility}
+ * (e.g. <code>routingRandomness</code> in the routing config) is applied by {@link SpeedyCH} when searching a route,
+ * but other person-specific travel disutilities cannot be represented. If such a travel disutility returns different
+ * costs for different persons, {@link SpeedyALT} is used instead.
+ */
+@Singleton
+public class SpeedyCHFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHFactory.class);
+
+	private final static Person CUSTOMIZATION_PERSON = PopulationUtils.getFactory().createPerson(Id.createPersonId("SpeedyCH"));
+	private final static Person PROBE_PERSON = PopulationUtils.getFactory().createPerson(Id.createPersonId("SpeedyCH-probe"));
+	private final static int PROBE_LINKS = 10;
+
+	private final double timeBinSize;
+	private final int timeBinCount;
+	private final int numberOfThreads;
+
+	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
+	private final Map<SpeedyGraph, SpeedyCHData> chData = new ConcurrentHashMap<>();
+	private final Map<List<Object>, SpeedyCHMetric> metrics = new ConcurrentHashMap<>();
+	private final SpeedyALTFactory fallbackFactory = new SpeedyALTFactory();
+	private final AtomicBoolean fallbackLogged = new AtomicBoolean(false);
+
+	public SpeedyCHFactory() {
+		this(3600, 30);
+	}
+
+	/**
+	 * @param timeBinSize the duration of the time bins in seconds, for each the weights are customized with the travel costs at the start of the bin.
+	 * @param timeBinCount the number of time bins. Later departures use the weights of the last time bin.
+	 */
+	public SpeedyCHFactory(double timeBinSize, int timeBinCount) {
+		this.timeBinSize = timeBinSize;
+		this.timeBinCount = timeBinCount;
+		this.numberOfThreads = Runtime.getRuntime().availableProcessors();
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
+		SpeedyGraph graph = this.graphs.computeIfAbsent(network, SpeedyGraphBuilder::build);
+		if (!(travelCosts instanceof RandomizedTravelDisutility) && isPersonDependent(graph, travelCosts)) {
+			if (this.fallbackLogged.compareAndSet(false, true)) {
+				LOG.warn("The travel disutility " + travelCosts.getClass().getName() + " depends on the person, which the weights of SpeedyCH cannot represent. Using SpeedyALT instead.");
+			}
+			return this.fallbackFactory.createPathCalculator(network, travelCosts, travelTimes);
+		}
+		SpeedyCHData data = this.chData.computeIfAbsent(graph, SpeedyCHData::new);
+		Object costsKey = travelCosts instanceof RandomizedTravelDisutility randomized ? randomized.getCostsKey() : travelCosts;
+		SpeedyCHMetric metric = this.metrics.computeIfAbsent(List.of(data, travelTimes, costsKey),
+				key -> new SpeedyCHMetric(data, travelCosts, CUSTOMIZATION_PERSON, this.timeBinSize, this.timeBinCount, this.numberOfThreads));
+		return new SpeedyCH(metric, travelTimes, travelCosts);
+	}
+
+	/**
+	 * Compares the costs of some links for two different persons.
+	 */
+	private static boolean isPersonDependent(SpeedyGraph graph, TravelDisutility travelCosts) {
+		for (int linkIndex = 0; linkIndex < Math.min(PROBE_LINKS, graph.linkCount); linkIndex++) {
+			Link link = graph.getLink(linkIndex);
+			if (link != null && travelCosts.getLinkTravelDisutility(link, 0, CUSTOMIZATION_PERSON, null)
+					!= travelCosts.getLinkTravelDisutility(link, 0, PROBE_PERSON, null)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		clearMetrics();
+	}
+
+	/**
+	 * Removes all customized weights, so they are customized again with the current travel costs
+	 * when the next path calculator is created.
+	 */
+	public void clearMetrics() {
+		this.metrics.clear();
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.RandomizedTravelDisutility;
+import org.matsim.core.router.util.TravelDisutility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The weights of the arcs of a {@link SpeedyCHData} for given travel costs, one set of weights per time bin.
+ *
+ * The weights of a time bin are the travel costs of the links at the start of the time bin. Customizing
+ * the weights of all time bins only depends on the (metric-independent) arcs, so it can be repeated quickly
+ * whenever the travel costs change, e.g. in every iteration.
+ *
+ * For a {@link RandomizedTravelDisutility}, the weights are customized with a random factor of 1, and the weights
+ * are additionally split into the fixed and the randomized part of the disutility of the links the arc consists of.
+ * This allows {@link SpeedyCH} to apply the random factor of a person when searching a route.
+ *
+ * This class is thread-safe and can safely be used by multiple threads.
+ */
+class SpeedyCHMetric {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCHMetric.class);
+
+	final SpeedyCHData data;
+	private final double timeBinSize;
+	private final int timeBinCount;
+	/** per time bin: 2 weights per arc, first from the lower to the higher node, then from the higher to the lower node */
+	private final float[][] weights;
+	/** per time bin: the fixed and the randomized part of the weights, or <code>null</code> if the travel disutility is not randomized */
+	private final float[][] fixedWeights;
+	private final float[][] randomizedWeights;
+
+	SpeedyCHMetric(SpeedyCHData data, TravelDisutility travelCosts, Person person, double timeBinSize, int timeBinCount, int numberOfThreads) {
+		this.data = data;
+		this.timeBinSize = timeBinSize;
+		this.timeBinCount = timeBinCount;
+		this.weights = new float[timeBinCount][];
+		boolean randomized = travelCosts instanceof RandomizedTravelDisutility;
+		this.fixedWeights = randomized ? new float[timeBinCount][] : null;
+		this.randomizedWeights = randomized ? new float[timeBinCount][] : null;
+
+		LOG.info("customize contraction hierarchy for " + timeBinCount + " time bins...");
+		// the travel costs might not be thread-safe, so get the costs of the links first
+		for (int bin = 0; bin < timeBinCount; bin++) {
+			if (randomized) {
+				getLinkWeights((RandomizedTravelDisutility) travelCosts, person, bin * timeBinSize, bin);
+			} else {
+				this.weights[bin] = getLinkWeights(travelCosts, person, bin * timeBinSize);
+			}
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(numberOfThreads, timeBinCount)));
+		List<Future<?>> futures = new ArrayList<>();
+		for (int bin = 0; bin < timeBinCount; bin++) {
+			float[] w = this.weights[bin];
+			float[] fixed = randomized ? this.fixedWeights[bin] : null;
+			float[] random = randomized ? this.randomizedWeights[bin] : null;
+			futures.add(executor.submit(() -> customize(w, fixed, random)));
+		}
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private float[] getLinkWeights(TravelDisutility travelCosts, Person person, double time) {
+		float[] w = new float[this.data.arcCount * 2];
+		Arrays.fill(w, Float.POSITIVE_INFINITY);
+		for (int linkIdx = 0; linkIdx < this.data.linkArc.length; linkIdx++) {
+			int arcDir = this.data.linkArc[linkIdx];
+			if (arcDir >= 0) {
+				Link link = this.data.graph.getLink(linkIdx);
+				float cost = (float) travelCosts.getLinkTravelDisutility(link, time, person, null);
+				if (cost < w[arcDir]) {
+					w[arcDir] = cost;
+				}
+			}
+		}
+		return w;
+	}
+
+	private void getLinkWeights(RandomizedTravelDisutility travelCosts, Person person, double time, int bin) {
+		float[] w = new float[this.data.arcCount * 2];
+		float[] fixed = new float[this.data.arcCount * 2];
+		float[] random = new float[this.data.arcCount * 2];
+		Arrays.fill(w, Float.POSITIVE_INFINITY);
+		Arrays.fill(fixed, Float.POSITIVE_INFINITY);
+		for (int linkIdx = 0; linkIdx < this.data.linkArc.length; linkIdx++) {
+			int arcDir = this.data.linkArc[linkIdx];
+			if (arcDir >= 0) {
+				Link link = this.data.graph.getLink(linkIdx);
+				double fixedCost = travelCosts.getLinkFixedDisutility(link, time, person, null);
+				double randomizedCost = travelCosts.getLinkRandomizedDisutility(link, time, person, null);
+				float cost = (float) (fixedCost + randomizedCost);
+				if (cost < w[arcDir]) {
+					w[arcDir] = cost;
+					fixed[arcDir] = (float) fixedCost;
+					random[arcDir] = (float) randomizedCost;
+				}
+			}
+		}
+		this.weights[bin] = w;
+		this.fixedWeights[bin] = fixed;
+		this.randomizedWeights[bin] = random;
+	}
+
+	/**
+	 * Basic customization: each arc gets the minimum of its own weight and the weights of its lower triangles.
+	 * If given, the fixed and randomized parts of the weights are those of the arcs the chosen weight consists of.
+	 */
+	private void customize(float[] w, float[] fixed, float[] random) {
+		SpeedyCHData d = this.data;
+		int[] arcToHead = new int[d.graph.nodeCount];
+		for (int node : d.nodesByRank) {
+			int firstArc = d.upFirst[node];
+			int lastArc = d.upFirst[node + 1];
+			for (int i = firstArc; i < lastArc; i++) {
+				int a = d.arcHigh[i];
+				for (int k = d.upFirst[a], n = d.upFirst[a + 1]; k < n; k++) {
+					arcToHead[d.arcHigh[k]] = k;
+				}
+				float nodeToA = w[i * 2];
+				float aToNode = w[i * 2 + 1];
+				for (int j = i + 1; j < lastArc; j++) {
+					// the arc a-b exists, as both are neighbors of node with a higher rank
+					int ab = arcToHead[d.arcHigh[j]];
+					float viaNodeAB = aToNode + w[j * 2];
+					if (viaNodeAB < w[ab * 2]) {
+						w[ab * 2] = viaNodeAB;
+						if (fixed != null) {
+							fixed[ab * 2] = fixed[i * 2 + 1] + fixed[j * 2];
+							random[ab * 2] = random[i * 2 + 1] + random[j * 2];
+						}
+					}
+					float viaNodeBA = w[j * 2 + 1] + nodeToA;
+					if (viaNodeBA < w[ab * 2 + 1]) {
+						w[ab * 2 + 1] = viaNodeBA;
+						if (fixed != null) {
+							fixed[ab * 2 + 1] = fixed[j * 2 + 1] + fixed[i * 2];
+							random[ab * 2 + 1] = random[j * 2 + 1] + random[i * 2];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	int getTimeBin(double time) {
+		int bin = (int) (time / this.timeBinSize);
+		if (bin < 0) {
+			return 0;
+		}
+		return Math.min(bin, this.timeBinCount - 1);
+	}
+
+	float[] getWeights(int timeBin) {
+		return this.weights[timeBin];
+	}
+
+	boolean isRandomized() {
+		return this.fixedWeights != null;
+	}
+
+	float[] getFixedWeights(int timeBin) {
+		return this.fixedWeights[timeBin];
+	}
+
+	float[] getRandomizedWeights(int timeBin) {
+		return this.randomizedWeights[timeBin];
+	}
+}
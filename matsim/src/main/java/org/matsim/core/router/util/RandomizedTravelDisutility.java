@@ -0,0 +1,61 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RandomizedTravelDisutility.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A travel disutility that only depends on the person by a random factor per person, e.g. to randomize the
+ * trade-off between time and money (see <code>routingRandomness</code> in the routing config).  The disutility of a link is
+ * <pre>
+ * getLinkFixedDisutility(...) + getRandomFactor(person) * getLinkRandomizedDisutility(...)
+ * </pre>
+ * This allows routers that prepare weights for all persons, like {@link org.matsim.core.router.speedy.SpeedyCH}, to prepare
+ * them once with the two parts of the disutility, and to apply the factor of the person when searching a route.
+ *
+ * @author (of this class) the MATSim team
+ */
+public interface RandomizedTravelDisutility extends TravelDisutility {
+
+	/**
+	 * @return the part of the disutility of the link that is the same for all persons.
+	 */
+	double getLinkFixedDisutility(Link link, double time, Person person, Vehicle vehicle);
+
+	/**
+	 * @return the part of the disutility of the link that is multiplied by the random factor of the person.
+	 */
+	double getLinkRandomizedDisutility(Link link, double time, Person person, Vehicle vehicle);
+
+	/**
+	 * @return the random factor of the person, the same that is used by {@link #getLinkTravelDisutility(Link, double, Person, Vehicle)}.
+	 */
+	double getRandomFactor(Person person);
+
+	/**
+	 * @return an object that is equal for all instances with the same fixed and randomized disutilities, e.g. for all instances
+	 * created by the same factory for the same travel time.  Routers can use it to share the weights prepared for one instance.
+	 */
+	Object getCostsKey();
+
+}
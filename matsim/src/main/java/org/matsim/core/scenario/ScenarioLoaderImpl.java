@@ -29,11 +29,13 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigGroup;
 import org.matsim.core.config.groups.FacilitiesConfigGroup;
 import org.matsim.core.config.groups.HouseholdsConfigGroup;
+import org.matsim.core.controler.ControllerUtils;
 import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.network.io.NetworkChangeEventsParser;
 import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.BinaryPopulationReader;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.facilities.MatsimFacilitiesReader;
@@ -146,10 +148,11 @@ class ScenarioLoaderImpl {
 			if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
 				log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
 				Network network = this.scenario.getNetwork();
-				List<NetworkChangeEvent> changeEvents = new ArrayList<>() ;
-				NetworkChangeEventsParser parser = new NetworkChangeEventsParser(network,changeEvents);
+				// reset the links, then hand the change events to the network as they are read instead of collecting them first:
+				NetworkUtils.setNetworkChangeEvents(network, Collections.emptyList());
+				NetworkChangeEventsParser parser = new NetworkChangeEventsParser(network,
+						(NetworkChangeEvent event) -> NetworkUtils.addNetworkChangeEvent(network, event));
 				parser.parse(this.config.network().getChangeEventsInputFileUrl(config.getContext()));
-				NetworkUtils.setNetworkChangeEvents(network,changeEvents);
 			}
 		}
 	}
@@ -191,6 +194,17 @@ class ScenarioLoaderImpl {
 
 
 	private void loadPopulation() {
+		String checkpoint = this.config.controller().getResumeFromCheckpoint();
+		if (checkpoint != null) {
+			// the checkpoint contains the complete population, including the person attributes
+			URL populationFileName = IOUtils.getFileUrl(ControllerUtils.getCheckpointPlansFile(checkpoint));
+			log.info("resuming from a checkpoint, loading population from " + populationFileName + " instead of the plans input file");
+			final BinaryPopulationReader reader = new BinaryPopulationReader(config.global().getCoordinateSystem(), config.global().getCoordinateSystem(), this.scenario);
+			reader.putAttributeConverters( attributeConverters );
+			reader.readURL( populationFileName );
+			PopulationUtils.printPlansCount(this.scenario.getPopulation()) ;
+			return;
+		}
 		if ((this.config.plans() != null) && (this.config.plans().getInputFile() != null)) {
 			URL populationFileName = this.config.plans().getInputFileURL(this.config.getContext());
 			log.info("loading population from " + populationFileName);
@@ -198,9 +212,15 @@ class ScenarioLoaderImpl {
             final String targetCRS = config.global().getCoordinateSystem();
 			final String internalCRS = config.global().getCoordinateSystem();
 
-            final PopulationReader reader = new PopulationReader(targetCRS, internalCRS, this.scenario);
-            reader.putAttributeConverters( attributeConverters );
-            reader.parse( populationFileName );
+            if (BinaryPopulationReader.isBinaryPopulationFile(populationFileName.getPath())) {
+                final BinaryPopulationReader reader = new BinaryPopulationReader(targetCRS, internalCRS, this.scenario);
+                reader.putAttributeConverters( attributeConverters );
+                reader.readURL( populationFileName );
+            } else {
+                final PopulationReader reader = new PopulationReader(targetCRS, internalCRS, this.scenario);
+                reader.putAttributeConverters( attributeConverters );
+                reader.parse( populationFileName );
+            }
 
 			PopulationUtils.printPlansCount(this.scenario.getPopulation()) ;
 		}
@@ -34,6 +34,8 @@ import org.matsim.core.events.EventsManagerModule;
 import org.matsim.core.scenario.ScenarioByInstanceModule;
 
 import jakarta.inject.Inject;
+import java.io.DataInput;
+import java.io.DataOutput;
 
 
 /**
@@ -146,6 +148,14 @@ public final class EventsToScore {
 	}
 
 	private static class NoopNewScoreAssignerImpl implements NewScoreAssigner {
+		@Override
+		public void writeCheckpoint(DataOutput out) {
+		}
+
+		@Override
+		public void readCheckpoint(DataInput in, int iteration) {
+		}
+
 		@Override
 		public void assignNewScores(int iteration, ScoringFunctionsForPopulation scoringFunctionsForPopulation, Population population) {
 
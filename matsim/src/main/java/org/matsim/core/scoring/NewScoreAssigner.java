@@ -23,8 +23,9 @@
 
 
 import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.controler.Checkpointable;
 
-interface NewScoreAssigner {
+interface NewScoreAssigner extends Checkpointable {
 
 	void assignNewScores(int iteration, ScoringFunctionsForPopulation scoringFunctionsForPopulation, Population population);
 
@@ -24,6 +24,7 @@
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
@@ -31,7 +32,12 @@ import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.ScoringConfigGroup;
 
 import jakarta.inject.Inject;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 class NewScoreAssignerImpl implements NewScoreAssigner {
@@ -44,9 +50,11 @@ class NewScoreAssignerImpl implements NewScoreAssigner {
 	private final boolean explainScores;
 	private double scoreSum = 0.0;
 	private long scoreCount = 0;
+	private final Population population;
 
 	@Inject
-	NewScoreAssignerImpl(ScoringConfigGroup scoringConfigGroup, ControllerConfigGroup controllerConfigGroup) {
+	NewScoreAssignerImpl(ScoringConfigGroup scoringConfigGroup, ControllerConfigGroup controllerConfigGroup, Population population) {
+		this.population = population;
 		if (scoringConfigGroup.getFractionOfIterationsToStartScoreMSA()!=null ) {
 			final int diff = controllerConfigGroup.getLastIteration() - controllerConfigGroup.getFirstIteration();
 			this.scoreMSAstartsAtIteration = (int) (diff
@@ -56,6 +64,42 @@ class NewScoreAssignerImpl implements NewScoreAssigner {
 		explainScores = scoringConfigGroup.isWriteScoreExplanations();
 	}
 
+	/**
+	 * Writes the number of MSA contributions per plan, with the plans identified by person and position in the plans of the person.
+	 */
+	@Override
+	public void writeCheckpoint(DataOutput out) throws IOException {
+		List<Person> persons = new ArrayList<>();
+		List<int[]> contributions = new ArrayList<>();
+		for (Person person : this.population.getPersons().values()) {
+			List<? extends Plan> plans = person.getPlans();
+			for (int i = 0; i < plans.size(); i++) {
+				Integer msaContribs = this.msaContributions.get(plans.get(i));
+				if (msaContribs != null) {
+					persons.add(person);
+					contributions.add(new int[] {i, msaContribs});
+				}
+			}
+		}
+		out.writeInt(persons.size());
+		for (int i = 0; i < persons.size(); i++) {
+			out.writeUTF(persons.get(i).getId().toString());
+			out.writeInt(contributions.get(i)[0]);
+			out.writeInt(contributions.get(i)[1]);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInput in, int iteration) throws IOException {
+		this.msaContributions.clear();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			Person person = this.population.getPersons().get(Id.createPersonId(in.readUTF()));
+			Plan plan = person.getPlans().get(in.readInt());
+			this.msaContributions.put(plan, in.readInt());
+		}
+	}
+
 	public void assignNewScores(int iteration, ScoringFunctionsForPopulation scoringFunctionsForPopulation, Population population) {
 		log.info("it: " + iteration + " msaStart: " + this.scoreMSAstartsAtIteration );
 
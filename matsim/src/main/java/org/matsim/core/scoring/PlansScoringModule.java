@@ -33,5 +33,6 @@ public final class PlansScoringModule extends AbstractModule {
 		bind(PlansScoring.class).to(PlansScoringImpl.class);
 		bind(ExperiencedPlansService.class).to(ExperiencedPlansServiceImpl.class).asEagerSingleton();
 		bind(NewScoreAssigner.class).to(NewScoreAssignerImpl.class).asEagerSingleton();
+		addCheckpointableBinding("scoring").to(NewScoreAssigner.class);
 	}
 }
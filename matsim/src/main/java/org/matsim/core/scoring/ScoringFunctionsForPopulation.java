@@ -63,8 +63,11 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
@@ -73,6 +76,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p>
+ * If more than one scoring thread is configured (see {@link org.matsim.core.config.groups.ScoringConfigGroup#getNumberOfScoringThreads()}),
+ * the persons are partitioned among scoring workers by the index of their id. The events are still converted into legs, activities
+ * and trips on the events handling thread, but all calls to the scoring function of a person are passed on to the worker of that
+ * person, in the same order as without workers. The scores are thus the same, but scoring functions of different persons are
+ * called concurrently, so they must not share mutable state.
  *
  * @author michaz
  *
@@ -92,6 +101,9 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
 
+	private final int numberOfThreads;
+	private ScoringWorker[] workers = null;
+
 	@Inject
 	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory, Config config) {
@@ -109,6 +121,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		this.legsDelegate = eventsToLegs;
 		this.actsDelegate = eventsToActivities;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		this.numberOfThreads = config.scoring().getNumberOfScoringThreads();
 
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this::handleActivity);
@@ -121,6 +134,34 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
 		}
+		this.exception.set(null);
+		if (this.numberOfThreads > 0) {
+			stopWorkers();
+			this.workers = new ScoringWorker[this.numberOfThreads];
+			for (int i = 0; i < this.numberOfThreads; i++) {
+				this.workers[i] = new ScoringWorker("ScoringThread_" + i);
+			}
+		}
+	}
+
+	/**
+	 * Runs the task on the worker responsible for the person, or directly if there are no workers.
+	 */
+	private void runForPerson(Id<Person> personId, Runnable task) {
+		if (this.workers == null) {
+			task.run();
+		} else {
+			this.workers[personId.index() % this.workers.length].add(task);
+		}
+	}
+
+	private void stopWorkers() {
+		if (this.workers != null) {
+			for (ScoringWorker worker : this.workers) {
+				worker.finish();
+			}
+			this.workers = null;
+		}
 	}
 
 	@Override
@@ -129,19 +170,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
 		// are NOT passed on, for performance reasons. kai/dominik, dec'12
 		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
+			Id<Person> personId = ((HasPersonId) o).getPersonId();
+			ScoringFunction scoringFunction = getScoringFunctionForAgent(personId);
 			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} else if (o instanceof PersonScoreEvent) {
-					scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
-				}
-				scoringFunction.handleEvent(o);
-				// passing this on in any case, see comment above.  kai, mar'17
+				runForPerson(personId, () -> handlePersonEvent(scoringFunction, o));
 			}
 		}
 
@@ -167,7 +199,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 			// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 			if (scoringFunction != null) {
-				scoringFunction.handleEvent(o);
+				runForPerson(driverId, () -> scoringFunction.handleEvent(o));
 			}
 		}
 
@@ -192,10 +224,25 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		if (o instanceof VehicleLeavesTrafficEvent) this.legsDelegate.handleEvent((VehicleLeavesTrafficEvent) o);
 	}
 
+	private static void handlePersonEvent(ScoringFunction scoringFunction, Event o) {
+		if (o instanceof PersonStuckEvent) {
+			scoringFunction.agentStuck(o.getTime());
+		} else if (o instanceof PersonMoneyEvent) {
+			scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+			// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+			// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+		} else if (o instanceof PersonScoreEvent) {
+			scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
+		}
+		scoringFunction.handleEvent(o);
+		// passing this on in any case, see comment above.  kai, mar'17
+	}
+
 	private void handleActivityStart(ActivityStartEvent event) {
 		this.actsDelegate.handleEvent(event);
 		if (!StageActivityTypeIdentifier.isStageActivity( event.getActType() ) ) {
-			this.callTripScoring(event);
+			// the trip record of the person is only accessed by its worker
+			runForPerson(event.getPersonId(), () -> this.callTripScoring(event));
 		}
 	}
 
@@ -225,6 +272,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void handleLeg(PersonExperiencedLeg o) {
+		runForPerson(o.getAgentId(), () -> scoreLeg(o));
+	}
+
+	private void scoreLeg(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -240,6 +291,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void handleActivity(PersonExperiencedActivity o) {
+		runForPerson(o.getAgentId(), () -> scoreActivity(o));
+	}
+
+	private void scoreActivity(PersonExperiencedActivity o) {
 		Id<Person> agentId = o.getAgentId();
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
@@ -270,6 +325,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void finishScoringFunctions() {
+		boolean finishedByWorkers = this.workers != null;
+		if (finishedByWorkers) {
+			for (Entry<Id<Person>, ScoringFunction> entry : this.agentScorers.entrySet()) {
+				ScoringFunction sf = entry.getValue();
+				runForPerson(entry.getKey(), sf::finish);
+			}
+			stopWorkers();
+		}
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -279,8 +342,10 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 				throw new RuntimeException(throwable);
 			}
 		}
-		for (ScoringFunction sf : this.agentScorers.values()) {
-			sf.finish();
+		if (!finishedByWorkers) {
+			for (ScoringFunction sf : this.agentScorers.values()) {
+				sf.finish();
+			}
 		}
 		for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
 			entry.getValue().add(this.getScoringFunctionForAgent(entry.getKey()).getScore());
@@ -309,4 +374,81 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		this.actsDelegate.reset(iteration);
 	}
 
+	/**
+	 * Calls the scoring functions of a part of the population from its own thread. Tasks are handed over in batches to keep
+	 * the synchronization overhead low.
+	 */
+	private final class ScoringWorker implements Runnable {
+		private static final int BATCH_SIZE = 1024;
+		private static final int QUEUE_CAPACITY = 64;
+		private static final List<Runnable> LAST_BATCH = new ArrayList<>();
+
+		private final BlockingQueue<List<Runnable>> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+		private final Thread thread;
+		private List<Runnable> batch = new ArrayList<>(BATCH_SIZE);
+
+		ScoringWorker(String name) {
+			this.thread = new Thread(this, name);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		void add(Runnable task) {
+			this.batch.add(task);
+			if (this.batch.size() >= BATCH_SIZE) {
+				put(this.batch);
+				this.batch = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+
+		void finish() {
+			if (!this.batch.isEmpty()) {
+				put(this.batch);
+				this.batch = new ArrayList<>(BATCH_SIZE);
+			}
+			put(LAST_BATCH);
+			try {
+				this.thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		private void put(List<Runnable> tasks) {
+			try {
+				this.queue.put(tasks);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<Runnable> tasks;
+				while ((tasks = this.queue.take()) != LAST_BATCH) {
+					for (Runnable task : tasks) {
+						task.run();
+					}
+				}
+			} catch (Throwable e) {
+				// the exception is rethrown when finishing the scoring functions
+				exception.compareAndSet(null, e);
+				if (!(e instanceof InterruptedException)) {
+					// keep on draining the queue so the events handling thread is not blocked
+					drain();
+				}
+			}
+		}
+
+		private void drain() {
+			try {
+				while (this.queue.take() != LAST_BATCH) {
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 }
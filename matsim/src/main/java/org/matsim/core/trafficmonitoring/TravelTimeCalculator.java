@@ -42,6 +42,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
@@ -50,7 +51,11 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -68,7 +73,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler,
 									     VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler,
-									     VehicleAbortsEventHandler {
+									     VehicleAbortsEventHandler, Checkpointable {
 	private static final Logger log = LogManager.getLogger(TravelTimeCalculator.class);
 
 	private static final String ERROR_STUCK_AND_LINKTOLINK = "Using the stuck feature with turning move travel times is not available. As the next link of a stucked" +
@@ -83,9 +88,12 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private Map<Tuple<Id<Link>, Id<Link>>, TravelTimeDataArray> linkToLinkData;
 
-	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
+	/* Time and link (index) of the last link enter event of each vehicle, stored by the index of the vehicle id.
+	 * Primitive arrays avoid a map lookup and keeping the event object for every link traversal. */
+	private double[] linkEnterTimes = new double[0];
+	private int[] linkEnterLinks = new int[0];
 
-	private final Set<Id<Vehicle>> vehiclesToIgnore;
+	private final BitSet vehiclesToIgnore;
 	private final Set<String> analyzedModes;
 
 	private final boolean filterAnalyzedModes;
@@ -222,11 +230,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
-
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.vehiclesToIgnore = new BitSet();
 
 		this.reset(0);
 	}
@@ -235,13 +241,17 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	public void handleEvent(final LinkEnterEvent e) {
 		/* if only some modes are analyzed, we check whether the vehicles
 		 * performs a trip with one of those modes. if not, we skip the event. */
-		if (filterAnalyzedModes && vehiclesToIgnore.contains(e.getVehicleId())) return;
-
-		LinkEnterEvent oldEvent = this.linkEnterEvents.put(e.getVehicleId(), e);
-		if ((oldEvent != null) && this.calculateLinkToLinkTravelTimes) {
-			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldEvent.getLinkId(), e.getLinkId());
+		int vehicleIndex = e.getVehicleId().index();
+		if (filterAnalyzedModes && vehiclesToIgnore.get(vehicleIndex)) return;
+
+		ensureVehicleCapacity(vehicleIndex);
+		double enterTime = this.linkEnterTimes[vehicleIndex];
+		int enterLinkIndex = this.linkEnterLinks[vehicleIndex];
+		this.linkEnterTimes[vehicleIndex] = e.getTime();
+		this.linkEnterLinks[vehicleIndex] = e.getLinkId().index();
+		if (!Double.isNaN(enterTime) && this.calculateLinkToLinkTravelTimes) {
+			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(Id.get(enterLinkIndex, Link.class), e.getLinkId());
 			TravelTimeData data = getLinkToLinkTravelTimeData(fromToLink );
-			double enterTime = oldEvent.getTime();
 
 			final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
 			data.addTravelTime(timeSlot, e.getTime() - enterTime );
@@ -252,10 +262,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
 		if (this.calculateLinkTravelTimes) {
-			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
-			if (oldEvent != null) {
+			double enterTime = getLinkEnterTime(e.getVehicleId().index());
+			if (!Double.isNaN(enterTime)) {
 				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
-				double enterTime = oldEvent.getTime();
 
 				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
 				data.addTravelTime(timeSlot, e.getTime() - enterTime );
@@ -270,7 +279,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		 * starts a leg on a non analyzed transport mode, add the vehicle
 		 * to the filtered vehicles set. */
 		if (filterAnalyzedModes && !analyzedModes.contains(event.getNetworkMode())) {
-			this.vehiclesToIgnore.add(event.getVehicleId());
+			this.vehiclesToIgnore.set(event.getVehicleId().index());
 		}
 	}
 
@@ -279,10 +288,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a vehicle arrives.
 		 * otherwise, the activity duration would be counted as travel time, when the
 		 * vehicle departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		removeLinkEnter(event.getVehicleId().index());
 
 		// try to remove vehicles from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
+		if (filterAnalyzedModes) this.vehiclesToIgnore.clear(event.getVehicleId().index());
 	}
 
 	@Override
@@ -290,14 +299,15 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a bus stops on a link.
 		 * otherwise, the stop time would be counted as travel time, when the
 		 * bus departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		removeLinkEnter(event.getVehicleId().index());
 	}
 
 	@Override
 	public void handleEvent(VehicleAbortsEvent event) {
-		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
-		if (e != null) {
-			TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
+		int vehicleIndex = event.getVehicleId().index();
+		if (!Double.isNaN(getLinkEnterTime(vehicleIndex))) {
+			removeLinkEnter(vehicleIndex);
+			TravelTimeData data = this.getTravelTimeData(Id.get(this.linkEnterLinks[vehicleIndex], Link.class), true);
 			data.setNeedsConsolidation( true );
 
 			//			this.aggregator.addStuckEventTravelTime(data, e.getTime(), event.getTime());
@@ -313,7 +323,30 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		}
 
 		// try to remove vehicle from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
+		if (filterAnalyzedModes) this.vehiclesToIgnore.clear(vehicleIndex);
+	}
+
+	private void ensureVehicleCapacity(int vehicleIndex) {
+		if (vehicleIndex >= this.linkEnterTimes.length) {
+			int oldLength = this.linkEnterTimes.length;
+			int newLength = Math.max(Math.max(vehicleIndex + 1, 2 * oldLength), Id.getNumberOfIds(Vehicle.class));
+			this.linkEnterTimes = Arrays.copyOf(this.linkEnterTimes, newLength);
+			this.linkEnterLinks = Arrays.copyOf(this.linkEnterLinks, newLength);
+			Arrays.fill(this.linkEnterTimes, oldLength, newLength, Double.NaN);
+		}
+	}
+
+	/**
+	 * @return the time the vehicle entered its current link, or <code>NaN</code> if it is not on a link.
+	 */
+	private double getLinkEnterTime(int vehicleIndex) {
+		return vehicleIndex < this.linkEnterTimes.length ? this.linkEnterTimes[vehicleIndex] : Double.NaN;
+	}
+
+	private void removeLinkEnter(int vehicleIndex) {
+		if (vehicleIndex < this.linkEnterTimes.length) {
+			this.linkEnterTimes[vehicleIndex] = Double.NaN;
+		}
 	}
 
 	private TravelTimeDataArray getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
@@ -377,10 +410,56 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 				data.setNeedsConsolidation( false );
 			}
 		}
-		this.linkEnterEvents.clear();
+		Arrays.fill(this.linkEnterTimes, Double.NaN);
 		this.vehiclesToIgnore.clear();
 	}
 
+	/**
+	 * Writes the travel times collected so far, such that {@link #readCheckpoint(DataInput, int)} of a calculator for the same
+	 * network and time bins restores exactly the same travel times.
+	 */
+	@Override
+	public void writeCheckpoint(final DataOutput out) throws IOException {
+		out.writeInt(this.numSlots);
+		if (this.calculateLinkTravelTimes) {
+			out.writeInt(this.linkData.size());
+			for (Map.Entry<Id<Link>, TravelTimeDataArray> e : this.linkData.entrySet()) {
+				out.writeUTF(e.getKey().toString());
+				e.getValue().writeCheckpoint(out);
+			}
+		} else {
+			out.writeInt(0);
+		}
+		if (this.calculateLinkToLinkTravelTimes) {
+			out.writeInt(this.linkToLinkData.size());
+			for (Map.Entry<Tuple<Id<Link>, Id<Link>>, TravelTimeDataArray> e : this.linkToLinkData.entrySet()) {
+				out.writeUTF(e.getKey().getFirst().toString());
+				out.writeUTF(e.getKey().getSecond().toString());
+				e.getValue().writeCheckpoint(out);
+			}
+		} else {
+			out.writeInt(0);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(final DataInput in, final int iteration) throws IOException {
+		int slots = in.readInt();
+		if (slots != this.numSlots) {
+			throw new IllegalArgumentException("The checkpoint has " + slots + " time bins, but the travel time calculator " + this.numSlots + ".");
+		}
+		int linkCount = in.readInt();
+		for (int i = 0; i < linkCount; i++) {
+			this.getTravelTimeData(Id.createLinkId(in.readUTF()), true).readCheckpoint(in);
+		}
+		int linkToLinkCount = in.readInt();
+		for (int i = 0; i < linkToLinkCount; i++) {
+			Id<Link> fromLinkId = Id.createLinkId(in.readUTF());
+			Id<Link> toLinkId = Id.createLinkId(in.readUTF());
+			this.getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId)).readCheckpoint(in);
+		}
+	}
+
 	/**
 	 * Makes sure that the travel times "make sense".
 	 * <p></p>
@@ -67,6 +67,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 				if (analyzedModes.contains(mode)) {
 					// generate and bind the observer:
 					bind(TravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new SingleModeTravelTimeCalculatorProvider(mode)).in(Singleton.class);
+					addCheckpointableBinding("travelTimes_" + mode).to(Key.get(TravelTimeCalculator.class, Names.named(mode)));
 
 					// bind the observer to travel time provider (for router):
 					addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
@@ -98,6 +99,7 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 			// bind the TravelTimeCalculator, which is the observer and aggregator:
 			bind(TravelTimeCalculator.class).in(Singleton.class);
+			addCheckpointableBinding("travelTimes").to(TravelTimeCalculator.class);
 
 			// bind the TravelTime objects.  In this case, this just passes on the same information from TravelTimeCalculator to each individual mode:
 			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
@@ -41,8 +41,24 @@ public final class AttributesImpl implements Attributes {
 	private static final String[] EMPTY_KEYS = new String[0];
 	private static final Object[] EMPTY_VALUES = new Object[0];
 
+	// The arrays are never modified in place, except for replacing a value.  Copies thus share the arrays, and only the
+	// values are copied before a value is replaced in a shared array.
 	private String[] keys = EMPTY_KEYS;
 	private Object[] values = EMPTY_VALUES;
+	private boolean valuesShared = false;
+
+	/**
+	 * Creates a copy with the same mappings.  The copy shares the internal arrays with this object until either of them
+	 * is modified.
+	 */
+	public AttributesImpl createCopyOnWrite() {
+		AttributesImpl copy = new AttributesImpl();
+		copy.keys = this.keys;
+		copy.values = this.values;
+		copy.valuesShared = true;
+		this.valuesShared = true;
+		return copy;
+	}
 
 	@Override
 	public String toString() {
@@ -61,6 +77,10 @@ public final class AttributesImpl implements Attributes {
 
 		if ( insertion >= 0 ) {
 			final Object prev = values[ insertion ];
+			if ( valuesShared ) {
+				values = values.clone();
+				valuesShared = false;
+			}
 			values[ insertion ] = value;
 			return prev;
 		}
@@ -77,6 +97,7 @@ public final class AttributesImpl implements Attributes {
 
 		keys[newIndex] = attribute;
 		values[newIndex] = value;
+		valuesShared = false;
 
 		return null;
 	}
@@ -96,13 +117,13 @@ public final class AttributesImpl implements Attributes {
 
 		final Object prev = values[ insertion ];
 
-		for ( int i=insertion; i < keys.length - 1; i++ ) {
-			keys[ i ] = keys[ i + 1 ];
-			values[ i ] = values[ i + 1 ];
-		}
-
-		keys = Arrays.copyOf( keys , keys.length - 1 );
-		values = Arrays.copyOf( values , values.length - 1 );
+		final String[] newKeys = Arrays.copyOf( keys , keys.length - 1 );
+		final Object[] newValues = Arrays.copyOf( values , values.length - 1 );
+		System.arraycopy( keys , insertion + 1 , newKeys , insertion , newKeys.length - insertion );
+		System.arraycopy( values , insertion + 1 , newValues , insertion , newValues.length - insertion );
+		keys = newKeys;
+		values = newValues;
+		valuesShared = false;
 
 		return prev;
 	}
@@ -110,6 +131,7 @@ public final class AttributesImpl implements Attributes {
 	public void clear() {
 		keys = EMPTY_KEYS;
 		values = EMPTY_VALUES;
+		valuesShared = false;
 	}
 
 	/**
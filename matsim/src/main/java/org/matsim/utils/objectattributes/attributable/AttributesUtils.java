@@ -38,6 +38,24 @@ public class AttributesUtils {
 		}
 	}
 
+	/**
+	 * Creates a copy of "from" which shares its mappings with "from" until either of them is modified, see
+	 * {@link AttributesImpl#createCopyOnWrite()}.
+	 *
+	 * @return the copy, or <code>null</code> if "from" is <code>null</code> or empty
+	 */
+	public static AttributesImpl createCopyOnWrite( Attributes from ) {
+		if ( from == null || from.isEmpty() ) {
+			return null;
+		}
+		if ( from instanceof AttributesImpl impl ) {
+			return impl.createCopyOnWrite();
+		}
+		AttributesImpl copy = new AttributesImpl();
+		copyTo( from , copy );
+		return copy;
+	}
+
 	/**
 	 * Adds the mappings from "from" to "to". Nothing is done to copy the Object
 	 * themselves, which should be fine for 99.9% of the usecases of Attributes
@@ -0,0 +1,98 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo.AgentState;
+
+/**
+ * Reads the snapshots written by {@link BinarySnapshotWriter} and passes them on to another {@link SnapshotWriter}, e.g. to
+ * convert them to the transims format.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class BinarySnapshotReader {
+
+	private static final AgentState[] AGENT_STATES = AgentState.values();
+
+	private final SnapshotWriter writer;
+
+	public BinarySnapshotReader(final SnapshotWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Reads all snapshots of the file.  {@link SnapshotWriter#finish()} is not called.
+	 */
+	public void readFile(final String filename) {
+		try (InputStream stream = IOUtils.getInputStream(IOUtils.getFileUrl(filename))) {
+			read(new DataInputStream(new BufferedInputStream(stream, 1 << 16)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void read(final DataInputStream in) throws IOException {
+		if (in.readInt() != BinarySnapshotWriter.MAGIC) {
+			throw new IllegalArgumentException("The file does not contain snapshots in the binary format.");
+		}
+		int version = in.readInt();
+		if (version != BinarySnapshotWriter.VERSION) {
+			throw new IllegalArgumentException("Unsupported version " + version + " of the binary snapshot format.");
+		}
+		List<Id<Person>> agents = new ArrayList<>();
+		while (true) {
+			double time;
+			try {
+				time = in.readDouble();
+			} catch (EOFException e) {
+				return;
+			}
+			this.writer.beginSnapshot(time);
+			int number;
+			while ((number = in.readInt()) != BinarySnapshotWriter.END_OF_SNAPSHOT) {
+				if (number == agents.size()) {
+					agents.add(Id.createPersonId(in.readUTF()));
+				}
+				PositionInfo.DirectBuilder builder = new PositionInfo.DirectBuilder()
+						.setPersonId(agents.get(number))
+						.setEasting(in.readDouble())
+						.setNorthing(in.readDouble())
+						.setColorValue(in.readFloat());
+				byte state = in.readByte();
+				this.writer.addAgent(builder.setAgentState(state < 0 ? null : AGENT_STATES[state]).build());
+			}
+			this.writer.endSnapshot();
+		}
+	}
+
+}
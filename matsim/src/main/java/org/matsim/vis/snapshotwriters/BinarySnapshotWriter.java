@@ -0,0 +1,123 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.IOUtils;
+
+/**
+ * Writes the positions of the agents in a compact binary format, as an alternative to the {@link TransimsSnapshotWriter}.
+ * The files can be read with {@link BinarySnapshotReader}.  As in the transims format, agents at activities are left out.
+ * <p>
+ * After a header, every snapshot consists of its time, followed by one record per agent and the end marker -1.  An agent
+ * record holds the number of the agent in the file, its easting, northing, color value and state.  The id of the agent
+ * is only written where its number appears for the first time.
+ *
+ * @author (of this class) the MATSim team
+ */
+public final class BinarySnapshotWriter implements SnapshotWriter {
+
+	static final int MAGIC = 0x4D534E50; // "MSNP"
+	static final int VERSION = 1;
+	static final int END_OF_SNAPSHOT = -1;
+
+	private final DataOutputStream out;
+	/** the number in the file plus one for every id index which was written already, 0 for new ones */
+	private int[] agentNumbers = new int[1024];
+	private int agentCount = 0;
+
+	public BinarySnapshotWriter(final String filename) {
+		this.out = new DataOutputStream(new BufferedOutputStream(IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false), 1 << 16));
+		try {
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void beginSnapshot(final double time) {
+		try {
+			this.out.writeDouble(time);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void endSnapshot() {
+		try {
+			this.out.writeInt(END_OF_SNAPSHOT);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void addAgent(final AgentSnapshotInfo position) {
+		if (position.getAgentState() == AgentSnapshotInfo.AgentState.PERSON_AT_ACTIVITY) {
+			return;
+		}
+		try {
+			writeAgent(position.getId());
+			this.out.writeDouble(position.getEasting());
+			this.out.writeDouble(position.getNorthing());
+			this.out.writeFloat((float) position.getColorValueBetweenZeroAndOne());
+			this.out.writeByte(position.getAgentState() == null ? -1 : position.getAgentState().ordinal());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writeAgent(final Id<Person> id) throws IOException {
+		int index = id.index();
+		if (index >= this.agentNumbers.length) {
+			this.agentNumbers = Arrays.copyOf(this.agentNumbers, Math.max(index + 1, 2 * this.agentNumbers.length));
+		}
+		int number = this.agentNumbers[index] - 1;
+		if (number >= 0) {
+			this.out.writeInt(number);
+		} else {
+			// a new agent gets the next number, followed by its id
+			this.out.writeInt(this.agentCount);
+			this.out.writeUTF(id.toString());
+			this.agentNumbers[index] = ++this.agentCount;
+		}
+	}
+
+	@Override
+	public void finish() {
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QueuedSnapshotWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes the snapshots on to another writer on a separate thread, such that writing and compressing the file does not hold
+ * up the mobsim.  At most {@link #MAX_QUEUED_SNAPSHOTS} snapshots are queued; if the writer cannot keep up, the mobsim
+ * waits until there is space again.
+ * <p>
+ * The thread is started with the first snapshot and ends with {@link #finish()}, which must thus also be called if the
+ * mobsim is aborted.  If the other writer fails, the next call to {@link #endSnapshot()} or {@link #finish()} throws.
+ * <p>
+ * Only writers which do not interact with the mobsim, e.g. which do not throw events, may be wrapped like this.
+ *
+ * @author (of this class) the MATSim team
+ */
+final class QueuedSnapshotWriter implements SnapshotWriter {
+
+	private static final int MAX_QUEUED_SNAPSHOTS = 16;
+
+	private record Snapshot(double time, List<AgentSnapshotInfo> positions) {
+	}
+
+	private static final Snapshot END = new Snapshot(Double.NaN, List.of());
+
+	private final BlockingQueue<Snapshot> queue = new ArrayBlockingQueue<>(MAX_QUEUED_SNAPSHOTS);
+	private final SnapshotWriter delegate;
+	private Thread thread = null;
+	private volatile RuntimeException exception = null;
+
+	private double time;
+	private List<AgentSnapshotInfo> positions = new ArrayList<>();
+
+	QueuedSnapshotWriter(final SnapshotWriter delegate) {
+		this.delegate = delegate;
+	}
+
+	private void write(final SnapshotWriter delegate) {
+		try {
+			Snapshot snapshot;
+			while ((snapshot = this.queue.take()) != END) {
+				// after a failure, the remaining snapshots are only taken from the queue so that the mobsim does not block
+				if (this.exception == null) {
+					try {
+						delegate.beginSnapshot(snapshot.time);
+						for (AgentSnapshotInfo position : snapshot.positions) {
+							delegate.addAgent(position);
+						}
+						delegate.endSnapshot();
+					} catch (RuntimeException e) {
+						this.exception = e;
+					}
+				}
+			}
+			delegate.finish();
+		} catch (InterruptedException e) {
+			this.exception = new RuntimeException(e);
+		} catch (RuntimeException e) {
+			if (this.exception == null) {
+				this.exception = e;
+			}
+		}
+	}
+
+	@Override
+	public void beginSnapshot(final double time) {
+		this.time = time;
+	}
+
+	@Override
+	public void addAgent(final AgentSnapshotInfo position) {
+		this.positions.add(position);
+	}
+
+	@Override
+	public void endSnapshot() {
+		checkException();
+		if (this.thread == null) {
+			this.thread = new Thread(() -> write(this.delegate), "QueuedSnapshotWriter_" + this.delegate.getClass().getSimpleName());
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+		put(new Snapshot(this.time, this.positions));
+		this.positions = new ArrayList<>();
+	}
+
+	@Override
+	public void finish() {
+		if (this.thread == null) {
+			// no snapshot was written, so there is nothing to wait for
+			this.delegate.finish();
+			return;
+		}
+		try {
+			put(END);
+			this.thread.join();
+		} catch (InterruptedException e) {
+			this.thread.interrupt();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		checkException();
+	}
+
+	private void put(final Snapshot snapshot) {
+		try {
+			while (!this.queue.offer(snapshot, 1, TimeUnit.SECONDS)) {
+				if (!this.thread.isAlive()) {
+					checkException();
+					throw new IllegalStateException("The thread writing the snapshots ended unexpectedly.");
+				}
+			}
+		} catch (InterruptedException e) {
+			this.thread.interrupt();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void checkException() {
+		if (this.exception != null) {
+			throw new RuntimeException("Writing the snapshots failed.", this.exception);
+		}
+	}
+
+}
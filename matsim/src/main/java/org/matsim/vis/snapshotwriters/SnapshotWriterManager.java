@@ -33,11 +33,23 @@ import org.matsim.core.mobsim.framework.listeners.MobsimInitializedListener;
 import org.matsim.core.mobsim.qsim.interfaces.Netsim;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the positions of the agents on the network every snapshot period and passes them on to the snapshot writers.
+ * <p>
+ * With several threads, the links are split into contiguous partitions, and the positions of each partition are computed
+ * on its own thread while the mobsim waits after the time step.  The writers receive the positions in the order of the
+ * links, independent of the number of threads.
+ */
 public class SnapshotWriterManager implements MobsimBeforeCleanupListener, MobsimAfterSimStepListener, MobsimInitializedListener {
 
 	private static final Logger log = LogManager.getLogger(SnapshotWriterManager.class);
@@ -45,6 +57,13 @@ public class SnapshotWriterManager implements MobsimBeforeCleanupListener, Mobsi
 	private final List<SnapshotWriter> snapshotWriters = new ArrayList<>();
 	private final QSimConfigGroup.FilterSnapshots filterSnapshots;
 	private final int snapshotPeriod;
+	private final int numberOfThreads;
+
+	/** partitions with fewer links are not worth the synchronization */
+	private static final int MIN_LINKS_PER_PARTITION = 256;
+
+	private List<VisLink> snapshotLinks = null;
+	private ExecutorService pool = null;
 
 	/**
 	 * time since last snapshot
@@ -52,8 +71,16 @@ public class SnapshotWriterManager implements MobsimBeforeCleanupListener, Mobsi
 	private double snapshotTime = 0.0;
 
 	public SnapshotWriterManager(int snapshotPeriod, QSimConfigGroup.FilterSnapshots filterSnapshots) {
+		this(snapshotPeriod, filterSnapshots, 1);
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads on which the positions are computed, e.g. the number of threads of the qsim
+	 */
+	public SnapshotWriterManager(int snapshotPeriod, QSimConfigGroup.FilterSnapshots filterSnapshots, int numberOfThreads) {
 		this.snapshotPeriod = snapshotPeriod;
 		this.filterSnapshots = filterSnapshots;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
 	}
 
 	@Override
@@ -69,12 +96,31 @@ public class SnapshotWriterManager implements MobsimBeforeCleanupListener, Mobsi
 
 	@Override
 	public void notifyMobsimBeforeCleanup(MobsimBeforeCleanupEvent e) {
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+		}
 		closeSnapshotWriters();
 	}
 
+	/**
+	 * Finishes all writers, also if one of them fails, e.g. after the mobsim was aborted, so that no writer keeps its thread or file open.
+	 */
 	private void closeSnapshotWriters() {
+		RuntimeException exception = null;
 		for (SnapshotWriter writer : this.snapshotWriters) {
-			writer.finish();
+			try {
+				writer.finish();
+			} catch (RuntimeException e) {
+				if (exception == null) {
+					exception = e;
+				} else {
+					exception.addSuppressed(e);
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
 		}
 	}
 
@@ -89,29 +135,72 @@ public class SnapshotWriterManager implements MobsimBeforeCleanupListener, Mobsi
 
 	private void doSnapshot(final double time, VisMobsim visMobsim) {
 		if (!this.snapshotWriters.isEmpty()) {
-
-			// This could be parallel since mihal has fixed some concurrency issues in the SnapshotInfoBuilder
-			// I think mainly by using separate builders for each generated AgentPositionInfo.
-			// I don't have time to test this right now, but if this ever appears to be a bottle neck, this probably
-			// can be replaced by a parallel stream. janek: oct' 2021
-			var positions = visMobsim.getVisNetwork().getVisLinks().values().stream()
-					.filter(visLink -> isGenerateSnapshot(visLink.getLink()))
-					.flatMap(visLink -> visLink.getVisData().addAgentSnapshotInfo(new HashSet<>()).stream())
-					.collect(Collectors.toSet());
+			if (this.snapshotLinks == null) {
+				this.snapshotLinks = new ArrayList<>();
+				for (VisLink visLink : visMobsim.getVisNetwork().getVisLinks().values()) {
+					if (isGenerateSnapshot(visLink.getLink())) {
+						this.snapshotLinks.add(visLink);
+					}
+				}
+			}
+			List<Collection<AgentSnapshotInfo>> partitions = collectPositions();
 
 			// We do not put non-network agents in movies.
 			// Otherwise, we would add snapshots from visMobsim.getNonNetworkAgentSnapshots() here.
 
 			for (SnapshotWriter writer : this.snapshotWriters) {
 				writer.beginSnapshot(time);
-				for (AgentSnapshotInfo position : positions) {
-					writer.addAgent(position);
+				for (Collection<AgentSnapshotInfo> positions : partitions) {
+					for (AgentSnapshotInfo position : positions) {
+						writer.addAgent(position);
+					}
 				}
 				writer.endSnapshot();
 			}
 		}
 	}
 
+	private List<Collection<AgentSnapshotInfo>> collectPositions() {
+		int numberOfPartitions = Math.max(1, Math.min(this.numberOfThreads, this.snapshotLinks.size() / MIN_LINKS_PER_PARTITION));
+		if (numberOfPartitions == 1) {
+			return List.of(collectPositions(this.snapshotLinks));
+		}
+		if (this.pool == null) {
+			AtomicInteger count = new AtomicInteger();
+			this.pool = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+				Thread thread = new Thread(r, "SnapshotWriterManager_PooledThread_" + count.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		List<Callable<Collection<AgentSnapshotInfo>>> tasks = new ArrayList<>(numberOfPartitions);
+		for (int i = 0; i < numberOfPartitions; i++) {
+			List<VisLink> links = this.snapshotLinks.subList(
+					(int) ((long) this.snapshotLinks.size() * i / numberOfPartitions),
+					(int) ((long) this.snapshotLinks.size() * (i + 1) / numberOfPartitions));
+			tasks.add(() -> collectPositions(links));
+		}
+		List<Collection<AgentSnapshotInfo>> partitions = new ArrayList<>(numberOfPartitions);
+		try {
+			for (Future<Collection<AgentSnapshotInfo>> future : this.pool.invokeAll(tasks)) {
+				partitions.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return partitions;
+	}
+
+	private static Collection<AgentSnapshotInfo> collectPositions(List<VisLink> links) {
+		Collection<AgentSnapshotInfo> positions = new ArrayList<>();
+		for (VisLink visLink : links) {
+			positions = visLink.getVisData().addAgentSnapshotInfo(positions);
+		}
+		return positions;
+	}
+
 	public final void addSnapshotWriter(SnapshotWriter snapshotWriter) {
 		this.snapshotWriters.add(snapshotWriter);
 	}
@@ -40,7 +40,7 @@ class TransimsSnapshotWriterFactory implements Provider<SnapshotWriter> {
 	@Override
 	public SnapshotWriter get() {
 		String fileName = controlerIO.getIterationFilename(iteration, "T.veh.gz");
-		return new TransimsSnapshotWriter(fileName);
+		return new QueuedSnapshotWriter(new TransimsSnapshotWriter(fileName));
 	}
 
 }
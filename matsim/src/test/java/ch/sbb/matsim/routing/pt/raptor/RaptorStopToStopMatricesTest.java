@@ -0,0 +1,169 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorCore.TravelInfo;
+
+public class RaptorStopToStopMatricesTest {
+
+	@Test
+	void testSingleDepartureTime() {
+		Fixture f = new Fixture();
+		f.init();
+		SwissRailRaptorData data = createData(f);
+		RaptorParameters parameters = RaptorUtils.createParameters(f.config);
+		SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.config).build();
+		List<TransitStopFacility> originStops = getOriginStops(data);
+
+		double depTime = 7 * 3600 + 40 * 60;
+		RaptorStopToStopMatrices matrices = RaptorStopToStopMatrices.calculate(data, originStops, depTime, depTime, parameters, 3);
+
+		Assertions.assertEquals(originStops.size(), matrices.getOriginCount());
+		Assertions.assertEquals(data.countStops, matrices.getDestinationCount());
+		for (int origin = 0; origin < matrices.getOriginCount(); origin++) {
+			Map<Id<TransitStopFacility>, TravelInfo> tree = raptor.calcTree(matrices.getOriginStop(origin), depTime, parameters, null);
+			Assertions.assertEquals(1, matrices.getDepartureCount(origin));
+			for (int destination = 0; destination < matrices.getDestinationCount(); destination++) {
+				TravelInfo info = tree.get(matrices.getDestinationStop(destination).getId());
+				if (info == null) {
+					Assertions.assertEquals(0, matrices.getConnectionCount(origin, destination));
+					Assertions.assertEquals(Float.POSITIVE_INFINITY, matrices.getTravelTime(origin, destination));
+					Assertions.assertEquals(-1, matrices.getTransferCount(origin, destination));
+				} else {
+					Assertions.assertEquals(1, matrices.getConnectionCount(origin, destination));
+					Assertions.assertEquals(info.ptArrivalTime - depTime, matrices.getTravelTime(origin, destination), 1e-3);
+					Assertions.assertEquals(info.travelCost, matrices.getTravelCost(origin, destination), 1e-3);
+					Assertions.assertEquals(info.transferCount, matrices.getTransferCount(origin, destination));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testDepartureTimeWindow() {
+		Fixture f = new Fixture();
+		f.init();
+		SwissRailRaptorData data = createData(f);
+		RaptorParameters parameters = RaptorUtils.createParameters(f.config);
+		SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.config).build();
+		List<TransitStopFacility> originStops = getOriginStops(data);
+
+		double earliest = 7 * 3600;
+		double latest = 8 * 3600;
+		RaptorStopToStopMatrices single = RaptorStopToStopMatrices.calculate(data, originStops, earliest, latest, parameters, 1);
+		RaptorStopToStopMatrices parallel = RaptorStopToStopMatrices.calculate(data, originStops, earliest, latest, parameters, 4);
+		Assertions.assertFalse(parameters.isExactDeparturesOnly(), "the parameters must not be changed");
+
+		int reachedWithSeveralDepartures = 0;
+		for (int origin = 0; origin < single.getOriginCount(); origin++) {
+			TransitStopFacility originStop = single.getOriginStop(origin);
+			double[] departureTimes = data.getDepartureTimes(originStop, earliest, latest);
+			Assertions.assertEquals(departureTimes.length, single.getDepartureCount(origin));
+
+			// the same trees, calculated one by one
+			List<Map<Id<TransitStopFacility>, TravelInfo>> trees = new ArrayList<>();
+			parameters.setExactDeparturesOnly(true);
+			for (double departureTime : departureTimes) {
+				trees.add(raptor.calcTree(originStop, departureTime, parameters, null));
+			}
+			parameters.setExactDeparturesOnly(false);
+
+			for (int destination = 0; destination < single.getDestinationCount(); destination++) {
+				int count = 0;
+				double travelTime = 0;
+				for (int i = 0; i < departureTimes.length; i++) {
+					TravelInfo info = trees.get(i).get(single.getDestinationStop(destination).getId());
+					if (info != null) {
+						count++;
+						travelTime += info.ptArrivalTime - departureTimes[i];
+					}
+				}
+				Assertions.assertEquals(count, single.getConnectionCount(origin, destination));
+				if (count > 0) {
+					Assertions.assertEquals(travelTime / count, single.getTravelTime(origin, destination), 1e-2);
+				}
+				if (count > 1) {
+					reachedWithSeveralDepartures++;
+				}
+
+				Assertions.assertEquals(single.getConnectionCount(origin, destination), parallel.getConnectionCount(origin, destination));
+				Assertions.assertEquals(single.getTravelTime(origin, destination), parallel.getTravelTime(origin, destination));
+				Assertions.assertEquals(single.getTravelCost(origin, destination), parallel.getTravelCost(origin, destination));
+				Assertions.assertEquals(single.getTransferCount(origin, destination), parallel.getTransferCount(origin, destination));
+			}
+		}
+		Assertions.assertTrue(reachedWithSeveralDepartures > 0);
+	}
+
+	@Test
+	void testCostCalculators() {
+		Fixture f = new Fixture();
+		f.init();
+		SwissRailRaptorData data = createData(f);
+		RaptorParameters parameters = RaptorUtils.createParameters(f.config);
+		RaptorInVehicleCostCalculator inVehicleCostCalculator = (inVehicleTime, marginalUtility_utl_s, person, vehicle, paramters, iterator) ->
+				-2 * inVehicleTime * marginalUtility_utl_s;
+		SwissRailRaptor raptor = new SwissRailRaptor.Builder(data, f.config).with(inVehicleCostCalculator).build();
+		List<TransitStopFacility> originStops = getOriginStops(data);
+
+		double depTime = 7 * 3600 + 40 * 60;
+		RaptorStopToStopMatrices defaults = RaptorStopToStopMatrices.calculate(data, originStops, depTime, depTime, parameters, 2);
+		RaptorStopToStopMatrices matrices = RaptorStopToStopMatrices.calculate(data, originStops, depTime, depTime, parameters,
+				inVehicleCostCalculator, new DefaultRaptorTransferCostCalculator(), 2);
+
+		int moreExpensive = 0;
+		for (int origin = 0; origin < matrices.getOriginCount(); origin++) {
+			Map<Id<TransitStopFacility>, TravelInfo> tree = raptor.calcTree(matrices.getOriginStop(origin), depTime, parameters, null);
+			for (int destination = 0; destination < matrices.getDestinationCount(); destination++) {
+				TravelInfo info = tree.get(matrices.getDestinationStop(destination).getId());
+				if (info != null) {
+					Assertions.assertEquals(info.travelCost, matrices.getTravelCost(origin, destination), 1e-3);
+					if (matrices.getTravelCost(origin, destination) > defaults.getTravelCost(origin, destination) + 1e-3) {
+						moreExpensive++;
+					}
+				}
+			}
+		}
+		Assertions.assertTrue(moreExpensive > 0, "the in-vehicle cost calculator must be used");
+	}
+
+	private static SwissRailRaptorData createData(Fixture f) {
+		RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+		config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+		return SwissRailRaptorData.create(f.schedule, null, config, f.network, null);
+	}
+
+	private static List<TransitStopFacility> getOriginStops(SwissRailRaptorData data) {
+		List<TransitStopFacility> originStops = new ArrayList<>(List.of(data.stopFacilities));
+		originStops.sort((a, b) -> a.getId().compareTo(b.getId()));
+		return originStops;
+	}
+
+}
@@ -0,0 +1,155 @@
+/* *********************************************************************** *
+ * project: org.matsim.* 												   *
+ *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package ch.sbb.matsim.routing.pt.raptor;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorCore.TravelInfo;
+
+public class RaptorZoneToZoneMatricesTest {
+
+	@Test
+	void testMatrices() {
+		Fixture f = new Fixture();
+		f.init();
+		RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+		config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, config, f.network, null);
+		RaptorParameters parameters = RaptorUtils.createParameters(f.config);
+
+		Map<String, Coord> zones = new LinkedHashMap<>();
+		for (String stopId : new String[] { "0", "6", "12", "18", "23" }) {
+			Coord stopCoord = f.schedule.getFacilities().get(Id.create(stopId, TransitStopFacility.class)).getCoord();
+			zones.put("zone" + stopId, new Coord(stopCoord.getX() + 30, stopCoord.getY() - 40));
+		}
+
+		double earliest = 7 * 3600;
+		double latest = 8 * 3600;
+		RaptorZoneToZoneMatrices<String> single = RaptorZoneToZoneMatrices.calculate(data, zones, earliest, latest, 900, parameters, 1);
+		RaptorZoneToZoneMatrices<String> parallel = RaptorZoneToZoneMatrices.calculate(data, zones, earliest, latest, 900, parameters, 3);
+
+		Assertions.assertEquals(5, single.getDepartureTimeCount());
+		Assertions.assertEquals(latest, single.getDepartureTime(4), 0.0);
+		for (int departure = 0; departure < single.getDepartureTimeCount(); departure++) {
+			Assertions.assertArrayEquals(single.getTravelTimes(departure), parallel.getTravelTimes(departure));
+			Assertions.assertArrayEquals(single.getTravelCosts(departure), parallel.getTravelCosts(departure));
+		}
+
+		// compare with one tree per origin and departure time
+		SwissRailRaptorCore raptor = new SwissRailRaptorCore(data, new DefaultRaptorInVehicleCostCalculator(), new DefaultRaptorTransferCostCalculator());
+		int connected = 0;
+		for (String origin : zones.keySet()) {
+			InitialStop[] accessStops = RaptorZoneToZoneMatrices.findStops(data, zones.get(origin), parameters);
+			for (int departure = 0; departure < single.getDepartureTimeCount(); departure++) {
+				double departureTime = single.getDepartureTime(departure);
+				Map<Id<TransitStopFacility>, TravelInfo> tree = raptor.calcLeastCostTree(departureTime, Arrays.asList(accessStops), parameters, null);
+				for (String destination : zones.keySet()) {
+					double bestArrival = Double.POSITIVE_INFINITY;
+					double bestCost = Double.POSITIVE_INFINITY;
+					for (InitialStop egressStop : RaptorZoneToZoneMatrices.findStops(data, zones.get(destination), parameters)) {
+						TravelInfo info = tree.get(egressStop.stop.getId());
+						if (info != null && hasPtLeg(info) && info.accessCost + info.travelCost + egressStop.accessCost < bestCost) {
+							bestArrival = info.ptArrivalTime + egressStop.accessTime;
+							bestCost = info.accessCost + info.travelCost + egressStop.accessCost;
+						}
+					}
+					int o = single.getZoneIndex(origin);
+					int d = single.getZoneIndex(destination);
+					if (bestArrival == Double.POSITIVE_INFINITY) {
+						Assertions.assertEquals(Float.POSITIVE_INFINITY, single.getTravelTime(departure, o, d));
+					} else {
+						connected++;
+						Assertions.assertEquals(bestArrival - departureTime, single.getTravelTime(departure, o, d), 1e-2);
+						Assertions.assertEquals(bestCost, single.getTravelCost(departure, o, d), 1e-3);
+					}
+				}
+			}
+		}
+		Assertions.assertTrue(connected > zones.size() * single.getDepartureTimeCount());
+
+		int o = single.getZoneIndex("zone23");
+		int d = single.getZoneIndex("zone0");
+		double walkTime = 50 / parameters.getBeelineWalkSpeed(); // to the stop and from the stop, each 50 meters
+		Assertions.assertTrue(Double.isFinite(single.getAverageTravelTime(o, d)));
+		Assertions.assertTrue(single.getAverageTravelTime(o, d) > 2 * walkTime);
+		// walking to the nearby stop and back is not a pt connection, and no line of the fixture leads back to the same stop
+		for (int zone = 0; zone < zones.size(); zone++) {
+			for (int departure = 0; departure < single.getDepartureTimeCount(); departure++) {
+				Assertions.assertEquals(Float.POSITIVE_INFINITY, single.getTravelTime(departure, zone, zone));
+				Assertions.assertEquals(Float.POSITIVE_INFINITY, single.getTravelCost(departure, zone, zone));
+			}
+		}
+		Assertions.assertEquals(-1, single.getZoneIndex("unknown"));
+	}
+
+	@Test
+	void testCostCalculators() {
+		Fixture f = new Fixture();
+		f.init();
+		RaptorStaticConfig config = RaptorUtils.createStaticConfig(f.config);
+		config.setOptimization(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, config, f.network, null);
+		RaptorParameters parameters = RaptorUtils.createParameters(f.config);
+
+		Map<String, Coord> zones = new LinkedHashMap<>();
+		for (String stopId : new String[] { "0", "12", "23" }) {
+			zones.put("zone" + stopId, f.schedule.getFacilities().get(Id.create(stopId, TransitStopFacility.class)).getCoord());
+		}
+		RaptorInVehicleCostCalculator inVehicleCostCalculator = (inVehicleTime, marginalUtility_utl_s, person, vehicle, paramters, iterator) ->
+				-2 * inVehicleTime * marginalUtility_utl_s;
+
+		double departureTime = 7 * 3600 + 40 * 60;
+		RaptorZoneToZoneMatrices<String> defaults = RaptorZoneToZoneMatrices.calculate(data, zones, departureTime, departureTime, 900, parameters, 2);
+		RaptorZoneToZoneMatrices<String> matrices = RaptorZoneToZoneMatrices.calculate(data, zones, departureTime, departureTime, 900, parameters,
+				inVehicleCostCalculator, new DefaultRaptorTransferCostCalculator(), 2);
+
+		int connected = 0;
+		for (int o = 0; o < zones.size(); o++) {
+			for (int d = 0; d < zones.size(); d++) {
+				if (Float.isFinite(defaults.getTravelCost(0, o, d))) {
+					connected++;
+					Assertions.assertTrue(matrices.getTravelCost(0, o, d) > defaults.getTravelCost(0, o, d), "the in-vehicle cost calculator must be used");
+				} else {
+					Assertions.assertEquals(Float.POSITIVE_INFINITY, matrices.getTravelCost(0, o, d));
+				}
+			}
+		}
+		Assertions.assertTrue(connected > 0);
+	}
+
+	private static boolean hasPtLeg(TravelInfo info) {
+		for (RaptorRoute.RoutePart part : info.getRaptorRoute().getParts()) {
+			if (part.line != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
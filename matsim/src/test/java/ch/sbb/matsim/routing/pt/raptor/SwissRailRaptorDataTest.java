@@ -19,16 +19,35 @@
  * *********************************************************************** */
 package ch.sbb.matsim.routing.pt.raptor;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
 
 /**
  * @author mrieser / SBB
  */
 public class SwissRailRaptorDataTest {
 
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
 	@Test
 	void testTransfersFromSchedule() {
         Fixture f = new Fixture();
@@ -97,4 +116,178 @@ public class SwissRailRaptorDataTest {
         Assertions.assertEquals(data2.transfers.length, data4.transfers.length, "number of transfers should have stayed the same.");
     }
 
+
+	@Test
+	void testTransferCache() throws IOException {
+		Fixture f = new Fixture();
+		f.init();
+
+		f.config.transitRouter().setMaxBeelineWalkConnectionDistance(100);
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		SwissRailRaptorData expected = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+
+		Path cacheDirectory = Path.of(this.utils.getOutputDirectory(), "transferCache");
+		raptorConfig.setTransferCacheDirectory(cacheDirectory.toString());
+		SwissRailRaptorData calculated = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		assertSameTransfers(expected, calculated);
+		File[] files = cacheDirectory.toFile().listFiles();
+		Assertions.assertEquals(1, files.length);
+
+		SwissRailRaptorData loaded = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		assertSameTransfers(expected, loaded);
+
+		// a changed schedule must not use the transfers of the old one
+		f.schedule.getMinimalTransferTimes().set(Id.create(19, TransitStopFacility.class), Id.create(9, TransitStopFacility.class), 345);
+		SwissRailRaptorData changed = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertEquals(expected.transfers.length + 1, changed.transfers.length);
+		Assertions.assertEquals(2, cacheDirectory.toFile().listFiles().length);
+
+		// a broken file is ignored and replaced
+		Files.write(files[0].toPath(), new byte[] {1, 2, 3});
+		f.schedule.getMinimalTransferTimes().remove(Id.create(19, TransitStopFacility.class), Id.create(9, TransitStopFacility.class));
+		SwissRailRaptorData recalculated = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		assertSameTransfers(expected, recalculated);
+		assertSameTransfers(expected, SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null));
+	}
+
+	@Test
+	void testStopIndices() {
+		Fixture f = new Fixture();
+		f.init();
+
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+
+		Assertions.assertEquals(data.countStops, data.stopFacilities.length);
+		Assertions.assertEquals(data.countStops + 1, data.indexFirstRouteStopPerStop.length);
+		Assertions.assertEquals(data.countRouteStops, data.indexFirstRouteStopPerStop[data.countStops]);
+		for (int stopIndex = 0; stopIndex < data.countStops; stopIndex++) {
+			TransitStopFacility stop = data.stopFacilities[stopIndex];
+			Assertions.assertEquals(stopIndex, data.getStopIndex(stop));
+			int previousRouteStop = -1;
+			for (int i = data.indexFirstRouteStopPerStop[stopIndex]; i < data.indexFirstRouteStopPerStop[stopIndex + 1]; i++) {
+				SwissRailRaptorData.RRouteStop routeStop = data.routeStops[data.routeStopsPerStop[i]];
+				Assertions.assertSame(stop, routeStop.routeStop.getStopFacility());
+				Assertions.assertEquals(stopIndex, routeStop.stopFacilityIndex);
+				Assertions.assertTrue(routeStop.index > previousRouteStop, "route stops must be in ascending order");
+				previousRouteStop = routeStop.index;
+			}
+		}
+
+		TransitStopFacility unservedStop = f.schedule.getFactory().createTransitStopFacility(Id.create("unserved", TransitStopFacility.class), new Coord(0, 0), false);
+		Assertions.assertEquals(-1, data.getStopIndex(unservedStop));
+		Assertions.assertEquals(0, data.getDepartureTimes(unservedStop, 0, 24 * 3600).length);
+	}
+
+	@Test
+	void testAdaptiveTransfersFromSchedule() {
+		Fixture f = new Fixture();
+		f.init();
+
+		f.config.transitRouter().setMaxBeelineWalkConnectionDistance(100);
+		Id<TransitStopFacility> stopId5 = Id.create(5, TransitStopFacility.class);
+		Id<TransitStopFacility> stopId9 = Id.create(9, TransitStopFacility.class);
+		Id<TransitStopFacility> stopId18 = Id.create(18, TransitStopFacility.class);
+		Id<TransitStopFacility> stopId19 = Id.create(19, TransitStopFacility.class);
+		f.schedule.getMinimalTransferTimes().set(stopId19, stopId9, 345);
+		f.schedule.getMinimalTransferTimes().set(stopId5, stopId18, 456);
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		raptorConfig.setTransferCalculation(RaptorStaticConfig.RaptorTransferCalculation.Adaptive);
+		SwissRailRaptorData data = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+
+		int found19to9 = 0;
+		int found5to18 = 0;
+		for (SwissRailRaptorData.RRouteStop fromRouteStop : data.routeStops) {
+			for (SwissRailRaptorData.RTransfer t : data.calculateTransfers(fromRouteStop)) {
+				Id<TransitStopFacility> fromStopId = fromRouteStop.routeStop.getStopFacility().getId();
+				Id<TransitStopFacility> toStopId = data.routeStops[t.toRouteStop].routeStop.getStopFacility().getId();
+				if (fromStopId.equals(stopId19) && toStopId.equals(stopId9)) {
+					Assertions.assertEquals(345, t.transferTime, "transfer has wrong transfer time.");
+					found19to9++;
+				}
+				if (fromStopId.equals(stopId5) && toStopId.equals(stopId18)) {
+					Assertions.assertEquals(456, t.transferTime, "transfer has wrong transfer time.");
+					found5to18++;
+				}
+			}
+		}
+		Assertions.assertTrue(found19to9 > 0, "did not find the transfer from the schedule");
+		Assertions.assertTrue(found5to18 > 0, "did not find the overwritten transfer");
+	}
+
+	@Test
+	void testUpdateAfterScheduleChange() {
+		Fixture f = new Fixture();
+		f.init();
+
+		f.config.transitRouter().setMaxBeelineWalkConnectionDistance(100);
+		RaptorStaticConfig raptorConfig = RaptorUtils.createStaticConfig(f.config);
+		SwissRailRaptorData previous = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+
+		// nothing changed
+		assertSameTransferSets(previous, SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null, previous));
+
+		// remove a line, add a late departure to a route, and add a new line with a copy of a route at another time
+		f.schedule.removeTransitLine(f.redLine);
+		TransitRoute greenRoute = f.greenLine.getRoutes().values().iterator().next();
+		greenRoute.addDeparture(f.schedule.getFactory().createDeparture(Id.create("late", Departure.class), 23 * 3600));
+		TransitRoute blueRoute = f.blueLine.getRoutes().values().iterator().next();
+		List<TransitRouteStop> stops = new ArrayList<>();
+		for (TransitRouteStop stop : blueRoute.getStops()) {
+			stops.add(f.schedule.getFactory().createTransitRouteStop(stop.getStopFacility(), stop.getArrivalOffset(), stop.getDepartureOffset()));
+		}
+		TransitLine yellowLine = f.schedule.getFactory().createTransitLine(Id.create("yellow", TransitLine.class));
+		TransitRoute yellowRoute = f.schedule.getFactory().createTransitRoute(Id.create("yellow", TransitRoute.class), blueRoute.getRoute(), stops, "train");
+		yellowRoute.addDeparture(f.schedule.getFactory().createDeparture(Id.create("y1", Departure.class), 7 * 3600));
+		yellowLine.addRoute(yellowRoute);
+		f.schedule.addTransitLine(yellowLine);
+
+		SwissRailRaptorData updated = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null, previous);
+		SwissRailRaptorData expected = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		assertSameTransferSets(expected, updated);
+
+		// a changed minimal transfer time requires to calculate all transfers again
+		f.schedule.getMinimalTransferTimes().set(Id.create(19, TransitStopFacility.class), Id.create(9, TransitStopFacility.class), 345);
+		updated = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null, updated);
+		expected = SwissRailRaptorData.create(f.schedule, null, raptorConfig, f.network, null);
+		Assertions.assertEquals(expected.transfers.length, updated.transfers.length);
+		assertSameTransferSets(expected, updated);
+	}
+
+	private static void assertSameTransferSets(SwissRailRaptorData expected, SwissRailRaptorData actual) {
+		Assertions.assertEquals(expected.routeStops.length, actual.routeStops.length, "wrong number of route stops.");
+		Assertions.assertEquals(expected.transfers.length, actual.transfers.length, "wrong number of transfers.");
+		for (int i = 0; i < expected.routeStops.length; i++) {
+			Assertions.assertSame(expected.routeStops[i].routeStop, actual.routeStops[i].routeStop);
+			Assertions.assertEquals(getTransfers(expected, i), getTransfers(actual, i), "wrong transfers from route stop " + i);
+		}
+	}
+
+	private static Set<String> getTransfers(SwissRailRaptorData data, int routeStopIndex) {
+		Set<String> transfers = new HashSet<>();
+		SwissRailRaptorData.RRouteStop routeStop = data.routeStops[routeStopIndex];
+		for (int t = routeStop.indexFirstTransfer; t < routeStop.indexFirstTransfer + routeStop.countTransfers; t++) {
+			SwissRailRaptorData.RTransfer transfer = data.transfers[t];
+			Assertions.assertEquals(routeStopIndex, transfer.fromRouteStop);
+			Assertions.assertTrue(transfers.add(transfer.toRouteStop + " " + transfer.transferTime + " " + transfer.transferDistance));
+		}
+		return transfers;
+	}
+
+	private static void assertSameTransfers(SwissRailRaptorData expected, SwissRailRaptorData actual) {
+		Assertions.assertEquals(expected.transfers.length, actual.transfers.length, "wrong number of transfers.");
+		for (int i = 0; i < expected.transfers.length; i++) {
+			SwissRailRaptorData.RTransfer e = expected.transfers[i];
+			SwissRailRaptorData.RTransfer a = actual.transfers[i];
+			Assertions.assertEquals(e.fromRouteStop, a.fromRouteStop);
+			Assertions.assertEquals(e.toRouteStop, a.toRouteStop);
+			Assertions.assertEquals(e.transferTime, a.transferTime);
+			Assertions.assertEquals(e.transferDistance, a.transferDistance);
+		}
+		for (int i = 0; i < expected.routeStops.length; i++) {
+			Assertions.assertEquals(expected.routeStops[i].indexFirstTransfer, actual.routeStops[i].indexFirstTransfer);
+			Assertions.assertEquals(expected.routeStops[i].countTransfers, actual.routeStops[i].countTransfers);
+		}
+	}
+
 }
@@ -0,0 +1,114 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ControllerCheckpointsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ReplanningConfigGroup.StrategySettings;
+import org.matsim.core.replanning.annealing.ReplanningAnnealerConfigGroup;
+import org.matsim.core.replanning.strategies.DefaultPlanStrategiesModule.DefaultSelector;
+import org.matsim.core.replanning.strategies.DefaultPlanStrategiesModule.DefaultStrategy;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ControllerCheckpointsTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	/**
+	 * A run which is resumed from a checkpoint must result in exactly the same iterations as the original run.
+	 */
+	@Test
+	void testResumeFromCheckpoint() {
+		String originalOutput = this.utils.getOutputDirectory() + "original/";
+		Config config = createConfig(originalOutput);
+		config.controller().setWriteCheckpointsInterval(3);
+		new Controler(ScenarioUtils.loadScenario(config)).run();
+
+		String checkpoint = originalOutput + "ITERS/it.3/" + ControllerCheckpoints.DIRECTORY;
+		Assertions.assertTrue(new File(checkpoint, ControllerCheckpoints.STATE_FILE).exists());
+		Assertions.assertTrue(new File(originalOutput + "ITERS/it.6/" + ControllerCheckpoints.DIRECTORY, ControllerCheckpoints.PLANS_FILE).exists());
+		Assertions.assertEquals(3, ControllerCheckpoints.readIteration(checkpoint));
+
+		String resumedOutput = this.utils.getOutputDirectory() + "resumed/";
+		Config resumedConfig = createConfig(resumedOutput);
+		resumedConfig.controller().setResumeFromCheckpoint(checkpoint);
+		Scenario resumedScenario = ScenarioUtils.loadScenario(resumedConfig);
+		// the plans are loaded from the checkpoint instead of the plans input file, which has no scores
+		Assertions.assertFalse(resumedScenario.getPopulation().getPersons().isEmpty());
+		for (Person person : resumedScenario.getPopulation().getPersons().values()) {
+			Assertions.assertNotNull(person.getSelectedPlan().getScore());
+		}
+		new Controler(resumedScenario).run();
+
+		Assertions.assertFalse(new File(resumedOutput + "ITERS/it.3").exists());
+		for (int iteration = 4; iteration <= 6; iteration++) {
+			String events = "ITERS/it." + iteration + "/" + iteration + ".events.xml.gz";
+			Assertions.assertEquals(CRCChecksum.getCRCFromFile(originalOutput + events), CRCChecksum.getCRCFromFile(resumedOutput + events),
+					"different events in iteration " + iteration);
+		}
+		MatsimTestUtils.assertEqualFilesLineByLine(originalOutput + "output_plans.xml.gz", resumedOutput + "output_plans.xml.gz");
+		MatsimTestUtils.assertEqualFilesLineByLine(originalOutput + "scorestats.csv", resumedOutput + "scorestats.csv");
+	}
+
+	private static Config createConfig(String outputDirectory) {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.controller().setOutputDirectory(outputDirectory);
+		config.controller().setLastIteration(6);
+		config.controller().setWriteEventsInterval(1);
+		config.controller().setCreateGraphs(false);
+		config.scoring().setFractionOfIterationsToStartScoreMSA(0.5);
+
+		config.replanning().clearStrategySettings();
+		StrategySettings reRoute = new StrategySettings();
+		reRoute.setStrategyName(DefaultStrategy.ReRoute);
+		reRoute.setWeight(0.2);
+		config.replanning().addStrategySettings(reRoute);
+		StrategySettings timeMutator = new StrategySettings();
+		timeMutator.setStrategyName(DefaultStrategy.TimeAllocationMutator);
+		timeMutator.setWeight(0.2);
+		config.replanning().addStrategySettings(timeMutator);
+		StrategySettings selector = new StrategySettings();
+		selector.setStrategyName(DefaultSelector.ChangeExpBeta);
+		selector.setWeight(0.6);
+		config.replanning().addStrategySettings(selector);
+
+		config.replanningAnnealer().setActivateAnnealingModule(true);
+		ReplanningAnnealerConfigGroup.AnnealingVariable annealing = new ReplanningAnnealerConfigGroup.AnnealingVariable();
+		annealing.setAnnealType("geometric");
+		annealing.setShapeFactor(0.9);
+		annealing.setStartValue(0.4);
+		config.replanningAnnealer().addAnnealingVariable(annealing);
+		return config;
+	}
+
+}
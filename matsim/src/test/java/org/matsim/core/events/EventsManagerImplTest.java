@@ -69,6 +69,26 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	void testProcessEvent_DifferentHandlerInterfacesForSameEvent() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		CountingMyEventHandler handler = new CountingMyEventHandler();
+		CountingOtherMyEventHandler otherHandler = new CountingOtherMyEventHandler();
+		manager.addHandler(handler);
+		manager.addHandler(otherHandler);
+		manager.initProcessing();
+		manager.processEvent(new MyEvent(123.45));
+		manager.processEvent(new MyEvent(234.56));
+		manager.finishProcessing();
+		Assertions.assertEquals(2, handler.counter, "EventHandler was not called.");
+		Assertions.assertEquals(2, otherHandler.counter, "EventHandler was not called.");
+
+		manager.removeHandler(handler);
+		manager.processEvent(new MyEvent(345.67));
+		Assertions.assertEquals(2, handler.counter, "Removed EventHandler was called.");
+		Assertions.assertEquals(3, otherHandler.counter, "EventHandler was not called.");
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -83,6 +103,22 @@ public class EventsManagerImplTest {
 		public void handleEvent(final MyEvent e);
 	}
 
+	/*package*/ static interface OtherMyEventHandler extends EventHandler {
+		public void handleEvent(final MyEvent e);
+	}
+
+	/*package*/ static class CountingOtherMyEventHandler implements OtherMyEventHandler {
+		/*package*/ int counter = 0;
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+		@Override
+		public void handleEvent(final MyEvent e) {
+			this.counter++;
+		}
+	}
+
 	/*package*/ static class CountingMyEventHandler implements MyEventHandler {
 		/*package*/ int counter = 0;
 		@Override
@@ -0,0 +1,101 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelEventsReaderXMLv1Test.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class ParallelEventsReaderXMLv1Test {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testEventsAreProcessedInOrderOfFile() {
+		String filename = utils.getOutputDirectory() + "events.xml.gz";
+		List<Event> written = new ArrayList<>();
+		// enough events for several chunks
+		for (int i = 0; i < 100_000; i++) {
+			written.add(new LinkEnterEvent(i, Id.create("veh<" + (i % 100) + ">", Vehicle.class), Id.create(i % 777, Link.class)));
+			if (i % 1000 == 0) {
+				written.add(new PersonDepartureEvent(i, Id.create(i, Person.class), Id.create(i % 777, Link.class), "car", "car"));
+				GenericEvent generic = new GenericEvent("custom", i);
+				generic.getAttributes().put("name", "\"a&b\"");
+				written.add(generic);
+			}
+		}
+		EventWriterXML writer = new EventWriterXML(filename);
+		written.forEach(writer::handleEvent);
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(4);
+		reader.readFile(filename);
+		events.finishProcessing();
+
+		Assertions.assertEquals(written.size(), collector.getEvents().size());
+		Assertions.assertEquals(written, collector.getEvents());
+	}
+
+	@Test
+	void testCustomEventMapper() {
+		String filename = utils.getOutputDirectory() + "events.xml";
+		EventWriterXML writer = new EventWriterXML(filename);
+		GenericEvent generic = new GenericEvent("custom", 10.0);
+		generic.getAttributes().put(PersonDepartureEvent.ATTRIBUTE_PERSON, "1");
+		writer.handleEvent(generic);
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(2);
+		reader.addCustomEventMapper("custom", event -> new PersonDepartureEvent(event.getTime(),
+				Id.create(event.getAttributes().get(PersonDepartureEvent.ATTRIBUTE_PERSON), Person.class), Id.create(1, Link.class), "walk", "walk"));
+		reader.readFile(filename);
+		events.finishProcessing();
+
+		Assertions.assertEquals(List.of(new PersonDepartureEvent(10.0, Id.create(1, Person.class), Id.create(1, Link.class), "walk", "walk")),
+				collector.getEvents());
+	}
+}
@@ -0,0 +1,128 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ThreadBufferedEventsManagerImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+public class ThreadBufferedEventsManagerImplTest {
+
+	@Test
+	void testEventsFromSeveralThreadsAreMergedPerSimStep() throws InterruptedException {
+		final ThreadBufferedEventsManagerImpl events = new ThreadBufferedEventsManagerImpl(2);
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+
+		int nOfThreads = 4;
+		int nOfSteps = 10;
+		for (int step = 0; step < nOfSteps; step++) {
+			final double time = step;
+			List<Thread> producers = new ArrayList<>();
+			for (int t = 0; t < nOfThreads; t++) {
+				final int vehicle = t;
+				Thread producer = new Thread(() -> {
+					events.processEvent(new LinkEnterEvent(time, Id.createVehicleId(vehicle), Id.createLinkId(0)));
+					events.processEvent(new LinkLeaveEvent(time, Id.createVehicleId(vehicle), Id.createLinkId(0)));
+				});
+				producers.add(producer);
+				producer.start();
+			}
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			events.afterSimStep(time);
+		}
+		events.finishProcessing();
+
+		List<Event> collected = collector.getEvents();
+		Assertions.assertThat(collected).hasSize(nOfThreads * nOfSteps * 2);
+		for (int i = 1; i < collected.size(); i++) {
+			Assertions.assertThat(collected.get(i).getTime()).isGreaterThanOrEqualTo(collected.get(i - 1).getTime());
+		}
+		for (int t = 0; t < nOfThreads; t++) {
+			Assertions.assertThat(collected).contains(
+					new LinkEnterEvent(nOfSteps - 1, Id.createVehicleId(t), Id.createLinkId(0)),
+					new LinkLeaveEvent(nOfSteps - 1, Id.createVehicleId(t), Id.createLinkId(0)));
+		}
+	}
+
+	@Test
+	void testEventHandlerCanProduceAdditionalEventLateInSimStep() {
+		final ThreadBufferedEventsManagerImpl events = new ThreadBufferedEventsManagerImpl(4);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car"));
+			}
+
+			@Override
+			public void reset(int iteration) {}
+		});
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		Assertions.assertThat(collector.getEvents()).containsExactly(
+				new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+				new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+				new PersonStuckEvent(0.0, Id.createPersonId(0), Id.createLinkId(0), "car"),
+				new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+				new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+				new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car"));
+	}
+
+	@Test
+	void testEventsAreChronologicallyOrdered() {
+		ThreadBufferedEventsManagerImpl events = new ThreadBufferedEventsManagerImpl(2);
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(10.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(50.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(50.0);
+		events.processEvent(new LinkEnterEvent(49.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		Assertions.assertThatThrownBy(events::finishProcessing).isInstanceOf(RuntimeException.class);
+	}
+
+}
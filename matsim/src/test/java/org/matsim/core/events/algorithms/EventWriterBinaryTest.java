@@ -0,0 +1,212 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinaryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteReadStream() {
+		List<Event> written = new ArrayList<>();
+		written.add(new LinkLeaveEvent(3600.0, Id.create("vehicle>3", Vehicle.class), Id.create("link<2", Link.class)));
+		written.add(new LinkEnterEvent(3600.0, Id.create("vehicle>3", Vehicle.class), Id.create("link'3", Link.class)));
+		written.add(new ActivityEndEvent(3601.5, Id.create("1", Person.class), Id.create("link'3", Link.class), null, "home", new Coord(12.5, -3.25)));
+		written.add(new PersonMoneyEvent(3590.0, Id.create("1", Person.class), -1.75, "toll", "cordon", null));
+		GenericEvent generic = new GenericEvent("TEST", 7200.0);
+		generic.getAttributes().put("dummy", null);
+		generic.getAttributes().put("name", "äöü");
+		written.add(generic);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		EventWriterBinary writer = new EventWriterBinary(baos);
+		for (Event event : written) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new MatsimEventsReader(events).readStream(new ByteArrayInputStream(baos.toByteArray()), ControllerConfigGroup.EventsFileFormat.binary);
+		events.finishProcessing();
+
+		Assertions.assertEquals(written, collector.getEvents());
+		GenericEvent readGeneric = (GenericEvent) collector.getEvents().get(4);
+		Assertions.assertTrue(readGeneric.getAttributes().containsKey("dummy"));
+		Assertions.assertNull(readGeneric.getAttributes().get("dummy"));
+	}
+
+	/**
+	 * The frequent event types are decoded without the xml reader, they must be the same as the written ones.
+	 * Other event types must still be passed to custom event mappers.
+	 */
+	@Test
+	void testDecodedEventTypes() {
+		Id<Person> person = Id.create("1", Person.class);
+		Id<Vehicle> vehicle = Id.create("1", Vehicle.class);
+		Id<Link> link = Id.create("2", Link.class);
+		List<Event> written = new ArrayList<>();
+		written.add(new ActivityEndEvent(10.0, person, link, Id.create("f", ActivityFacility.class), "home", new Coord(1.5, 2.5)));
+		written.add(new PersonDepartureEvent(10.0, person, link, TransportMode.car, TransportMode.car));
+		written.add(new PersonEntersVehicleEvent(11.0, person, vehicle));
+		written.add(new VehicleEntersTrafficEvent(11.0, person, link, vehicle, TransportMode.car, 1.0));
+		written.add(new LinkLeaveEvent(12.0, vehicle, link));
+		written.add(new LinkEnterEvent(12.0, vehicle, Id.create("3", Link.class)));
+		written.add(new VehicleLeavesTrafficEvent(13.25, person, Id.create("3", Link.class), vehicle, TransportMode.car, 1.0));
+		written.add(new PersonLeavesVehicleEvent(13.25, person, vehicle));
+		written.add(new PersonArrivalEvent(13.25, person, Id.create("3", Link.class), TransportMode.car));
+		written.add(new ActivityStartEvent(14.0, person, Id.create("3", Link.class), null, "work", null));
+		GenericEvent generic = new GenericEvent("TEST", 15.0);
+		generic.getAttributes().put("person", "1");
+		written.add(generic);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		EventWriterBinary writer = new EventWriterBinary(baos);
+		for (Event event : written) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		EventsReaderBinary reader = new EventsReaderBinary(events);
+		reader.addCustomEventMapper("TEST", event -> new PersonMoneyEvent(event.getTime(), Id.create(event.getAttributes().get("person"), Person.class), 1.0, "test", null, null));
+		reader.parse(new ByteArrayInputStream(baos.toByteArray()));
+		events.finishProcessing();
+
+		List<Event> read = collector.getEvents();
+		Assertions.assertEquals(written.size(), read.size());
+		for (int i = 0; i < written.size() - 1; i++) {
+			Assertions.assertEquals(written.get(i).getClass(), read.get(i).getClass());
+			Assertions.assertEquals(written.get(i), read.get(i));
+		}
+		Assertions.assertEquals(new PersonMoneyEvent(15.0, person, 1.0, "test", null, null), read.get(written.size() - 1));
+		Assertions.assertNull(((ActivityStartEvent) read.get(9)).getFacilityId());
+		Assertions.assertNull(((ActivityStartEvent) read.get(9)).getCoord());
+	}
+
+	@Test
+	void testReadTimeWindow() {
+		String filename = utils.getOutputDirectory() + "events.bin";
+		// enough events for several blocks
+		int nOfEvents = 500_000;
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (int i = 0; i < nOfEvents; i++) {
+			writer.handleEvent(new LinkEnterEvent(i / 10, Id.create(i % 1000, Vehicle.class), Id.create(i % 777, Link.class)));
+		}
+		writer.closeFile();
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new MatsimEventsReader(events).readFile(filename);
+		events.finishProcessing();
+		Assertions.assertEquals(nOfEvents, collector.getEvents().size());
+		Assertions.assertEquals(new LinkEnterEvent((nOfEvents - 1) / 10, Id.create(999, Vehicle.class), Id.create((nOfEvents - 1) % 777, Link.class)),
+				collector.getEvents().get(nOfEvents - 1));
+
+		collector.reset(0);
+		events.initProcessing();
+		new EventsReaderBinary(events).parseTimeWindow(filename, 40000.0, 40010.0);
+		events.finishProcessing();
+		Assertions.assertEquals(100, collector.getEvents().size());
+		for (int i = 0; i < 100; i++) {
+			int index = 400000 + i;
+			Assertions.assertEquals(new LinkEnterEvent(index / 10, Id.create(index % 1000, Vehicle.class), Id.create(index % 777, Link.class)),
+					collector.getEvents().get(i));
+		}
+	}
+
+	/**
+	 * Blocks before the time window must not be read, so reading the window works even if they are corrupt.
+	 */
+	@Test
+	void testReadTimeWindowSkipsEarlierBlocks() throws IOException {
+		String filename = utils.getOutputDirectory() + "events.bin";
+		int nOfEvents = 500_000;
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (int i = 0; i < nOfEvents; i++) {
+			writer.handleEvent(new LinkEnterEvent(i / 10, Id.create(i % 1000, Vehicle.class), Id.create(i % 777, Link.class)));
+		}
+		writer.closeFile();
+
+		// overwrite the data of the first block behind its header
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+			file.seek(EventWriterBinary.MAGIC.length + 4 + 44);
+			file.write(new byte[1000]);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		new EventsReaderBinary(events).parseTimeWindow(filename, 40000.0, 40010.0);
+		events.finishProcessing();
+		Assertions.assertEquals(100, collector.getEvents().size());
+		Assertions.assertEquals(new LinkEnterEvent(40000, Id.create(0, Vehicle.class), Id.create(400000 % 777, Link.class)), collector.getEvents().get(0));
+
+		Assertions.assertThrows(RuntimeException.class, () -> new EventsReaderBinary(EventsUtils.createEventsManager()).parse(filename));
+	}
+}
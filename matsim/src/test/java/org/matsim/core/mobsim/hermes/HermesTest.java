@@ -22,6 +22,7 @@ package org.matsim.core.mobsim.hermes;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -951,6 +952,80 @@ public class HermesTest {
 		// besides this, the important thing is that no (Runtime)Exception is thrown during this test
 	}
 
+	/**
+	 * Simulates a queue of agents with the network split into three domains, one per link of the fixture, so
+	 * every agent crosses two domain borders. All agents must arrive, and repeated runs must produce the same events.
+	 */
+	@Test
+	void testPartitionedRealm() {
+		List<String> firstRun = runPartitioned(3);
+		prepareTest();
+		List<String> secondRun = runPartitioned(3);
+
+		Assertions.assertEquals(firstRun, secondRun, "partitioned runs are not deterministic.");
+	}
+
+	/**
+	 * The partitioned realm must produce the same events as the single realm. Within a time step, the events are
+	 * ordered by domain instead of by processing order, so the events are compared ordered by time and content.
+	 */
+	@Test
+	void testPartitionedRealmEqualsSingleRealm() {
+		List<String> singleRealm = sortWithinTimeSteps(runPartitioned(1));
+		prepareTest();
+		List<String> partitionedRealm = sortWithinTimeSteps(runPartitioned(3));
+
+		Assertions.assertEquals(singleRealm, partitionedRealm, "the partitioned realm produces other events than the single realm.");
+	}
+
+	private static List<String> sortWithinTimeSteps(List<String> events) {
+		List<String> sorted = new ArrayList<>(events);
+		sorted.sort(Comparator.comparingDouble(HermesTest::getEventTime).thenComparing(Comparator.naturalOrder()));
+		return sorted;
+	}
+
+	private static double getEventTime(String event) {
+		int start = event.indexOf("time=\"") + 6;
+		return Double.parseDouble(event.substring(start, event.indexOf('"', start)));
+	}
+
+	private static List<String> runPartitioned(int numberOfDomains) {
+		Fixture f = new Fixture();
+		f.config.hermes().setNumberOfDomains(numberOfDomains);
+
+		for (int i = 0; i < 20; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PersonUtils.createAndAddPlan(person, true);
+			Activity a1 = PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+			a1.setEndTime(6*3600);
+			Leg leg = PopulationUtils.createAndAddLeg( plan, TransportMode.car );
+			TripStructureUtils.setRoutingMode( leg, TransportMode.car );
+			NetworkRoute route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(NetworkRoute.class, f.link1.getId(), f.link3.getId());
+			route.setLinkIds(f.link1.getId(), f.linkIds2, f.link3.getId());
+			leg.setRoute(route);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId());
+			f.plans.addPerson(person);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		LinkEnterEventCollector linkEnterCollector = new LinkEnterEventCollector();
+		events.addHandler(linkEnterCollector);
+		List<String> allEvents = new ArrayList<>();
+		events.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				allEvents.add(event.toString());
+			}
+		});
+
+		Hermes sim = createHermes(f, events);
+		sim.run();
+
+		Assertions.assertEquals(40, linkEnterCollector.events.size(), "wrong number of link enter events.");
+		Assertions.assertEquals(20, allEvents.stream().filter(e -> e.contains("type=\"" + PersonArrivalEvent.EVENT_TYPE + "\"")).count(), "not all agents arrived.");
+		return allEvents;
+	}
+
 	/*package*/ final static class FirstLastEventCollector implements BasicEventHandler {
 		public Event firstEvent = null;
 		public Event lastEvent = null;
@@ -0,0 +1,102 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentBatchProcessorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+public class AgentBatchProcessorTest {
+
+	/**
+	 * The events must be the same for any number of threads: for every agent in the order of the queue, first the events
+	 * thrown while it computes its next state, then the events thrown when it is handed on.
+	 */
+	@Test
+	void testDeterministicEventOrder() {
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		List<String> sequential = processAgents(1, threads);
+		Assertions.assertEquals(1, threads.size());
+
+		threads.clear();
+		List<String> parallel = processAgents(4, threads);
+		Assertions.assertEquals(4, threads.size());
+		Assertions.assertEquals(sequential, parallel);
+
+		// 1000 agents, and every tenth agent of those comes back in the same time step
+		Assertions.assertEquals(3 * 1100, parallel.size());
+		Assertions.assertEquals(List.of("compute 999", "compute 999 done", "after 999"), parallel.subList(0, 3));
+	}
+
+	private static List<String> processAgents(int numberOfThreads, Set<String> threads) {
+		List<String> types = new ArrayList<>();
+		EventsManager delegate = EventsUtils.createEventsManager();
+		delegate.addHandler((BasicEventHandler) event -> types.add(event.getEventType()));
+		delegate.initProcessing();
+		EventsManager events = new AgentBatchProcessor.RecordingEventsManager(delegate);
+
+		AgentCalendarQueue queue = new AgentCalendarQueue();
+		for (int i = 0; i < 1000; i++) {
+			queue.add(10, createAgent(i));
+		}
+		Set<MobsimAgent> returned = ConcurrentHashMap.newKeySet();
+		AgentBatchProcessor processor = new AgentBatchProcessor(events, numberOfThreads);
+		processor.process(queue, 10, agent -> {}, agent -> {
+			threads.add(Thread.currentThread().getName());
+			events.processEvent(event("compute", agent));
+			events.processEvent(event("compute", agent, "done"));
+		}, agent -> {
+			events.processEvent(event("after", agent));
+			if (Integer.parseInt(agent.getId().toString()) % 10 == 0 && returned.add(agent)) {
+				queue.add(10, agent);
+			}
+		});
+		processor.shutdown();
+		Assertions.assertTrue(queue.isEmpty());
+		delegate.finishProcessing();
+		return types;
+	}
+
+	private static Event event(String type, MobsimAgent agent, String... suffix) {
+		return new GenericEvent(type + " " + agent.getId() + (suffix.length > 0 ? " " + suffix[0] : ""), 10);
+	}
+
+	private static MobsimAgent createAgent(int id) {
+		MobsimAgent agent = mock(MobsimAgent.class);
+		when(agent.getId()).thenReturn(Id.createPersonId(id));
+		return agent;
+	}
+
+}
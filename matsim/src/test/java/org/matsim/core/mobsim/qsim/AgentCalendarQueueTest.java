@@ -0,0 +1,173 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentCalendarQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+public class AgentCalendarQueueTest {
+
+	private record Entry(double time, MobsimAgent agent) {
+	}
+
+	/**
+	 * The calendar queue must release the agents in exactly the same time steps and in the same order as the priority queue
+	 * which was used in the engines before, including agents that are added while the due agents are polled and agents that
+	 * are too far in the future for the buckets.
+	 */
+	@Test
+	void testSameOrderAsPriorityQueue() {
+		PriorityQueue<Entry> reference = new PriorityQueue<>((e0, e1) -> {
+			int cmp = Double.compare(e0.time, e1.time);
+			return cmp == 0 ? e1.agent.getId().compareTo(e0.agent.getId()) : cmp;
+		});
+		AgentCalendarQueue queue = new AgentCalendarQueue();
+		Random random = new Random(4711);
+		List<MobsimAgent> agents = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			agents.add(createAgent(i));
+		}
+
+		for (int i = 0; i < 500; i++) {
+			add(queue, reference, randomTime(random, 0), agents.get(random.nextInt(agents.size())));
+		}
+		add(queue, reference, Double.POSITIVE_INFINITY, agents.get(0));
+
+		for (double now = 0; now < 200000; now += random.nextInt(10) == 0 ? 1 + random.nextInt(100000) : 1) {
+			for (int i = random.nextInt(3); i > 0; i--) {
+				add(queue, reference, randomTime(random, now), agents.get(random.nextInt(agents.size())));
+			}
+			MobsimAgent agent;
+			while ((agent = queue.pollDue(now)) != null) {
+				Entry expected = reference.poll();
+				Assertions.assertNotNull(expected);
+				Assertions.assertTrue(expected.time <= now);
+				Assertions.assertSame(expected.agent, agent);
+				if (random.nextInt(4) == 0) {
+					// an agent which leaves again in the same time step, as after an activity of zero duration
+					add(queue, reference, now, agents.get(random.nextInt(agents.size())));
+				}
+			}
+			Assertions.assertTrue(reference.isEmpty() || reference.peek().time > now);
+			Assertions.assertEquals(reference.size(), queue.size());
+		}
+
+		List<MobsimAgent> remaining = new ArrayList<>();
+		queue.forEach((agent, time) -> remaining.add(agent));
+		List<MobsimAgent> expected = new ArrayList<>();
+		while (!reference.isEmpty()) {
+			expected.add(reference.poll().agent);
+		}
+		Assertions.assertEquals(expected, remaining);
+	}
+
+	@Test
+	void testRemove() {
+		AgentCalendarQueue queue = new AgentCalendarQueue();
+		MobsimAgent early = createAgent(1);
+		MobsimAgent late = createAgent(2);
+		MobsimAgent far = createAgent(3);
+		MobsimAgent pending = createAgent(4);
+		queue.add(10, pending);
+		Assertions.assertNull(queue.pollDue(0));
+		queue.add(5, early);
+		queue.add(500, late);
+		queue.add(10 * AgentCalendarQueue.WHEEL_SIZE, far);
+
+		Assertions.assertTrue(queue.remove(late));
+		Assertions.assertTrue(queue.remove(far));
+		Assertions.assertTrue(queue.remove(pending));
+		Assertions.assertFalse(queue.remove(pending));
+		Assertions.assertEquals(1, queue.size());
+
+		Assertions.assertNull(queue.pollDue(4));
+		Assertions.assertSame(early, queue.pollDue(5));
+		Assertions.assertNull(queue.pollDue(10 * AgentCalendarQueue.WHEEL_SIZE));
+		Assertions.assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Removing agents from all parts of the queue, i.e. the due agents, the buckets and the overflow, must not change the
+	 * order of the other agents.
+	 */
+	@Test
+	void testRemoveMany() {
+		PriorityQueue<Entry> reference = new PriorityQueue<>((e0, e1) -> {
+			int cmp = Double.compare(e0.time, e1.time);
+			return cmp == 0 ? e1.agent.getId().compareTo(e0.agent.getId()) : cmp;
+		});
+		AgentCalendarQueue queue = new AgentCalendarQueue();
+		Random random = new Random(42);
+		int id = 0;
+		for (double now = 0; now < 100000; now += 1 + random.nextInt(1000)) {
+			for (int i = 0; i < 20; i++) {
+				add(queue, reference, randomTime(random, now), createAgent(id++));
+			}
+			// remove some agents which are not due yet, and some which are
+			List<Entry> entries = new ArrayList<>(reference);
+			for (int i = 0; i < 5; i++) {
+				Entry entry = entries.get(random.nextInt(entries.size()));
+				if (reference.remove(entry)) {
+					Assertions.assertTrue(queue.remove(entry.agent));
+					Assertions.assertFalse(queue.remove(entry.agent));
+				}
+			}
+			Assertions.assertEquals(reference.size(), queue.size());
+			MobsimAgent agent;
+			while ((agent = queue.pollDue(now)) != null) {
+				Assertions.assertSame(reference.poll().agent, agent);
+				Assertions.assertFalse(queue.remove(agent));
+			}
+			Assertions.assertTrue(reference.isEmpty() || reference.peek().time > now);
+		}
+	}
+
+	private static void add(AgentCalendarQueue queue, PriorityQueue<Entry> reference, double time, MobsimAgent agent) {
+		queue.add(time, agent);
+		reference.add(new Entry(time, agent));
+	}
+
+	private static double randomTime(Random random, double now) {
+		return switch (random.nextInt(4)) {
+			case 0 -> now + random.nextInt(60);
+			case 1 -> now + random.nextDouble() * 3600;
+			case 2 -> now + random.nextInt(3 * AgentCalendarQueue.WHEEL_SIZE);
+			default -> now - random.nextInt(10);
+		};
+	}
+
+	private static MobsimAgent createAgent(int id) {
+		MobsimAgent agent = mock(MobsimAgent.class);
+		when(agent.getId()).thenReturn(Id.createPersonId(id));
+		return agent;
+	}
+
+}
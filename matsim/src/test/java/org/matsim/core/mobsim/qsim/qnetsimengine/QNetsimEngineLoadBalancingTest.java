@@ -0,0 +1,158 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineLoadBalancingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.RoutingConfigGroup;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class QNetsimEngineLoadBalancingTest {
+
+	private static final int GRID_SIZE = 12;
+
+	/**
+	 * Moving nodes and links between the runners must not change the simulated traffic. As only the center of the grid is
+	 * busy, some nodes must actually be moved.
+	 */
+	@Test
+	void testSameResultsWithLoadBalancing() {
+		Map<Id<Person>, Double> reference = runQSim(1, 0).arrivals;
+		Result balanced = runQSim(4, 5);
+
+		Assertions.assertEquals(reference.size(), balanced.arrivals.size());
+		Assertions.assertEquals(reference, balanced.arrivals);
+		Assertions.assertEquals(4, balanced.loads.length);
+		for (long load : balanced.loads) {
+			Assertions.assertTrue(load > 0);
+		}
+		Assertions.assertTrue(balanced.movedNodes > 0, "no node was moved to another runner");
+	}
+
+	@Test
+	void testNoLoadMeasuringWithoutLoadBalancing() {
+		Result result = runQSim(2, 0);
+		Assertions.assertEquals(0, result.loads.length);
+		Assertions.assertEquals(0, result.movedNodes);
+	}
+
+	private static Result runQSim(int numberOfThreads, int loadBalancingInterval) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setLoadBalancingInterval(loadBalancingInterval);
+		config.routing().setNetworkRouteConsistencyCheck(RoutingConfigGroup.NetworkRouteConsistencyCheck.disable);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGridScenario(scenario);
+
+		Map<Id<Person>, Double> arrivals = new HashMap<>();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler((PersonArrivalEventHandler) event -> arrivals.put(event.getPersonId(), event.getTime()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, events);
+		qsim.run();
+
+		QNetsimEngineWithThreadpool engine = (QNetsimEngineWithThreadpool) qsim.getChildInjector().getInstance(QNetsimEngineI.class);
+		return new Result(arrivals, engine.getRunnerLoads(), engine.getNumberOfMovedNodes());
+	}
+
+	/**
+	 * A grid with congested rows and columns. Only the center of the grid is busy, so the load is unbalanced.
+	 */
+	private static void createGridScenario(Scenario scenario) {
+		Network network = scenario.getNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 500, y * 500));
+			}
+		}
+		Link[][] rowLinks = new Link[GRID_SIZE - 1][GRID_SIZE];
+		Link[][] columnLinks = new Link[GRID_SIZE][GRID_SIZE - 1];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					rowLinks[x][y] = NetworkUtils.createAndAddLink(network, Id.createLinkId("r" + x + "_" + y), nodes[x][y], nodes[x + 1][y], 500, 15, 900, 1);
+				}
+				if (y + 1 < GRID_SIZE) {
+					columnLinks[x][y] = NetworkUtils.createAndAddLink(network, Id.createLinkId("c" + x + "_" + y), nodes[x][y], nodes[x][y + 1], 500, 15, 900, 1);
+				}
+			}
+		}
+
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		int personCount = 0;
+		for (int line = GRID_SIZE / 3; line < 2 * GRID_SIZE / 3; line++) {
+			for (boolean isRow : new boolean[] {true, false}) {
+				List<Id<Link>> linkIds = new ArrayList<>();
+				for (int i = 0; i < GRID_SIZE - 1; i++) {
+					linkIds.add(isRow ? rowLinks[i][line].getId() : columnLinks[line][i].getId());
+				}
+				Id<Link> startLinkId = linkIds.get(0);
+				Id<Link> endLinkId = linkIds.get(linkIds.size() - 1);
+				for (int i = 0; i < 150; i++) {
+					Person person = pf.createPerson(Id.createPersonId(personCount++));
+					Plan plan = pf.createPlan();
+					Activity home = pf.createActivityFromLinkId("h", startLinkId);
+					home.setEndTime(6 * 3600 + i * 2);
+					plan.addActivity(home);
+					Leg leg = pf.createLeg(TransportMode.car);
+					leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(startLinkId, linkIds.subList(1, linkIds.size() - 1), endLinkId));
+					plan.addLeg(leg);
+					plan.addActivity(pf.createActivityFromLinkId("w", endLinkId));
+					person.addPlan(plan);
+					scenario.getPopulation().addPerson(person);
+				}
+			}
+		}
+	}
+
+	private record Result(Map<Id<Person>, Double> arrivals, long[] loads, int movedNodes) {
+	}
+}
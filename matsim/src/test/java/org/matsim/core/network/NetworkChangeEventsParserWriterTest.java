@@ -67,6 +67,29 @@ public class NetworkChangeEventsParserWriterTest {
 		assertEquals(checksum_ref, checksum_run);
 	}
 
+	@Test
+	void testChangeEventsParserStreaming() {
+		String input = utils.getClassInputDirectory() + "testChangeEventsParserWriter/testNetworkChangeEvents.xml";
+		final Network network = new NetworkImpl(new VariableIntervalTimeVariantLinkFactory());
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord((double) 0, (double) 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord((double) 0, (double) 1000));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord((double) 1000, (double) 2000));
+		NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), node1, node2, (double) 1000, 1.667, (double) 3600, (double) 1 );
+		NetworkUtils.createAndAddLink(network,Id.create("2", Link.class), node2, node3, (double) 1500, 1.667, (double) 3600, (double) 1 );
+
+		List<NetworkChangeEvent> events = new ArrayList<>();
+		new NetworkChangeEventsParser(network, events).readFile(input);
+
+		// the events are passed on in the order of the file, without the list in between
+		List<NetworkChangeEvent> streamedEvents = new ArrayList<>();
+		new NetworkChangeEventsParser(network, (NetworkChangeEvent event) -> {
+			NetworkUtils.addNetworkChangeEvent(network, event);
+			streamedEvents.add(event);
+		}).readFile(input);
+		assertEquals(events, streamedEvents);
+		assertEquals(events.size(), NetworkUtils.getNetworkChangeEvents(network).size());
+	}
+
 	@Test
 	void testWriteChangeEventWithoutLinkDoesntWork() {
 		assertThrows(Exception.class, () -> {
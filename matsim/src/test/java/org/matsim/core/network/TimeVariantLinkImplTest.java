@@ -22,6 +22,8 @@ package org.matsim.core.network;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Coord;
@@ -348,6 +350,58 @@ public class TimeVariantLinkImplTest {
 	}
 
 
+	/**
+	 * Tests that the values are found for any order of lookups, i.e. going forward in small and large steps, backwards and
+	 * at random, also while the simulation advances the link through the day, and after more change events were added.
+	 */
+	@Test
+	void testLookupOrder() {
+		final Network network = new NetworkImpl(new VariableIntervalTimeVariantLinkFactory());
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord((double) 0, (double) 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord((double) 100, (double) 0));
+		TimeVariantLinkImpl link = (TimeVariantLinkImpl)NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), node1, node2, (double) 100, (double) 1000, (double) 3600, (double) 1 );
+		for (int i = 1; i <= 200; i++) {
+			NetworkChangeEvent change = new NetworkChangeEvent(i * 100.0);
+			change.addLink(link);
+			change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, i));
+			link.applyEvent(change);
+		}
+
+		for (double time = TIME_BEFORE_FIRST_CHANGE_EVENTS; time < 25000; time += time < 0 ? 99999 : 7) {
+			assertEquals(expectedFreespeed(time, 200), link.getFreespeed(time), MatsimTestUtils.EPSILON);
+		}
+		for (double time = 25000; time >= 0; time -= 50) {
+			assertEquals(expectedFreespeed(time, 200), link.getFreespeed(time), MatsimTestUtils.EPSILON);
+		}
+		Random random = new Random(4711);
+		for (int i = 0; i < 1000; i++) {
+			double time = random.nextDouble() * 25000;
+			assertEquals(expectedFreespeed(time, 200), link.getFreespeed(time), MatsimTestUtils.EPSILON);
+		}
+		for (double now = 0; now < 25000; now += 7) {
+			link.advanceTo(now);
+			assertEquals(expectedFreespeed(now, 200), link.getFreespeed(now), MatsimTestUtils.EPSILON);
+			double time = random.nextDouble() * 25000;
+			assertEquals(expectedFreespeed(time, 200), link.getFreespeed(time), MatsimTestUtils.EPSILON);
+		}
+		// the next iteration of the simulation starts at the beginning of the day again
+		link.advanceTo(50);
+		assertEquals(expectedFreespeed(50, 200), link.getFreespeed(50), MatsimTestUtils.EPSILON);
+
+		NetworkChangeEvent change = new NetworkChangeEvent(20100.0);
+		change.addLink(link);
+		change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 201));
+		link.applyEvent(change);
+		for (double time = 0; time < 25000; time += 7) {
+			assertEquals(expectedFreespeed(time, 201), link.getFreespeed(time), MatsimTestUtils.EPSILON);
+		}
+	}
+
+	private static double expectedFreespeed(double time, int numberOfChanges) {
+		return time < 100 ? 1000 : Math.min(Math.floor(time / 100), numberOfChanges);
+	}
+
+
     static LinkFactory[] linkFactories(int interval, int maxTime)
     {
         return new LinkFactory[] {
@@ -22,15 +22,23 @@ package org.matsim.core.population;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.core.replanning.selectors.BestPlanSelector;
 import org.matsim.core.replanning.selectors.RandomUnscoredPlanSelector;
 import org.matsim.core.scenario.ScenarioUtils;
@@ -223,4 +231,56 @@ public class PersonImplTest {
 		Plan p = new BestPlanSelector<Plan, Person>().selectPlan(person);
 		assertTrue(p == p1 || p == p2);
 	}
+
+	@Test
+	void testCreateCopyOfSelectedPlanAndMakeSelected() {
+		Person person = PopulationUtils.getFactory().createPerson(Id.create(1, Person.class));
+		Plan plan = PersonUtils.createAndAddPlan(person, true);
+		plan.setScore(10.0);
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "h", new Coord(0, 0));
+		home.setEndTime(8 * 3600);
+		home.getAttributes().putAttribute("a", "home");
+		Leg leg = PopulationUtils.createAndAddLeg(plan, TransportMode.car);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId(1), List.of(Id.createLinkId(2)), Id.createLinkId(3));
+		leg.setRoute(route);
+		leg.getAttributes().putAttribute("b", "leg");
+		PopulationUtils.createAndAddActivityFromCoord(plan, "w", new Coord(100, 200));
+
+		Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+		assertSame(copy, person.getSelectedPlan());
+		assertEquals(2, person.getPlans().size());
+		assertEquals(10.0, copy.getScore(), 0.0);
+		assertEquals(3, copy.getPlanElements().size());
+
+		Activity homeCopy = (Activity) copy.getPlanElements().get(0);
+		Leg legCopy = (Leg) copy.getPlanElements().get(1);
+		assertNotSame(home, homeCopy);
+		assertNotSame(leg, legCopy);
+		assertEquals(8 * 3600, homeCopy.getEndTime().seconds(), 0.0);
+
+		// the link ids are shared until the route is modified, reading does not copy anything
+		NetworkRoute routeCopy = (NetworkRoute) legCopy.getRoute();
+		assertNotSame(route, routeCopy);
+		assertSame(route.getLinkIds(), routeCopy.getLinkIds());
+		assertSame(routeCopy, legCopy.getRoute());
+		assertSame(route, leg.getRoute());
+		assertSame(home.getAttributes(), home.getAttributes());
+
+		// modifying the copy must not change the original plan
+		homeCopy.setEndTime(9 * 3600);
+		homeCopy.getAttributes().putAttribute("a", "changed");
+		routeCopy.setLinkIds(Id.createLinkId(1), List.of(Id.createLinkId(4), Id.createLinkId(5)), Id.createLinkId(3));
+		assertEquals(8 * 3600, home.getEndTime().seconds(), 0.0);
+		assertEquals("home", home.getAttributes().getAttribute("a"));
+		assertEquals(List.of(Id.createLinkId(2)), ((NetworkRoute) leg.getRoute()).getLinkIds());
+
+		// modifying the original plan must not change the copy
+		leg.getAttributes().putAttribute("b", "changed");
+		assertEquals("leg", legCopy.getAttributes().getAttribute("b"));
+		assertEquals(List.of(Id.createLinkId(4), Id.createLinkId(5)), ((NetworkRoute) legCopy.getRoute()).getLinkIds());
+		leg.getAttributes().removeAttribute("b");
+		assertEquals("leg", legCopy.getAttributes().getAttribute("b"));
+		assertEquals("changed", homeCopy.getAttributes().getAttribute("a"));
+	}
+
 }
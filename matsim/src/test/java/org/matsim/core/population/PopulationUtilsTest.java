@@ -25,8 +25,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.List;
 
 /**
  * @author thibautd
@@ -79,4 +85,96 @@ public class PopulationUtilsTest {
 				"unexpected attribute" );
 	}
 
+	@Test
+	void testCompressNonSelectedPlans() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		final PopulationFactory pf = population.getFactory();
+		final Person person = pf.createPerson(Id.createPersonId("1"));
+		population.addPerson(person);
+
+		final Plan selectedPlan = pf.createPlan();
+		selectedPlan.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId("1")));
+		person.addPlan(selectedPlan);
+		person.setSelectedPlan(selectedPlan);
+
+		final Plan plan = pf.createPlan();
+		plan.setScore(12.5);
+		final Activity home = pf.createActivityFromCoord("home", new Coord(100.5, -20));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setEndTime(7.5 * 3600);
+		home.getAttributes().putAttribute("size", 3);
+		plan.addActivity(home);
+		final Leg carLeg = pf.createLeg("car");
+		carLeg.setRoutingMode("car");
+		carLeg.setDepartureTime(7.5 * 3600);
+		carLeg.setTravelTime(601.25);
+		final NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"),
+				List.of(Id.createLinkId("2"), Id.createLinkId("3")), Id.createLinkId("4"));
+		networkRoute.setVehicleId(Id.create("v1", Vehicle.class));
+		networkRoute.setDistance(1234.5);
+		networkRoute.setTravelTime(600);
+		networkRoute.setTravelCost(-3.5);
+		carLeg.setRoute(networkRoute);
+		plan.addLeg(carLeg);
+		plan.addActivity(PopulationUtils.createInteractionActivityFromLinkId("car interaction", Id.createLinkId("4")));
+		final Leg walkLeg = pf.createLeg("walk");
+		final Route genericRoute = RouteUtils.createGenericRouteImpl(Id.createLinkId("4"), Id.createLinkId("5"));
+		genericRoute.setDistance(100);
+		genericRoute.setRouteDescription("description");
+		walkLeg.setRoute(genericRoute);
+		walkLeg.getAttributes().putAttribute("comfort", "high");
+		plan.addLeg(walkLeg);
+		final Activity work = pf.createActivityFromLinkId("work", Id.createLinkId("5"));
+		work.setStartTime(8 * 3600);
+		work.setMaximumDuration(8 * 3600 + 0.1);
+		plan.addActivity(work);
+		person.addPlan(plan);
+
+		final List<String> expected = plan.getPlanElements().stream().map(Object::toString).toList();
+
+		Assertions.assertEquals(1, PopulationUtils.compressNonSelectedPlans(population));
+		Assertions.assertTrue(((PlanImpl) plan).isCompressed());
+		Assertions.assertFalse(((PlanImpl) selectedPlan).isCompressed());
+		Assertions.assertEquals(0, PopulationUtils.compressNonSelectedPlans(population), "already compressed plans must be skipped");
+
+		final List<PlanElement> elements = plan.getPlanElements();
+		Assertions.assertFalse(((PlanImpl) plan).isCompressed());
+		Assertions.assertSame(elements, plan.getPlanElements());
+		Assertions.assertEquals(expected, elements.stream().map(Object::toString).toList());
+		Assertions.assertEquals(12.5, plan.getScore(), 0.0);
+
+		final Activity homeCopy = (Activity) elements.get(0);
+		Assertions.assertEquals(new Coord(100.5, -20), homeCopy.getCoord());
+		Assertions.assertEquals(7.5 * 3600, homeCopy.getEndTime().seconds(), 0.0);
+		Assertions.assertTrue(homeCopy.getStartTime().isUndefined());
+		Assertions.assertEquals(3, homeCopy.getAttributes().getAttribute("size"));
+
+		final Leg carLegCopy = (Leg) elements.get(1);
+		Assertions.assertEquals("car", carLegCopy.getRoutingMode());
+		Assertions.assertEquals(601.25, carLegCopy.getTravelTime().seconds(), 0.0);
+		final NetworkRoute networkRouteCopy = (NetworkRoute) carLegCopy.getRoute();
+		Assertions.assertEquals(networkRoute.getLinkIds(), networkRouteCopy.getLinkIds());
+		Assertions.assertEquals(Id.createLinkId("1"), networkRouteCopy.getStartLinkId());
+		Assertions.assertEquals(Id.createLinkId("4"), networkRouteCopy.getEndLinkId());
+		Assertions.assertEquals(Id.create("v1", Vehicle.class), networkRouteCopy.getVehicleId());
+		Assertions.assertEquals(1234.5, networkRouteCopy.getDistance(), 0.0);
+		Assertions.assertEquals(600, networkRouteCopy.getTravelTime().seconds(), 0.0);
+		Assertions.assertEquals(-3.5, networkRouteCopy.getTravelCost(), 0.0);
+
+		Assertions.assertEquals("car interaction", ((Activity) elements.get(2)).getType());
+
+		final Leg walkLegCopy = (Leg) elements.get(3);
+		Assertions.assertNull(walkLegCopy.getRoutingMode());
+		Assertions.assertTrue(walkLegCopy.getDepartureTime().isUndefined());
+		Assertions.assertEquals("description", walkLegCopy.getRoute().getRouteDescription());
+		Assertions.assertEquals(100, walkLegCopy.getRoute().getDistance(), 0.0);
+		Assertions.assertTrue(walkLegCopy.getRoute().getTravelTime().isUndefined());
+		Assertions.assertEquals("high", walkLegCopy.getAttributes().getAttribute("comfort"));
+
+		final Activity workCopy = (Activity) elements.get(4);
+		Assertions.assertEquals(8 * 3600, workCopy.getStartTime().seconds(), 0.0);
+		Assertions.assertEquals(8 * 3600 + 0.1, workCopy.getMaximumDuration().seconds(), 0.0);
+		Assertions.assertNull(workCopy.getCoord());
+	}
+
 }
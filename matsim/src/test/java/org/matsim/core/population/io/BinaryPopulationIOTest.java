@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryPopulationIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class BinaryPopulationIOTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	/**
+	 * Writing a population in the binary format and reading it again must result in the same xml file.
+	 */
+	@Test
+	void testRoundTripWithXml() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setInputFile("plans2000.xml.gz");
+		config.global().setNumberOfThreads(4);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		addSpecialCases(scenario);
+
+		String xmlFile = this.utils.getOutputDirectory() + "population.xml.gz";
+		String binaryFile = this.utils.getOutputDirectory() + "population.bin";
+		String roundTripFile = this.utils.getOutputDirectory() + "population_roundtrip.xml.gz";
+		new PopulationWriter(scenario.getPopulation()).write(xmlFile);
+		new BinaryPopulationWriter(scenario.getPopulation()).write(binaryFile);
+
+		Config readConfig = ConfigUtils.createConfig();
+		readConfig.global().setNumberOfThreads(4);
+		Scenario readScenario = ScenarioUtils.createScenario(readConfig);
+		new BinaryPopulationReader(readScenario).readFile(binaryFile);
+		Assertions.assertEquals(scenario.getPopulation().getPersons().size(), readScenario.getPopulation().getPersons().size());
+		Assertions.assertEquals(new ArrayList<>(scenario.getPopulation().getPersons().keySet()).stream().sorted().toList(),
+				new ArrayList<>(readScenario.getPopulation().getPersons().keySet()));
+
+		new PopulationWriter(readScenario.getPopulation()).write(roundTripFile);
+		MatsimTestUtils.assertEqualFilesLineByLine(xmlFile, roundTripFile);
+	}
+
+	@Test
+	void testScenarioLoading() {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		String binaryFile = this.utils.getOutputDirectory() + "population.bin.gz";
+		PopulationUtils.writePopulation(scenario.getPopulation(), binaryFile);
+
+		Config binaryConfig = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		binaryConfig.plans().setInputFile(IOUtils.getFileUrl(binaryFile).toString());
+		Scenario binaryScenario = ScenarioUtils.loadScenario(binaryConfig);
+
+		Assertions.assertTrue(PopulationUtils.equalPopulation(scenario.getPopulation(), binaryScenario.getPopulation()));
+	}
+
+	@Test
+	void testIsBinaryPopulationFile() {
+		Assertions.assertTrue(BinaryPopulationReader.isBinaryPopulationFile("output_plans.bin"));
+		Assertions.assertTrue(BinaryPopulationReader.isBinaryPopulationFile("output_plans.bin.gz"));
+		Assertions.assertTrue(BinaryPopulationReader.isBinaryPopulationFile("output_plans.BIN.zst"));
+		Assertions.assertFalse(BinaryPopulationReader.isBinaryPopulationFile("output_plans.xml.gz"));
+		Assertions.assertFalse(BinaryPopulationReader.isBinaryPopulationFile("binary.xml"));
+	}
+
+	/**
+	 * Adds elements that do not appear in the equil population.
+	 */
+	private static void addSpecialCases(Scenario scenario) {
+		scenario.getPopulation().setName("test population");
+		scenario.getPopulation().getAttributes().putAttribute("year", 2024);
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		Person person = pf.createPerson(Id.createPersonId("special"));
+		person.getAttributes().putAttribute("age", 42);
+		person.getAttributes().putAttribute("name", "a <special> \"name\" ü");
+		person.getAttributes().putAttribute("weight", 0.25);
+
+		Plan plan = pf.createPlan();
+		plan.setType("special");
+		plan.getAttributes().putAttribute("flag", true);
+		Activity home = pf.createActivityFromCoord("home", new Coord(100.5, -20.25, 3));
+		home.setFacilityId(Id.create("f1", ActivityFacility.class));
+		home.setEndTime(7 * 3600 + 0.5);
+		home.getAttributes().putAttribute("size", 3L);
+		plan.addActivity(home);
+		Leg leg = pf.createLeg("walk");
+		leg.setRoutingMode("pt");
+		leg.setDepartureTime(7 * 3600 + 0.5);
+		leg.getAttributes().putAttribute("comfort", "high");
+		leg.setRoute(RouteUtils.createGenericRouteImpl(Id.createLinkId("1"), Id.createLinkId("20")));
+		leg.getRoute().setRouteDescription("some description");
+		plan.addLeg(leg);
+		plan.addActivity(PopulationUtils.createInteractionActivityFromLinkId("pt interaction", Id.createLinkId("20")));
+		Leg noRouteLeg = pf.createLeg("bike");
+		plan.addLeg(noRouteLeg);
+		Activity work = pf.createActivityFromLinkId("work", Id.createLinkId("20"));
+		work.setMaximumDuration(8 * 3600);
+		work.setStartTime(8 * 3600);
+		plan.addActivity(work);
+		person.addPlan(plan);
+
+		Plan unscoredPlan = pf.createPlan();
+		unscoredPlan.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId("1")));
+		person.addPlan(unscoredPlan);
+		plan.setScore(-1.5);
+		person.setSelectedPlan(unscoredPlan);
+		scenario.getPopulation().addPerson(person);
+
+		List<Person> persons = new ArrayList<>(scenario.getPopulation().getPersons().values());
+		persons.get(0).getSelectedPlan().setScore(Double.NEGATIVE_INFINITY);
+	}
+
+}
@@ -134,6 +134,33 @@ public abstract class AbstractNetworkRouteTest {
 		Assertions.assertEquals(Id.create("3", Link.class), ids.get(3));
 	}
 
+	@Test
+	void testGetLinkIndices() {
+		Network network = createTestNetwork();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link4 = Id.create("4", Link.class);
+		NetworkRoute route = getNetworkRouteInstance(link1, link4, network);
+		route.setLinkIds(link1, NetworkUtils.getLinkIds("22 12 -23 3"), link4);
+
+		int[] indices = route.getLinkIndices();
+		Assertions.assertEquals(4, indices.length, "number of links in route.");
+		for (int i = 0; i < indices.length; i++) {
+			Assertions.assertEquals(route.getLinkIds().get(i).index(), indices[i]);
+		}
+
+		// the indices must follow changes of the route
+		final Id<Link> link11 = Id.create(11, Link.class);
+		final Id<Link> link15 = Id.create(15, Link.class);
+		route.setLinkIds(link11, NetworkUtils.getLinkIds("-22 2 3 24 14"), link15);
+		indices = route.getLinkIndices();
+		Assertions.assertEquals(5, indices.length, "number of links in route.");
+		Assertions.assertEquals(Id.create("-22", Link.class).index(), indices[0]);
+		Assertions.assertEquals(Id.create("14", Link.class).index(), indices[4]);
+
+		route.setLinkIds(link1, null, link1);
+		Assertions.assertEquals(0, route.getLinkIndices().length);
+	}
+
 	@Test
 	void testGetSubRoute() {
 		Network network = createTestNetwork();
@@ -27,8 +27,14 @@ import org.junit.jupiter.api.Test;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @author mrieser
  */
@@ -61,6 +67,46 @@ public class AbstractMultithreadedModuleTest {
 
 	}
 
+	@Test
+	void testLoadBalancing() {
+		Map<Plan, Integer> handled = new ConcurrentHashMap<>();
+		AbstractMultithreadedModule testee = new AbstractMultithreadedModule(4, true) {
+			@Override
+			public PlanAlgorithm getPlanAlgoInstance() {
+				return plan -> handled.merge(plan, 1, Integer::sum);
+			}
+		};
+		List<Plan> plans = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			plans.add(PopulationUtils.createPlan());
+		}
+		for (int iteration = 0; iteration < 2; iteration++) {
+			handled.clear();
+			testee.prepareReplanning(null);
+			plans.forEach(testee::handlePlan);
+			testee.finishReplanning();
+			Assertions.assertEquals(plans.size(), handled.size());
+			for (Plan plan : plans) {
+				Assertions.assertEquals(1, handled.get(plan));
+			}
+		}
+	}
+
+	@Test
+	void testCrashingThreadWithLoadBalancing() {
+		AbstractMultithreadedModule testee = new AbstractMultithreadedModule(2, true) {
+			@Override
+			public PlanAlgorithm getPlanAlgoInstance() {
+				return new CrashingPlanAlgo();
+			}
+		};
+		testee.prepareReplanning(null);
+		testee.handlePlan(null);
+		testee.handlePlan(null);
+		testee.handlePlan(null);
+		Assertions.assertThrows(RuntimeException.class, testee::finishReplanning);
+	}
+
 	private static class DummyAbstractMultithreadedModule extends AbstractMultithreadedModule {
 		public DummyAbstractMultithreadedModule(GlobalConfigGroup globalConfigGroup) {
 			super(globalConfigGroup);
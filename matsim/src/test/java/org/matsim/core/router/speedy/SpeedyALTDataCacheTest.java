@@ -0,0 +1,194 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpeedyALTDataCacheTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SpeedyALTDataCacheTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testReuseInMemory() {
+		Network network = createGridNetwork(10);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		LinkCosts costs = new LinkCosts();
+		SpeedyALTDataCache cache = new SpeedyALTDataCache(null);
+
+		SpeedyALTData data = cache.getData(graph, 4, costs);
+		Assertions.assertSame(data, cache.getData(graph, 4, new LinkCosts()));
+		Assertions.assertNotSame(data, cache.getData(graph, 2, costs));
+
+		// the link costs of a travel disutility are only evaluated once
+		int calls = costs.calls;
+		Assertions.assertSame(data, cache.getData(graph, 4, costs));
+		Assertions.assertEquals(calls, costs.calls);
+	}
+
+	@Test
+	void testUnwritableDirectory() throws IOException {
+		Network network = createGridNetwork(10);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		File file = new File(utils.getOutputDirectory(), "not-a-directory");
+		Assertions.assertTrue(file.createNewFile());
+
+		// the data is still calculated and kept in memory
+		SpeedyALTDataCache cache = new SpeedyALTDataCache(file.toString());
+		SpeedyALTData data = cache.getData(graph, 4, new LinkCosts());
+		Assertions.assertSame(data, cache.getData(graph, 4, new LinkCosts()));
+	}
+
+	@Test
+	void testStoreAndLoad() {
+		Network network = createGridNetwork(10);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		LinkCosts costs = new LinkCosts();
+		String directory = utils.getOutputDirectory() + "landmarks";
+
+		SpeedyALTData data = new SpeedyALTDataCache(directory).getData(graph, 4, costs);
+		File[] files = new File(directory).listFiles();
+		Assertions.assertEquals(1, files.length);
+
+		SpeedyALTData loaded = new SpeedyALTDataCache(directory).getData(graph, 4, costs);
+		Assertions.assertNotSame(data, loaded);
+		Assertions.assertArrayEquals(data.landmarksNodeIndices, loaded.landmarksNodeIndices);
+		Assertions.assertArrayEquals(data.deadendData, loaded.deadendData);
+		Assertions.assertArrayEquals(data.linkCosts, loaded.linkCosts);
+		Assertions.assertArrayEquals(data.nodesData, loaded.nodesData);
+		Assertions.assertEquals(data.getMinTravelCostPerLength(), loaded.getMinTravelCostPerLength(), 0.0);
+	}
+
+	@Test
+	void testIncrementalUpdate() {
+		Network network = createGridNetwork(10);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		LinkCosts costs = new LinkCosts();
+		SpeedyALTDataCache cache = new SpeedyALTDataCache(null);
+		SpeedyALTData data = cache.getData(graph, 4, costs);
+
+		// a fast diagonal corridor, and one more expensive link
+		costs = new LinkCosts();
+		for (int i = 0; i < 9; i++) {
+			costs.costs.put(Id.createLinkId(i + "_" + i + "-" + (i + 1) + "_" + i), 1.0);
+			costs.costs.put(Id.createLinkId((i + 1) + "_" + i + "-" + (i + 1) + "_" + (i + 1)), 1.0);
+		}
+		costs.costs.put(Id.createLinkId("5_5-5_6"), 500.0);
+
+		SpeedyALTData updated = cache.getData(graph, 4, costs);
+		Assertions.assertNotSame(data, updated);
+		Assertions.assertArrayEquals(data.landmarksNodeIndices, updated.landmarksNodeIndices);
+		SpeedyALTData reference = new SpeedyALTData(graph, 4, costs);
+
+		for (int nodeIdx = 0; nodeIdx < graph.nodeCount; nodeIdx++) {
+			for (int l = 0; l < 4; l++) {
+				// decreased costs are updated exactly, increased costs can only lead to lower bounds
+				Assertions.assertTrue(updated.getTravelCostFromLandmark(nodeIdx, l) <= reference.getTravelCostFromLandmark(nodeIdx, l));
+				Assertions.assertTrue(updated.getTravelCostToLandmark(nodeIdx, l) <= reference.getTravelCostToLandmark(nodeIdx, l));
+				Assertions.assertTrue(updated.getTravelCostFromLandmark(nodeIdx, l) <= data.getTravelCostFromLandmark(nodeIdx, l));
+			}
+		}
+
+		SpeedyALT alt = new SpeedyALT(updated, costs, costs);
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(graph, costs, costs);
+		for (Node from : network.getNodes().values()) {
+			for (Node to : network.getNodes().values()) {
+				Path path = alt.calcLeastCostPath(from, to, 0, null, null);
+				Path expected = dijkstra.calcLeastCostPath(from, to, 0, null, null);
+				Assertions.assertEquals(expected.travelCost, path.travelCost, 1e-6);
+			}
+		}
+	}
+
+	private static Network createGridNetwork(int size) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = nf.createNode(Id.createNodeId(x + "_" + y), new Coord(x * 1000, y * 1000));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y]);
+					addLink(network, nodes[x + 1][y], nodes[x][y]);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1]);
+					addLink(network, nodes[x][y + 1], nodes[x][y]);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(Network network, Node from, Node to) {
+		Link link = network.getFactory().createLink(Id.createLinkId(from.getId() + "-" + to.getId()), from, to);
+		link.setLength(1000);
+		link.setFreespeed(10);
+		link.setCapacity(1000);
+		network.addLink(link);
+	}
+
+	private static class LinkCosts implements TravelDisutility, TravelTime {
+		final Map<Id<Link>, Double> costs = new HashMap<>();
+		int calls = 0;
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkMinimumTravelDisutility(link);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			this.calls++;
+			return this.costs.getOrDefault(link.getId(), 100.0);
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkMinimumTravelDisutility(link);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpeedyCHTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.AbstractLeastCostPathCalculatorTestWithTurnRestrictions;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class SpeedyCHTest extends AbstractLeastCostPathCalculatorTestWithTurnRestrictions {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		return new SpeedyCHFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	/**
+	 * Compares the costs of the paths with the ones found by SpeedyDijkstra and SpeedyALT on a grid network with
+	 * random travel costs depending on the time of day.
+	 */
+	@Test
+	void testSameCostsAsDijkstra() {
+		Network network = createGridNetwork(60, new Random(20240501));
+		TimeDependentCosts costs = new TimeDependentCosts(network, 4, 3600, new Random(42));
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+
+		SpeedyCHData chData = new SpeedyCHData(graph);
+		SpeedyCHMetric metric = new SpeedyCHMetric(chData, costs, null, 3600, 4, 2);
+		SpeedyALTData altData = new SpeedyALTData(graph, 16, costs);
+
+		SpeedyCH ch = new SpeedyCH(metric, costs, costs);
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(graph, costs, costs);
+		SpeedyALT alt = new SpeedyALT(altData, costs, costs);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random r = new Random(1);
+		int queries = 1000;
+		Node[] from = new Node[queries];
+		Node[] to = new Node[queries];
+		double[] times = new double[queries];
+		for (int i = 0; i < queries; i++) {
+			from[i] = nodes.get(r.nextInt(nodes.size()));
+			to[i] = nodes.get(r.nextInt(nodes.size()));
+			times[i] = r.nextInt(5 * 3600);
+		}
+
+		for (int i = 0; i < queries; i++) {
+			Path chPath = ch.calcLeastCostPath(from[i], to[i], times[i], null, null);
+			Path reference = dijkstra.calcLeastCostPath(from[i], to[i], times[i], null, null);
+			Path altPath = alt.calcLeastCostPath(from[i], to[i], times[i], null, null);
+			Assertions.assertEquals(reference.travelCost, chPath.travelCost, 1e-3 * Math.max(1, reference.travelCost), "query " + i);
+			Assertions.assertEquals(reference.travelCost, altPath.travelCost, 1e-6 * Math.max(1, reference.travelCost), "query " + i);
+			Assertions.assertEquals(from[i], chPath.nodes.get(0));
+			Assertions.assertEquals(to[i], chPath.nodes.get(chPath.nodes.size() - 1));
+			for (int l = 0; l < chPath.links.size(); l++) {
+				Link link = chPath.links.get(l);
+				Assertions.assertEquals(chPath.nodes.get(l), link.getFromNode());
+				Assertions.assertEquals(chPath.nodes.get(l + 1), link.getToNode());
+			}
+		}
+	}
+
+	@Test
+	void testRecustomization() {
+		Network network = createGridNetwork(10, new Random(3));
+		TimeDependentCosts costs = new TimeDependentCosts(network, 1, 3600, new Random(4));
+		SpeedyCHFactory factory = new SpeedyCHFactory(3600, 1);
+		Node from = network.getNodes().get(Id.createNodeId("0_0"));
+		Node to = network.getNodes().get(Id.createNodeId("9_9"));
+
+		Path path = factory.createPathCalculator(network, costs, costs).calcLeastCostPath(from, to, 0, null, null);
+		Path reference = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), costs, costs).calcLeastCostPath(from, to, 0, null, null);
+		Assertions.assertEquals(reference.travelCost, path.travelCost, 1e-3);
+
+		// make the best path very expensive
+		List<Link> previousLinks = path.links;
+		for (Link link : reference.links) {
+			costs.costs[link.getId().index()][0] = 10000;
+		}
+		factory.clearMetrics();
+		path = factory.createPathCalculator(network, costs, costs).calcLeastCostPath(from, to, 0, null, null);
+		reference = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), costs, costs).calcLeastCostPath(from, to, 0, null, null);
+		Assertions.assertNotEquals(previousLinks, path.links);
+		Assertions.assertEquals(reference.travelCost, path.travelCost, 1e-3);
+	}
+
+	/**
+	 * Two travel disutilities of the same class, but with different costs, must not share their weights.
+	 */
+	@Test
+	void testWeightsPerTravelDisutility() {
+		Network network = createGridNetwork(10, new Random(5));
+		TimeDependentCosts costs1 = new TimeDependentCosts(network, 1, 3600, new Random(6));
+		TimeDependentCosts costs2 = new TimeDependentCosts(network, 1, 3600, new Random(7));
+		SpeedyCHFactory factory = new SpeedyCHFactory(3600, 1);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		Node from = network.getNodes().get(Id.createNodeId("0_0"));
+		Node to = network.getNodes().get(Id.createNodeId("9_9"));
+
+		for (TimeDependentCosts costs : List.of(costs1, costs2)) {
+			Path path = factory.createPathCalculator(network, costs, costs).calcLeastCostPath(from, to, 0, null, null);
+			Path reference = new SpeedyDijkstra(graph, costs, costs).calcLeastCostPath(from, to, 0, null, null);
+			Assertions.assertEquals(reference.travelCost, path.travelCost, 1e-3);
+		}
+	}
+
+	@Test
+	void testFallbackForPersonDependentCosts() {
+		Network network = createGridNetwork(10, new Random(8));
+		TimeDependentCosts costs = new TimeDependentCosts(network, 1, 3600, new Random(9));
+		TravelDisutility personCosts = new TravelDisutility() {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return costs.getLinkTravelDisutility(link, time, person, vehicle) * (person == null ? 1 : 1 + person.getId().toString().length());
+			}
+
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return costs.getLinkMinimumTravelDisutility(link);
+			}
+		};
+		SpeedyCHFactory factory = new SpeedyCHFactory(3600, 1);
+		Assertions.assertInstanceOf(SpeedyCH.class, factory.createPathCalculator(network, costs, costs));
+		Assertions.assertInstanceOf(SpeedyALT.class, factory.createPathCalculator(network, personCosts, costs));
+	}
+
+	/**
+	 * The default travel disutility is randomized per person, which SpeedyCH must support instead of falling back
+	 * to SpeedyALT. The routers of a mode each get their own instance, but must share the customized weights.
+	 */
+	@Test
+	void testDefaultTravelDisutility() {
+		Network network = createGridNetwork(10, new Random(10));
+		Config config = ConfigUtils.createConfig();
+		Assertions.assertNotEquals(0.0, config.routing().getRoutingRandomness());
+		TravelDisutilityFactory disutilityFactory = new RandomizingTimeDistanceTravelDisutilityFactory(TransportMode.car, config);
+		TravelTime travelTime = new FreeSpeedTravelTime();
+		SpeedyCHFactory factory = new SpeedyCHFactory(3600, 1);
+
+		LeastCostPathCalculator router1 = factory.createPathCalculator(network, disutilityFactory.createTravelDisutility(travelTime), travelTime);
+		LeastCostPathCalculator router2 = factory.createPathCalculator(network, disutilityFactory.createTravelDisutility(travelTime), travelTime);
+		Assertions.assertInstanceOf(SpeedyCH.class, router1);
+		Assertions.assertInstanceOf(SpeedyCH.class, router2);
+		Assertions.assertSame(((SpeedyCH) router1).getMetric(), ((SpeedyCH) router2).getMetric());
+
+		config.scoring().setPerforming_utils_hr(12);
+		TravelDisutility otherCosts = new RandomizingTimeDistanceTravelDisutilityFactory(TransportMode.car, config).createTravelDisutility(travelTime);
+		LeastCostPathCalculator router3 = factory.createPathCalculator(network, otherCosts, travelTime);
+		Assertions.assertNotSame(((SpeedyCH) router1).getMetric(), ((SpeedyCH) router3).getMetric());
+	}
+
+	/**
+	 * The random factor of the person must be applied when searching the route: the routes must differ between persons,
+	 * and without randomness, they must be the least cost paths.
+	 */
+	@Test
+	void testRandomizedTravelDisutility() {
+		Network network = createGridNetwork(10, new Random(11));
+		Random r = new Random(12);
+		for (Link link : network.getLinks().values()) {
+			link.setLength(500 + r.nextInt(1000));
+			link.setFreespeed(5 + r.nextInt(25));
+		}
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		TravelTime travelTime = new FreeSpeedTravelTime();
+		Node from = network.getNodes().get(Id.createNodeId("0_0"));
+		Node to = network.getNodes().get(Id.createNodeId("9_9"));
+
+		Config config = ConfigUtils.createConfig();
+		config.scoring().getModes().get(TransportMode.car).setMonetaryDistanceRate(-0.001);
+		for (double sigma : new double[] { 0.0, 3.0 }) {
+			config.routing().setRoutingRandomness(sigma);
+			TravelDisutility costs = new RandomizingTimeDistanceTravelDisutilityFactory(TransportMode.car, config).createTravelDisutility(travelTime);
+			LeastCostPathCalculator ch = new SpeedyCHFactory(3600, 1).createPathCalculator(network, costs, travelTime);
+			Assertions.assertInstanceOf(SpeedyCH.class, ch);
+			SpeedyDijkstra dijkstra = new SpeedyDijkstra(graph, travelTime, costs);
+
+			Set<List<Link>> routes = new HashSet<>();
+			for (int i = 0; i < 50; i++) {
+				Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId(i));
+				Path path = ch.calcLeastCostPath(from, to, 0, person, null);
+				Path reference = dijkstra.calcLeastCostPath(from, to, 0, person, null);
+				if (sigma == 0.0) {
+					Assertions.assertEquals(reference.travelCost, path.travelCost, 1e-6);
+				} else {
+					Assertions.assertTrue(path.travelCost >= reference.travelCost - 1e-6);
+				}
+				routes.add(path.links);
+			}
+			if (sigma != 0.0) {
+				Assertions.assertTrue(routes.size() > 1, "the random factor must change the routes");
+			}
+		}
+	}
+
+	private static Network createGridNetwork(int size, Random r) {
+		Network network = NetworkUtils.createNetwork();
+		NetworkFactory nf = network.getFactory();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = nf.createNode(Id.createNodeId(x + "_" + y), new Coord(x * 1000 + r.nextInt(200), y * 1000 + r.nextInt(200)));
+				network.addNode(nodes[x][y]);
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y]);
+					addLink(network, nodes[x + 1][y], nodes[x][y]);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1]);
+					// some one-way streets
+					if (r.nextInt(10) > 0) {
+						addLink(network, nodes[x][y + 1], nodes[x][y]);
+					}
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(Network network, Node from, Node to) {
+		Link link = network.getFactory().createLink(Id.createLinkId(from.getId() + "-" + to.getId()), from, to);
+		link.setLength(1000);
+		link.setFreespeed(10);
+		link.setCapacity(1000);
+		link.setNumberOfLanes(1);
+		network.addLink(link);
+	}
+
+	/**
+	 * Random costs per link and time bin. The travel time is 0, so all links of a path are evaluated
+	 * at the departure time, which makes the least cost paths comparable to the ones found with the weights of one time bin.
+	 */
+	private static class TimeDependentCosts implements TravelDisutility, TravelTime {
+		final double[][] costs;
+		final double timeBinSize;
+
+		TimeDependentCosts(Network network, int timeBinCount, double timeBinSize, Random r) {
+			this.costs = new double[Id.getNumberOfIds(Link.class)][timeBinCount];
+			this.timeBinSize = timeBinSize;
+			for (Link link : network.getLinks().values()) {
+				for (int bin = 0; bin < timeBinCount; bin++) {
+					this.costs[link.getId().index()][bin] = 10 + r.nextInt(100);
+				}
+			}
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			double[] linkCosts = this.costs[link.getId().index()];
+			int bin = Math.min((int) (time / this.timeBinSize), linkCosts.length - 1);
+			return linkCosts[bin];
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			double min = Double.POSITIVE_INFINITY;
+			for (double cost : this.costs[link.getId().index()]) {
+				min = Math.min(min, cost);
+			}
+			return min;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return 0;
+		}
+	}
+}
@@ -80,6 +80,34 @@ public class ScoringFunctionsForPopulationStressIT {
 		});
 	}
 
+	@Test
+	void exceptionInPartitionedScoringFunctionPropagates() {
+		assertThrows(RuntimeException.class, () -> {
+			Config config = ConfigUtils.createConfig();
+			config.scoring().setNumberOfScoringThreads(2);
+			Scenario scenario = ScenarioUtils.createScenario(config);
+			Id<Person> personId = Id.createPersonId(1);
+			scenario.getPopulation().addPerson(scenario.getPopulation().getFactory().createPerson(personId));
+			EventsManager events = EventsUtils.createEventsManager(config);
+			ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+			EventsToActivities e2acts = new EventsToActivities(controlerListenerManager);
+			EventsToLegs e2legs = new EventsToLegs(scenario.getNetwork());
+			ScoringFunctionsForPopulation scoringFunctionsForPopulation = new ScoringFunctionsForPopulation(
+					controlerListenerManager,
+					events,
+					e2acts,
+					e2legs,
+					scenario.getPopulation(),
+					new ThrowingScoringFunctionFactory(),
+					config
+			);
+			controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+			// does not throw, the scoring function is called on a scoring thread
+			events.processEvent(new PersonMoneyEvent(3600.0, personId, 3.4, "tollRefund", "motorwayOperator"));
+			scoringFunctionsForPopulation.finishScoringFunctions();
+		});
+	}
+
 	private static class ThrowingScoringFunctionFactory implements ScoringFunctionFactory {
 		@Override
 		public ScoringFunction createNewScoringFunction(Person person) {
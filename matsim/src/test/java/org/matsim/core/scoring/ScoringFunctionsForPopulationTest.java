@@ -27,21 +27,30 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonScoreEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.ScoringConfigGroup;
 import org.matsim.core.controler.ControlerListenerManagerImpl;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.scoring.functions.CharyparNagelScoringFunctionFactory;
 
 	/**
  * @author mrieser / Simunto GmbH
@@ -134,6 +143,60 @@ public class ScoringFunctionsForPopulationTest {
 		Assertions.assertEquals(1.234+2.345, rsf.separateScoreSum, 1e-7);
 	}
 
+	@Test
+	void testPartitionedScoring() {
+		double[] expected = runScoring(0);
+		double[] actual = runScoring(4);
+		Assertions.assertArrayEquals(expected, actual, 0.0);
+	}
+
+	private static double[] runScoring(int numberOfScoringThreads) {
+		Config config = ConfigUtils.createConfig();
+		config.scoring().setNumberOfScoringThreads(numberOfScoringThreads);
+		config.scoring().addActivityParams(new ScoringConfigGroup.ActivityParams("home").setTypicalDuration(12 * 3600));
+		config.scoring().addActivityParams(new ScoringConfigGroup.ActivityParams("work").setTypicalDuration(8 * 3600).setOpeningTime(7 * 3600).setClosingTime(18 * 3600));
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Population population = scenario.getPopulation();
+		int nOfPersons = 5000;
+		for (int i = 0; i < nOfPersons; i++) {
+			population.addPerson(population.getFactory().createPerson(Id.create(i, Person.class)));
+		}
+
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsToScore eventsToScore = EventsToScore.createWithoutScoreUpdating(scenario, new CharyparNagelScoringFunctionFactory(scenario), eventsManager);
+		eventsToScore.beginIteration(0, false);
+		eventsManager.initProcessing();
+		Id<Link> homeLink = Id.create("home", Link.class);
+		Id<Link> workLink = Id.create("work", Link.class);
+		for (int i = 0; i < nOfPersons; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			double start = 6 * 3600 + i;
+			eventsManager.processEvent(new ActivityEndEvent(start, personId, homeLink, null, "home", null));
+			eventsManager.processEvent(new PersonDepartureEvent(start, personId, homeLink, TransportMode.walk, TransportMode.walk));
+			eventsManager.processEvent(new PersonArrivalEvent(start + 600 + i % 60, personId, workLink, TransportMode.walk));
+			eventsManager.processEvent(new ActivityStartEvent(start + 600 + i % 60, personId, workLink, null, "work", null));
+			if (i % 7 == 0) {
+				eventsManager.processEvent(new PersonMoneyEvent(start + 3600, personId, -1.5, "toll", "operator", null));
+			}
+			if (i % 11 == 0) {
+				eventsManager.processEvent(new PersonStuckEvent(start + 7200, personId, workLink, TransportMode.walk));
+				continue;
+			}
+			eventsManager.processEvent(new ActivityEndEvent(start + 9 * 3600, personId, workLink, null, "work", null));
+			eventsManager.processEvent(new PersonDepartureEvent(start + 9 * 3600, personId, workLink, TransportMode.walk, TransportMode.walk));
+			eventsManager.processEvent(new PersonArrivalEvent(start + 9 * 3600 + 900, personId, homeLink, TransportMode.walk));
+			eventsManager.processEvent(new ActivityStartEvent(start + 9 * 3600 + 900, personId, homeLink, null, "home", null));
+		}
+		eventsManager.finishProcessing();
+		eventsToScore.finish();
+
+		double[] scores = new double[nOfPersons];
+		for (int i = 0; i < nOfPersons; i++) {
+			scores[i] = eventsToScore.getAgentScore(Id.create(i, Person.class));
+		}
+		return scores;
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
@@ -42,7 +42,9 @@ import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
@@ -574,4 +576,60 @@ public class TravelTimeCalculatorTest {
 		Assertions.assertEquals(100.0,
 				ttc.getLinkTravelTimes().getLinkTravelTime(link2, 200, null, null), 1e-8, "Filtering analyzed transport modes is enabled, but no modes set. Therefore, use default (=car)");
 	}
+
+	/**
+	 * The link enter times are remembered per vehicle, also for vehicles whose ids are created after the calculator
+	 * started to handle events, and are forgotten when the vehicle arrives, aborts or when the calculator is reset.
+	 */
+	@Test
+	void testGetLinkTravelTime_linkEnterTimesPerVehicle() {
+		Network network = NetworkUtils.createNetwork();
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		TravelTimeCalculator ttc = new TravelTimeCalculator(network, config);
+
+		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create(2, Node.class), new Coord(1000, 0));
+		Node n3 = network.getFactory().createNode(Id.create(3, Node.class), new Coord(2000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		network.addNode(n3);
+		Link link1 = network.getFactory().createLink(Id.create(1, Link.class), n1, n2);
+		Link link2 = network.getFactory().createLink(Id.create(2, Link.class), n2, n3);
+		network.addLink(link1);
+		network.addLink(link2);
+
+		Id<Person> personId = Id.create("enterTimes", Person.class);
+		Id<Vehicle> vehId1 = Id.create("enterTimes1", Vehicle.class);
+		Id<Vehicle> vehId2 = Id.create("enterTimes2", Vehicle.class);
+		ttc.handleEvent(new LinkEnterEvent(100, vehId1, link1.getId()));
+
+		// a vehicle id with an index beyond the ones known so far
+		for (int i = 0; i < 100; i++) {
+			Id.create("enterTimesOther" + i, Vehicle.class);
+		}
+		Id<Vehicle> vehId3 = Id.create("enterTimes3", Vehicle.class);
+		ttc.handleEvent(new LinkEnterEvent(120, vehId3, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(200, vehId1, link1.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(320, vehId3, link1.getId()));
+		Assertions.assertEquals(150.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 100, null, null), 1e-8);
+
+		// the time between arrival and departure must not be counted
+		ttc.handleEvent(new LinkEnterEvent(0, vehId2, link2.getId()));
+		ttc.handleEvent(new VehicleLeavesTrafficEvent(50, personId, link2.getId(), vehId2, TransportMode.car, 1.0));
+		ttc.handleEvent(new VehicleEntersTrafficEvent(500, personId, link2.getId(), vehId2, TransportMode.car, 1.0));
+		ttc.handleEvent(new LinkLeaveEvent(600, vehId2, link2.getId()));
+		// neither the time until the vehicle aborted
+		ttc.handleEvent(new LinkEnterEvent(700, vehId3, link2.getId()));
+		ttc.handleEvent(new VehicleAbortsEvent(800, vehId3, link2.getId()));
+		ttc.handleEvent(new LinkLeaveEvent(850, vehId3, link2.getId()));
+		Assertions.assertEquals(1000.0, ttc.getLinkTravelTimes().getLinkTravelTime(link2, 100, null, null), 1e-8);
+
+		// after a reset, the vehicles are not on a link anymore
+		ttc.reset(1);
+		ttc.handleEvent(new LinkEnterEvent(100, vehId1, link1.getId()));
+		ttc.reset(2);
+		ttc.handleEvent(new LinkLeaveEvent(200, vehId1, link1.getId()));
+		Assertions.assertEquals(1000.0, ttc.getLinkTravelTimes().getLinkTravelTime(link1, 100, null, null), 1e-8);
+	}
 }
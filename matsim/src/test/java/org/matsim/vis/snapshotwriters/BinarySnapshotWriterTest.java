@@ -0,0 +1,184 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinarySnapshotWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.vis.snapshotwriters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.config.groups.QSimConfigGroup;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo.AgentState;
+
+public class BinarySnapshotWriterTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteRead() {
+		String filename = utils.getOutputDirectory() + "snapshots.bin.gz";
+		List<String> written = writeSnapshots(new BinarySnapshotWriter(filename));
+
+		RecordingWriter read = new RecordingWriter();
+		new BinarySnapshotReader(read).readFile(filename);
+		Assertions.assertEquals(written, read.lines);
+	}
+
+	/**
+	 * The queued writer must pass on all snapshots in order, and close the underlying writer when finished.
+	 */
+	@Test
+	void testQueuedWriter() {
+		String filename = utils.getOutputDirectory() + "snapshots.bin";
+		List<String> written = writeSnapshots(new QueuedSnapshotWriter(new BinarySnapshotWriter(filename)));
+
+		RecordingWriter read = new RecordingWriter();
+		new BinarySnapshotReader(read).readFile(filename);
+		Assertions.assertEquals(written, read.lines);
+	}
+
+	/**
+	 * If the underlying writer fails, finishing the queued writer must throw, and still close the underlying writer
+	 * and end the thread.
+	 */
+	@Test
+	void testQueuedWriterWithFailingWriter() throws InterruptedException {
+		FailingWriter failing = new FailingWriter();
+		QueuedSnapshotWriter writer = new QueuedSnapshotWriter(failing);
+		Assertions.assertFalse(isWriterThreadAlive(), "the thread must only be started with the first snapshot");
+		writer.beginSnapshot(0);
+		writer.endSnapshot();
+
+		RuntimeException exception = Assertions.assertThrows(RuntimeException.class, writer::finish);
+		Assertions.assertSame(FailingWriter.FAILURE, exception.getCause());
+		Assertions.assertTrue(failing.finished);
+		Assertions.assertFalse(isWriterThreadAlive());
+	}
+
+	@Test
+	void testQueuedWriterWithoutSnapshots() {
+		FailingWriter failing = new FailingWriter();
+		new QueuedSnapshotWriter(failing).finish();
+		Assertions.assertTrue(failing.finished);
+		Assertions.assertFalse(isWriterThreadAlive());
+	}
+
+	/**
+	 * The manager must finish all writers, also if one of them fails.
+	 */
+	@Test
+	void testManagerFinishesAllWriters() {
+		FailingWriter failing = new FailingWriter();
+		FailingWriter other = new FailingWriter();
+		QueuedSnapshotWriter writer = new QueuedSnapshotWriter(failing);
+		writer.beginSnapshot(0);
+		writer.endSnapshot();
+		SnapshotWriterManager manager = new SnapshotWriterManager(1, QSimConfigGroup.FilterSnapshots.no);
+		manager.addSnapshotWriter(writer);
+		manager.addSnapshotWriter(other);
+
+		Assertions.assertThrows(RuntimeException.class, () -> manager.notifyMobsimBeforeCleanup(null));
+		Assertions.assertTrue(failing.finished);
+		Assertions.assertTrue(other.finished);
+	}
+
+	private static boolean isWriterThreadAlive() {
+		String name = "QueuedSnapshotWriter_" + FailingWriter.class.getSimpleName();
+		return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals(name) && thread.isAlive());
+	}
+
+	private static List<String> writeSnapshots(SnapshotWriter writer) {
+		RecordingWriter expected = new RecordingWriter();
+		for (int time = 0; time < 100; time += 10) {
+			writer.beginSnapshot(time);
+			expected.beginSnapshot(time);
+			for (int agent = 0; agent < time; agent += 3) {
+				AgentSnapshotInfo position = new PositionInfo.DirectBuilder()
+						.setPersonId(Id.createPersonId("agent_" + agent))
+						.setEasting(683000.25 + agent * time)
+						.setNorthing(-247000.5 - agent)
+						.setColorValue(agent / 32.0)
+						.setAgentState(agent % 4 == 0 ? null : AgentState.values()[agent % AgentState.values().length])
+						.build();
+				writer.addAgent(position);
+				if (position.getAgentState() != AgentState.PERSON_AT_ACTIVITY) {
+					expected.addAgent(position);
+				}
+			}
+			writer.endSnapshot();
+			expected.endSnapshot();
+		}
+		writer.finish();
+		return expected.lines;
+	}
+
+	private static class RecordingWriter implements SnapshotWriter {
+		private final List<String> lines = new ArrayList<>();
+
+		@Override
+		public void beginSnapshot(double time) {
+			this.lines.add("begin " + time);
+		}
+
+		@Override
+		public void endSnapshot() {
+			this.lines.add("end");
+		}
+
+		@Override
+		public void addAgent(AgentSnapshotInfo position) {
+			this.lines.add(position.getId() + " " + position.getEasting() + " " + position.getNorthing() + " "
+					+ position.getColorValueBetweenZeroAndOne() + " " + position.getAgentState());
+		}
+
+		@Override
+		public void finish() {
+		}
+	}
+
+	private static class FailingWriter implements SnapshotWriter {
+		static final RuntimeException FAILURE = new IllegalStateException("failing on purpose");
+		private volatile boolean finished = false;
+
+		@Override
+		public void beginSnapshot(double time) {
+		}
+
+		@Override
+		public void endSnapshot() {
+			throw FAILURE;
+		}
+
+		@Override
+		public void addAgent(AgentSnapshotInfo position) {
+		}
+
+		@Override
+		public void finish() {
+			this.finished = true;
+		}
+	}
+
+}